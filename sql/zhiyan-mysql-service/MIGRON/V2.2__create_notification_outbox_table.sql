@@ -0,0 +1,26 @@
+-- =============================================
+-- 数据库迁移脚本 V2.2
+-- 功能：创建notification_outbox通知发件箱表
+-- 说明：项目/任务通知与业务数据在同一事务写入，提交后由投递器异步批量发送到消息服务
+-- 时间：2025-11-10
+-- =============================================
+
+CREATE TABLE IF NOT EXISTS notification_outbox (
+    id BIGINT PRIMARY KEY COMMENT '发件箱记录ID（雪花ID）',
+
+    scene VARCHAR(64) NOT NULL COMMENT '消息场景',
+    payload TEXT NOT NULL COMMENT '消息请求体JSON',
+
+    status VARCHAR(16) NOT NULL DEFAULT 'PENDING'
+        COMMENT '投递状态：PENDING-待投递，SENDING-投递中，SENT-已投递，FAILED-投递失败',
+    attempts INT NOT NULL DEFAULT 0 COMMENT '已尝试投递次数',
+    next_attempt_at TIMESTAMP(6) NOT NULL COMMENT '下次可投递时间（退避时间或租约到期时间）',
+    last_error VARCHAR(500) NULL COMMENT '最近一次失败原因',
+
+    created_at TIMESTAMP(6) DEFAULT CURRENT_TIMESTAMP(6) COMMENT '记录创建时间',
+    sent_at TIMESTAMP(6) NULL COMMENT '投递成功时间',
+
+    -- 投递器按 (status, next_attempt_at) 领取到期记录
+    INDEX idx_status_next_attempt (status, next_attempt_at),
+    INDEX idx_sent_at (sent_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='通知发件箱表';
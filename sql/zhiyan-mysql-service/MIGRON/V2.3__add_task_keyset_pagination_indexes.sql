@@ -0,0 +1,38 @@
+-- =============================================
+-- 数据库迁移脚本 V2.3
+-- 功能：为任务列表游标分页（seek）添加组合索引
+-- 说明：游标查询形如 WHERE <过滤条件> AND (sort_key < ? OR (sort_key = ? AND id < ?)) ORDER BY sort_key DESC, id DESC LIMIT n
+--       InnoDB 二级索引叶子节点自带主键 id，因此 (过滤列..., sort_key) 即可覆盖 (sort_key, id) 的有序扫描
+-- 时间：2025-11-12
+-- =============================================
+
+-- ==================== tasks 表 ====================
+
+-- 项目任务列表：project_id + is_deleted 过滤，按 created_at, id 倒序
+ALTER TABLE `tasks`
+ADD INDEX `idx_project_active_created` (`project_id`, `is_deleted`, `created_at`)
+COMMENT '游标分页：项目任务列表';
+
+-- 按状态筛选项目任务：project_id + status + is_deleted 过滤，按 created_at, id 倒序
+ALTER TABLE `tasks`
+ADD INDEX `idx_project_status_active_created` (`project_id`, `status`, `is_deleted`, `created_at`)
+COMMENT '游标分页：按状态筛选项目任务';
+
+-- 我创建的任务：created_by + is_deleted 过滤，按 created_at, id 倒序
+ALTER TABLE `tasks`
+ADD INDEX `idx_creator_active_created` (`created_by`, `is_deleted`, `created_at`)
+COMMENT '游标分页：我创建的任务';
+
+-- 项目即将到期/已逾期任务：project_id + is_deleted 过滤，按 due_date, id 排序
+ALTER TABLE `tasks`
+ADD INDEX `idx_project_active_due` (`project_id`, `is_deleted`, `due_date`)
+COMMENT '游标分页：即将到期/已逾期任务';
+
+-- ==================== task_user 表 ====================
+
+-- 分配给我的任务沿用 V2.1 的 idx_user_active (user_id, is_active, assigned_at)，叶子节点自带主键 id
+
+-- 我的即将到期/已逾期任务：EXISTS 子查询按 (user_id, is_active, task_id) 定位
+ALTER TABLE `task_user`
+ADD INDEX `idx_user_active_task` (`user_id`, `is_active`, `task_id`)
+COMMENT '游标分页：我的即将到期/已逾期任务';
@@ -0,0 +1,11 @@
+-- =============================================
+-- 数据库迁移脚本 V2.4
+-- 功能：成果文件分片上传会话支持直传模式
+-- 说明：直传模式下客户端凭预签名URL把分片直接 PUT 到 MinIO，
+--       完成时服务端通过 ListParts 校验分片后合并，业务服务不经手分片数据
+-- 时间：2025-11-13
+-- =============================================
+
+ALTER TABLE `achievement_file_upload_session`
+ADD COLUMN `direct_upload` TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否直传模式:0-经服务端上传,1-预签名直传'
+AFTER `upload_by`;
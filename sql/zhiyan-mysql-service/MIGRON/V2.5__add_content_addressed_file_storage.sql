@@ -0,0 +1,41 @@
+-- =============================================
+-- 数据库迁移脚本 V2.5
+-- 功能：成果文件与Wiki附件按内容寻址去重存储
+-- 说明：上传时计算文件SHA-256，相同内容在MinIO中只存一份，文件记录通过 content_hash 引用；
+--       内容索引表维护引用计数，归零时删除对象。历史记录 content_hash 为空，仍独占原对象
+-- 时间：2025-11-14
+-- =============================================
+
+ALTER TABLE `achievement_file`
+ADD COLUMN `content_hash` CHAR(64) DEFAULT NULL COMMENT '文件内容SHA-256，为空表示历史文件独占对象'
+AFTER `minio_url`,
+ADD INDEX `idx_content_hash` (`content_hash`);
+
+CREATE TABLE IF NOT EXISTS `achievement_file_blob` (
+    `id` BIGINT NOT NULL COMMENT '内容唯一标识',
+    `sha256` CHAR(64) NOT NULL COMMENT '文件内容SHA-256',
+    `bucket_name` VARCHAR(100) NOT NULL COMMENT 'MinIO桶名',
+    `object_key` VARCHAR(500) NOT NULL COMMENT 'MinIO对象键',
+    `file_size` BIGINT NOT NULL COMMENT '文件大小（字节）',
+    `ref_count` INT NOT NULL DEFAULT 1 COMMENT '引用计数',
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_sha256` (`sha256`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='成果文件内容索引表';
+
+ALTER TABLE `wiki_attachment`
+ADD COLUMN `content_hash` CHAR(64) DEFAULT NULL COMMENT '文件内容SHA-256，为空表示历史附件独占对象'
+AFTER `object_key`,
+ADD INDEX `idx_content_hash` (`content_hash`);
+
+CREATE TABLE IF NOT EXISTS `wiki_attachment_blob` (
+    `id` BIGINT NOT NULL COMMENT '内容唯一标识（雪花ID）',
+    `sha256` CHAR(64) NOT NULL COMMENT '文件内容SHA-256',
+    `object_key` VARCHAR(500) NOT NULL COMMENT 'MinIO对象键',
+    `file_url` VARCHAR(1000) NOT NULL COMMENT '完整访问URL',
+    `file_size` BIGINT NOT NULL COMMENT '文件大小（字节）',
+    `ref_count` INT NOT NULL DEFAULT 1 COMMENT '引用计数（含软删除的附件）',
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_sha256` (`sha256`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Wiki附件内容索引表';
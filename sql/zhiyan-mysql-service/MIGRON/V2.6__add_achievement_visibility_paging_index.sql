@@ -0,0 +1,11 @@
+-- =============================================
+-- 数据库迁移脚本 V2.6
+-- 功能：项目成果列表在数据库侧按可见性过滤并分页
+-- 说明：非项目成员查询形如 WHERE project_id = ? AND is_public = 1 ORDER BY created_at DESC, id DESC LIMIT ?, ?
+--       项目成员查询去掉 is_public 条件；二级索引叶子节点自带主键 id，只取 ID 的分页查询可以走覆盖索引
+-- 时间：2025-11-14
+-- =============================================
+
+ALTER TABLE `achievement`
+ADD INDEX `idx_project_public_created` (`project_id`, `is_public`, `created_at`)
+COMMENT '项目成果列表：可见性过滤 + 创建时间排序';
@@ -0,0 +1,11 @@
+-- =============================================
+-- 数据库迁移脚本 V2.7
+-- 功能：项目成果统计改为单条分组查询
+-- 说明：统计接口执行 SELECT type, status, COUNT(*) FROM achievement WHERE project_id = ? GROUP BY type, status
+--       (project_id, type, status) 联合索引可以直接按索引顺序分组计数，不需要回表和临时表
+-- 时间：2025-11-15
+-- =============================================
+
+ALTER TABLE `achievement`
+ADD INDEX `idx_project_type_status` (`project_id`, `type`, `status`)
+COMMENT '项目成果统计：按类型和状态分组计数';
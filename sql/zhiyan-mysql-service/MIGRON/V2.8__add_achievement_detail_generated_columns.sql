@@ -0,0 +1,38 @@
+-- =============================================
+-- 数据库迁移脚本 V2.8
+-- 功能：成果详情 JSON 字段级更新与常用字段筛选
+-- 说明：详情字段改为 JSON_SET / JSON_REMOVE 原地更新，并用 version 列做乐观校验
+--       论文、专利模板中的常用筛选字段以虚拟生成列暴露并建立二级索引，筛选不再需要解析整个 JSON
+--       JSON_VALUE 需要 MySQL 8.0.21 及以上，取值缺失或类型不符时生成列为 NULL
+-- 时间：2025-11-16
+-- =============================================
+
+-- 历史表结构可能缺少乐观锁版本列
+SET @version_exists = (SELECT COUNT(*) FROM information_schema.COLUMNS
+                       WHERE TABLE_SCHEMA = DATABASE()
+                         AND TABLE_NAME = 'achievement_detail'
+                         AND COLUMN_NAME = 'version');
+SET @ddl = IF(@version_exists = 0,
+              'ALTER TABLE `achievement_detail` ADD COLUMN `version` INT NOT NULL DEFAULT 0 COMMENT ''版本号（乐观锁）''',
+              'SELECT 1');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+ALTER TABLE `achievement_detail`
+ADD COLUMN `gen_journal` VARCHAR(255)
+    GENERATED ALWAYS AS (JSON_VALUE(`detail_data`, '$.journal' RETURNING CHAR(255) NULL ON EMPTY NULL ON ERROR)) VIRTUAL
+    COMMENT '期刊名称（论文）',
+ADD COLUMN `gen_publish_year` BIGINT
+    GENERATED ALWAYS AS (JSON_VALUE(`detail_data`, '$.publishYear' RETURNING SIGNED NULL ON EMPTY NULL ON ERROR)) VIRTUAL
+    COMMENT '发表年份（论文）',
+ADD COLUMN `gen_patent_no` VARCHAR(64)
+    GENERATED ALWAYS AS (JSON_VALUE(`detail_data`, '$.patentNo' RETURNING CHAR(64) NULL ON EMPTY NULL ON ERROR)) VIRTUAL
+    COMMENT '专利号（专利）',
+ADD COLUMN `gen_patent_type` VARCHAR(32)
+    GENERATED ALWAYS AS (JSON_VALUE(`detail_data`, '$.patentType' RETURNING CHAR(32) NULL ON EMPTY NULL ON ERROR)) VIRTUAL
+    COMMENT '专利类型（专利）',
+ADD INDEX `idx_detail_journal` (`gen_journal`),
+ADD INDEX `idx_detail_publish_year` (`gen_publish_year`),
+ADD INDEX `idx_detail_patent_no` (`gen_patent_no`),
+ADD INDEX `idx_detail_patent_type` (`gen_patent_type`);
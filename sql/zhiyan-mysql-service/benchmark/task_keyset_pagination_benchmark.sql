@@ -0,0 +1,89 @@
+-- =============================================
+-- 任务列表分页基准：OFFSET 分页 vs 游标（seek）分页
+-- 用法：在测试库执行（会写入 20 万条测试任务，执行完后清理），需 MySQL 8.0.18+ 支持 EXPLAIN ANALYZE
+-- 对比：每页 20 条，第 1 页与第 500 页（OFFSET 9980）
+-- 时间：2025-11-12
+-- =============================================
+
+-- tasks.project_id 有外键约束，借用测试库中已有的一个项目
+SET @bench_project_id = (SELECT id FROM projects ORDER BY id LIMIT 1);
+SET @bench_user_id = 990000000000000002;
+SET @bench_id_base = 990000000000000000;
+
+-- ==================== 步骤1：准备数据 ====================
+
+DROP PROCEDURE IF EXISTS bench_fill_tasks;
+DELIMITER $$
+CREATE PROCEDURE bench_fill_tasks(IN total INT)
+BEGIN
+    DECLARE i INT DEFAULT 0;
+    WHILE i < total DO
+        INSERT INTO tasks (id, project_id, title, status, priority, assignee_id, due_date,
+                           is_deleted, is_milestone, created_by, created_at, updated_at, version)
+        VALUES (@bench_id_base + i, @bench_project_id, CONCAT('bench-task-', i),
+                ELT(1 + (i % 4), 'TODO', 'IN_PROGRESS', 'BLOCKED', 'DONE'), 'MEDIUM', JSON_ARRAY(),
+                DATE_ADD(CURDATE(), INTERVAL (i % 60) - 30 DAY),
+                (i % 50 = 0), 0, @bench_user_id,
+                -- 每秒 2 条，制造大量 created_at 相同的记录，验证 id 决胜列
+                DATE_SUB(NOW(), INTERVAL (i DIV 2) SECOND), NOW(), 0);
+        SET i = i + 1;
+    END WHILE;
+END$$
+DELIMITER ;
+
+CALL bench_fill_tasks(200000);
+ANALYZE TABLE tasks;
+
+-- ==================== 步骤2：OFFSET 分页 ====================
+
+-- 第 1 页
+EXPLAIN ANALYZE
+SELECT * FROM tasks
+WHERE project_id = @bench_project_id AND is_deleted = 0
+ORDER BY created_at DESC, id DESC
+LIMIT 20 OFFSET 0;
+
+-- 第 500 页：需要扫描并丢弃前 9980 行
+EXPLAIN ANALYZE
+SELECT * FROM tasks
+WHERE project_id = @bench_project_id AND is_deleted = 0
+ORDER BY created_at DESC, id DESC
+LIMIT 20 OFFSET 9980;
+
+-- OFFSET 分页每次还要额外执行的 count 查询
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM tasks
+WHERE project_id = @bench_project_id AND is_deleted = 0;
+
+-- ==================== 步骤3：游标分页 ====================
+
+-- 第 1 页：哨兵值（与 TaskCursorUtils.MAX_DATE_TIME / Long.MAX_VALUE 一致）
+EXPLAIN ANALYZE
+SELECT * FROM tasks
+WHERE project_id = @bench_project_id AND is_deleted = 0
+  AND (created_at < '9999-12-31 23:59:59'
+       OR (created_at = '9999-12-31 23:59:59' AND id < 9223372036854775807))
+ORDER BY created_at DESC, id DESC
+LIMIT 21;
+
+-- 第 500 页：取第 499 页最后一条作为游标
+SELECT created_at, id INTO @cursor_at, @cursor_id FROM tasks
+WHERE project_id = @bench_project_id AND is_deleted = 0
+ORDER BY created_at DESC, id DESC
+LIMIT 1 OFFSET 9979;
+
+EXPLAIN ANALYZE
+SELECT * FROM tasks
+WHERE project_id = @bench_project_id AND is_deleted = 0
+  AND (created_at < @cursor_at OR (created_at = @cursor_at AND id < @cursor_id))
+ORDER BY created_at DESC, id DESC
+LIMIT 21;
+
+-- 预期：
+--   OFFSET 第 500 页的 "rows" 约为 10000，耗时随页码线性增长；
+--   游标第 1 页与第 500 页都只读取约 21 行（Index range scan on idx_project_active_created），耗时基本一致。
+
+-- ==================== 步骤4：清理 ====================
+
+DELETE FROM tasks WHERE project_id = @bench_project_id AND id >= @bench_id_base AND title LIKE 'bench-task-%';
+DROP PROCEDURE IF EXISTS bench_fill_tasks;
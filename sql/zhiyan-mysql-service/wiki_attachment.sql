@@ -14,6 +14,7 @@ CREATE TABLE `wiki_attachment` (
     `file_type` VARCHAR(50) DEFAULT NULL COMMENT '文件类型/扩展名（jpg/png/pdf/zip等）',
     `bucket_name` VARCHAR(100) NOT NULL COMMENT 'MinIO桶名',
     `object_key` VARCHAR(500) NOT NULL COMMENT 'MinIO对象键（存储路径）',
+    `content_hash` CHAR(64) DEFAULT NULL COMMENT '文件内容SHA-256，为空表示历史附件独占对象',
     `file_url` VARCHAR(1000) NOT NULL COMMENT '完整访问URL',
     `description` VARCHAR(500) DEFAULT NULL COMMENT '文件描述/备注',
     `upload_by` BIGINT NOT NULL COMMENT '上传者ID',
@@ -26,9 +27,27 @@ CREATE TABLE `wiki_attachment` (
     INDEX `idx_type` (`attachment_type`),
     INDEX `idx_upload_by` (`upload_by`),
     INDEX `idx_upload_at` (`upload_at`),
-    INDEX `idx_object_key` (`object_key`(255))
+    INDEX `idx_object_key` (`object_key`(255)),
+    INDEX `idx_content_hash` (`content_hash`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Wiki附件表';
 
+-- Wiki附件内容索引表
+-- 相同内容（SHA-256）的附件在MinIO中只存一份，引用计数归零时删除对象
+
+DROP TABLE IF EXISTS `wiki_attachment_blob`;
+
+CREATE TABLE `wiki_attachment_blob` (
+    `id` BIGINT NOT NULL COMMENT '内容唯一标识（雪花ID）',
+    `sha256` CHAR(64) NOT NULL COMMENT '文件内容SHA-256',
+    `object_key` VARCHAR(500) NOT NULL COMMENT 'MinIO对象键',
+    `file_url` VARCHAR(1000) NOT NULL COMMENT '完整访问URL',
+    `file_size` BIGINT NOT NULL COMMENT '文件大小（字节）',
+    `ref_count` INT NOT NULL DEFAULT 1 COMMENT '引用计数（含软删除的附件）',
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_sha256` (`sha256`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Wiki附件内容索引表';
+
 -- 插入示例数据（可选）
 -- INSERT INTO `wiki_attachment` 
 -- (`id`, `wiki_page_id`, `project_id`, `attachment_type`, `file_name`, `file_size`, `file_type`, 
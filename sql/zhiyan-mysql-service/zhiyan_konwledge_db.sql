@@ -14,6 +14,7 @@ CREATE TABLE achievement (
     published_at TIMESTAMP COMMENT '发布时间',
 
     INDEX idx_project_status (project_id, status),
+    INDEX idx_project_type_status (project_id, type, status),
     INDEX idx_creator (creator_id),
     INDEX idx_type (type)
 ) COMMENT='成果主表';
@@ -37,6 +38,16 @@ CREATE TABLE achievement_detail (
 
     abstract TEXT COMMENT '摘要/描述（冗余存储，便于搜索）',
 
+    -- 常用筛选字段的生成列（见 MIGRON/V2.8）
+    gen_journal VARCHAR(255) GENERATED ALWAYS AS (JSON_VALUE(detail_data, '$.journal' RETURNING CHAR(255) NULL ON EMPTY NULL ON ERROR)) VIRTUAL COMMENT '期刊名称（论文）',
+    gen_publish_year BIGINT GENERATED ALWAYS AS (JSON_VALUE(detail_data, '$.publishYear' RETURNING SIGNED NULL ON EMPTY NULL ON ERROR)) VIRTUAL COMMENT '发表年份（论文）',
+    gen_patent_no VARCHAR(64) GENERATED ALWAYS AS (JSON_VALUE(detail_data, '$.patentNo' RETURNING CHAR(64) NULL ON EMPTY NULL ON ERROR)) VIRTUAL COMMENT '专利号（专利）',
+    gen_patent_type VARCHAR(32) GENERATED ALWAYS AS (JSON_VALUE(detail_data, '$.patentType' RETURNING CHAR(32) NULL ON EMPTY NULL ON ERROR)) VIRTUAL COMMENT '专利类型（专利）',
+
+    INDEX idx_detail_journal (gen_journal),
+    INDEX idx_detail_publish_year (gen_publish_year),
+    INDEX idx_detail_patent_no (gen_patent_no),
+    INDEX idx_detail_patent_type (gen_patent_type),
     FOREIGN KEY (achievement_id) REFERENCES achievement(id) ON DELETE CASCADE
 ) COMMENT='成果类型模板详情表';
 
@@ -54,6 +65,7 @@ CREATE TABLE achievement_file (
     bucket_name VARCHAR(100) NOT NULL COMMENT 'MinIO桶名',
     object_key VARCHAR(500) NOT NULL COMMENT 'MinIO对象键',
     minio_url VARCHAR(1000) NOT NULL COMMENT '完整访问URL',
+    content_hash CHAR(64) DEFAULT NULL COMMENT '文件内容SHA-256，为空表示历史文件独占对象',
 
 #     -- 版本控制
 #     version INT DEFAULT 1 COMMENT '文件版本号',
@@ -63,11 +75,26 @@ CREATE TABLE achievement_file (
     upload_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
 
     INDEX idx_achievement (achievement_id),
+    INDEX idx_content_hash (content_hash),
 #     INDEX idx_latest (achievement_id, is_latest),
     FOREIGN KEY (achievement_id) REFERENCES achievement(id) ON DELETE CASCADE
 ) COMMENT='文件管理表';
 
 
+-- 成果文件内容索引表（内容寻址去重，相同内容只存一份）
+CREATE TABLE `achievement_file_blob` (
+    `id` BIGINT NOT NULL COMMENT '内容唯一标识',
+    `sha256` CHAR(64) NOT NULL COMMENT '文件内容SHA-256',
+    `bucket_name` VARCHAR(100) NOT NULL COMMENT 'MinIO桶名',
+    `object_key` VARCHAR(500) NOT NULL COMMENT 'MinIO对象键',
+    `file_size` BIGINT NOT NULL COMMENT '文件大小（字节）',
+    `ref_count` INT NOT NULL DEFAULT 1 COMMENT '引用计数',
+    `created_at` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    PRIMARY KEY (`id`),
+    UNIQUE KEY `uk_sha256` (`sha256`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='成果文件内容索引表';
+
+
 -- 评审记录表（暂时不实现评审）
 CREATE TABLE achievement_review (
     id BIGINT PRIMARY KEY AUTO_INCREMENT,
@@ -135,6 +162,7 @@ CREATE TABLE `achievement_file_upload_session` (
     `object_key` VARCHAR(500) NOT NULL COMMENT 'MinIO对象键',
     `bucket_name` VARCHAR(100) NOT NULL COMMENT '桶名称',
     `upload_by` BIGINT NOT NULL COMMENT '上传用户ID',
+    `direct_upload` TINYINT(1) NOT NULL DEFAULT 0 COMMENT '是否直传模式:0-经服务端上传,1-预签名直传',
     `status` VARCHAR(20) NOT NULL DEFAULT 'IN_PROGRESS' COMMENT '状态:IN_PROGRESS,COMPLETED,FAILED,CANCELLED',
     `created_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     `updated_at` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
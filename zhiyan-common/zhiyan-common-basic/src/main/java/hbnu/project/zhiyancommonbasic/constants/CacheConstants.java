@@ -27,6 +27,18 @@ public class CacheConstants {
     public static final String PWD_ERR_CNT_KEY = "pwd_err_cnt:";
     public static final String LOGIN_BLACKLIST_KEY = "login_blacklist:";
 
+    /**
+     * 项目成员变更广播频道
+     * 消息体为 "projectId:userId"，各服务节点收到后失效本地的成员角色缓存
+     */
+    public static final String PROJECT_MEMBER_CHANGE_TOPIC = "project:member:change";
+
+    /**
+     * 成果数量聚合变更广播频道
+     * 消息体为 "nodeId:projectId"，其他知识库节点收到后失效本地的项目成果数量聚合
+     */
+    public static final String ACHIEVEMENT_STATS_CHANGE_TOPIC = "knowledge:achievement:stats:change";
+
     /**
      * 缓存过期时间（秒）
      */
@@ -1,12 +1,17 @@
 package hbnu.project.zhiyancommonelasticsearch.config;
 
+import org.springframework.boot.DefaultPropertiesPropertySource;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.env.EnvironmentPostProcessor;
 import org.springframework.core.Ordered;
 import org.springframework.core.env.ConfigurableEnvironment;
 
+import java.util.Map;
+
 /**
  * 健康检查配置注入
+ * 同时把 easy-es 默认关闭：依赖本模块的服务使用 ElasticsearchClient，
+ * 未配置 easy-es.address 时 easy-es 自动配置会导致启动失败，需要时显式配置 easy-es.enable=true
  *
  * @author ErgouTree
  */
@@ -15,6 +20,8 @@ public class ActuatorEnvironmentPostProcessor implements EnvironmentPostProcesso
 	@Override
 	public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
         System.setProperty("management.health.elasticsearch.enabled", "false");
+        // 写入 defaultProperties，它始终排在最后，任何显式配置（含 Nacos）都优先
+        DefaultPropertiesPropertySource.addOrMerge(Map.of("easy-es.enable", "false"), environment.getPropertySources());
 	}
 
 	@Override
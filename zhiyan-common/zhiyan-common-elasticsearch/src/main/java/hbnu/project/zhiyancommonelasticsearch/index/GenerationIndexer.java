@@ -0,0 +1,255 @@
+package hbnu.project.zhiyancommonelasticsearch.index;
+
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 按代次全量重建的检索索引维护
+ * 业务变更提交后登记ID，合并后按批从数据库重新加载并写入索引，失败的批次定时重试；
+ * 启动时索引不存在则全量构建，另有每日全量重建兜底漏掉的变更。
+ * 全量重建按ID键集分页写入本轮代次，结束后只处理不属于本代次的文档，重建期间并发的增量写入不会被误删；
+ * 全量重建由分布式锁保证同一时刻只有一个节点执行，每日重建每天只由一个节点认领。
+ * 子类只负责按ID加载数据并映射为索引文档
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+public abstract class GenerationIndexer implements ApplicationRunner {
+
+    /**
+     * 变更合并延迟（毫秒），同一ID的连续修改只写一次索引
+     */
+    private static final long FLUSH_DELAY_MILLIS = 500;
+
+    /**
+     * 失败重试轮询间隔（秒）
+     */
+    private static final long RETRY_INTERVAL_SECONDS = 30;
+
+    /**
+     * 每日重建认领标记的有效期，有效期内其他节点跳过当天的定时重建
+     */
+    private static final Duration DAILY_REINDEX_CLAIM_TTL = Duration.ofHours(20);
+
+    private final GenerationSearchIndex searchIndex;
+
+    /**
+     * 日志中的索引名称
+     */
+    private final String displayName;
+
+    /**
+     * 单批处理的ID数量
+     */
+    private final int batchSize;
+
+    /**
+     * 每日全量重建的时刻
+     */
+    private final int reindexHour;
+
+    /**
+     * 全量重建互斥锁和每日重建认领标记
+     */
+    private final String reindexLockKey;
+    private final String dailyReindexClaimKey;
+
+    @Resource
+    private ObjectProvider<RedissonClient> redissonClientProvider;
+
+    @Resource(name = "scheduledExecutorService")
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * 待写入索引的ID
+     */
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicBoolean reindexing = new AtomicBoolean(false);
+
+    /**
+     * @param searchIndex    维护的索引
+     * @param displayName    日志中的索引名称
+     * @param redisKeyPrefix 分布式锁和认领标记的键前缀
+     * @param batchSize      单批处理的ID数量
+     * @param reindexHour    每日全量重建的时刻
+     */
+    protected GenerationIndexer(GenerationSearchIndex searchIndex, String displayName, String redisKeyPrefix,
+                                int batchSize, int reindexHour) {
+        this.searchIndex = searchIndex;
+        this.displayName = displayName;
+        this.batchSize = batchSize;
+        this.reindexHour = reindexHour;
+        this.reindexLockKey = redisKeyPrefix + ":reindex-lock";
+        this.dailyReindexClaimKey = redisKeyPrefix + ":daily-claim";
+    }
+
+    /**
+     * 按ID升序取 lastId 之后的一页ID
+     */
+    protected abstract List<Long> findIdsAfter(long lastId, int limit);
+
+    /**
+     * 从数据库加载一批数据写入索引，数据库中已不存在的从索引删除
+     *
+     * @param generation 全量重建代次，增量写入传 null
+     * @return 是否全部成功
+     */
+    protected abstract boolean indexBatch(List<Long> ids, String generation) throws Exception;
+
+    /**
+     * 处理一页不属于本轮代次的文档（重建前遗留的，或重建期间由增量写入的）
+     *
+     * @return 改写或删除的文档数
+     */
+    protected abstract long reconcileOutsideGeneration(List<Long> ids) throws Exception;
+
+    protected ScheduledExecutorService getScheduledExecutorService() {
+        return scheduledExecutorService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        scheduledExecutorService.execute(() -> {
+            try {
+                if (searchIndex.ensureIndex()) {
+                    reindexAll();
+                }
+            } catch (Exception e) {
+                log.error("初始化{}失败", displayName, e);
+            }
+        });
+        scheduledExecutorService.scheduleWithFixedDelay(this::flushSafely,
+                RETRY_INTERVAL_SECONDS, RETRY_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        scheduledExecutorService.scheduleAtFixedRate(this::reindexAllSafely,
+                delayUntilNextReindex(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+        log.info("{}维护已启动: index={}", displayName, searchIndex.getIndexName());
+    }
+
+    /**
+     * 登记变更，延迟合并后写入索引，应在业务事务提交后调用
+     */
+    protected void enqueue(Long id) {
+        if (id == null) {
+            return;
+        }
+        pending.add(id);
+        if (flushScheduled.compareAndSet(false, true)) {
+            scheduledExecutorService.schedule(() -> {
+                flushScheduled.set(false);
+                flushSafely();
+            }, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 全量重建索引
+     */
+    public void reindexAll() {
+        if (!reindexing.compareAndSet(false, true)) {
+            log.info("{}正在全量重建，忽略本次请求", displayName);
+            return;
+        }
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        RLock lock = redissonClient != null ? redissonClient.getLock(reindexLockKey) : null;
+        try {
+            // 未配置 Redis 时只能按单节点处理
+            if (lock != null && !lock.tryLock()) {
+                log.info("其他节点正在全量重建{}，跳过本次重建", displayName);
+                return;
+            }
+            long startedAt = System.currentTimeMillis();
+            String generation = UUID.randomUUID().toString();
+            long lastId = 0;
+            int total = 0;
+            while (true) {
+                List<Long> ids = findIdsAfter(lastId, batchSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                if (!indexBatch(ids, generation)) {
+                    throw new IllegalStateException("批量写入" + displayName + "失败: lastId=" + lastId);
+                }
+                total += ids.size();
+                lastId = ids.getLast();
+            }
+            long[] reconciled = {0};
+            searchIndex.forEachIdOutsideGeneration(generation, batchSize,
+                    ids -> reconciled[0] += reconcileOutsideGeneration(ids));
+            log.info("{}全量重建完成: generation={}, indexed={}, reconciled={}, cost={}ms",
+                    displayName, generation, total, reconciled[0], System.currentTimeMillis() - startedAt);
+        } catch (Exception e) {
+            log.error("{}全量重建失败", displayName, e);
+        } finally {
+            if (lock != null && lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+            reindexing.set(false);
+        }
+    }
+
+    private void reindexAllSafely() {
+        try {
+            RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+            if (redissonClient != null && !redissonClient.<String>getBucket(dailyReindexClaimKey)
+                    .setIfAbsent(UUID.randomUUID().toString(), DAILY_REINDEX_CLAIM_TTL)) {
+                log.debug("今日{}重建已由其他节点认领", displayName);
+                return;
+            }
+            searchIndex.ensureIndex();
+            reindexAll();
+        } catch (Exception e) {
+            log.error("{}定时重建失败", displayName, e);
+        }
+    }
+
+    /**
+     * 取出待处理的ID按批写入，失败的批次放回队列等待下次重试
+     */
+    private synchronized void flushSafely() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(pending);
+        pending.removeAll(ids);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            boolean ok;
+            try {
+                ok = indexBatch(batch, null);
+            } catch (Exception e) {
+                log.error("写入{}失败: count={}", displayName, batch.size(), e);
+                ok = false;
+            }
+            if (!ok) {
+                pending.addAll(batch);
+            }
+        }
+    }
+
+    private long delayUntilNextReindex() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime next = now.toLocalDate().atTime(reindexHour, 0);
+        if (!next.isAfter(now)) {
+            next = next.plusDays(1);
+        }
+        return Duration.between(now, next).toMillis();
+    }
+}
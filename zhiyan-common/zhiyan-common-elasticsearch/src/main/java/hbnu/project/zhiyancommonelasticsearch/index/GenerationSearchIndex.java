@@ -0,0 +1,153 @@
+package hbnu.project.zhiyancommonelasticsearch.index;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import hbnu.project.zhiyancommonelasticsearch.util.ElasticsearchUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 按代次全量重建的检索索引
+ * 文档以数据库主键为ID，全量重建时写入的文档带本轮代次，重建结束后通过 PIT 快照遍历不属于本轮代次的文档做清理；
+ * 子类只定义字段映射、文档写入和检索请求，由 {@link GenerationIndexer} 维护索引内容
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+public abstract class GenerationSearchIndex {
+
+    /**
+     * 代次字段，全量重建写入的文档带本轮代次，增量写入的为空
+     */
+    public static final String GENERATION_FIELD = "generation";
+
+    /**
+     * 全量重建清理阶段 PIT 快照的保活时间
+     */
+    private static final String PIT_KEEP_ALIVE = "2m";
+
+    protected final ElasticsearchClient elasticsearchClient;
+
+    protected final ElasticsearchUtil elasticsearchUtil;
+
+    private final String indexName;
+
+    protected GenerationSearchIndex(ElasticsearchClient elasticsearchClient, ElasticsearchUtil elasticsearchUtil,
+                                    String indexName) {
+        this.elasticsearchClient = elasticsearchClient;
+        this.elasticsearchUtil = elasticsearchUtil;
+        this.indexName = indexName;
+    }
+
+    /**
+     * 按页处理文档ID
+     */
+    @FunctionalInterface
+    public interface IdPageHandler {
+        void handle(List<Long> ids) throws Exception;
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    /**
+     * 定义业务字段的映射，代次字段由基类统一添加
+     */
+    protected abstract void defineMappings(TypeMapping.Builder mappings);
+
+    /**
+     * 索引已存在时的处理，默认不做任何事
+     */
+    protected void onIndexExists() throws IOException {
+    }
+
+    /**
+     * 索引不存在时按预定义结构创建
+     *
+     * @return 本次是否新建了索引
+     */
+    public boolean ensureIndex() throws IOException {
+        if (elasticsearchUtil.indexExists(indexName)) {
+            onIndexExists();
+            return false;
+        }
+        elasticsearchClient.indices().create(c -> c
+                .index(indexName)
+                .mappings(m -> {
+                    defineMappings(m);
+                    return m.properties(GENERATION_FIELD, p -> p.keyword(k -> k));
+                }));
+        log.info("检索索引已创建: index={}", indexName);
+        return true;
+    }
+
+    /**
+     * 批量删除文档
+     */
+    public boolean delete(Collection<Long> ids) throws IOException {
+        if (ids.isEmpty()) {
+            return true;
+        }
+        BulkRequest.Builder bulk = new BulkRequest.Builder();
+        for (Long id : ids) {
+            bulk.operations(op -> op.delete(d -> d.index(indexName).id(String.valueOf(id))));
+        }
+        BulkResponse response = elasticsearchClient.bulk(bulk.build());
+        // 文档本就不存在时返回 not_found，不算失败
+        return response.items().stream().noneMatch(item -> item.error() != null);
+    }
+
+    /**
+     * 遍历不属于指定重建代次的文档ID（重建前遗留的，或重建期间由增量写入的）
+     * 使用 PIT 快照翻页，处理器删除或改写文档不会影响后续页
+     *
+     * @param generation 本轮重建代次
+     * @param pageSize   每页条数
+     * @param handler    每页文档ID的处理器
+     */
+    public void forEachIdOutsideGeneration(String generation, int pageSize, IdPageHandler handler) throws Exception {
+        String pitId = elasticsearchClient.openPointInTime(o -> o
+                .index(indexName)
+                .keepAlive(t -> t.time(PIT_KEEP_ALIVE))).id();
+        try {
+            List<FieldValue> searchAfter = null;
+            while (true) {
+                String currentPit = pitId;
+                List<FieldValue> after = searchAfter;
+                SearchResponse<Void> response = elasticsearchClient.search(s -> {
+                    s.pit(p -> p.id(currentPit).keepAlive(t -> t.time(PIT_KEEP_ALIVE)))
+                            .size(pageSize)
+                            .source(src -> src.fetch(false))
+                            .query(q -> q.bool(b -> b.mustNot(m -> m.term(t -> t
+                                    .field(GENERATION_FIELD).value(generation)))))
+                            .sort(so -> so.field(f -> f.field("_shard_doc")));
+                    if (after != null) {
+                        s.searchAfter(after);
+                    }
+                    return s;
+                }, Void.class);
+                List<Hit<Void>> hits = response.hits().hits();
+                if (hits.isEmpty()) {
+                    return;
+                }
+                if (response.pitId() != null) {
+                    pitId = response.pitId();
+                }
+                handler.handle(hits.stream().map(hit -> Long.valueOf(hit.id())).toList());
+                searchAfter = hits.getLast().sort();
+            }
+        } finally {
+            String closingPit = pitId;
+            elasticsearchClient.closePointInTime(c -> c.id(closingPit));
+        }
+    }
+}
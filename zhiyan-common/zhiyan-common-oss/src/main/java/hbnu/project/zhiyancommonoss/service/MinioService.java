@@ -13,7 +13,12 @@ import hbnu.project.zhiyancommonoss.util.MinioUtils;
 import io.minio.*;
 import io.minio.http.Method;
 import io.minio.messages.Bucket;
+import io.minio.messages.Expiration;
 import io.minio.messages.Item;
+import io.minio.messages.LifecycleConfiguration;
+import io.minio.messages.LifecycleRule;
+import io.minio.messages.RuleFilter;
+import io.minio.messages.Status;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +38,7 @@ import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
 import software.amazon.awssdk.services.s3.model.ListPartsRequest;
 import software.amazon.awssdk.services.s3.model.ListPartsResponse;
+import software.amazon.awssdk.services.s3.model.Part;
 import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 import software.amazon.awssdk.services.s3.S3Configuration;
@@ -41,8 +47,10 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -253,6 +261,53 @@ public class MinioService {
         }
     }
 
+    /**
+     * 上传输入流（长度已知）
+     * 大文件按分片直传，不在内存中整体缓冲；输入流由调用方关闭
+     *
+     * @param inputStream 输入流
+     * @param size        内容长度
+     * @param bucketType  桶类型
+     * @param objectKey   对象键
+     * @param contentType 内容类型
+     * @return 上传结果
+     */
+    public FileUploadRequest uploadStream(InputStream inputStream, long size, BucketType bucketType,
+                                          String objectKey, String contentType) {
+        String bucketName = minioUtils.getBucketName(bucketType);
+
+        try {
+            if (!bucketExists(bucketName)) {
+                createBucket(bucketName);
+            }
+
+            if (StringUtils.isEmpty(contentType)) {
+                contentType = "application/octet-stream";
+            }
+
+            PutObjectArgs putObjectArgs = PutObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectKey)
+                    .stream(inputStream, size, -1)
+                    .contentType(contentType)
+                    .build();
+
+            ObjectWriteResponse response = minioClient.putObject(putObjectArgs);
+            String fileUrl = minioUtils.getFileUrl(bucketName, objectKey);
+
+            log.info("输入流上传成功: bucket={}, object={}, size={}", bucketName, objectKey, size);
+
+            return FileUploadRequest.builder()
+                    .url(fileUrl)
+                    .filename(FileUtils.getName(objectKey))
+                    .eTag(response.etag())
+                    .build();
+        } catch (Exception e) {
+            log.error("输入流上传失败: bucket={}, object={}", bucketName, objectKey, e);
+            throw new FileUploadException("文件上传失败: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 下载文件
      *
@@ -280,6 +335,53 @@ public class MinioService {
     }
 
 
+    /**
+     * 按字节范围下载文件（对应 HTTP Range 请求）
+     *
+     * @param bucketType 桶类型
+     * @param objectKey  对象键
+     * @param offset     起始偏移
+     * @param length     读取长度
+     * @return 文件流
+     */
+    public InputStream downloadFileRange(BucketType bucketType, String objectKey, long offset, long length) {
+        String bucketName = minioUtils.getBucketName(bucketType);
+
+        try {
+            return minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectKey)
+                    .offset(offset)
+                    .length(length)
+                    .build());
+        } catch (Exception e) {
+            log.error("文件范围下载失败: bucket={}, object={}, offset={}, length={}", bucketName, objectKey, offset, length, e);
+            throw new FileDownloadException("文件下载失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 获取对象元信息（大小、ETag、最后修改时间）
+     *
+     * @param bucketType 桶类型
+     * @param objectKey  对象键
+     * @return 对象元信息
+     */
+    public StatObjectResponse statObject(BucketType bucketType, String objectKey) {
+        String bucketName = minioUtils.getBucketName(bucketType);
+
+        try {
+            return minioClient.statObject(StatObjectArgs.builder()
+                    .bucket(bucketName)
+                    .object(objectKey)
+                    .build());
+        } catch (Exception e) {
+            log.error("获取对象信息失败: bucket={}, object={}", bucketName, objectKey, e);
+            throw new FileDownloadException("获取文件信息失败: " + e.getMessage(), e);
+        }
+    }
+
+
     /**
      * 获取文件预签名URL（用于临时访问）
      *
@@ -288,17 +390,30 @@ public class MinioService {
      * @param expiry     过期时间（秒）
      * @return 预签名URL
      */
-    @SneakyThrows
     public String getPresignedUrl(BucketType bucketType, String objectKey, int expiry) {
+        // 提取文件名（从objectKey中获取最后一部分）
+        String fileName = objectKey;
+        if (objectKey.contains("/")) {
+            fileName = objectKey.substring(objectKey.lastIndexOf("/") + 1);
+        }
+        return getPresignedUrl(bucketType, objectKey, expiry, fileName);
+    }
+
+    /**
+     * 获取文件预签名URL，并指定浏览器下载时使用的文件名
+     * 内容寻址存储的对象键不含原始文件名，需要由调用方传入
+     *
+     * @param bucketType 桶类型
+     * @param objectKey  对象键
+     * @param expiry     过期时间（秒）
+     * @param fileName   下载文件名
+     * @return 预签名URL
+     */
+    @SneakyThrows
+    public String getPresignedUrl(BucketType bucketType, String objectKey, int expiry, String fileName) {
         String bucketName = minioUtils.getBucketName(bucketType);
 
         try{
-            // 提取文件名（从objectKey中获取最后一部分）
-            String fileName = objectKey;
-            if (objectKey.contains("/")) {
-                fileName = objectKey.substring(objectKey.lastIndexOf("/") + 1);
-            }
-            
             // 对文件名进行URL编码，支持中文文件名
             String encodedFileName;
             try {
@@ -449,6 +564,44 @@ public class MinioService {
     }
 
 
+    /**
+     * 为指定前缀设置过期删除的生命周期规则
+     * 按规则ID新增或替换，桶上已有的其他规则保持不变；桶不存在时先创建（新部署启动时还没有上传过文件）
+     *
+     * @param bucketType 桶类型
+     * @param ruleId     规则ID
+     * @param prefix     对象键前缀
+     * @param days       创建后保留的天数
+     */
+    public void ensureExpirationRule(BucketType bucketType, String ruleId, String prefix, int days) {
+        String bucketName = minioUtils.getBucketName(bucketType);
+
+        try {
+            createBucket(bucketName);
+            LifecycleConfiguration existing = minioClient.getBucketLifecycle(
+                    GetBucketLifecycleArgs.builder().bucket(bucketName).build());
+            List<LifecycleRule> rules = new ArrayList<>();
+            if (existing != null && existing.rules() != null) {
+                existing.rules().stream()
+                        .filter(rule -> !ruleId.equals(rule.id()))
+                        .forEach(rules::add);
+            }
+            rules.add(new LifecycleRule(Status.ENABLED, null,
+                    new Expiration((ZonedDateTime) null, days, null),
+                    new RuleFilter(prefix), ruleId, null, null, null));
+
+            minioClient.setBucketLifecycle(SetBucketLifecycleArgs.builder()
+                    .bucket(bucketName)
+                    .config(new LifecycleConfiguration(rules))
+                    .build());
+            log.info("设置生命周期规则成功: bucket={}, rule={}, prefix={}, days={}", bucketName, ruleId, prefix, days);
+
+        } catch (Exception e) {
+            log.error("设置生命周期规则失败: bucket={}, rule={}", bucketName, ruleId, e);
+            throw new FileException("设置生命周期规则失败: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * 桶之间迁移复制文件
      *
@@ -566,15 +719,8 @@ public class MinioService {
                                 .build());
                     }
                 } else {
-                    // 若未提供parts，则自动列举已上传分片
-                    ListPartsResponse listResp = s3.listParts(
-                            ListPartsRequest.builder()
-                                    .bucket(bucketName)
-                                    .key(objectKey)
-                                    .uploadId(uploadId)
-                                    .build()
-                    );
-                    listResp.parts().forEach(ap -> completed.add(
+                    // 若未提供parts，则自动列举已上传分片（超过1000个分片时需要翻页）
+                    listAllParts(s3, bucketName, objectKey, uploadId).forEach(ap -> completed.add(
                             CompletedPart.builder().partNumber(ap.partNumber()).eTag(ap.eTag()).build()
                     ));
                 }
@@ -601,11 +747,21 @@ public class MinioService {
         }
     }
 
+    /**
+     * 使用已列举的分片完成上传（分片来自 listAllParts，调用方已校验分片号与大小）
+     */
+    public String completeMultipartUpload(String bucketName, String objectKey, String uploadId, List<Part> parts) {
+        io.minio.messages.Part[] minioParts = parts.stream()
+                .map(p -> new io.minio.messages.Part(p.partNumber(), p.eTag()))
+                .toArray(io.minio.messages.Part[]::new);
+        return completeMultipartUpload(bucketName, objectKey, uploadId, minioParts);
+    }
+
     /**
      * 自动列举分片并完成上传（简化上层调用）
      */
     public String completeMultipartUploadAuto(String bucketName, String objectKey, String uploadId) {
-        return completeMultipartUpload(bucketName, objectKey, uploadId, null);
+        return completeMultipartUpload(bucketName, objectKey, uploadId, (io.minio.messages.Part[]) null);
     }
 
     /**
@@ -656,4 +812,72 @@ public class MinioService {
             throw new OssException("列出分片失败: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * 列出全部已上传分片，自动处理 ListParts 每次最多返回1000个分片的翻页
+     *
+     * @param bucketName 桶名称
+     * @param objectKey 对象键
+     * @param uploadId 上传ID
+     * @return 按分片号升序的分片列表
+     */
+    public List<Part> listAllParts(String bucketName, String objectKey, String uploadId) {
+        try (S3Client s3 = buildS3Client()) {
+            return listAllParts(s3, bucketName, objectKey, uploadId);
+        } catch (Exception e) {
+            log.error("列出分片失败: bucket={}, object={}, uploadId={}",
+                    bucketName, objectKey, uploadId, e);
+            throw new OssException("列出分片失败: " + e.getMessage(), e);
+        }
+    }
+
+    private List<Part> listAllParts(S3Client s3, String bucketName, String objectKey, String uploadId) {
+        List<Part> parts = new ArrayList<>();
+        Integer marker = null;
+        ListPartsResponse resp;
+        do {
+            resp = s3.listParts(
+                    ListPartsRequest.builder()
+                            .bucket(bucketName)
+                            .key(objectKey)
+                            .uploadId(uploadId)
+                            .partNumberMarker(marker)
+                            .build()
+            );
+            parts.addAll(resp.parts());
+            marker = resp.nextPartNumberMarker();
+        } while (Boolean.TRUE.equals(resp.isTruncated()) && marker != null);
+        return parts;
+    }
+
+    /**
+     * 生成分片直传的预签名URL
+     * 客户端直接 PUT 分片数据到该地址，响应头中的 ETag 即为分片ETag，数据不经过业务服务
+     *
+     * @param bucketName 桶名称
+     * @param objectKey 对象键
+     * @param uploadId 上传ID
+     * @param partNumber 分片号(从1开始)
+     * @param expiry 过期时间（秒）
+     * @return 预签名URL
+     */
+    public String getPresignedUploadPartUrl(String bucketName, String objectKey, String uploadId, int partNumber, int expiry) {
+        try {
+            return minioClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .method(Method.PUT)
+                            .bucket(bucketName)
+                            .object(objectKey)
+                            .expiry(expiry, TimeUnit.SECONDS)
+                            .extraQueryParams(Map.of(
+                                    "uploadId", uploadId,
+                                    "partNumber", String.valueOf(partNumber)))
+                            .build()
+            );
+        } catch (Exception e) {
+            log.error("生成分片上传预签名URL失败: bucket={}, object={}, uploadId={}, partNumber={}",
+                    bucketName, objectKey, uploadId, partNumber, e);
+            throw new OssException("生成分片上传链接失败: " + e.getMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package hbnu.project.zhiyancommonoss.util;
+
+import hbnu.project.zhiyancommonbasic.exception.file.FileUploadException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 文件内容哈希工具
+ * 以流的方式计算 SHA-256，文件不会整体读入内存，用于内容寻址去重
+ *
+ * @author ErgouTree
+ */
+public final class ContentHashUtils {
+
+    private static final Pattern SHA256_HEX = Pattern.compile("^[0-9a-fA-F]{64}$");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ContentHashUtils() {
+    }
+
+    /**
+     * 计算上传文件的 SHA-256
+     * MultipartFile 已由容器落在本地（内存或临时文件），这里只是顺序读一遍
+     *
+     * @param file 上传的文件
+     * @return 小写十六进制哈希
+     */
+    public static String sha256Hex(MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            return sha256Hex(in);
+        } catch (IOException e) {
+            throw new FileUploadException("计算文件哈希失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 读完输入流并计算 SHA-256（不关闭输入流）
+     *
+     * @param in 输入流
+     * @return 小写十六进制哈希
+     */
+    public static String sha256Hex(InputStream in) throws IOException {
+        DigestInputStream digestIn = new DigestInputStream(in, newSha256());
+        byte[] buffer = new byte[BUFFER_SIZE];
+        while (digestIn.read(buffer) != -1) {
+            // 读取过程中同步更新摘要
+        }
+        return HexFormat.of().formatHex(digestIn.getMessageDigest().digest());
+    }
+
+    /**
+     * 是否为合法的 SHA-256 十六进制字符串
+     */
+    public static boolean isSha256Hex(String value) {
+        return value != null && SHA256_HEX.matcher(value).matches();
+    }
+
+    /**
+     * 规范化客户端提交的哈希（转小写）
+     */
+    public static String normalize(String sha256) {
+        return sha256 == null ? null : sha256.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // JDK 必定提供 SHA-256
+            throw new IllegalStateException("SHA-256算法不可用", e);
+        }
+    }
+}
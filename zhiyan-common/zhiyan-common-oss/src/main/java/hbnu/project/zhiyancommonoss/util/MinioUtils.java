@@ -67,8 +67,15 @@ public class MinioUtils {
             throw new FileValidationException("文件不能为空");
         }
 
+        validateFile(file.getOriginalFilename(), fileExtension, fileSize);
+    }
+
+    /**
+     * 按文件名、扩展名和大小校验文件
+     * 用于秒传等不携带文件内容的登记场景，规则与上传文件时一致
+     */
+    public void validateFile(String originalFilename, String fileExtension, long fileSize) {
         // 检查文件名
-        String originalFilename = file.getOriginalFilename();
         if (StringUtils.isEmpty(originalFilename)) {
             throw new FileValidationException("文件名不能为空");
         }
@@ -138,6 +145,21 @@ public class MinioUtils {
     }
 
 
+    /**
+     * 生成内容寻址对象键
+     * 用于按内容去重存储的文件，同一内容的多条文件记录共享该对象
+     *
+     * @param sha256 文件内容的SHA-256（小写十六进制）
+     * @return 对象键
+     */
+    public String buildContentObjectKey(String sha256) {
+        // 格式: content/{sha256前两位}/{sha256}/{uuid}
+        // 末尾的uuid保证内容被回收后再次上传时不会与正在删除的旧对象重名
+        return String.format("content/%s/%s/%s",
+                sha256.substring(0, 2), sha256, IdUtils.fastSimpleUUID());
+    }
+
+
     /**
      * 生成临时上传对象键
      *
@@ -0,0 +1,262 @@
+package hbnu.project.zhiyancommonoss.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 流式ZIP打包工具
+ * 条目直接写入输出流，压缩包不落盘、也不整体放进内存；
+ * 当前条目写出的同时，后面若干个对象已在虚拟线程上打开并读入开头一段，预取窗口和每个对象的缓冲都有上限。
+ * 已经是压缩格式的文件不再压缩：能完整预取的小文件用 STORED 写入，
+ * 大文件因为 STORED 需要预先知道 CRC，改用 0 级 DEFLATE（仅有极少的分块开销）
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+public class ZipStreamWriter {
+
+    /**
+     * 失败清单条目名
+     */
+    public static final String FAILURE_MANIFEST_NAME = "下载失败清单.txt";
+
+    private static final int DEFAULT_PREFETCH_WINDOW = 3;
+    private static final int DEFAULT_PREFETCH_BYTES = 1024 * 1024; // 1MB
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 本身已压缩的文件类型，再压缩只浪费CPU
+     */
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "zip", "gz", "tgz", "bz2", "xz", "7z", "rar", "zst", "jar", "apk",
+            "jpg", "jpeg", "png", "gif", "webp", "heic",
+            "mp3", "aac", "ogg", "flac", "mp4", "mkv", "mov", "avi", "webm",
+            "docx", "xlsx", "pptx", "odt", "ods", "odp", "epub");
+
+    private final int prefetchWindow;
+    private final int prefetchBytes;
+
+    /**
+     * 待打包的对象
+     *
+     * @param entryName 压缩包内的条目名（重名时自动追加序号）
+     * @param opener    打开对象输入流，在预取线程上调用
+     */
+    public record ZipSource(String entryName, Callable<InputStream> opener) {
+    }
+
+    /**
+     * 打包结果
+     *
+     * @param written 成功写入的条目数
+     * @param failed  失败的条目及原因
+     */
+    public record Result(int written, List<String> failed) {
+    }
+
+    /**
+     * 预取到的对象：开头一段已读入内存，rest 为 null 表示整个对象都在 head 中
+     */
+    private record Prefetched(byte[] head, InputStream rest) {
+        boolean complete() {
+            return rest == null;
+        }
+    }
+
+    /**
+     * 读取源对象失败（区别于写出到客户端失败）
+     */
+    private static class SourceReadException extends IOException {
+        SourceReadException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    public ZipStreamWriter() {
+        this(DEFAULT_PREFETCH_WINDOW, DEFAULT_PREFETCH_BYTES);
+    }
+
+    /**
+     * @param prefetchWindow 同时预取的对象数（含当前正在写出的对象）
+     * @param prefetchBytes  每个对象预读的最大字节数
+     */
+    public ZipStreamWriter(int prefetchWindow, int prefetchBytes) {
+        this.prefetchWindow = Math.max(1, prefetchWindow);
+        this.prefetchBytes = Math.max(COPY_BUFFER_SIZE, prefetchBytes);
+    }
+
+    /**
+     * 把对象依次打包写出
+     * 单个对象读取失败时跳过并记入失败清单，最后以 {@link #FAILURE_MANIFEST_NAME} 条目写入压缩包；
+     * 写出到客户端失败（如连接断开）时直接抛出
+     *
+     * @param sources 待打包对象，按顺序写入
+     * @param out     输出流（调用方负责关闭）
+     * @return 打包结果
+     */
+    public Result write(List<ZipSource> sources, OutputStream out) throws IOException {
+        List<String> failed = new ArrayList<>();
+        Set<String> usedNames = new HashSet<>();
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        int written = 0;
+
+        ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(out, COPY_BUFFER_SIZE), StandardCharsets.UTF_8);
+        Deque<Future<Prefetched>> window = new ArrayDeque<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                int next = 0;
+                for (int i = 0; i < sources.size(); i++) {
+                    while (next < sources.size() && next < i + prefetchWindow) {
+                        ZipSource source = sources.get(next++);
+                        window.addLast(executor.submit(() -> prefetch(source)));
+                    }
+
+                    ZipSource source = sources.get(i);
+                    Prefetched prefetched;
+                    try {
+                        prefetched = window.removeFirst().get();
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        log.warn("打包时读取对象失败，已跳过: entry={}, error={}", source.entryName(), cause.getMessage());
+                        failed.add(source.entryName() + ": " + cause.getMessage());
+                        continue;
+                    }
+
+                    String entryName = uniqueName(source.entryName(), usedNames);
+                    try (InputStream ignored = prefetched.rest()) {
+                        writeEntry(zip, entryName, prefetched, buffer);
+                        written++;
+                    } catch (SourceReadException e) {
+                        // 条目已写出一部分，只能结束该条目并记为失败
+                        zip.closeEntry();
+                        log.warn("打包时对象读取中断: entry={}, error={}", entryName, e.getMessage());
+                        failed.add(entryName + ": 内容不完整(" + e.getMessage() + ")");
+                    }
+                }
+
+                if (!failed.isEmpty()) {
+                    zip.putNextEntry(new ZipEntry(uniqueName(FAILURE_MANIFEST_NAME, usedNames)));
+                    zip.write(String.join(System.lineSeparator(), failed).getBytes(StandardCharsets.UTF_8));
+                    zip.closeEntry();
+                }
+                zip.finish();
+                zip.flush();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("打包被中断", e);
+            } finally {
+                discard(window);
+            }
+        }
+        return new Result(written, failed);
+    }
+
+    private Prefetched prefetch(ZipSource source) throws Exception {
+        InputStream in = source.opener().call();
+        try {
+            byte[] head = in.readNBytes(prefetchBytes);
+            if (head.length < prefetchBytes) {
+                in.close();
+                return new Prefetched(head, null);
+            }
+            return new Prefetched(head, in);
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, String entryName, Prefetched prefetched, byte[] buffer) throws IOException {
+        ZipEntry entry = new ZipEntry(entryName);
+        boolean alreadyCompressed = isAlreadyCompressed(entryName);
+
+        if (alreadyCompressed && prefetched.complete()) {
+            CRC32 crc = new CRC32();
+            crc.update(prefetched.head());
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize(prefetched.head().length);
+            entry.setCompressedSize(prefetched.head().length);
+            entry.setCrc(crc.getValue());
+            zip.putNextEntry(entry);
+            zip.write(prefetched.head());
+        } else {
+            entry.setMethod(ZipEntry.DEFLATED);
+            zip.setLevel(alreadyCompressed ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(entry);
+            zip.write(prefetched.head());
+            if (!prefetched.complete()) {
+                int read;
+                while ((read = readSource(prefetched.rest(), buffer)) != -1) {
+                    zip.write(buffer, 0, read);
+                }
+            }
+        }
+        zip.closeEntry();
+    }
+
+    private int readSource(InputStream in, byte[] buffer) throws SourceReadException {
+        try {
+            return in.read(buffer);
+        } catch (IOException e) {
+            throw new SourceReadException(e);
+        }
+    }
+
+    /**
+     * 丢弃尚未写出的预取结果，关闭已打开的对象流
+     */
+    private void discard(Deque<Future<Prefetched>> window) {
+        for (Future<Prefetched> future : window) {
+            if (future.cancel(true) || !future.isDone()) {
+                continue;
+            }
+            try {
+                Prefetched prefetched = future.get();
+                if (prefetched.rest() != null) {
+                    prefetched.rest().close();
+                }
+            } catch (Exception ignored) {
+                // 预取本身失败或已取消，无需处理
+            }
+        }
+        window.clear();
+    }
+
+    private boolean isAlreadyCompressed(String entryName) {
+        int dot = entryName.lastIndexOf('.');
+        return dot >= 0 && COMPRESSED_EXTENSIONS.contains(entryName.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 压缩包内条目名去重：a.txt、a (1).txt、a (2).txt ...
+     */
+    private String uniqueName(String name, Set<String> usedNames) {
+        if (usedNames.add(name)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : "";
+        for (int i = 1; ; i++) {
+            String candidate = base + " (" + i + ")" + ext;
+            if (usedNames.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+}
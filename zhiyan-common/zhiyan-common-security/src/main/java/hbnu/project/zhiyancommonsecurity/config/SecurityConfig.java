@@ -193,7 +193,8 @@ public class SecurityConfig implements WebMvcConfigurer {
                         .requestMatchers(
                                 "/zhiyan/projects/*/members/check",        // 检查成员关系
                                 "/zhiyan/projects/*/owner/check",          // 检查拥有者
-                                "/zhiyan/projects/*/permissions/check"     // 检查权限
+                                "/zhiyan/projects/*/permissions/check",    // 检查权限
+                                "/zhiyan/projects/members/batch-check"     // 批量检查成员关系
                         ).permitAll()
 
                         // 文件下载接口 - 使用 permitAll，支持通过查询参数传递token，权限在 Controller 层手动验证
@@ -0,0 +1,134 @@
+package hbnu.project.zhiyancommonsecurity.member;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hbnu.project.zhiyancommonbasic.domain.R;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * 项目成员访问信息本地缓存
+ * 未命中时通过项目服务批量接口一次性加载，成员变更由 {@link MemberChangeTopicListener} 推送失效；
+ * 不参与组件扫描，需要的服务通过 @Import 引入并提供 {@link MemberAccessLoader}
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class MemberAccessCache {
+
+    private final MemberAccessLoader memberAccessLoader;
+
+    /**
+     * "projectId:userId" -> 成员访问信息，过期时间兜底广播丢失的情况
+     */
+    private final Cache<String, MemberAccessDTO> cache = Caffeine.newBuilder()
+            .maximumSize(20_000)
+            .expireAfterWrite(Duration.ofMinutes(5))
+            .build();
+
+    /**
+     * 查询单个用户在项目中的访问信息
+     *
+     * @param projectId 项目ID
+     * @param userId    用户ID
+     * @return 访问信息，远程调用失败时按非成员处理
+     */
+    public MemberAccessDTO get(Long projectId, Long userId) {
+        return getAll(Collections.singletonList(projectId), userId).get(projectId);
+    }
+
+    /**
+     * 批量查询同一用户在多个项目中的访问信息，未命中的部分合并为一次远程调用
+     *
+     * @param projectIds 项目ID集合
+     * @param userId     用户ID
+     * @return 项目ID -> 访问信息
+     */
+    public Map<Long, MemberAccessDTO> getAll(Collection<Long> projectIds, Long userId) {
+        Map<Long, MemberAccessDTO> result = new HashMap<>();
+        if (projectIds == null || projectIds.isEmpty()) {
+            return result;
+        }
+
+        Set<String> keys = new LinkedHashSet<>();
+        for (Long projectId : projectIds) {
+            if (projectId == null || userId == null) {
+                result.put(projectId, nonMember(projectId, userId));
+            } else {
+                keys.add(buildKey(projectId, userId));
+            }
+        }
+        if (keys.isEmpty()) {
+            return result;
+        }
+
+        Map<String, MemberAccessDTO> loaded;
+        try {
+            loaded = cache.getAll(keys, this::loadFromProjectService);
+        } catch (Exception e) {
+            // 失败结果不缓存，本次按非成员处理
+            log.error("批量查询成员访问信息失败: projectIds={}, userId={}", projectIds, userId, e);
+            loaded = Collections.emptyMap();
+        }
+
+        for (String key : keys) {
+            Long projectId = Long.valueOf(key.substring(0, key.indexOf(':')));
+            MemberAccessDTO access = loaded.get(key);
+            result.put(projectId, access != null ? access : nonMember(projectId, userId));
+        }
+        return result;
+    }
+
+    /**
+     * 失效指定组合的缓存
+     *
+     * @param projectId 项目ID
+     * @param userId    用户ID
+     */
+    public void evict(Long projectId, Long userId) {
+        cache.invalidate(buildKey(projectId, userId));
+    }
+
+    /**
+     * 调用项目服务批量接口加载未命中的组合
+     */
+    private Map<String, MemberAccessDTO> loadFromProjectService(Set<? extends String> keys) {
+        List<MemberAccessDTO> queries = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            int idx = key.indexOf(':');
+            queries.add(MemberAccessDTO.builder()
+                    .projectId(Long.valueOf(key.substring(0, idx)))
+                    .userId(Long.valueOf(key.substring(idx + 1)))
+                    .build());
+        }
+
+        R<List<MemberAccessDTO>> response = memberAccessLoader.batchCheckMembers(queries);
+        if (response == null || !R.isSuccess(response) || response.getData() == null) {
+            throw new IllegalStateException("项目服务批量成员校验失败: "
+                    + (response != null ? response.getMsg() : "无响应"));
+        }
+
+        Map<String, MemberAccessDTO> loaded = new HashMap<>();
+        for (MemberAccessDTO access : response.getData()) {
+            loaded.put(buildKey(access.getProjectId(), access.getUserId()), access);
+        }
+        return loaded;
+    }
+
+    private MemberAccessDTO nonMember(Long projectId, Long userId) {
+        return MemberAccessDTO.builder()
+                .projectId(projectId)
+                .userId(userId)
+                .member(false)
+                .permissions(Collections.emptySet())
+                .build();
+    }
+
+    private String buildKey(Long projectId, Long userId) {
+        return projectId + ":" + userId;
+    }
+}
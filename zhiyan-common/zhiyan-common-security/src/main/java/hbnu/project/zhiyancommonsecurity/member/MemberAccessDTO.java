@@ -0,0 +1,46 @@
+package hbnu.project.zhiyancommonsecurity.member;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * 成员访问信息DTO（对应项目模块批量成员校验接口）
+ * 供 Knowledge、Wiki 等模块缓存成员关系，请求时只需填写 projectId 和 userId
+ *
+ * @author ErgouTree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberAccessDTO {
+
+    /**
+     * 项目ID
+     */
+    private Long projectId;
+
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 是否为项目成员
+     */
+    private Boolean member;
+
+    /**
+     * 角色代码（OWNER/ADMIN/MEMBER），非成员为空
+     */
+    private String roleCode;
+
+    /**
+     * 权限名称集合（如 KNOWLEDGE_MANAGE、WIKI_DELETE）
+     */
+    private Set<String> permissions;
+}
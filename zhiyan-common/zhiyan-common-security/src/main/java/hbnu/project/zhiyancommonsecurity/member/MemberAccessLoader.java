@@ -0,0 +1,22 @@
+package hbnu.project.zhiyancommonsecurity.member;
+
+import hbnu.project.zhiyancommonbasic.domain.R;
+
+import java.util.List;
+
+/**
+ * 成员访问信息加载器
+ * 由各服务用自己的项目服务 Feign 客户端实现，供 {@link MemberAccessCache} 在未命中时批量加载
+ *
+ * @author ErgouTree
+ */
+public interface MemberAccessLoader {
+
+    /**
+     * 批量查询成员关系、角色和权限
+     *
+     * @param queries 待查询的 (projectId, userId) 组合
+     * @return 与请求顺序一致的成员访问信息
+     */
+    R<List<MemberAccessDTO>> batchCheckMembers(List<MemberAccessDTO> queries);
+}
@@ -0,0 +1,48 @@
+package hbnu.project.zhiyancommonsecurity.member;
+
+import hbnu.project.zhiyancommonbasic.constants.CacheConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+/**
+ * 项目成员变更频道监听器
+ * 项目服务修改成员关系后，失效本节点的成员访问信息缓存
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class MemberChangeTopicListener implements ApplicationRunner {
+
+    private final MemberAccessCache memberAccessCache;
+    private final ObjectProvider<RedissonClient> redissonClientProvider;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient == null) {
+            // 没有 Redis 时成员缓存只能依赖过期时间
+            log.warn("未配置 RedissonClient，成员变更频道监听器未启动");
+            return;
+        }
+
+        redissonClient.getTopic(CacheConstants.PROJECT_MEMBER_CHANGE_TOPIC)
+                .addListener(String.class, (channel, message) -> {
+                    String[] parts = message.split(":");
+                    if (parts.length != 2) {
+                        log.warn("忽略格式错误的成员变更消息: {}", message);
+                        return;
+                    }
+                    try {
+                        memberAccessCache.evict(Long.valueOf(parts[0]), Long.valueOf(parts[1]));
+                    } catch (NumberFormatException e) {
+                        log.warn("忽略格式错误的成员变更消息: {}", message);
+                    }
+                });
+        log.info("初始化项目成员变更频道监听器成功");
+    }
+}
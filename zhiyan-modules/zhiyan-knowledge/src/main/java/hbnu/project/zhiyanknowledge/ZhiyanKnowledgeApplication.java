@@ -3,6 +3,7 @@ package hbnu.project.zhiyanknowledge;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Import;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
@@ -28,6 +29,14 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
         "hbnu.project.zhiyanknowledge.model.entity"
         // 移除 activelog entity 扫描，避免在本服务数据库创建操作日志表
 })
+// 只引入 ES 客户端与工具类，不扫描检索模块自带的启动类
+@Import({
+        hbnu.project.zhiyancommonelasticsearch.config.ElasticsearchConfig.class,
+        hbnu.project.zhiyancommonelasticsearch.util.ElasticsearchUtil.class,
+        // 成员访问信息缓存及其失效监听（加载器由本服务的 ProjectMemberAccessLoader 提供）
+        hbnu.project.zhiyancommonsecurity.member.MemberAccessCache.class,
+        hbnu.project.zhiyancommonsecurity.member.MemberChangeTopicListener.class
+})
 @EnableJpaAuditing
 @EnableDiscoveryClient
 @EnableFeignClients
@@ -73,6 +73,7 @@ public class AchievementDetailController {
     @OperationLog(module = "成果详情管理", type = OperationType.UPDATE, description = "更新成果的部分详情字段")
     public R<AchievementDetailDTO> updateDetailFields(
             @Parameter(description = "成果ID") @PathVariable Long achievementId,
+            @Parameter(description = "期望的详情版本号（可选）") @RequestParam(required = false) Integer version,
             @RequestBody Map<String, Object> fieldUpdates
     ) {
         // 从安全上下文获取当前登录用户ID
@@ -84,7 +85,7 @@ public class AchievementDetailController {
         knowledgeSecurityUtils.requireEdit(achievementId);
 
         AchievementDetailDTO result = achievementDetailsService.updateDetailFields(
-                achievementId, fieldUpdates, userId
+                achievementId, fieldUpdates, version, userId
         );
 
         return R.ok(result, "字段更新成功");
@@ -92,6 +93,33 @@ public class AchievementDetailController {
 
 
 
+    /**
+     * 删除成果详情字段
+     * 必填字段不允许删除
+     */
+    @DeleteMapping("/{achievementId}/fields")
+    @Operation(summary = "删除详情字段", description = "删除成果详情中的指定字段")
+    @OperationLog(module = "成果详情管理", type = OperationType.UPDATE, description = "删除成果的部分详情字段")
+    public R<AchievementDetailDTO> removeDetailFields(
+            @Parameter(description = "成果ID") @PathVariable Long achievementId,
+            @Parameter(description = "需要删除的字段") @RequestParam List<String> fieldKeys,
+            @Parameter(description = "期望的详情版本号（可选）") @RequestParam(required = false) Integer version
+    ) {
+        Long userId = SecurityUtils.getUserId();
+        log.info("删除详情字段: achievementId={}, fields={}, userId={}", achievementId, fieldKeys, userId);
+
+        // 权限检查：必须有编辑权限（项目成员且是创建者或管理员）
+        knowledgeSecurityUtils.requireEdit(achievementId);
+
+        AchievementDetailDTO result = achievementDetailsService.removeDetailFields(
+                achievementId, fieldKeys, version, userId
+        );
+
+        return R.ok(result, "字段删除成功");
+    }
+
+
+
     /**
      * 更新成果摘要
      * 单独更新摘要信息
@@ -93,9 +93,31 @@ public class AchievementFileController {
     }
 
 
+    /**
+     * 秒传成果文件
+     * 客户端先提交文件的SHA-256，本项目已有相同内容时直接登记，返回 data 为空时需改为正常上传
+     */
+    @PostMapping("/upload/instant")
+    @Operation(summary = "秒传成果文件", description = "按文件内容哈希登记成果文件，本项目已有相同内容时无需上传")
+    @OperationLog(module = "成果文件管理", type = OperationType.UPLOAD, description = "秒传成果文件", recordParams = true, recordResult = true)
+    @Idempotent(type = IdempotentType.PARAM, timeout = 3, message = "文件上传中，请勿重复提交")
+    public R<AchievementFileDTO> uploadFileByHash(@Valid @RequestBody InstantUploadDTO instantDTO) {
+        Long userId = SecurityUtils.getUserId();
+        instantDTO.setUploadBy(userId);
+        log.info("秒传成果文件: achievementId={}, fileName={}, sha256={}, userId={}",
+                instantDTO.getAchievementId(), instantDTO.getFileName(), instantDTO.getSha256(), userId);
+
+        AchievementFileDTO fileDTO = achievementFileService.uploadFileByHash(instantDTO);
+        if (fileDTO == null) {
+            return R.ok(null, "服务端没有相同内容，请上传文件");
+        }
+        return R.ok(fileDTO, "秒传成功");
+    }
+
+
     /**
      * 批量上传成果文件
-     * 批量上传多个文件到指定成果
+     * 批量上传多个文件到指定成果，返回上传成功的文件；需要逐个文件的失败原因时使用 /upload/batch/detail
      */
     @PostMapping("/upload/batch")
     @Operation(summary = "批量上传成果文件", description = "为指定成果批量上传多个文件")
@@ -111,13 +133,47 @@ public class AchievementFileController {
         log.info("批量上传成果文件: achievementId={}, fileCount={}, userId={}", 
                 achievementId, files.size(), userId);
 
-        List<AchievementFileDTO> fileDTOs = achievementFileService.uploadFilesBatch(files, achievementId, userId);
+        BatchUploadResultDTO result = achievementFileService.uploadFilesBatch(files, achievementId, userId);
+        List<AchievementFileDTO> fileDTOs = result.getResults().stream()
+                .filter(outcome -> Boolean.TRUE.equals(outcome.getSuccess()))
+                .map(BatchUploadResultDTO.FileUploadOutcome::getFile)
+                .toList();
 
-        log.info("批量上传成功: fileCount={}", fileDTOs.size());
+        log.info("批量上传完成: success={}, failure={}", result.getSuccessCount(), result.getFailureCount());
+        if (fileDTOs.isEmpty() && result.getFailureCount() > 0) {
+            return R.fail("批量上传失败: " + result.getResults().get(0).getErrorMessage());
+        }
+        if (result.getFailureCount() > 0) {
+            return R.ok(fileDTOs, String.format("成功上传%d个文件，失败%d个", result.getSuccessCount(), result.getFailureCount()));
+        }
         return R.ok(fileDTOs, String.format("成功上传%d个文件", fileDTOs.size()));
     }
 
 
+    /**
+     * 批量上传成果文件（返回逐个文件的结果）
+     * 部分文件失败时不影响其他文件，失败原因按提交顺序返回
+     */
+    @PostMapping("/upload/batch/detail")
+    @Operation(summary = "批量上传成果文件(明细)", description = "为指定成果批量上传多个文件，返回每个文件的上传结果")
+    @OperationLog(module = "成果文件管理", type = OperationType.UPLOAD,description = "批量上传成果文件", recordParams = false, recordResult = true)
+    @SentinelResource(value = "knowledge:file:uploadBatch", blockHandler = "uploadBatchDetailBlockHandler", fallback = "uploadBatchDetailFallback")
+    @Idempotent(type = IdempotentType.PARAM, timeout = 3, message = "文件上传中，请勿重复提交")
+    public R<BatchUploadResultDTO> uploadFilesBatchDetail(
+            @Parameter(description = "文件列表") @RequestParam("files") List<MultipartFile> files,
+            @Parameter(description = "成果ID") @RequestParam("achievementId") Long achievementId
+    ){
+        Long userId = SecurityUtils.getUserId();
+        log.info("批量上传成果文件(明细): achievementId={}, fileCount={}, userId={}",
+                achievementId, files.size(), userId);
+
+        BatchUploadResultDTO result = achievementFileService.uploadFilesBatch(files, achievementId, userId);
+
+        log.info("批量上传完成: success={}, failure={}", result.getSuccessCount(), result.getFailureCount());
+        return R.ok(result, String.format("成功上传%d个文件，失败%d个", result.getSuccessCount(), result.getFailureCount()));
+    }
+
+
     /**
      * 查询成果的所有文件
      * 获取指定成果下的所有文件列表
@@ -217,6 +273,26 @@ public class AchievementFileController {
     }
 
 
+    /**
+     * 获取直传分片的预签名上传地址
+     * 直传模式下地址过期或断点续传时重新获取
+     */
+    @GetMapping("/upload/chunked/{uploadId}/part-urls")
+    @Operation(summary = "获取分片直传地址", description = "直传模式下重新生成分片的预签名上传地址，单次最多100个分片，不指定分片号时返回前100个未上传分片")
+    @OperationLog(module = "成果文件管理", type = OperationType.QUERY, description = "获取分片直传地址", recordParams = true, recordResult = false)
+    public R<UploadSessionDTO> getPartUploadUrls(
+            @Parameter(description = "上传ID") @PathVariable String uploadId,
+            @Parameter(description = "分片号列表(可选)") @RequestParam(required = false) List<Integer> partNumbers
+    ) {
+        Long userId = SecurityUtils.getUserId();
+        log.info("获取分片直传地址: uploadId={}, partNumbers={}, userId={}", uploadId, partNumbers, userId);
+
+        UploadSessionDTO sessionDTO = chunkedUploadService.getPartUploadUrls(uploadId, partNumbers, userId);
+
+        return R.ok(sessionDTO, "获取成功");
+    }
+
+
     /**
      * 上传分片
      * 上传文件的某个分片，支持断点续传
@@ -338,37 +414,9 @@ public class AchievementFileController {
         log.info("批量获取文件下载链接: fileIds={}, count={}, userId={}",
                 dto.getFileIds(), dto.getFileIds().size(), userId);
 
-        List<BatchDownloadResponseDTO.FileDownloadInfo> fileInfos = new ArrayList<>();
-
-        // 循环获取url然后下载
-        for(Long fileId : dto.getFileIds()) {
-            try {
-                // 获取文件下载URL
-                String downloadUrl = achievementFileService.getFileDownloadUrl(
-                        fileId, userId, dto.getExpirySeconds());
-
-                // 获取文件信息
-                AchievementFileDTO fileDTO = achievementFileService.getFileById(fileId);
-
-                fileInfos.add(BatchDownloadResponseDTO.FileDownloadInfo.builder()
-                        .fileId(fileId)
-                        .fileName(fileDTO.getFileName())
-                        .downloadUrl(downloadUrl)
-                        .fileSize(fileDTO.getFileSize())
-                        .success(true)
-                        .build());
-
-                log.info("文件下载链接生成成功: fileId={}, fileName={}", fileId, fileDTO.getFileName());
-            }catch (Exception e) {
-                log.error("生成文件下载链接失败: fileId={}", fileId, e);
-                fileInfos.add(BatchDownloadResponseDTO.FileDownloadInfo.builder()
-                        .fileId(fileId)
-                        .fileName("未知")
-                        .success(false)
-                        .errorMessage(e.getMessage())
-                        .build());
-            }
-        }
+        // 一次查询全部文件记录后逐个生成链接
+        List<BatchDownloadResponseDTO.FileDownloadInfo> fileInfos = achievementFileService.getFileDownloadInfos(
+                dto.getFileIds(), userId, dto.getExpirySeconds());
 
         BatchDownloadResponseDTO response = BatchDownloadResponseDTO.builder()
                 .downloadTaskId(UUID.randomUUID().toString())
@@ -419,6 +467,49 @@ public class AchievementFileController {
     }
 
 
+    /**
+     * 打包下载多个文件
+     * 服务端流式生成ZIP直接写入响应
+     */
+    @PostMapping("/download/batch/zip")
+    @Operation(summary = "打包下载多个文件", description = "把多个文件打包为ZIP流式下载，读取失败的文件记录在压缩包内的失败清单中")
+    @OperationLog(module = "成果文件管理", type = OperationType.DOWNLOAD, description = "打包下载多个文件", recordParams = true, recordResult = false)
+    public void batchDownloadZip(
+            @Valid @RequestBody BatchDownloadDTO dto,
+            jakarta.servlet.http.HttpServletResponse response
+    ) {
+        Long userId = SecurityUtils.getUserId();
+        log.info("打包下载多个文件: fileIds={}, userId={}", dto.getFileIds(), userId);
+
+        streamZip(dto.getFileIds(), userId, "成果文件_" + System.currentTimeMillis(), response);
+    }
+
+
+    /**
+     * 打包下载成果的所有文件
+     */
+    @GetMapping("/{achievementId}/download/all/zip")
+    @Operation(summary = "打包下载成果的所有文件", description = "把指定成果下的所有文件打包为ZIP流式下载")
+    @OperationLog(module = "成果文件管理", type = OperationType.DOWNLOAD, description = "打包下载成果的所有文件", recordParams = true, recordResult = false)
+    public void downloadAllAchievementFilesZip(
+            @Parameter(description = "成果ID") @PathVariable Long achievementId,
+            jakarta.servlet.http.HttpServletResponse response
+    ) {
+        Long userId = SecurityUtils.getUserId();
+        log.info("打包下载成果的所有文件: achievementId={}, userId={}", achievementId, userId);
+
+        List<Long> fileIds = achievementFileService.getFilesByAchievementId(achievementId).stream()
+                .map(f -> Long.valueOf(f.getId()))
+                .collect(Collectors.toList());
+        if (fileIds.isEmpty()) {
+            response.setStatus(jakarta.servlet.http.HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        streamZip(fileIds, userId, "成果_" + achievementId + "_文件", response);
+    }
+
+
     /**
      * 直接下载文件（流式下载）
      * 不使用预签名URL，直接通过后端代理下载
@@ -430,6 +521,7 @@ public class AchievementFileController {
     public void downloadFile(
             @Parameter(description = "文件ID") @PathVariable Long fileId,
             @Parameter(description = "访问令牌（可选，也可通过Header传递）") @RequestParam(value = "access_token", required = false) String accessToken,
+            jakarta.servlet.http.HttpServletRequest request,
             jakarta.servlet.http.HttpServletResponse response
     ) {
         Long userId = null;
@@ -467,10 +559,14 @@ public class AchievementFileController {
             }
 
             log.info("直接下载文件: fileId={}, userId={}", fileId, userId);
-            achievementFileService.downloadFile(fileId, userId, response);
+            achievementFileService.downloadFile(fileId, userId, request, response);
 
         } catch (Exception e) {
             log.error("文件下载失败: fileId={}, userId={}, error={}", fileId, userId, e.getMessage(), e);
+            if (response.isCommitted()) {
+                // 已开始传输文件内容（如客户端中途断开），无法再写错误信息
+                return;
+            }
             response.setStatus(jakarta.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
             try {
                 response.getWriter().write("文件下载失败: " + e.getMessage());
@@ -522,6 +618,27 @@ public class AchievementFileController {
         return R.fail(503, "文件上传服务暂时不可用，请稍后重试");
     }
 
+    /**
+     * 写出ZIP流，响应尚未提交时把异常转换为错误状态码
+     */
+    private void streamZip(List<Long> fileIds, Long userId, String archiveName,
+                           jakarta.servlet.http.HttpServletResponse response) {
+        try {
+            achievementFileService.downloadFilesAsZip(fileIds, userId, archiveName, response);
+        } catch (Exception e) {
+            log.error("打包下载失败: fileIds={}, userId={}, error={}", fileIds, userId, e.getMessage());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(jakarta.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                try {
+                    response.getWriter().write("打包下载失败: " + e.getMessage());
+                } catch (java.io.IOException ioException) {
+                    log.error("写入错误响应失败", ioException);
+                }
+            }
+        }
+    }
+
     /**
      * 批量文件上传限流处理
      */
@@ -540,4 +657,22 @@ public class AchievementFileController {
         return R.fail(503, "批量上传服务暂时不可用，请稍后重试");
     }
 
+    /**
+     * 批量文件上传(明细)限流处理
+     */
+    public R<BatchUploadResultDTO> uploadBatchDetailBlockHandler(List<MultipartFile> files, Long achievementId, BlockException ex) {
+        log.warn("[Sentinel] 批量文件上传被限流: achievementId={}, fileCount={}, {}",
+                achievementId, files.size(), ex.getClass().getSimpleName());
+        return R.fail(429, "批量上传请求过于频繁，请稍后再试");
+    }
+
+    /**
+     * 批量文件上传(明细)降级处理（服务异常）
+     */
+    public R<BatchUploadResultDTO> uploadBatchDetailFallback(List<MultipartFile> files, Long achievementId, Throwable throwable) {
+        log.error("[Sentinel] 批量文件上传服务异常降级: achievementId={}, fileCount={}",
+                achievementId, files.size(), throwable);
+        return R.fail(503, "批量上传服务暂时不可用，请稍后重试");
+    }
+
 }
@@ -16,10 +16,12 @@ import hbnu.project.zhiyanknowledge.model.entity.Achievement;
 import hbnu.project.zhiyanknowledge.model.enums.AchievementStatus;
 import hbnu.project.zhiyanknowledge.permission.KnowledgeSecurityUtils;
 import hbnu.project.zhiyanknowledge.repository.AchievementRepository;
+import hbnu.project.zhiyanknowledge.search.AchievementIndexer.AchievementIndexEvent;
 import hbnu.project.zhiyanknowledge.service.AchievementDetailsService;
 import hbnu.project.zhiyanknowledge.service.AchievementFileService;
 import hbnu.project.zhiyanknowledge.service.AchievementService;
 import hbnu.project.zhiyanknowledge.service.AchievementTaskService;
+import hbnu.project.zhiyanknowledge.statistics.AchievementStatsCache.AchievementStatsChangedEvent;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -27,6 +29,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 
@@ -66,6 +69,8 @@ public class AchievementManageController {
     @Autowired
     private final AchievementTaskService achievementTaskService;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * 创建成果
      * 创建一个新的成果，包含基本信息和详情数据
@@ -222,7 +227,11 @@ public class AchievementManageController {
 
         // 3. 删除成果主表记录
         log.info("开始删除成果主表记录: achievementId={}", achievementId);
-        achievementRepository.deleteById(achievementId);
+        achievementRepository.findById(achievementId).ifPresent(achievement -> {
+            achievementRepository.delete(achievement);
+            eventPublisher.publishEvent(AchievementStatsChangedEvent.deleted(achievement));
+            eventPublisher.publishEvent(new AchievementIndexEvent(achievementId));
+        });
         log.info("成果主表记录删除完成: achievementId={}", achievementId);
 
         log.info("成果删除全部完成: achievementId={}", achievementId);
@@ -254,6 +263,7 @@ public class AchievementManageController {
 
         achievement.setIsPublic(isPublic);
         achievementRepository.save(achievement);
+        eventPublisher.publishEvent(new AchievementIndexEvent(achievementId));
 
         log.info("成果公开性更新成功: achievementId={}, isPublic={}", achievementId, isPublic);
         return R.ok(null, "公开性更新成功");
@@ -9,7 +9,10 @@ import hbnu.project.zhiyancommonbasic.domain.R;
 import hbnu.project.zhiyanknowledge.mapper.AchievementConverter;
 import hbnu.project.zhiyanknowledge.model.dto.AchievementDTO;
 import hbnu.project.zhiyanknowledge.model.dto.AchievementQueryDTO;
+import hbnu.project.zhiyanknowledge.model.dto.AchievementSearchResultDTO;
 import hbnu.project.zhiyanknowledge.model.entity.Achievement;
+import hbnu.project.zhiyanknowledge.model.enums.AchievementStatus;
+import hbnu.project.zhiyanknowledge.model.enums.AchievementType;
 import hbnu.project.zhiyanknowledge.repository.AchievementRepository;
 import hbnu.project.zhiyanknowledge.service.AchievementSearchService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -138,6 +141,31 @@ public class AchievementSearchController {
     }
 
 
+    /**
+     * 全文检索
+     * 按相关度排序，返回类型、状态分面统计和高亮片段
+     */
+    @GetMapping("/fulltext")
+    @Operation(summary = "全文检索", description = "在标题、摘要和详情字段中检索成果，支持类型、状态筛选")
+    @OperationLog(module = "成果搜索", type = OperationType.QUERY, description = "全文检索成果", recordResult = false)
+    @SentinelResource(value = "knowledge:achievement:fulltext", blockHandler = "fullTextSearchBlockHandler")
+    public R<AchievementSearchResultDTO> fullTextSearch(
+            @Parameter(description = "搜索关键字") @RequestParam String keyword,
+            @Parameter(description = "项目ID（可选）") @RequestParam(required = false) Long projectId,
+            @Parameter(description = "成果类型（可选）") @RequestParam(required = false) AchievementType type,
+            @Parameter(description = "成果状态（可选）") @RequestParam(required = false) AchievementStatus status,
+            @Parameter(description = "页码") @RequestParam(defaultValue = "0") Integer page,
+            @Parameter(description = "每页数量") @RequestParam(defaultValue = "10") Integer size
+    ) {
+        log.info("全文检索成果: keyword={}, projectId={}, type={}, status={}", keyword, projectId, type, status);
+
+        AchievementSearchResultDTO result = achievementSearchService.fullTextSearch(
+                keyword, projectId, type, status, page, size);
+
+        return R.ok(result, "搜索成功");
+    }
+
+
     /**
      * 根据成果名称查询
      * 模糊匹配成果标题
@@ -205,4 +233,14 @@ public class AchievementSearchController {
         log.warn("[Sentinel] 成果搜索被限流: keyword={}, {}", keyword, ex.getClass().getSimpleName());
         return R.fail(429, "搜索请求过于频繁，请稍后再试");
     }
+
+    /**
+     * 全文检索限流处理
+     */
+    public R<AchievementSearchResultDTO> fullTextSearchBlockHandler(
+            String keyword, Long projectId, AchievementType type, AchievementStatus status,
+            Integer page, Integer size, BlockException ex) {
+        log.warn("[Sentinel] 成果全文检索被限流: keyword={}, {}", keyword, ex.getClass().getSimpleName());
+        return R.fail(429, "搜索请求过于频繁，请稍后再试");
+    }
 }
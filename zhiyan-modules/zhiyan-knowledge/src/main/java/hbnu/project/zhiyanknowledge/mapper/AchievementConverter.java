@@ -75,6 +75,7 @@ public abstract class AchievementConverter {
     @Mapping(target = "projectName", ignore = true) // 需要从其他服务获取
     @Mapping(target = "creatorName", ignore = true) // 需要从其他服务获取
     @Mapping(target = "tags", ignore = true) // AchievementDetail 中已注释掉 tags 字段
+    @Mapping(target = "detailVersion", source = "detail.version")
     public abstract AchievementDetailDTO toDetailDTO(Achievement achievement);
 
     /**
@@ -108,6 +109,10 @@ public abstract class AchievementConverter {
     @Mapping(target = "detailData", expression = "java(mapToJson(dto.getDetailData()))")
     @Mapping(target = "abstractText", source = "abstractText")
     @Mapping(target = "achievement", ignore = true)
+    @Mapping(target = "journal", ignore = true) // 以下为 detail_data 派生的生成列，只读
+    @Mapping(target = "publishYear", ignore = true)
+    @Mapping(target = "patentNo", ignore = true)
+    @Mapping(target = "patentType", ignore = true)
     public abstract AchievementDetail createDTOToDetail(CreateAchievementDTO dto);
 
     // ==================== AchievementFile 相关转换 ====================
@@ -141,6 +146,7 @@ public abstract class AchievementConverter {
     @Mapping(target = "minioUrl", ignore = true)
     @Mapping(target = "uploadAt", ignore = true)
     @Mapping(target = "achievement", ignore = true)
+    @Mapping(target = "contentHash", ignore = true)
     public abstract AchievementFile uploadDTOToFile(UploadFileDTO dto);
 
     /**
@@ -149,6 +155,9 @@ public abstract class AchievementConverter {
     @Mapping(target = "sessionId", source = "id")
     @Mapping(target = "status", source = "status", qualifiedByName = "getStatusName")
     @Mapping(target = "uploadedChunks", source = "uploadedChunksJson", qualifiedByName = "parseUploadedChunks")
+    @Mapping(target = "partUploadUrls", ignore = true)
+    @Mapping(target = "partUrlExpiresAt", ignore = true)
+    @Mapping(target = "hasMorePartUrls", ignore = true)
     public abstract UploadSessionDTO toUploadSessionDTO(FileUploadSession session);
 
     /**
@@ -129,5 +129,10 @@ public class AchievementDetailDTO {
      * 版本号（乐观锁）
      */
     private Integer version;
+
+    /**
+     * 详情版本号，字段级更新时作为期望版本传回
+     */
+    private Integer detailVersion;
 }
 
@@ -56,6 +56,26 @@ public class AchievementQueryDTO {
      */
     private String abstractKeyword;
 
+    /**
+     * 期刊名称（论文详情字段，精确匹配，可选）
+     */
+    private String journal;
+
+    /**
+     * 发表年份（论文详情字段，可选）
+     */
+    private Long publishYear;
+
+    /**
+     * 专利号（专利详情字段，精确匹配，可选）
+     */
+    private String patentNo;
+
+    /**
+     * 专利类型（专利详情字段，可选）
+     */
+    private String patentType;
+
     /**
      * 创建时间开始（可选）
      */
@@ -0,0 +1,36 @@
+package hbnu.project.zhiyanknowledge.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 成果全文检索命中DTO
+ *
+ * @author ErgouTree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AchievementSearchHitDTO {
+
+    /**
+     * 成果信息
+     */
+    private AchievementDTO achievement;
+
+    /**
+     * 相关度得分
+     */
+    private Double score;
+
+    /**
+     * 高亮片段：字段名（title / abstractText / detailText）-> 片段列表，命中词以 &lt;em&gt; 包裹
+     */
+    private Map<String, List<String>> highlights;
+}
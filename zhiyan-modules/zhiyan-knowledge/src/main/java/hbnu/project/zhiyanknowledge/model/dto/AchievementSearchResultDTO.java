@@ -0,0 +1,52 @@
+package hbnu.project.zhiyanknowledge.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 成果全文检索结果DTO
+ * 命中按相关度排序，分面统计不受类型、状态筛选本身的影响
+ *
+ * @author ErgouTree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AchievementSearchResultDTO {
+
+    /**
+     * 本页命中
+     */
+    private List<AchievementSearchHitDTO> content;
+
+    /**
+     * 当前页码（从0开始）
+     */
+    private Integer pageNumber;
+
+    /**
+     * 每页大小
+     */
+    private Integer pageSize;
+
+    /**
+     * 命中总数
+     */
+    private Long totalElements;
+
+    /**
+     * 按类型的命中数量（类型枚举名 -> 数量）
+     */
+    private Map<String, Long> typeFacets;
+
+    /**
+     * 按状态的命中数量（状态枚举名 -> 数量）
+     */
+    private Map<String, Long> statusFacets;
+}
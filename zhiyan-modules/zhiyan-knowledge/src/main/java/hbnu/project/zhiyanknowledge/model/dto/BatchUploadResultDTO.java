@@ -0,0 +1,53 @@
+package hbnu.project.zhiyanknowledge.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.util.List;
+
+/**
+ * 批量上传结果
+ *
+ * @author ErgouTree
+ */
+@Data
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批量上传结果")
+public class BatchUploadResultDTO {
+
+    @Schema(description = "提交的文件数")
+    private Integer total;
+
+    @Schema(description = "上传成功数")
+    private Integer successCount;
+
+    @Schema(description = "上传失败数")
+    private Integer failureCount;
+
+    @Schema(description = "每个文件的上传结果，顺序与提交顺序一致")
+    private List<FileUploadOutcome> results;
+
+
+    @Data
+    @SuperBuilder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FileUploadOutcome {
+        @Schema(description = "文件名")
+        private String fileName;
+
+        @Schema(description = "是否上传成功")
+        private Boolean success;
+
+        @Schema(description = "上传成功后的文件信息")
+        private AchievementFileDTO file;
+
+        @Schema(description = "错误信息")
+        private String errorMessage;
+    }
+}
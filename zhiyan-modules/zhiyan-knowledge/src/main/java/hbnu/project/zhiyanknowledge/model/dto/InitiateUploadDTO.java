@@ -37,4 +37,8 @@ public class InitiateUploadDTO {
     @Builder.Default
     @Schema(description = "分片大小(字节),默认5MB")
     private Integer chunkSize = 5 * 1024 * 1024; // 默认5MB
+
+    @Builder.Default
+    @Schema(description = "是否直传：为true时返回各分片的预签名上传地址，由客户端直接PUT到对象存储")
+    private Boolean directUpload = false;
 }
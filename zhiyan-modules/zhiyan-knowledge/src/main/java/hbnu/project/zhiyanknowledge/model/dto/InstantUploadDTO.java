@@ -0,0 +1,46 @@
+package hbnu.project.zhiyanknowledge.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.PositiveOrZero;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 秒传请求DTO
+ * 客户端先提交文件内容哈希，本项目已有相同内容时直接登记文件记录，无需上传文件
+ *
+ * @author ErgouTree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "秒传请求")
+public class InstantUploadDTO {
+
+    @NotNull(message = "成果ID不能为空")
+    @Schema(description = "成果ID")
+    private Long achievementId;
+
+    @NotBlank(message = "文件名不能为空")
+    @Schema(description = "文件名")
+    private String fileName;
+
+    @NotBlank(message = "文件哈希不能为空")
+    @Pattern(regexp = "^[0-9a-fA-F]{64}$", message = "文件哈希必须是SHA-256十六进制字符串")
+    @Schema(description = "文件内容SHA-256（十六进制）")
+    private String sha256;
+
+    @NotNull(message = "文件大小不能为空")
+    @PositiveOrZero(message = "文件大小不能为负数")
+    @Schema(description = "文件大小（字节），需与已存储内容一致")
+    private Long fileSize;
+
+    @Schema(description = "上传者ID（由后端从上下文获取）", hidden = true)
+    private Long uploadBy;
+}
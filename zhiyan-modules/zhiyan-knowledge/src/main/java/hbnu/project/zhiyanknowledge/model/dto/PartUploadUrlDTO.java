@@ -0,0 +1,26 @@
+package hbnu.project.zhiyanknowledge.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 分片直传地址
+ *
+ * @author ErgouTree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "分片预签名上传地址")
+public class PartUploadUrlDTO {
+
+    @Schema(description = "分片号(从1开始)")
+    private Integer partNumber;
+
+    @Schema(description = "预签名PUT地址，上传成功后响应头ETag即分片ETag")
+    private String url;
+}
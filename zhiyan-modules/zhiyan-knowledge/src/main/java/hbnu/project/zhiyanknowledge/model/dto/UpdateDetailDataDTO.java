@@ -36,6 +36,16 @@ public class UpdateDetailDataDTO {
      */
     private String abstractText;
 
+    /**
+     * 需要删除的详情字段（可选）
+     */
+    private List<String> removeFields;
+
+    /**
+     * 期望的详情版本号（可选），与当前版本不一致时拒绝更新
+     */
+    private Integer version;
+
 //    /**
 //     * 操作用户ID
 //     */
@@ -54,6 +54,18 @@ public class UploadSessionDTO {
     @Schema(description = "对象键")
     private String objectKey;
 
+    @Schema(description = "是否直传模式")
+    private Boolean directUpload;
+
+    @Schema(description = "分片预签名上传地址(仅直传模式)")
+    private List<PartUploadUrlDTO> partUploadUrls;
+
+    @Schema(description = "预签名地址过期时间(仅直传模式)")
+    private LocalDateTime partUrlExpiresAt;
+
+    @Schema(description = "是否还有未下发地址的分片(仅直传模式)，为 true 时通过获取分片直传地址接口继续获取")
+    private Boolean hasMorePartUrls;
+
     @Schema(description = "创建时间")
     private LocalDateTime createdAt;
 
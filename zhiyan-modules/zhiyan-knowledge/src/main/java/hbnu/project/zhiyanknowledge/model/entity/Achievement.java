@@ -24,6 +24,8 @@ import java.util.List;
 @Entity
 @Table(name = "achievement", indexes = {
         @Index(name = "idx_project_status", columnList = "project_id, status"),
+        @Index(name = "idx_project_type_status", columnList = "project_id, type, status"),
+        @Index(name = "idx_project_public_created", columnList = "project_id, is_public, created_at"),
         @Index(name = "idx_creator", columnList = "creator_id"),
         @Index(name = "idx_type", columnList = "type")
 })
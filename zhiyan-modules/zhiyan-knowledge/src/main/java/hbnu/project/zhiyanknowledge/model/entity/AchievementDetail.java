@@ -19,7 +19,12 @@ import hbnu.project.zhiyancommonbasic.domain.BaseAuditEntity;
 @Getter
 @Setter
 @Entity
-@Table(name = "achievement_detail")
+@Table(name = "achievement_detail", indexes = {
+        @Index(name = "idx_detail_journal", columnList = "gen_journal"),
+        @Index(name = "idx_detail_publish_year", columnList = "gen_publish_year"),
+        @Index(name = "idx_detail_patent_no", columnList = "gen_patent_no"),
+        @Index(name = "idx_detail_patent_type", columnList = "gen_patent_type")
+})
 @DynamicInsert
 @DynamicUpdate
 @SuperBuilder
@@ -64,6 +69,27 @@ public class AchievementDetail extends BaseAuditEntity{
     private String abstractText;
 
 
+    /**
+     * 以下为 detail_data 中常用筛选字段的生成列（只读，由数据库根据 JSON 计算并建索引）
+     * 对应 AchievementTemple 中论文、专利模板的字段，取值异常时为 NULL
+     */
+    @Column(name = "gen_journal", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(255) GENERATED ALWAYS AS (JSON_VALUE(detail_data, '$.journal' RETURNING CHAR(255) NULL ON EMPTY NULL ON ERROR)) VIRTUAL COMMENT '期刊名称（论文）'")
+    private String journal;
+
+    @Column(name = "gen_publish_year", insertable = false, updatable = false,
+            columnDefinition = "BIGINT GENERATED ALWAYS AS (JSON_VALUE(detail_data, '$.publishYear' RETURNING SIGNED NULL ON EMPTY NULL ON ERROR)) VIRTUAL COMMENT '发表年份（论文）'")
+    private Long publishYear;
+
+    @Column(name = "gen_patent_no", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(64) GENERATED ALWAYS AS (JSON_VALUE(detail_data, '$.patentNo' RETURNING CHAR(64) NULL ON EMPTY NULL ON ERROR)) VIRTUAL COMMENT '专利号（专利）'")
+    private String patentNo;
+
+    @Column(name = "gen_patent_type", insertable = false, updatable = false,
+            columnDefinition = "VARCHAR(32) GENERATED ALWAYS AS (JSON_VALUE(detail_data, '$.patentType' RETURNING CHAR(32) NULL ON EMPTY NULL ON ERROR)) VIRTUAL COMMENT '专利类型（专利）'")
+    private String patentType;
+
+
 //    /**
 //     * 标签，逗号分隔
 //     */
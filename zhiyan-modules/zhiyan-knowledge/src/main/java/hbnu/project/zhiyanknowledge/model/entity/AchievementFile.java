@@ -23,6 +23,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "achievement_file", indexes = {
         @Index(name = "idx_achievement", columnList = "achievement_id"),
+        @Index(name = "idx_content_hash", columnList = "content_hash"),
 })
 @DynamicInsert
 @DynamicUpdate
@@ -77,6 +78,13 @@ public class AchievementFile{
     @Column(name = "object_key", nullable = false, length = 500, columnDefinition = "VARCHAR(500) COMMENT 'MinIO对象键'")
     private String objectKey;
 
+    /**
+     * 文件内容SHA-256（内容寻址存储）
+     * 为空表示历史文件，对象由该记录独占
+     */
+    @Column(name = "content_hash", length = 64, columnDefinition = "CHAR(64) COMMENT '文件内容SHA-256'")
+    private String contentHash;
+
     /**
      * 完整访问URL
      */
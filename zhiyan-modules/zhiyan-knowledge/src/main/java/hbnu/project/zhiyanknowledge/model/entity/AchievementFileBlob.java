@@ -0,0 +1,89 @@
+package hbnu.project.zhiyanknowledge.model.entity;
+
+import hbnu.project.zhiyancommonbasic.annotation.LongToString;
+import hbnu.project.zhiyancommonbasic.utils.id.SnowflakeIdUtil;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.SuperBuilder;
+
+import java.time.LocalDateTime;
+
+/**
+ * 成果文件内容索引实体类
+ * 相同内容（SHA-256 相同）的文件在 MinIO 中只存一份，由多条文件记录引用
+ * 引用计数归零时删除该记录和对应对象
+ *
+ * @author ErgouTree
+ */
+@Data
+@Entity
+@Table(name = "achievement_file_blob", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sha256", columnNames = "sha256")
+})
+@SuperBuilder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AchievementFileBlob {
+
+    /**
+     * 内容唯一标识
+     */
+    @Id
+    @LongToString
+    @Column(name = "id", nullable = false, columnDefinition = "BIGINT COMMENT '内容唯一标识'")
+    private Long id;
+
+    /**
+     * 文件内容SHA-256（小写十六进制）
+     */
+    @Column(name = "sha256", nullable = false, length = 64, columnDefinition = "CHAR(64) COMMENT '文件内容SHA-256'")
+    private String sha256;
+
+    /**
+     * MinIO桶名
+     */
+    @Column(name = "bucket_name", nullable = false, length = 100, columnDefinition = "VARCHAR(100) COMMENT 'MinIO桶名'")
+    private String bucketName;
+
+    /**
+     * MinIO对象键
+     */
+    @Column(name = "object_key", nullable = false, length = 500, columnDefinition = "VARCHAR(500) COMMENT 'MinIO对象键'")
+    private String objectKey;
+
+    /**
+     * 文件大小（字节）
+     */
+    @Column(name = "file_size", nullable = false, columnDefinition = "BIGINT COMMENT '文件大小（字节）'")
+    private Long fileSize;
+
+    /**
+     * 引用该内容的文件记录数
+     */
+    @Column(name = "ref_count", nullable = false, columnDefinition = "INT NOT NULL DEFAULT 1 COMMENT '引用计数'")
+    private Integer refCount;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_at", nullable = false, columnDefinition = "TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间'")
+    private LocalDateTime createdAt;
+
+    /**
+     * 在持久化之前设置ID和创建时间
+     */
+    @PrePersist
+    public void prePersist() {
+        if (this.id == null) {
+            this.id = SnowflakeIdUtil.nextId();
+        }
+        if (this.refCount == null) {
+            this.refCount = 1;
+        }
+        if (this.createdAt == null) {
+            this.createdAt = LocalDateTime.now();
+        }
+    }
+}
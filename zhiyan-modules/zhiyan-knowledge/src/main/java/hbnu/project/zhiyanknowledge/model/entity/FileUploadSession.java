@@ -96,6 +96,13 @@ public class FileUploadSession {
     @Column(name = "upload_by", nullable = false)
     private Long uploadBy;
 
+    /**
+     * 是否为直传模式：客户端通过预签名URL直接上传分片到MinIO
+     */
+    @Builder.Default
+    @Column(name = "direct_upload", nullable = false)
+    private Boolean directUpload = false;
+
     /**
      * 状态
      */
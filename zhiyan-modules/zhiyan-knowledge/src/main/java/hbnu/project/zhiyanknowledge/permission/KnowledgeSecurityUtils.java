@@ -1,9 +1,9 @@
 package hbnu.project.zhiyanknowledge.permission;
 
-import hbnu.project.zhiyancommonbasic.domain.R;
 import hbnu.project.zhiyancommonbasic.exception.ServiceException;
+import hbnu.project.zhiyancommonsecurity.member.MemberAccessCache;
+import hbnu.project.zhiyancommonsecurity.member.MemberAccessDTO;
 import hbnu.project.zhiyancommonsecurity.utils.SecurityUtils;
-import hbnu.project.zhiyanknowledge.client.ProjectServiceClient;
 import hbnu.project.zhiyanknowledge.model.entity.Achievement;
 import hbnu.project.zhiyanknowledge.repository.AchievementRepository;
 import lombok.RequiredArgsConstructor;
@@ -11,9 +11,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Knowledge模块权限工具类
  * 用于检查用户对成果的访问权限
+ * 成员关系、角色和权限统一从 MemberAccessCache 获取，未命中时才批量调用项目服务
  *
  * @author ErgouTree
  */
@@ -26,7 +30,7 @@ public class KnowledgeSecurityUtils {
     private final AchievementRepository achievementRepository;
 
     @Autowired
-    private final ProjectServiceClient projectServiceClient;
+    private final MemberAccessCache memberAccessCache;
 
     /**
      * 检查当前用户是否为成果所属项目的成员
@@ -66,14 +70,46 @@ public class KnowledgeSecurityUtils {
      * @return 是否为项目成员
      */
     public boolean isProjectMemberByProjectId(Long projectId, Long userId) {
-        try {
-            R<Boolean> result = projectServiceClient.isProjectMember(projectId, userId);
-            // 使用静态方法判断请求是否成功，并且数据是否为true
-            return result != null && R.isSuccess(result) && Boolean.TRUE.equals(result.getData());
-        } catch (Exception e) {
-            log.error("检查项目成员关系失败: projectId={}, userId={}", projectId, userId, e);
-            return false;
-        }
+        return Boolean.TRUE.equals(memberAccessCache.get(projectId, userId).getMember());
+    }
+
+
+    /**
+     * 批量查询用户在多个项目中的访问信息
+     * 跨项目列表在逐条判断前调用一次，未命中的组合合并为一次远程调用
+     *
+     * @param projectIds 项目ID集合
+     * @param userId     用户ID
+     * @return 项目ID -> 访问信息
+     */
+    public Map<Long, MemberAccessDTO> getMemberAccess(Collection<Long> projectIds, Long userId) {
+        return memberAccessCache.getAll(projectIds, userId);
+    }
+
+
+    /**
+     * 检查用户在项目中是否为拥有者
+     *
+     * @param projectId 项目ID
+     * @param userId    用户ID
+     * @return 是否为拥有者
+     */
+    private boolean isProjectOwner(Long projectId, Long userId) {
+        return "OWNER".equals(memberAccessCache.get(projectId, userId).getRoleCode());
+    }
+
+
+    /**
+     * 检查用户在项目中是否拥有指定权限
+     *
+     * @param projectId  项目ID
+     * @param userId     用户ID
+     * @param permission 权限名称
+     * @return 是否拥有权限
+     */
+    private boolean hasProjectPermission(Long projectId, Long userId, String permission) {
+        MemberAccessDTO access = memberAccessCache.get(projectId, userId);
+        return access.getPermissions() != null && access.getPermissions().contains(permission);
     }
 
     /**
@@ -112,12 +148,7 @@ public class KnowledgeSecurityUtils {
             return true;
         }
 
-        try {
-            return projectServiceClient.hasPermission(achievement.getProjectId(), userId, "KNOWLEDGE_MANAGE");
-        } catch (Exception e) {
-            log.error("检查编辑权限失败: achievementId={}, userId={}", achievementId, userId, e);
-            return false;
-        }
+        return hasProjectPermission(achievement.getProjectId(), userId, "KNOWLEDGE_MANAGE");
     }
 
 
@@ -147,13 +178,8 @@ public class KnowledgeSecurityUtils {
         }
 
         // 项目拥有者/管理员可以删除
-        try {
-            return projectServiceClient.isProjectOwner(achievement.getProjectId(), userId) ||
-                    projectServiceClient.hasPermission(achievement.getProjectId(), userId, "KNOWLEDGE_MANAGE");
-        } catch (Exception e) {
-            log.error("检查删除权限失败: achievementId={}, userId={}", achievementId, userId, e);
-            return false;
-        }
+        return isProjectOwner(achievement.getProjectId(), userId) ||
+                hasProjectPermission(achievement.getProjectId(), userId, "KNOWLEDGE_MANAGE");
     }
 
 
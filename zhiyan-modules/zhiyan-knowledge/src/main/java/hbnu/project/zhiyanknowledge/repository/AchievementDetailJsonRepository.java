@@ -0,0 +1,31 @@
+package hbnu.project.zhiyanknowledge.repository;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 成果详情 JSON 字段级更新
+ * 使用 MySQL JSON_SET / JSON_REMOVE 在数据库内原地修改 detail_data，不在应用侧读出整个文档再写回
+ *
+ * @author ErgouTree
+ */
+public interface AchievementDetailJsonRepository {
+
+    /**
+     * 在一条 UPDATE 中设置、删除详情字段并可选更新摘要，版本号加一
+     *
+     * @param achievementId   成果ID
+     * @param setFields       需要设置的字段（值为 null 时写入 JSON null）
+     * @param removeKeys      需要删除的字段
+     * @param abstractText    摘要，为 null 时不修改
+     * @param expectedVersion 期望的版本号，为 null 时不做版本校验
+     * @param updatedBy       操作用户ID，为 null 时不修改
+     * @return 受影响行数，0 表示详情不存在或版本号不匹配
+     */
+    int updateDetailFields(Long achievementId,
+                           Map<String, Object> setFields,
+                           Collection<String> removeKeys,
+                           String abstractText,
+                           Integer expectedVersion,
+                           Long updatedBy);
+}
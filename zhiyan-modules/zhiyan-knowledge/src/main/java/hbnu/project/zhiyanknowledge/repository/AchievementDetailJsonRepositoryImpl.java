@@ -0,0 +1,101 @@
+package hbnu.project.zhiyanknowledge.repository;
+
+import hbnu.project.zhiyancommonbasic.exception.ServiceException;
+import hbnu.project.zhiyancommonbasic.utils.JsonUtils;
+import hbnu.project.zhiyancommonbasic.utils.StringUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 成果详情 JSON 字段级更新实现
+ *
+ * @author ErgouTree
+ */
+public class AchievementDetailJsonRepositoryImpl implements AchievementDetailJsonRepository {
+
+    @PersistenceContext(unitName = "primary")
+    private EntityManager entityManager;
+
+    @Override
+    public int updateDetailFields(Long achievementId,
+                                  Map<String, Object> setFields,
+                                  Collection<String> removeKeys,
+                                  String abstractText,
+                                  Integer expectedVersion,
+                                  Long updatedBy) {
+        List<Object> params = new ArrayList<>();
+        String detailExpr = "COALESCE(detail_data, JSON_OBJECT())";
+
+        if (setFields != null && !setFields.isEmpty()) {
+            StringBuilder expr = new StringBuilder("JSON_SET(").append(detailExpr);
+            for (Map.Entry<String, Object> entry : setFields.entrySet()) {
+                params.add(toJsonPath(entry.getKey()));
+                params.add(toJsonValue(entry.getValue()));
+                expr.append(", ?").append(params.size() - 1).append(", CAST(?").append(params.size()).append(" AS JSON)");
+            }
+            detailExpr = expr.append(')').toString();
+        }
+        if (removeKeys != null && !removeKeys.isEmpty()) {
+            StringBuilder expr = new StringBuilder("JSON_REMOVE(").append(detailExpr);
+            for (String key : removeKeys) {
+                params.add(toJsonPath(key));
+                expr.append(", ?").append(params.size());
+            }
+            detailExpr = expr.append(')').toString();
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE achievement_detail SET detail_data = ").append(detailExpr);
+        if (abstractText != null) {
+            params.add(abstractText);
+            sql.append(", abstract = ?").append(params.size());
+        }
+        if (updatedBy != null) {
+            params.add(updatedBy);
+            sql.append(", updated_by = ?").append(params.size());
+        }
+        sql.append(", updated_at = NOW(), version = version + 1");
+        params.add(achievementId);
+        sql.append(" WHERE achievement_id = ?").append(params.size());
+        if (expectedVersion != null) {
+            params.add(expectedVersion);
+            sql.append(" AND version = ?").append(params.size());
+        }
+
+        // 先把挂起的修改刷到数据库，更新后清空一级缓存，避免随后读到旧的详情实体
+        entityManager.flush();
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < params.size(); i++) {
+            query.setParameter(i + 1, params.get(i));
+        }
+        int updated = query.executeUpdate();
+        entityManager.clear();
+        return updated;
+    }
+
+    /**
+     * 顶层字段名转 JSON 路径，字段名整体加引号，避免其中的点号、空格被解析成路径
+     */
+    private String toJsonPath(String key) {
+        if (StringUtils.isEmpty(key)) {
+            throw new ServiceException("字段名不能为空");
+        }
+        return "$.\"" + key.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private String toJsonValue(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        String json = JsonUtils.toJsonString(value);
+        if (StringUtils.isEmpty(json)) {
+            throw new ServiceException("字段数据序列化失败");
+        }
+        return json;
+    }
+}
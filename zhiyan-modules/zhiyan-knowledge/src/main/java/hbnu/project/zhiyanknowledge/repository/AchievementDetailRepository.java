@@ -20,7 +20,7 @@ import java.util.Optional;
  */
 @Repository
 public interface AchievementDetailRepository extends JpaRepository<AchievementDetail, Long>,
-        JpaSpecificationExecutor<AchievementDetail> {
+        JpaSpecificationExecutor<AchievementDetail>, AchievementDetailJsonRepository {
 
     /**
      * 根据成果ID查询详情，用于前端展示
@@ -0,0 +1,63 @@
+package hbnu.project.zhiyanknowledge.repository;
+
+import hbnu.project.zhiyanknowledge.model.entity.AchievementFileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * 成果文件内容索引数据访问层
+ * 引用计数的增减都用单条 UPDATE 完成，依赖行锁保证并发安全
+ *
+ * @author ErgouTree
+ */
+@Repository
+public interface AchievementFileBlobRepository extends JpaRepository<AchievementFileBlob, Long> {
+
+    /**
+     * 根据内容哈希查询
+     *
+     * @param sha256 内容SHA-256
+     * @return 内容索引
+     */
+    Optional<AchievementFileBlob> findBySha256(String sha256);
+
+    /**
+     * 引用计数加一
+     * 计数已归零（正在回收）的记录不能再被引用
+     *
+     * @param id 内容ID
+     * @return 更新行数，0 表示内容已被回收
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AchievementFileBlob b SET b.refCount = b.refCount + 1 WHERE b.id = :id AND b.refCount > 0")
+    int incrementRefCount(@Param("id") Long id);
+
+    /**
+     * 引用计数减一
+     *
+     * @param id 内容ID
+     * @return 更新行数
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE AchievementFileBlob b SET b.refCount = b.refCount - 1 WHERE b.id = :id AND b.refCount > 0")
+    int decrementRefCount(@Param("id") Long id);
+
+    /**
+     * 删除已无引用的内容记录
+     *
+     * @param id 内容ID
+     * @return 删除行数，1 表示由本次调用负责删除对象
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AchievementFileBlob b WHERE b.id = :id AND b.refCount = 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
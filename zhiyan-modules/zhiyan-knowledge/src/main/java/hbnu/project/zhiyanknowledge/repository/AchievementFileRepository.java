@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -63,6 +64,15 @@ public interface AchievementFileRepository extends JpaRepository<AchievementFile
      */
     Optional<AchievementFile> findByAchievementIdAndFileName(Long achievementId, String fileName);
 
+    /**
+     * 批量查询成果下的同名文件
+     *
+     * @param achievementId 成果ID
+     * @param fileNames     文件名集合
+     * @return 文件列表
+     */
+    List<AchievementFile> findByAchievementIdAndFileNameIn(Long achievementId, Collection<String> fileNames);
+
 //    /**
 //     * 根据成果ID和版本号查询文件
 //     *
@@ -92,6 +102,27 @@ public interface AchievementFileRepository extends JpaRepository<AchievementFile
      */
     long countByAchievementId(Long achievementId);
 
+    /**
+     * 统计项目下所有成果的文件数量
+     *
+     * @param projectId 项目ID
+     * @return 文件数量
+     */
+    @Query("SELECT COUNT(f) FROM AchievementFile f, Achievement a " +
+            "WHERE f.achievementId = a.id AND a.projectId = :projectId")
+    long countByProjectId(@Param("projectId") Long projectId);
+
+    /**
+     * 检查项目下是否已有引用该内容的成果文件（秒传只允许复用本项目已有的内容）
+     *
+     * @param contentHash 内容SHA-256
+     * @param projectId   项目ID
+     * @return 是否存在
+     */
+    @Query("SELECT COUNT(f) > 0 FROM AchievementFile f, Achievement a " +
+            "WHERE f.achievementId = a.id AND f.contentHash = :contentHash AND a.projectId = :projectId")
+    boolean existsByContentHashInProject(@Param("contentHash") String contentHash, @Param("projectId") Long projectId);
+
     /**
      * 删除该成果的所有文件
      *
@@ -14,6 +14,7 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,6 +45,67 @@ public interface AchievementRepository extends JpaRepository<Achievement, Long>,
     @Query("SELECT DISTINCT a FROM Achievement a LEFT JOIN FETCH a.files WHERE a.projectId = :projectId")
     List<Achievement> findByProjectIdWithFiles(@Param("projectId") Long projectId);
 
+    /**
+     * 分页查询项目下的成果ID（全部成果，项目成员可见）
+     * 只取ID，成果和文件由 {@link #findWithFilesByIdIn} 按页批量加载
+     *
+     * @param projectId 项目ID
+     * @param pageable  分页参数
+     * @return 成果ID分页
+     */
+    @Query(value = "SELECT a.id FROM Achievement a WHERE a.projectId = :projectId",
+            countQuery = "SELECT COUNT(a) FROM Achievement a WHERE a.projectId = :projectId")
+    Page<Long> findIdsByProjectId(@Param("projectId") Long projectId, Pageable pageable);
+
+    /**
+     * 分页查询项目下公开成果的ID（非项目成员可见）
+     *
+     * @param projectId 项目ID
+     * @param pageable  分页参数
+     * @return 成果ID分页
+     */
+    @Query(value = "SELECT a.id FROM Achievement a WHERE a.projectId = :projectId AND a.isPublic = true",
+            countQuery = "SELECT COUNT(a) FROM Achievement a WHERE a.projectId = :projectId AND a.isPublic = true")
+    Page<Long> findPublicIdsByProjectId(@Param("projectId") Long projectId, Pageable pageable);
+
+    /**
+     * 按ID批量查询成果，并一次加载文件和详情
+     * 结果顺序不确定，调用方按ID重新排序
+     *
+     * @param ids 成果ID
+     * @return 成果列表
+     */
+    @Query("SELECT DISTINCT a FROM Achievement a LEFT JOIN FETCH a.files LEFT JOIN FETCH a.detail WHERE a.id IN :ids")
+    List<Achievement> findWithFilesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按ID批量查询成果并加载详情，供检索索引构建文档
+     *
+     * @param ids 成果ID
+     * @return 成果列表
+     */
+    @Query("SELECT a FROM Achievement a LEFT JOIN FETCH a.detail WHERE a.id IN :ids")
+    List<Achievement> findWithDetailByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 过滤出仍然存在的成果ID
+     *
+     * @param ids 成果ID列表
+     * @return 存在的成果ID
+     */
+    @Query("SELECT a.id FROM Achievement a WHERE a.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按ID升序取下一批成果ID（键集分页，用于全量遍历）
+     *
+     * @param lastId   上一批最后一个ID，首批传 0
+     * @param pageable 批大小
+     * @return 成果ID列表
+     */
+    @Query("SELECT a.id FROM Achievement a WHERE a.id > :lastId ORDER BY a.id")
+    List<Long> findIdsAfter(@Param("lastId") Long lastId, Pageable pageable);
+
     /**
      * 根据项目ID查询成果列表
      *
@@ -130,6 +192,17 @@ public interface AchievementRepository extends JpaRepository<Achievement, Long>,
      */
     long countByProjectIdAndType(Long projectId, AchievementType type);
 
+    /**
+     * 按类型和状态分组统计项目下的成果数量
+     * 一条查询得到整个项目的分布，走 (project_id, type, status) 覆盖索引
+     *
+     * @param projectId 项目ID
+     * @return 每行为 [type, status, count]
+     */
+    @Query("SELECT a.type, a.status, COUNT(a) FROM Achievement a " +
+            "WHERE a.projectId = :projectId GROUP BY a.type, a.status")
+    List<Object[]> countGroupByTypeAndStatus(@Param("projectId") Long projectId);
+
     /**
      * 查询项目下指定时间范围内创建的成果（分页）
      *
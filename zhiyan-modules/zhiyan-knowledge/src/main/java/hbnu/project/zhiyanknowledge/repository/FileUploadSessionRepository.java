@@ -4,7 +4,9 @@ import hbnu.project.zhiyanknowledge.model.entity.FileUploadSession;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -40,4 +42,16 @@ public interface FileUploadSessionRepository extends JpaRepository<FileUploadSes
      * 查询用户的所有进行中会话
      */
     List<FileUploadSession> findByUploadByAndStatus(Long uploadBy, FileUploadSession.UploadStatus status);
+
+    /**
+     * 写入已上传分片检查点，只更新分片列表与更新时间，不整行回写
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE FileUploadSession f SET f.uploadedChunksJson = :uploadedChunksJson, f.updatedAt = :now " +
+            "WHERE f.uploadId = :uploadId AND f.status = :status")
+    int updateUploadedChunks(@Param("uploadId") String uploadId,
+                             @Param("uploadedChunksJson") String uploadedChunksJson,
+                             @Param("status") FileUploadSession.UploadStatus status,
+                             @Param("now") LocalDateTime now);
 }
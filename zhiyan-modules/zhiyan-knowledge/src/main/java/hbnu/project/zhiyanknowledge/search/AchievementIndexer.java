@@ -0,0 +1,152 @@
+package hbnu.project.zhiyanknowledge.search;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import hbnu.project.zhiyancommonbasic.utils.JsonUtils;
+import hbnu.project.zhiyancommonbasic.utils.StringUtils;
+import hbnu.project.zhiyancommonelasticsearch.index.GenerationIndexer;
+import hbnu.project.zhiyanknowledge.model.entity.Achievement;
+import hbnu.project.zhiyanknowledge.model.entity.AchievementDetail;
+import hbnu.project.zhiyanknowledge.repository.AchievementRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * 成果检索索引维护
+ * 成果变更事务提交后登记成果ID，合并后按批从数据库重新加载并写入索引，数据库中已不存在的成果从索引删除；
+ * 合并写入、失败重试和按代次全量重建见 {@link GenerationIndexer}
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+public class AchievementIndexer extends GenerationIndexer {
+
+    /**
+     * 单批处理的成果数量
+     */
+    private static final int BATCH_SIZE = 200;
+
+    /**
+     * 每日全量重建的时刻
+     */
+    private static final int REINDEX_HOUR = 3;
+
+    private final AchievementRepository achievementRepository;
+
+    private final AchievementSearchIndex achievementSearchIndex;
+
+    public AchievementIndexer(AchievementRepository achievementRepository,
+                              AchievementSearchIndex achievementSearchIndex) {
+        super(achievementSearchIndex, "成果检索索引", "knowledge:achievement:index", BATCH_SIZE, REINDEX_HOUR);
+        this.achievementRepository = achievementRepository;
+        this.achievementSearchIndex = achievementSearchIndex;
+    }
+
+    /**
+     * 成果变更事件，创建、修改、删除都只携带成果ID，索引内容以提交后的数据库为准
+     */
+    public record AchievementIndexEvent(Long achievementId) {
+    }
+
+    /**
+     * 业务事务提交后登记变更，延迟合并后写入索引
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChanged(AchievementIndexEvent event) {
+        enqueue(event.achievementId());
+    }
+
+    @Override
+    protected List<Long> findIdsAfter(long lastId, int limit) {
+        return achievementRepository.findIdsAfter(lastId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * 不属于本代次的文档只删除数据库中已不存在的
+     */
+    @Override
+    protected long reconcileOutsideGeneration(List<Long> ids) throws Exception {
+        Set<Long> missing = new HashSet<>(ids);
+        achievementRepository.findExistingIds(ids).forEach(missing::remove);
+        return !missing.isEmpty() && achievementSearchIndex.delete(missing) ? missing.size() : 0;
+    }
+
+    /**
+     * 从数据库加载一批成果写入索引，数据库中不存在的从索引删除
+     *
+     * @param generation 全量重建代次，增量写入传 null
+     */
+    @Override
+    protected boolean indexBatch(List<Long> ids, String generation) throws Exception {
+        List<AchievementSearchDocument> documents = new ArrayList<>(ids.size());
+        Set<Long> missing = new HashSet<>(ids);
+        for (Achievement achievement : achievementRepository.findWithDetailByIdIn(ids)) {
+            missing.remove(achievement.getId());
+            documents.add(toDocument(achievement, generation));
+        }
+        boolean upserted = achievementSearchIndex.upsert(documents);
+        boolean deleted = achievementSearchIndex.delete(missing);
+        return upserted && deleted;
+    }
+
+    private AchievementSearchDocument toDocument(Achievement achievement, String generation) {
+        AchievementDetail detail = achievement.getDetail();
+        return AchievementSearchDocument.builder()
+                .id(String.valueOf(achievement.getId()))
+                .projectId(achievement.getProjectId())
+                .title(achievement.getTitle())
+                .abstractText(detail != null ? detail.getAbstractText() : null)
+                .detailText(detail != null ? flattenDetailData(detail.getDetailData()) : null)
+                .type(achievement.getType() != null ? achievement.getType().name() : null)
+                .status(achievement.getStatus() != null ? achievement.getStatus().name() : null)
+                .isPublic(Boolean.TRUE.equals(achievement.getIsPublic()))
+                .creatorId(achievement.getCreatorId())
+                .createdAt(toEpochMillis(achievement.getCreatedAt()))
+                .generation(generation)
+                .build();
+    }
+
+    /**
+     * 把详情 JSON 展平成 "字段: 值" 文本，嵌套字段用点号连接
+     */
+    private String flattenDetailData(String detailDataJson) {
+        if (StringUtils.isEmpty(detailDataJson)) {
+            return null;
+        }
+        Map<String, Object> data;
+        try {
+            data = JsonUtils.parseObject(detailDataJson, new TypeReference<>() {
+            });
+        } catch (Exception e) {
+            log.warn("解析成果详情数据失败，跳过详情字段索引: {}", e.getMessage());
+            return null;
+        }
+        if (data == null) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        flatten("", data, text);
+        return text.toString();
+    }
+
+    private void flatten(String path, Object value, StringBuilder text) {
+        if (value instanceof Map<?, ?> map) {
+            map.forEach((key, child) -> flatten(path.isEmpty() ? String.valueOf(key) : path + "." + key, child, text));
+        } else if (value instanceof Collection<?> list) {
+            list.forEach(child -> flatten(path, child, text));
+        } else if (value != null && !String.valueOf(value).isBlank()) {
+            text.append(path).append(": ").append(value).append('\n');
+        }
+    }
+
+    private Long toEpochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : null;
+    }
+}
@@ -0,0 +1,74 @@
+package hbnu.project.zhiyanknowledge.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 成果检索文档
+ * 时间字段使用毫秒时间戳，避免依赖 ES 客户端 JSON 映射器对 Java 时间类型的支持
+ *
+ * @author ErgouTree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AchievementSearchDocument {
+
+    /**
+     * 成果ID（文档ID）
+     */
+    private String id;
+
+    /**
+     * 所属项目ID
+     */
+    private Long projectId;
+
+    /**
+     * 标题
+     */
+    private String title;
+
+    /**
+     * 摘要
+     */
+    private String abstractText;
+
+    /**
+     * 展平后的详情数据，每个叶子字段一行 "字段: 值"
+     */
+    private String detailText;
+
+    /**
+     * 成果类型（枚举名）
+     */
+    private String type;
+
+    /**
+     * 成果状态（枚举名）
+     */
+    private String status;
+
+    /**
+     * 是否公开
+     */
+    private Boolean isPublic;
+
+    /**
+     * 创建者ID
+     */
+    private Long creatorId;
+
+    /**
+     * 创建时间（毫秒）
+     */
+    private Long createdAt;
+
+    /**
+     * 写入该文档的全量重建代次，增量写入为空；全量重建后只检查不属于本代次的文档是否已不存在
+     */
+    private String generation;
+}
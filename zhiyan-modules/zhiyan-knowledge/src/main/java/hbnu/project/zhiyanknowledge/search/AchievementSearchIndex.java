@@ -0,0 +1,153 @@
+package hbnu.project.zhiyanknowledge.search;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch._types.query_dsl.BoolQuery;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.HighlightField;
+import co.elastic.clients.elasticsearch.core.search.HighlighterEncoder;
+import co.elastic.clients.util.NamedValue;
+import hbnu.project.zhiyancommonelasticsearch.index.GenerationSearchIndex;
+import hbnu.project.zhiyancommonelasticsearch.util.ElasticsearchUtil;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 成果检索索引
+ * 封装索引结构、文档写入和检索请求，索引内容由 {@link AchievementIndexer} 维护
+ *
+ * @author ErgouTree
+ */
+@Component
+public class AchievementSearchIndex extends GenerationSearchIndex {
+
+    public static final String INDEX_NAME = "zhiyan_achievement";
+
+    /**
+     * 中文文本使用内置 cjk 分析器（二元切分），不依赖额外的分词插件
+     */
+    private static final String TEXT_ANALYZER = "cjk";
+
+    public static final String TYPE_FACET = "type";
+    public static final String STATUS_FACET = "status";
+
+    public AchievementSearchIndex(ElasticsearchClient elasticsearchClient, ElasticsearchUtil elasticsearchUtil) {
+        super(elasticsearchClient, elasticsearchUtil, INDEX_NAME);
+    }
+
+    /**
+     * 检索条件
+     *
+     * @param keyword            关键字
+     * @param projectId          限定项目，为空时不限
+     * @param restrictVisibility 是否只返回公开成果（以及 viewerId 创建的成果）
+     * @param viewerId           当前用户ID，可为空
+     * @param type               类型筛选（枚举名），为空时不限
+     * @param status             状态筛选（枚举名），为空时不限
+     * @param from               起始偏移
+     * @param size               返回条数
+     * @param withFacets         是否返回类型、状态分面和高亮
+     */
+    public record SearchCriteria(String keyword, Long projectId, boolean restrictVisibility, Long viewerId,
+                                 String type, String status, int from, int size, boolean withFacets) {
+    }
+
+    @Override
+    protected void defineMappings(TypeMapping.Builder mappings) {
+        mappings.properties("title", p -> p.text(t -> t.analyzer(TEXT_ANALYZER)
+                        .fields("keyword", f -> f.keyword(k -> k.ignoreAbove(256)))))
+                .properties("abstractText", p -> p.text(t -> t.analyzer(TEXT_ANALYZER)))
+                .properties("detailText", p -> p.text(t -> t.analyzer(TEXT_ANALYZER)))
+                .properties("projectId", p -> p.long_(l -> l))
+                .properties("creatorId", p -> p.long_(l -> l))
+                .properties("type", p -> p.keyword(k -> k))
+                .properties("status", p -> p.keyword(k -> k))
+                .properties("isPublic", p -> p.boolean_(b -> b))
+                .properties("createdAt", p -> p.date(d -> d.format("epoch_millis")));
+    }
+
+    /**
+     * 早期创建的索引没有代次字段，补充映射（字段已存在且类型一致时为空操作）
+     */
+    @Override
+    protected void onIndexExists() throws IOException {
+        elasticsearchClient.indices().putMapping(p -> p
+                .index(INDEX_NAME)
+                .properties(GENERATION_FIELD, f -> f.keyword(kw -> kw)));
+    }
+
+    /**
+     * 批量写入文档（存在则覆盖）
+     */
+    public boolean upsert(List<AchievementSearchDocument> documents) throws IOException {
+        if (documents.isEmpty()) {
+            return true;
+        }
+        return elasticsearchUtil.bulkIndex(INDEX_NAME, documents, AchievementSearchDocument::getId);
+    }
+
+    /**
+     * 按相关度检索，只取文档ID（成果内容由调用方从数据库加载）
+     * 类型、状态筛选放在 post_filter，分面统计不受自身筛选影响
+     */
+    public SearchResponse<Void> search(SearchCriteria criteria) throws IOException {
+        Query query = Query.of(q -> q.bool(b -> {
+            b.must(m -> m.multiMatch(mm -> mm
+                    .query(criteria.keyword())
+                    .fields("title^3", "abstractText^2", "detailText")));
+            if (criteria.projectId() != null) {
+                b.filter(f -> f.term(t -> t.field("projectId").value(criteria.projectId())));
+            }
+            if (criteria.restrictVisibility()) {
+                b.filter(f -> f.bool(v -> {
+                    v.should(s -> s.term(t -> t.field("isPublic").value(true)));
+                    if (criteria.viewerId() != null) {
+                        v.should(s -> s.term(t -> t.field("creatorId").value(criteria.viewerId())));
+                    }
+                    return v.minimumShouldMatch("1");
+                }));
+            }
+            return b;
+        }));
+
+        List<Query> postFilters = new ArrayList<>();
+        if (criteria.type() != null) {
+            postFilters.add(Query.of(q -> q.term(t -> t.field("type").value(FieldValue.of(criteria.type())))));
+        }
+        if (criteria.status() != null) {
+            postFilters.add(Query.of(q -> q.term(t -> t.field("status").value(FieldValue.of(criteria.status())))));
+        }
+
+        return elasticsearchClient.search(s -> {
+            s.index(INDEX_NAME)
+                    .query(query)
+                    .from(criteria.from())
+                    .size(criteria.size())
+                    .trackTotalHits(t -> t.enabled(true))
+                    .source(src -> src.fetch(false));
+            if (!postFilters.isEmpty()) {
+                s.postFilter(BoolQuery.of(b -> b.filter(postFilters))._toQuery());
+            }
+            if (criteria.withFacets()) {
+                s.aggregations(TYPE_FACET, a -> a.terms(t -> t.field("type").size(32)))
+                        .aggregations(STATUS_FACET, a -> a.terms(t -> t.field("status").size(32)))
+                        .highlight(h -> h
+                                // 先对原文做 HTML 转义再插入高亮标签，成果内容中的标签不会被前端当作 HTML 渲染
+                                .encoder(HighlighterEncoder.Html)
+                                .preTags("<em>")
+                                .postTags("</em>")
+                                .fields(NamedValue.of("title", HighlightField.of(f -> f.numberOfFragments(0))),
+                                        NamedValue.of("abstractText", HighlightField.of(f -> f
+                                                .fragmentSize(120).numberOfFragments(3))),
+                                        NamedValue.of("detailText", HighlightField.of(f -> f
+                                                .fragmentSize(80).numberOfFragments(2)))));
+            }
+            return s;
+        }, Void.class);
+    }
+}
@@ -62,6 +62,32 @@ public interface AchievementDetailsService {
      */
     AchievementDetailDTO updateDetailFields(Long achievementId, Map<String, Object> fieldUpdates, Long userId);
 
+    /**
+     * 批量更新详情字段（带版本校验）
+     * 在数据库内用 JSON_SET 原地修改，不读出整个详情文档
+     *
+     * @param achievementId   成果ID
+     * @param fieldUpdates    字段更新Map
+     * @param expectedVersion 期望的详情版本号，为 null 时不校验
+     * @param userId          操作用户ID
+     * @return 更新后的详情
+     */
+    AchievementDetailDTO updateDetailFields(Long achievementId, Map<String, Object> fieldUpdates,
+                                            Integer expectedVersion, Long userId);
+
+    /**
+     * 删除详情字段
+     * 在数据库内用 JSON_REMOVE 原地删除，必填字段不允许删除
+     *
+     * @param achievementId   成果ID
+     * @param fieldKeys       需要删除的字段
+     * @param expectedVersion 期望的详情版本号，为 null 时不校验
+     * @param userId          操作用户ID
+     * @return 更新后的详情
+     */
+    AchievementDetailDTO removeDetailFields(Long achievementId, List<String> fieldKeys,
+                                            Integer expectedVersion, Long userId);
+
     /**
      * 根据模板初始化详情数据
      * 为新成果创建初始的JSON数据结构
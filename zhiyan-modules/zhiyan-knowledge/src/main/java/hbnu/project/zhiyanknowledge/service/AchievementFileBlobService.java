@@ -0,0 +1,50 @@
+package hbnu.project.zhiyanknowledge.service;
+
+import hbnu.project.zhiyanknowledge.model.entity.AchievementFile;
+import hbnu.project.zhiyanknowledge.model.entity.AchievementFileBlob;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Collection;
+
+/**
+ * 成果文件内容存储服务接口
+ * 按 SHA-256 内容寻址去重，多条文件记录共享同一个 MinIO 对象，引用计数归零时才删除对象
+ *
+ * @author ErgouTree
+ */
+public interface AchievementFileBlobService {
+
+    /**
+     * 按内容哈希引用已存储的内容（秒传）
+     * 命中时引用计数加一，调用方需要把返回内容写入新的文件记录
+     *
+     * @param sha256   内容SHA-256
+     * @param fileSize 文件大小，与已存储内容不一致时视为未命中
+     * @return 内容索引，未命中返回 null
+     */
+    AchievementFileBlob reference(String sha256, long fileSize);
+
+    /**
+     * 存储上传的文件内容
+     * 先计算哈希，相同内容已存在时只增加引用，否则上传到内容寻址对象键并登记
+     *
+     * @param file 上传的文件
+     * @return 内容索引（已计入本次引用）
+     */
+    AchievementFileBlob store(MultipartFile file);
+
+    /**
+     * 释放文件记录对内容的引用
+     * 引用归零时在事务提交后删除对象；没有内容哈希的历史文件直接删除其对象
+     *
+     * @param file 文件记录
+     */
+    void release(AchievementFile file);
+
+    /**
+     * 批量释放文件记录对内容的引用
+     *
+     * @param files 文件记录
+     */
+    void release(Collection<AchievementFile> files);
+}
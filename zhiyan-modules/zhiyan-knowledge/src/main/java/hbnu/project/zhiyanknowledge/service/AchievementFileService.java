@@ -1,7 +1,10 @@
 package hbnu.project.zhiyanknowledge.service;
 
 import hbnu.project.zhiyanknowledge.model.dto.AchievementFileDTO;
+import hbnu.project.zhiyanknowledge.model.dto.BatchDownloadResponseDTO;
+import hbnu.project.zhiyanknowledge.model.dto.BatchUploadResultDTO;
 import hbnu.project.zhiyanknowledge.model.dto.FileContextDTO;
+import hbnu.project.zhiyanknowledge.model.dto.InstantUploadDTO;
 import hbnu.project.zhiyanknowledge.model.dto.UploadFileDTO;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -24,15 +27,23 @@ public interface AchievementFileService {
      */
     AchievementFileDTO uploadFile(MultipartFile file, UploadFileDTO uploadDTO);
 
+    /**
+     * 秒传：按内容哈希登记成果文件
+     *
+     * @param instantDTO 秒传请求
+     * @return 文件信息，服务端没有相同内容时返回 null，客户端需改为正常上传
+     */
+    AchievementFileDTO uploadFileByHash(InstantUploadDTO instantDTO);
+
     /**
      * 批量上传成果文件
      *
      * @param files        文件列表
      * @param achievementId 成果ID
      * @param uploadBy      上传者ID
-     * @return 文件信息列表
+     * @return 每个文件的上传结果
      */
-    List<AchievementFileDTO> uploadFilesBatch(List<MultipartFile> files, Long achievementId, Long uploadBy);
+    BatchUploadResultDTO uploadFilesBatch(List<MultipartFile> files, Long achievementId, Long uploadBy);
 
     /**
      * 下载成果文件
@@ -55,13 +66,36 @@ public interface AchievementFileService {
 
     /**
      * 直接下载文件（流式下载）
-     * 通过后端代理下载，不使用预签名URL
+     * 通过后端代理下载，不使用预签名URL，支持 Range / If-Range 断点续传
      *
      * @param fileId   文件ID
      * @param userId   当前用户ID
+     * @param request  HttpServletRequest对象（读取 Range 等请求头）
      * @param response HttpServletResponse对象
      */
-    void downloadFile(Long fileId, Long userId, jakarta.servlet.http.HttpServletResponse response);
+    void downloadFile(Long fileId, Long userId,
+                      jakarta.servlet.http.HttpServletRequest request,
+                      jakarta.servlet.http.HttpServletResponse response);
+
+    /**
+     * 批量生成文件下载链接（一次查询全部文件记录）
+     *
+     * @param fileIds       文件ID列表
+     * @param userId        当前用户ID
+     * @param expirySeconds 过期时间（秒）
+     * @return 每个文件的下载信息，顺序与请求一致
+     */
+    List<BatchDownloadResponseDTO.FileDownloadInfo> getFileDownloadInfos(List<Long> fileIds, Long userId, Integer expirySeconds);
+
+    /**
+     * 把多个文件打包为ZIP流式写入响应
+     *
+     * @param fileIds     文件ID列表
+     * @param userId      当前用户ID
+     * @param archiveName 压缩包文件名（不含扩展名）
+     * @param response    HttpServletResponse对象
+     */
+    void downloadFilesAsZip(List<Long> fileIds, Long userId, String archiveName, jakarta.servlet.http.HttpServletResponse response);
 
     /**
      * 删除文件
@@ -102,6 +136,14 @@ public interface AchievementFileService {
      */
     long countFilesByAchievementId(Long achievementId);
 
+    /**
+     * 统计项目下所有成果的文件数量
+     *
+     * @param projectId 项目ID
+     * @return 文件数量
+     */
+    long countFilesByProjectId(Long projectId);
+
     /**
      * 检查用户是否有权限访问文件
      *
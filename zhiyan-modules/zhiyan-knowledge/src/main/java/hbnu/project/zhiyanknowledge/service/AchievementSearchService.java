@@ -3,6 +3,9 @@ package hbnu.project.zhiyanknowledge.service;
 import hbnu.project.zhiyanknowledge.model.dto.AchievementDTO;
 import hbnu.project.zhiyanknowledge.model.dto.AchievementFileDTO;
 import hbnu.project.zhiyanknowledge.model.dto.AchievementQueryDTO;
+import hbnu.project.zhiyanknowledge.model.dto.AchievementSearchResultDTO;
+import hbnu.project.zhiyanknowledge.model.enums.AchievementStatus;
+import hbnu.project.zhiyanknowledge.model.enums.AchievementType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -82,4 +85,20 @@ public interface AchievementSearchService {
      * @return 成果分页列表
      */
     public Page<AchievementDTO> combinationSearch(String keyword, Pageable pageable);
+
+    /**
+     * 全文检索：按相关度排序，返回类型、状态分面和高亮片段
+     * 项目成员可检索项目内全部成果，其他情况只返回公开成果和自己创建的成果
+     *
+     * @param keyword   搜索关键字
+     * @param projectId 项目ID（可选）
+     * @param type      类型筛选（可选）
+     * @param status    状态筛选（可选）
+     * @param page      页码（从0开始）
+     * @param size      每页数量
+     * @return 检索结果
+     */
+    AchievementSearchResultDTO fullTextSearch(String keyword, Long projectId,
+                                              AchievementType type, AchievementStatus status,
+                                              int page, int size);
 }
@@ -23,6 +23,16 @@ public interface ChunkedUploadService {
      */
     UploadSessionDTO initiateUpload(InitiateUploadDTO dto, Long userId);
 
+    /**
+     * 重新获取直传分片的预签名上传地址
+     *
+     * @param uploadId 上传ID
+     * @param partNumbers 分片号（单次最多100个），为空时返回前100个未上传分片
+     * @param userId 用户ID
+     * @return 带预签名地址的上传会话信息
+     */
+    UploadSessionDTO getPartUploadUrls(String uploadId, List<Integer> partNumbers, Long userId);
+
     /**
      * 上传分片
      *
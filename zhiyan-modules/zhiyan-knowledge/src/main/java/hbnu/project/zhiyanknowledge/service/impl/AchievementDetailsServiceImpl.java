@@ -6,6 +6,7 @@ import hbnu.project.zhiyancommonbasic.utils.JsonUtils;
 import hbnu.project.zhiyancommonbasic.utils.StringUtils;
 import hbnu.project.zhiyancommonbasic.utils.container.MapUtils;
 import hbnu.project.zhiyancommonbasic.utils.id.SnowflakeIdUtil;
+import hbnu.project.zhiyancommonsecurity.utils.SecurityUtils;
 import hbnu.project.zhiyanknowledge.mapper.AchievementConverter;
 import hbnu.project.zhiyanknowledge.message.KnowledgeMessageService;
 import hbnu.project.zhiyanknowledge.model.dto.*;
@@ -16,16 +17,21 @@ import hbnu.project.zhiyanknowledge.model.enums.AchievementStatus;
 import hbnu.project.zhiyanknowledge.model.enums.AchievementType;
 import hbnu.project.zhiyanknowledge.repository.AchievementDetailRepository;
 import hbnu.project.zhiyanknowledge.repository.AchievementRepository;
+import hbnu.project.zhiyanknowledge.search.AchievementIndexer.AchievementIndexEvent;
 import hbnu.project.zhiyanknowledge.service.AchievementDetailsService;
 import hbnu.project.zhiyanknowledge.service.AchievementFileService;
+import hbnu.project.zhiyanknowledge.statistics.AchievementStatsCache.AchievementStatsChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.Resource;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -53,6 +59,8 @@ public class AchievementDetailsServiceImpl implements AchievementDetailsService
     @Resource
     private final KnowledgeMessageService knowledgeMessageService;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * 创建成果及其详情
      * 一次性创建成果主记录和详情记录
@@ -76,6 +84,7 @@ public class AchievementDetailsServiceImpl implements AchievementDetailsService
 
         // 2. 持久化
         achievement = achievementRepository.save(achievement);
+        eventPublisher.publishEvent(AchievementStatsChangedEvent.created(achievement));
         log.info("成果主记录创建成功: achievementId={}", achievement.getId());
 
 
@@ -89,6 +98,7 @@ public class AchievementDetailsServiceImpl implements AchievementDetailsService
                 .build();
 
         achievementDetailRepository.save(detail);
+        eventPublisher.publishEvent(new AchievementIndexEvent(achievement.getId()));
         log.info("成果详情记录创建成功: achievementId={}", achievement.getId());
 
         // 4. 发送通知
@@ -142,6 +152,7 @@ public class AchievementDetailsServiceImpl implements AchievementDetailsService
                 .createdBy(achievement.getCreatedBy())
                 .updatedBy(achievement.getUpdatedBy())
                 .version(achievement.getVersion())
+                .detailVersion(detail.getVersion())
                 .build();
     }
 
@@ -215,57 +226,32 @@ public class AchievementDetailsServiceImpl implements AchievementDetailsService
     @Override
     @Transactional(rollbackFor = Exception.class)
     public AchievementDetailDTO updateDetailData(UpdateDetailDataDTO updateDTO) {
-        // 1. 查询成果是否存在
-        achievementRepository.findById(updateDTO.getAchievementId())
-                .orElseThrow(() -> new ServiceException("成果不存在: " + updateDTO.getAchievementId()));
-
-        log.info("更新成果详情数据: achievementId={}", updateDTO.getAchievementId());
-
-        // 2. 查询详情
-        AchievementDetail detail = achievementDetailRepository
-                .findByAchievementId(updateDTO.getAchievementId())
-                .orElseThrow(() -> new ServiceException("成果详情不存在"));
-
-        // 2. 更新详情数据
-        if (MapUtils.isNotEmpty(updateDTO.getDetailData())) {
-            // 2.1 解析现有数据
-            Map<String, Object> currentData = parseDetailData(detail.getDetailData());
+        Long achievementId = updateDTO.getAchievementId();
 
-            // 2.2 合并数据
-            currentData.putAll(updateDTO.getDetailData());
-
-            // 2.3 将Map转换为JSON字符串
-            String newDetailDataJson = JsonUtils.toJsonString(currentData);
-            if (StringUtils.isEmpty(newDetailDataJson)) {
-                throw new ServiceException("详情数据序列化失败");
-            }
+        // 1. 查询成果是否存在
+        Achievement achievement = achievementRepository.findById(achievementId)
+                .orElseThrow(() -> new ServiceException("成果不存在: " + achievementId));
 
-            // 2.4 保存更新后的JSON
-            detail.setDetailData(newDetailDataJson);
+        log.info("更新成果详情数据: achievementId={}", achievementId);
 
-            log.debug("更新后的详情数据: {}", newDetailDataJson);
-        }
+        Map<String, Object> setFields = MapUtils.isNotEmpty(updateDTO.getDetailData())
+                ? updateDTO.getDetailData() : Collections.emptyMap();
+        List<String> removeKeys = updateDTO.getRemoveFields() != null
+                ? updateDTO.getRemoveFields() : Collections.emptyList();
+        String abstractText = StringUtils.isNotEmpty(updateDTO.getAbstractText()) ? updateDTO.getAbstractText() : null;
 
-        // 3. 更新摘要
-        if (StringUtils.isNotEmpty(updateDTO.getAbstractText())) {
-            detail.setAbstractText(updateDTO.getAbstractText());
-        }
+        // 2. 验证：本次修改不能清空或删除模板中的必填字段
+        requireNoRequiredFieldCleared(achievement.getType(), setFields, removeKeys);
 
-        // 4. 验证数据合法性
-        Map<String, Object> finalData = parseDetailData(detail.getDetailData());
-        if (!validateDetailData(updateDTO.getAchievementId(), finalData)) {
-            throw new ServiceException("详情数据验证失败，请检查必填字段");
-        }
-
-        // 5. 保存
-        achievementDetailRepository.save(detail);
+        // 3. 字段级原地更新（JSON_SET / JSON_REMOVE），摘要在同一条语句中更新
+        applyDetailUpdate(achievementId, setFields, removeKeys, abstractText,
+                updateDTO.getVersion(), SecurityUtils.getUserId());
 
-        log.info("成果详情更新成功: achievementId={}, fieldsUpdated={}",
-                updateDTO.getAchievementId(),
-                updateDTO.getDetailData() != null ? updateDTO.getDetailData().size() : 0);
+        log.info("成果详情更新成功: achievementId={}, fieldsUpdated={}, fieldsRemoved={}",
+                achievementId, setFields.size(), removeKeys.size());
 
-        // 6. 返回更新后的完整详情
-        return getAchievementDetail(updateDTO.getAchievementId());
+        // 4. 返回更新后的完整详情
+        return getAchievementDetail(achievementId);
     }
 
     /**
@@ -280,34 +266,104 @@ public class AchievementDetailsServiceImpl implements AchievementDetailsService
     @Override
     @Transactional(rollbackFor = Exception.class)
     public AchievementDetailDTO updateDetailFields(Long achievementId, Map<String, Object> fieldUpdates, Long userId) {
+        return updateDetailFields(achievementId, fieldUpdates, null, userId);
+    }
+
+    /**
+     * 批量更新详情字段（带版本校验）
+     *
+     * @param achievementId   成果ID
+     * @param fieldUpdates    字段更新Map
+     * @param expectedVersion 期望的详情版本号，为 null 时不校验
+     * @param userId          操作用户ID
+     * @return 更新后的详情
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public AchievementDetailDTO updateDetailFields(Long achievementId, Map<String, Object> fieldUpdates,
+                                                   Integer expectedVersion, Long userId) {
         log.info("批量更新详情字段: achievementId={}, fieldsCount={}", achievementId, fieldUpdates.size());
 
-        // 1. 查询成果的详情
-        AchievementDetail detail = achievementDetailRepository.findByAchievementId(achievementId)
-                .orElseThrow(() -> new ServiceException("成果详情不存在"));
+        if (MapUtils.isEmpty(fieldUpdates)) {
+            return getAchievementDetail(achievementId);
+        }
+
+        applyDetailUpdate(achievementId, fieldUpdates, Collections.emptyList(), null, expectedVersion, userId);
+
+        log.info("字段更新成功: achievementId={}, updatedFields={}",
+                achievementId, String.join(", ", fieldUpdates.keySet()));
 
-        // 2. 解析现有数据
-        Map<String, Object> currentData = parseDetailData(detail.getDetailData());
+        return getAchievementDetail(achievementId);
+    }
 
-        // 3. 合并更新字段
-        currentData.putAll(fieldUpdates);
+    /**
+     * 删除详情字段
+     *
+     * @param achievementId   成果ID
+     * @param fieldKeys       需要删除的字段
+     * @param expectedVersion 期望的详情版本号，为 null 时不校验
+     * @param userId          操作用户ID
+     * @return 更新后的详情
+     */
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public AchievementDetailDTO removeDetailFields(Long achievementId, List<String> fieldKeys,
+                                                   Integer expectedVersion, Long userId) {
+        log.info("删除详情字段: achievementId={}, fields={}", achievementId, fieldKeys);
 
-        // 4. 转换为JSON
-        String updatedJson = JsonUtils.toJsonString(currentData);
-        if (StringUtils.isEmpty(updatedJson)) {
-            throw new ServiceException("字段数据序列化失败");
+        if (fieldKeys == null || fieldKeys.isEmpty()) {
+            return getAchievementDetail(achievementId);
         }
-        detail.setDetailData(updatedJson);
 
-        // 5. 保存
-        achievementDetailRepository.save(detail);
+        Achievement achievement = achievementRepository.findById(achievementId)
+                .orElseThrow(() -> new ServiceException("成果不存在"));
+        requireNoRequiredFieldCleared(achievement.getType(), Collections.emptyMap(), fieldKeys);
 
-        log.info("字段更新成功: achievementId={}, updatedFields={}",
-                achievementId, String.join(", ", fieldUpdates.keySet()));
+        applyDetailUpdate(achievementId, Collections.emptyMap(), fieldKeys, null, expectedVersion, userId);
+
+        log.info("字段删除成功: achievementId={}, removedFields={}", achievementId, String.join(", ", fieldKeys));
 
         return getAchievementDetail(achievementId);
     }
 
+    /**
+     * 执行字段级更新
+     * 受影响行数为 0 时区分详情不存在和版本冲突
+     */
+    private void applyDetailUpdate(Long achievementId, Map<String, Object> setFields, List<String> removeKeys,
+                                   String abstractText, Integer expectedVersion, Long userId) {
+        int updated = achievementDetailRepository.updateDetailFields(
+                achievementId, setFields, removeKeys, abstractText, expectedVersion, userId);
+        if (updated == 0) {
+            if (!achievementDetailRepository.existsByAchievementId(achievementId)) {
+                throw new ServiceException("成果详情不存在");
+            }
+            throw new ServiceException("成果详情已被其他人修改，请刷新后重试");
+        }
+        eventPublisher.publishEvent(new AchievementIndexEvent(achievementId));
+    }
+
+    /**
+     * 校验本次修改不会清空或删除模板中的必填字段
+     * 只检查本次涉及的字段，不需要读出整个详情文档
+     */
+    private void requireNoRequiredFieldCleared(AchievementType type, Map<String, Object> setFields,
+                                               Collection<String> removeKeys) {
+        for (CustomAchievementFieldDTO field : getTemplateByType(type).getFields()) {
+            if (!Boolean.TRUE.equals(field.getRequired())) {
+                continue;
+            }
+            String key = field.getFieldKey();
+            boolean cleared = setFields.containsKey(key)
+                    && (setFields.get(key) == null
+                    || (setFields.get(key) instanceof String value && StringUtils.isEmpty(value)));
+            if (cleared || removeKeys.contains(key)) {
+                log.warn("字段验证失败: 不能清空必填字段 {}", key);
+                throw new ServiceException("详情数据验证失败，必填字段不能为空: " + field.getFieldLabel());
+            }
+        }
+    }
+
     /**
      * 根据模板初始化详情数据
      * 为新成果创建初始的JSON数据结构
@@ -357,6 +413,7 @@ public class AchievementDetailsServiceImpl implements AchievementDetailsService
 
         // 8. 持久化
         achievementDetailRepository.save(detail);
+        eventPublisher.publishEvent(new AchievementIndexEvent(achievementId));
 
         log.info("详情数据初始化成功: achievementId={}", achievementId);
 
@@ -476,6 +533,7 @@ public class AchievementDetailsServiceImpl implements AchievementDetailsService
 
         detail.setAbstractText(abstractText);
         achievementDetailRepository.save(detail);
+        eventPublisher.publishEvent(new AchievementIndexEvent(achievementId));
 
         log.info("更新摘要成功: achievementId={}", achievementId);
     }
@@ -0,0 +1,196 @@
+package hbnu.project.zhiyanknowledge.service.impl;
+
+import hbnu.project.zhiyancommonbasic.exception.ServiceException;
+import hbnu.project.zhiyancommonbasic.utils.file.FileTypeUtils;
+import hbnu.project.zhiyancommonoss.enums.BucketType;
+import hbnu.project.zhiyancommonoss.service.MinioService;
+import hbnu.project.zhiyancommonoss.util.ContentHashUtils;
+import hbnu.project.zhiyancommonoss.util.MinioUtils;
+import hbnu.project.zhiyanknowledge.model.entity.AchievementFile;
+import hbnu.project.zhiyanknowledge.model.entity.AchievementFileBlob;
+import hbnu.project.zhiyanknowledge.repository.AchievementFileBlobRepository;
+import hbnu.project.zhiyanknowledge.service.AchievementFileBlobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * 成果文件内容存储服务实现
+ * 引用计数随调用方事务提交或回滚；新内容的登记在独立事务中完成，
+ * 这样并发上传同一内容时唯一约束冲突不会破坏调用方事务，调用方回滚时再补偿释放
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AchievementFileBlobServiceImpl implements AchievementFileBlobService {
+
+    private static final BucketType BUCKET_TYPE = BucketType.ACHIEVEMENT_FILES;
+
+    private final AchievementFileBlobRepository blobRepository;
+
+    private final MinioService minioService;
+
+    private final MinioUtils minioUtils;
+
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public AchievementFileBlob reference(String sha256, long fileSize) {
+        return tryReference(ContentHashUtils.normalize(sha256), fileSize);
+    }
+
+    @Override
+    public AchievementFileBlob store(MultipartFile file) {
+        // 命中时不会再经过 MinIO 上传，文件校验需要提前做
+        minioUtils.validateFile(file, FileTypeUtils.getExtension(file), file.getSize());
+
+        String sha256 = ContentHashUtils.sha256Hex(file);
+        AchievementFileBlob existing = tryReference(sha256, file.getSize());
+        if (existing != null) {
+            log.info("文件内容已存在，复用已有对象: sha256={}, objectKey={}", sha256, existing.getObjectKey());
+            return existing;
+        }
+
+        // 未命中：上传到内容寻址对象键
+        String objectKey = minioUtils.buildContentObjectKey(sha256);
+        minioService.uploadFile(file, BUCKET_TYPE, objectKey);
+
+        AchievementFileBlob blob = AchievementFileBlob.builder()
+                .sha256(sha256)
+                .bucketName(minioUtils.getBucketName(BUCKET_TYPE))
+                .objectKey(objectKey)
+                .fileSize(file.getSize())
+                .refCount(1)
+                .build();
+        AchievementFileBlob saved;
+        try {
+            saved = requiresNew().execute(status -> blobRepository.saveAndFlush(blob));
+        } catch (DataIntegrityViolationException e) {
+            // 其他请求同时上传了相同内容并先完成登记，改为引用对方，删除本次上传的对象
+            deleteObjectQuietly(objectKey);
+            AchievementFileBlob winner = tryReference(sha256, file.getSize());
+            if (winner == null) {
+                throw new ServiceException("文件内容登记冲突，请重试");
+            }
+            return winner;
+        } catch (RuntimeException e) {
+            deleteObjectQuietly(objectKey);
+            throw e;
+        }
+
+        compensateOnRollback(sha256);
+        return saved;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void release(AchievementFile file) {
+        if (file.getContentHash() == null) {
+            // 历史文件：对象由该记录独占
+            deleteObjectAfterCommit(file.getObjectKey());
+            return;
+        }
+        releaseHash(file.getContentHash());
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void release(Collection<AchievementFile> files) {
+        for (AchievementFile file : files) {
+            release(file);
+        }
+    }
+
+    private AchievementFileBlob tryReference(String sha256, long fileSize) {
+        Optional<AchievementFileBlob> blob = blobRepository.findBySha256(sha256);
+        if (blob.isEmpty() || !Objects.equals(blob.get().getFileSize(), fileSize)) {
+            return null;
+        }
+        if (blobRepository.incrementRefCount(blob.get().getId()) == 0) {
+            // 引用计数已归零，内容正在被回收
+            return null;
+        }
+        return blob.get();
+    }
+
+    private void releaseHash(String sha256) {
+        Optional<AchievementFileBlob> blob = blobRepository.findBySha256(sha256);
+        if (blob.isEmpty()) {
+            log.warn("释放文件内容引用时未找到内容记录: sha256={}", sha256);
+            return;
+        }
+        Long blobId = blob.get().getId();
+        blobRepository.decrementRefCount(blobId);
+        if (blobRepository.deleteIfUnreferenced(blobId) > 0) {
+            log.info("文件内容已无引用，删除对象: sha256={}, objectKey={}", sha256, blob.get().getObjectKey());
+            deleteObjectAfterCommit(blob.get().getObjectKey());
+        }
+    }
+
+    /**
+     * 新内容的登记已在独立事务中提交，调用方事务回滚时需要把这次引用释放掉
+     */
+    private void compensateOnRollback(String sha256) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    requiresNew().executeWithoutResult(s -> releaseHash(sha256));
+                } catch (Exception e) {
+                    log.error("回滚后释放文件内容引用失败: sha256={}", sha256, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 对象删除放在事务提交之后，回滚时对象仍然可用
+     */
+    private void deleteObjectAfterCommit(String objectKey) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteObjectQuietly(objectKey);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteObjectQuietly(objectKey);
+            }
+        });
+    }
+
+    private void deleteObjectQuietly(String objectKey) {
+        try {
+            minioService.deleteFile(BUCKET_TYPE, objectKey);
+        } catch (Exception e) {
+            log.error("删除MinIO对象失败: objectKey={}", objectKey, e);
+        }
+    }
+
+    private TransactionTemplate requiresNew() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
@@ -4,34 +4,46 @@ import com.github.xiaoymin.knife4j.core.util.CollectionUtils;
 import hbnu.project.zhiyancommonbasic.exception.ServiceException;
 import hbnu.project.zhiyancommonbasic.utils.StringUtils;
 import hbnu.project.zhiyancommonbasic.utils.file.FileTypeUtils;
-import hbnu.project.zhiyancommonoss.entity.FileUploadRequest;
+import hbnu.project.zhiyancommonbasic.utils.file.FileUtils;
 import hbnu.project.zhiyancommonoss.enums.BucketType;
 import hbnu.project.zhiyancommonoss.service.MinioService;
+import hbnu.project.zhiyancommonoss.util.ContentHashUtils;
+import hbnu.project.zhiyancommonoss.util.HttpRangeUtils;
 import hbnu.project.zhiyancommonoss.util.MinioUtils;
+import hbnu.project.zhiyancommonoss.util.ZipStreamWriter;
 import hbnu.project.zhiyanknowledge.mapper.AchievementConverter;
 import hbnu.project.zhiyanknowledge.message.KnowledgeMessageService;
 import hbnu.project.zhiyanknowledge.model.dto.AchievementFileDTO;
+import hbnu.project.zhiyanknowledge.model.dto.BatchDownloadResponseDTO;
+import hbnu.project.zhiyanknowledge.model.dto.BatchUploadResultDTO;
 import hbnu.project.zhiyanknowledge.model.dto.FileContextDTO;
+import hbnu.project.zhiyanknowledge.model.dto.InstantUploadDTO;
 import hbnu.project.zhiyanknowledge.model.dto.UploadFileDTO;
 import hbnu.project.zhiyanknowledge.model.entity.Achievement;
 import hbnu.project.zhiyanknowledge.model.entity.AchievementFile;
+import hbnu.project.zhiyanknowledge.model.entity.AchievementFileBlob;
 import hbnu.project.zhiyanknowledge.repository.AchievementFileRepository;
 import hbnu.project.zhiyanknowledge.repository.AchievementRepository;
+import hbnu.project.zhiyanknowledge.service.AchievementFileBlobService;
 import hbnu.project.zhiyanknowledge.service.AchievementFileService;
+import io.minio.StatObjectResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import javax.annotation.Resource;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.stream.Collectors;
 
 /**
@@ -63,11 +75,25 @@ public class AchievementFileServiceImpl implements AchievementFileService {
     @Resource
     private final KnowledgeMessageService knowledgeMessageService;
 
+    private final AchievementFileBlobService achievementFileBlobService;
+
+    private final PlatformTransactionManager transactionManager;
+
     /**
      * 默认预签名URL过期时间（3天）
      */
     private static final int DEFAULT_EXPIRY_SECONDS = 3 * 24 * 3600;
 
+    /**
+     * 批量上传时同时进行的MinIO传输数
+     */
+    private static final int BATCH_UPLOAD_CONCURRENCY = 4;
+
+    /**
+     * 直接下载时的拷贝缓冲区大小
+     */
+    private static final int DOWNLOAD_BUFFER_SIZE = 256 * 1024;
+
     /**
      * 上传成果文件
      *
@@ -94,93 +120,252 @@ public class AchievementFileServiceImpl implements AchievementFileService {
         String fileExtension = FileTypeUtils.getExtension(file);
         long fileSize = file.getSize();
 
-        // 3. 检查是否存在同名文件，如果存在则删除旧文件（真正的覆盖）
-        Optional<AchievementFile> existingFile = achievementFileRepository
-                .findByAchievementIdAndFileName(uploadDTO.getAchievementId(), originalFilename);
-
-        Integer newVersion = 1;
-        if (existingFile.isPresent()) {
-            AchievementFile oldFile = existingFile.get();
-            log.info("检测到同名文件，执行覆盖删除: fileId={}, objectKey={}",
-                    oldFile.getId(), oldFile.getObjectKey());
-
-            // 先从 MinIO 删除旧文件
-            try {
-                minioService.deleteFile(BucketType.ACHIEVEMENT_FILES, oldFile.getObjectKey());
-                log.info("MinIO旧文件删除成功: objectKey={}", oldFile.getObjectKey());
-                // 再从数据库删除旧文件记录
-                achievementFileRepository.deleteById(oldFile.getId());
-                log.info("数据库旧文件记录删除成功: fileId={}", oldFile.getId());
-            } catch (Exception e) {
-                log.error("MinIO旧文件删除失败: objectKey={}", oldFile.getObjectKey(), e);
-                // MinIO 删除失败不更新数据库
-            }
-        }
-
-        // 4. 生成对象键（版本号固定为1，先不写版本管理）
-        String objectKey = minioUtils.buildAchievementObjectKey(
-                achievement.getProjectId(),
-                uploadDTO.getAchievementId(),
-                originalFilename
-        );
-
-        // 5. 上传到MinIO
-        FileUploadRequest uploadResult;
+        // 3. 按内容存储：相同内容已存在时只增加引用，不再重复上传
+        AchievementFileBlob blob;
         try {
-            uploadResult = minioService.uploadFile(file, BucketType.ACHIEVEMENT_FILES, objectKey);
+            blob = achievementFileBlobService.store(file);
         } catch (ServiceException e) {
             log.error("文件上传MinIO失败", e);
             throw new ServiceException("文件上传失败: " + e.getMessage());
         }
-
-        // 6. 保存文件记录到数据库
-        AchievementFile achievementFile = AchievementFile.builder()
-                .achievementId(uploadDTO.getAchievementId())
-                .fileName(originalFilename)
-                .fileSize(fileSize)
-                .fileType(fileExtension)
-                .bucketName(minioUtils.getBucketName(BucketType.ACHIEVEMENT_FILES))
-                .objectKey(objectKey)
-                .minioUrl(uploadResult.getUrl())
-                .uploadBy(uploadDTO.getUploadBy())
-                .uploadAt(LocalDateTime.now())
-                .build();
+        String objectKey = blob.getObjectKey();
+
+        // 4. 检查是否存在同名文件，如果存在则替换（旧内容的引用在事务提交后释放）
+        achievementFileRepository
+                .findByAchievementIdAndFileName(uploadDTO.getAchievementId(), originalFilename)
+                .ifPresent(oldFile -> {
+                    log.info("检测到同名文件，执行覆盖删除: fileId={}, objectKey={}",
+                            oldFile.getId(), oldFile.getObjectKey());
+                    achievementFileBlobService.release(oldFile);
+                    achievementFileRepository.delete(oldFile);
+                    achievementFileRepository.flush();
+                });
+
+        // 5. 保存文件记录到数据库
+        AchievementFile achievementFile = buildFileRecord(achievement, originalFilename, fileExtension, fileSize,
+                blob, uploadDTO.getUploadBy());
 
         achievementFile = achievementFileRepository.save(achievementFile);
 
         log.info("文件上传成功: fileId={}, objectKey={}", achievementFile.getId(), objectKey);
 
-        // 7.发送通知给除了自己的所有人
+        // 6.发送通知给除了自己的所有人
         knowledgeMessageService.notifyAchievementFileUpload(achievement, achievementFile, uploadDTO.getUploadBy());
 
         return achievementConverter.fileToDTO(achievementFile);
     }
 
+    /**
+     * 秒传：按内容哈希登记成果文件
+     *
+     * @param instantDTO 秒传请求
+     * @return 文件信息，未命中返回 null
+     */
+    @Override
+    @Transactional
+    public AchievementFileDTO uploadFileByHash(InstantUploadDTO instantDTO) {
+        Achievement achievement = achievementRepository.findById(instantDTO.getAchievementId())
+                .orElseThrow(() -> new ServiceException("成果不存在"));
+
+        String fileName = instantDTO.getFileName();
+        if (!FileUtils.isValidFilename(fileName)) {
+            throw new ServiceException("文件名包含非法字符");
+        }
+        minioUtils.validateFile(fileName, FileTypeUtils.getFileExtension(fileName), instantDTO.getFileSize());
+
+        // 仅凭哈希无法证明持有文件，只复用本项目已引用的内容，避免按哈希探测或获取其他项目的文件
+        String sha256 = ContentHashUtils.normalize(instantDTO.getSha256());
+        if (!achievementFileRepository.existsByContentHashInProject(sha256, achievement.getProjectId())) {
+            log.info("秒传未命中: achievementId={}, fileName={}", instantDTO.getAchievementId(), fileName);
+            return null;
+        }
+
+        AchievementFileBlob blob = achievementFileBlobService.reference(sha256, instantDTO.getFileSize());
+        if (blob == null) {
+            log.info("秒传未命中: achievementId={}, fileName={}", instantDTO.getAchievementId(), fileName);
+            return null;
+        }
+
+        achievementFileRepository.findByAchievementIdAndFileName(instantDTO.getAchievementId(), fileName)
+                .ifPresent(oldFile -> {
+                    log.info("检测到同名文件，执行覆盖删除: fileId={}, objectKey={}",
+                            oldFile.getId(), oldFile.getObjectKey());
+                    achievementFileBlobService.release(oldFile);
+                    achievementFileRepository.delete(oldFile);
+                    achievementFileRepository.flush();
+                });
+
+        AchievementFile achievementFile = achievementFileRepository.save(buildFileRecord(achievement, fileName,
+                FileTypeUtils.getFileExtension(fileName), blob.getFileSize(), blob, instantDTO.getUploadBy()));
+
+        log.info("秒传成功: fileId={}, sha256={}", achievementFile.getId(), blob.getSha256());
+
+        knowledgeMessageService.notifyAchievementFileUpload(achievement, achievementFile, instantDTO.getUploadBy());
+
+        return achievementConverter.fileToDTO(achievementFile);
+    }
+
 
+    /**
+     * 批量上传成果文件
+     * MinIO 传输在虚拟线程上并发进行（限制并发数），期间不持有数据库连接；
+     * 全部传输结束后在一个事务中批量替换同名记录并写入新记录
+     *
+     * @param files         文件列表
+     * @param achievementId 成果ID
+     * @param uploadBy      上传者ID
+     * @return 每个文件的上传结果
+     */
     @Override
-    @Transactional(rollbackFor = Exception.class)
-    public List<AchievementFileDTO> uploadFilesBatch(List<MultipartFile> files, Long achievementId, Long uploadBy) {
+    public BatchUploadResultDTO uploadFilesBatch(List<MultipartFile> files, Long achievementId, Long uploadBy) {
         if (files == null || files.isEmpty()) {
             throw new ServiceException("文件列表不能为空");
         }
 
-        List<AchievementFileDTO> results = new ArrayList<>();
-        for (MultipartFile file : files) {
-            try {
-                UploadFileDTO uploadDTO = UploadFileDTO.builder()
-                        .achievementId(achievementId)
-                        .uploadBy(uploadBy)
-                        .build();
+        // 1. 验证成果存在
+        Achievement achievement = achievementRepository.findById(achievementId)
+                .orElseThrow(() -> new ServiceException("成果不存在"));
+
+        // 2. 预检：文件名为空或同批次重名的直接判失败
+        int total = files.size();
+        BatchUploadResultDTO.FileUploadOutcome[] outcomes = new BatchUploadResultDTO.FileUploadOutcome[total];
+        Map<String, Integer> indexByName = new LinkedHashMap<>();
+        for (int i = 0; i < total; i++) {
+            String fileName = files.get(i).getOriginalFilename();
+            if (StringUtils.isEmpty(fileName)) {
+                outcomes[i] = uploadFailure(fileName, "文件名不能为空");
+            } else if (indexByName.putIfAbsent(fileName, i) != null) {
+                outcomes[i] = uploadFailure(fileName, "同一批次中存在同名文件");
+            }
+        }
+
+        // 同名旧文件在上传前查出，落库时在同一事务内替换并释放其内容引用
+        Map<String, AchievementFile> existingByName = indexByName.isEmpty() ? Collections.emptyMap()
+                : achievementFileRepository.findByAchievementIdAndFileNameIn(achievementId, indexByName.keySet())
+                .stream()
+                .collect(Collectors.toMap(AchievementFile::getFileName, f -> f, (a, b) -> a));
+
+        // 3. 并发上传到MinIO
+        Map<Integer, AchievementFile> uploaded = new ConcurrentHashMap<>();
+        Semaphore permits = new Semaphore(BATCH_UPLOAD_CONCURRENCY);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<String, Integer> entry : indexByName.entrySet()) {
+                int index = entry.getValue();
+                MultipartFile file = files.get(index);
+                executor.submit(() -> {
+                    permits.acquireUninterruptibly();
+                    try {
+                        uploaded.put(index, uploadToMinio(file, achievement, uploadBy));
+                    } catch (Exception e) {
+                        log.error("批量上传文件出现失败: fileName={}", file.getOriginalFilename(), e);
+                        outcomes[index] = uploadFailure(file.getOriginalFilename(), "文件上传失败: " + e.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
 
-                AchievementFileDTO result = uploadFile(file, uploadDTO);
-                results.add(result);
+        // 4. 一个事务内批量替换同名记录
+        List<AchievementFile> savedFiles = new ArrayList<>();
+        if (!uploaded.isEmpty()) {
+            List<Integer> indexes = uploaded.keySet().stream().sorted().toList();
+            List<AchievementFile> newFiles = indexes.stream().map(uploaded::get).toList();
+            List<AchievementFile> replacedFiles = newFiles.stream()
+                    .map(f -> existingByName.get(f.getFileName()))
+                    .filter(Objects::nonNull)
+                    .toList();
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    if (!replacedFiles.isEmpty()) {
+                        achievementFileBlobService.release(replacedFiles);
+                        achievementFileRepository.deleteAllInBatch(replacedFiles);
+                    }
+                    savedFiles.addAll(achievementFileRepository.saveAll(newFiles));
+                });
             } catch (Exception e) {
-                log.error("批量上传文件出现失败: fileName={}", file.getOriginalFilename(), e);
-                // 继续处理其他文件，不阻塞
+                log.error("批量保存文件记录失败: achievementId={}, count={}", achievementId, newFiles.size(), e);
+                // 上传阶段已计入的内容引用需要释放
+                releaseQuietly(newFiles);
+                for (int index : indexes) {
+                    outcomes[index] = uploadFailure(files.get(index).getOriginalFilename(), "保存文件记录失败: " + e.getMessage());
+                }
+                return buildBatchUploadResult(outcomes);
+            }
+
+            for (int i = 0; i < indexes.size(); i++) {
+                AchievementFile saved = savedFiles.get(i);
+                outcomes[indexes.get(i)] = BatchUploadResultDTO.FileUploadOutcome.builder()
+                        .fileName(saved.getFileName())
+                        .success(true)
+                        .file(achievementConverter.fileToDTO(saved))
+                        .build();
             }
         }
 
-        return results;
+        log.info("批量上传完成: achievementId={}, total={}, success={}", achievementId, total, savedFiles.size());
+
+        // 5. 发送通知给除了自己的所有人
+        for (AchievementFile saved : savedFiles) {
+            knowledgeMessageService.notifyAchievementFileUpload(achievement, saved, uploadBy);
+        }
+
+        return buildBatchUploadResult(outcomes);
+    }
+
+    /**
+     * 按内容存储单个文件并构建（未保存的）文件记录
+     */
+    private AchievementFile uploadToMinio(MultipartFile file, Achievement achievement, Long uploadBy) {
+        AchievementFileBlob blob = achievementFileBlobService.store(file);
+        return buildFileRecord(achievement, file.getOriginalFilename(), FileTypeUtils.getExtension(file),
+                file.getSize(), blob, uploadBy);
+    }
+
+    /**
+     * 构建引用指定内容的（未保存的）文件记录
+     */
+    private AchievementFile buildFileRecord(Achievement achievement, String fileName, String fileType,
+                                            long fileSize, AchievementFileBlob blob, Long uploadBy) {
+        return AchievementFile.builder()
+                .achievementId(achievement.getId())
+                .fileName(fileName)
+                .fileSize(fileSize)
+                .fileType(fileType)
+                .bucketName(blob.getBucketName())
+                .objectKey(blob.getObjectKey())
+                .contentHash(blob.getSha256())
+                .minioUrl(minioUtils.getFileUrl(blob.getBucketName(), blob.getObjectKey()))
+                .uploadBy(uploadBy)
+                .uploadAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void releaseQuietly(List<AchievementFile> files) {
+        try {
+            achievementFileBlobService.release(files);
+        } catch (Exception e) {
+            log.error("释放文件内容引用失败: count={}", files.size(), e);
+        }
+    }
+
+    private BatchUploadResultDTO.FileUploadOutcome uploadFailure(String fileName, String errorMessage) {
+        return BatchUploadResultDTO.FileUploadOutcome.builder()
+                .fileName(fileName)
+                .success(false)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    private BatchUploadResultDTO buildBatchUploadResult(BatchUploadResultDTO.FileUploadOutcome[] outcomes) {
+        List<BatchUploadResultDTO.FileUploadOutcome> results = Arrays.asList(outcomes);
+        int successCount = (int) results.stream().filter(o -> Boolean.TRUE.equals(o.getSuccess())).count();
+        return BatchUploadResultDTO.builder()
+                .total(results.size())
+                .successCount(successCount)
+                .failureCount(results.size() - successCount)
+                .results(results)
+                .build();
     }
 
 
@@ -246,7 +431,7 @@ public class AchievementFileServiceImpl implements AchievementFileService {
             log.info("开始生成预签名URL: bucketType=ACHIEVEMENT_FILES, objectKey={}, expiry={}s", 
                     file.getObjectKey(), expiry);
             
-            String url = minioService.getPresignedUrl(BucketType.ACHIEVEMENT_FILES, file.getObjectKey(), expiry);
+            String url = minioService.getPresignedUrl(BucketType.ACHIEVEMENT_FILES, file.getObjectKey(), expiry, file.getFileName());
             
             if (url == null || url.isEmpty()) {
                 log.error("生成的预签名URL为空: fileId={}", fileId);
@@ -271,22 +456,23 @@ public class AchievementFileServiceImpl implements AchievementFileService {
 
     /**
      * 直接下载文件（流式下载）
-     * 通过后端代理下载，不使用预签名URL
+     * 支持 Range / If-Range（含多区间 multipart/byteranges）与 If-None-Match，
+     * 区间请求映射为 MinIO 的范围读取，断点续传和视频拖动不必从头传输
      *
      * @param fileId   文件ID
      * @param userId   当前用户ID
+     * @param request  HttpServletRequest对象
      * @param response HttpServletResponse对象
      */
     @Override
-    public void downloadFile(Long fileId, Long userId, jakarta.servlet.http.HttpServletResponse response) {
+    public void downloadFile(Long fileId, Long userId,
+                             jakarta.servlet.http.HttpServletRequest request,
+                             jakarta.servlet.http.HttpServletResponse response) {
         log.info("开始直接下载文件: fileId={}, userId={}", fileId, userId);
 
         // 1. 查询文件是否存在
         AchievementFile file = achievementFileRepository.findById(fileId)
                 .orElseThrow(() -> new ServiceException("文件不存在"));
-        
-        log.info("文件信息: fileName={}, objectKey={}, fileSize={}", 
-                file.getFileName(), file.getObjectKey(), file.getFileSize());
 
         // 2. 验证权限
         if (!hasFilePermission(fileId, userId)) {
@@ -294,45 +480,251 @@ public class AchievementFileServiceImpl implements AchievementFileService {
             throw new ServiceException("无权限访问该文件");
         }
 
-        // 3. 从MinIO获取文件流
-        try (java.io.InputStream inputStream = minioService.downloadFile(BucketType.ACHIEVEMENT_FILES, file.getObjectKey())) {
-            
-            // 4. 设置响应头，强制下载
-            String fileName = file.getFileName();
-            String encodedFileName = java.net.URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
-            
-            response.setContentType("application/octet-stream");
-            response.setCharacterEncoding("UTF-8");
-            response.setHeader("Content-Disposition", 
+        // 3. 以存储端的元信息为准（大小、ETag、最后修改时间）
+        StatObjectResponse stat = minioService.statObject(BucketType.ACHIEVEMENT_FILES, file.getObjectKey());
+        long size = stat.size();
+        String etag = "\"" + stat.etag() + "\"";
+        long lastModified = stat.lastModified().toInstant().toEpochMilli();
+
+        // 4. 公共响应头
+        String fileName = file.getFileName();
+        String encodedFileName = java.net.URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
+        response.setHeader("Content-Disposition",
                 "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName);
-            
-            if (file.getFileSize() != null) {
-                response.setContentLengthLong(file.getFileSize());
-            }
-            
-            // 5. 将文件流写入响应
-            java.io.OutputStream outputStream = response.getOutputStream();
-            byte[] buffer = new byte[8192];
-            int bytesRead;
-            long totalBytes = 0;
-            
-            while ((bytesRead = inputStream.read(buffer)) != -1) {
-                outputStream.write(buffer, 0, bytesRead);
-                totalBytes += bytesRead;
+        response.setHeader("Accept-Ranges", "bytes");
+        response.setHeader("ETag", etag);
+        response.setDateHeader("Last-Modified", lastModified);
+        response.setHeader("Cache-Control", "private, no-cache");
+
+        // 5. 条件请求：内容未变化直接返回304
+        if (etagMatches(request.getHeader("If-None-Match"), etag)) {
+            response.setStatus(jakarta.servlet.http.HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        // 6. 解析区间，If-Range 不匹配时忽略 Range 返回整个文件
+        List<HttpRangeUtils.ByteRange> ranges = ifRangeMatches(request, etag, lastModified)
+                ? HttpRangeUtils.parse(request.getHeader("Range"), size)
+                : null;
+        if (ranges != null && ranges.isEmpty()) {
+            response.setStatus(jakarta.servlet.http.HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader("Content-Range", "bytes */" + size);
+            return;
+        }
+        boolean headOnly = "HEAD".equalsIgnoreCase(request.getMethod());
+
+        try {
+            if (ranges == null) {
+                response.setStatus(jakarta.servlet.http.HttpServletResponse.SC_OK);
+                response.setContentType("application/octet-stream");
+                response.setContentLengthLong(size);
+                if (!headOnly) {
+                    try (InputStream in = minioService.downloadFile(BucketType.ACHIEVEMENT_FILES, file.getObjectKey())) {
+                        copyStream(in, response.getOutputStream());
+                    }
+                }
+            } else if (ranges.size() == 1) {
+                HttpRangeUtils.ByteRange range = ranges.get(0);
+                response.setStatus(jakarta.servlet.http.HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setContentType("application/octet-stream");
+                response.setHeader("Content-Range", range.contentRange(size));
+                response.setContentLengthLong(range.length());
+                if (!headOnly) {
+                    try (InputStream in = minioService.downloadFileRange(BucketType.ACHIEVEMENT_FILES,
+                            file.getObjectKey(), range.start(), range.length())) {
+                        copyStream(in, response.getOutputStream());
+                    }
+                }
+            } else {
+                writeMultipartRanges(file.getObjectKey(), ranges, size, headOnly, response);
             }
-            
-            outputStream.flush();
-            log.info("文件下载成功: fileId={}, fileName={}, totalBytes={}", fileId, fileName, totalBytes);
-            
+            response.flushBuffer();
+            log.info("文件下载成功: fileId={}, fileName={}, ranges={}", fileId, fileName, ranges == null ? "full" : ranges.size());
         } catch (java.io.IOException e) {
-            log.error("文件下载失败(IO错误): fileId={}, error={}", fileId, e.getMessage(), e);
-            throw new ServiceException("文件下载失败: " + e.getMessage());
-        } catch (Exception e) {
-            log.error("文件下载失败: fileId={}, error={}", fileId, e.getMessage(), e);
+            // 多数情况是客户端中途断开（暂停下载、拖动进度条）
+            log.warn("文件下载中断: fileId={}, error={}", fileId, e.getMessage());
             throw new ServiceException("文件下载失败: " + e.getMessage());
         }
     }
 
+    /**
+     * 多区间响应：multipart/byteranges，每个区间一次 MinIO 范围读取
+     */
+    private void writeMultipartRanges(String objectKey, List<HttpRangeUtils.ByteRange> ranges, long size, boolean headOnly,
+                                      jakarta.servlet.http.HttpServletResponse response) throws java.io.IOException {
+        String boundary = "ZHIYAN_BYTERANGES_" + UUID.randomUUID().toString().replace("-", "");
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (HttpRangeUtils.ByteRange range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                    + "Content-Type: application/octet-stream\r\n"
+                    + "Content-Range: " + range.contentRange(size) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        response.setStatus(jakarta.servlet.http.HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        response.setContentLengthLong(contentLength);
+        if (headOnly) {
+            return;
+        }
+
+        java.io.OutputStream out = response.getOutputStream();
+        for (int i = 0; i < ranges.size(); i++) {
+            HttpRangeUtils.ByteRange range = ranges.get(i);
+            out.write(partHeaders.get(i));
+            try (InputStream in = minioService.downloadFileRange(BucketType.ACHIEVEMENT_FILES,
+                    objectKey, range.start(), range.length())) {
+                copyStream(in, out);
+            }
+        }
+        out.write(closing);
+    }
+
+    /**
+     * 拷贝数据，缓冲区大小与 MinIO 客户端单次读取的数据量相当
+     * 两端都是流（HTTP 客户端 -> Servlet 输出流），直接内存缓冲区无法省去拷贝，这里用较大的堆缓冲区减少系统调用
+     */
+    private void copyStream(InputStream in, java.io.OutputStream out) throws java.io.IOException {
+        byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * If-None-Match 是否命中（弱比较）
+     */
+    private boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * If-Range 是否允许按区间返回：没有 If-Range 时允许；
+     * 值为 ETag 时要求强匹配，值为日期时要求与最后修改时间一致（秒级）
+     */
+    private boolean ifRangeMatches(jakarta.servlet.http.HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader("If-Range");
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            long date = request.getDateHeader("If-Range");
+            return date / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 批量生成文件下载链接
+     *
+     * @param fileIds       文件ID列表
+     * @param userId        当前用户ID
+     * @param expirySeconds 过期时间（秒）
+     * @return 每个文件的下载信息，顺序与请求一致
+     */
+    @Override
+    public List<BatchDownloadResponseDTO.FileDownloadInfo> getFileDownloadInfos(List<Long> fileIds, Long userId, Integer expirySeconds) {
+        Map<Long, AchievementFile> fileMap = achievementFileRepository.findAllById(fileIds).stream()
+                .collect(Collectors.toMap(AchievementFile::getId, f -> f));
+        int expiry = expirySeconds != null ? expirySeconds : DEFAULT_EXPIRY_SECONDS;
+
+        List<BatchDownloadResponseDTO.FileDownloadInfo> infos = new ArrayList<>(fileIds.size());
+        for (Long fileId : fileIds) {
+            AchievementFile file = fileMap.get(fileId);
+            try {
+                if (file == null) {
+                    throw new ServiceException("文件不存在");
+                }
+                if (!hasFilePermission(fileId, userId)) {
+                    throw new ServiceException("无权限访问该文件");
+                }
+                String url = minioService.getPresignedUrl(BucketType.ACHIEVEMENT_FILES, file.getObjectKey(), expiry, file.getFileName());
+                infos.add(BatchDownloadResponseDTO.FileDownloadInfo.builder()
+                        .fileId(fileId)
+                        .fileName(file.getFileName())
+                        .downloadUrl(url)
+                        .fileSize(file.getFileSize())
+                        .success(true)
+                        .build());
+            } catch (Exception e) {
+                log.error("生成文件下载链接失败: fileId={}", fileId, e);
+                infos.add(BatchDownloadResponseDTO.FileDownloadInfo.builder()
+                        .fileId(fileId)
+                        .fileName(file != null ? file.getFileName() : "未知")
+                        .success(false)
+                        .errorMessage(e.getMessage())
+                        .build());
+            }
+        }
+        return infos;
+    }
+
+    /**
+     * 把多个文件打包为ZIP流式写入响应
+     * 压缩包边读边写，不落盘、不整体驻留内存；读取失败的文件记入压缩包内的失败清单
+     *
+     * @param fileIds     文件ID列表
+     * @param userId      当前用户ID
+     * @param archiveName 压缩包文件名（不含扩展名）
+     * @param response    HttpServletResponse对象
+     */
+    @Override
+    public void downloadFilesAsZip(List<Long> fileIds, Long userId, String archiveName, jakarta.servlet.http.HttpServletResponse response) {
+        log.info("开始打包下载文件: fileCount={}, userId={}", fileIds.size(), userId);
+
+        // 1. 一次查出全部文件记录，按请求顺序组织打包源
+        Map<Long, AchievementFile> fileMap = achievementFileRepository.findAllById(fileIds).stream()
+                .collect(Collectors.toMap(AchievementFile::getId, f -> f));
+        List<ZipStreamWriter.ZipSource> sources = new ArrayList<>(fileIds.size());
+        for (Long fileId : new LinkedHashSet<>(fileIds)) {
+            AchievementFile file = fileMap.get(fileId);
+            if (file == null || !hasFilePermission(fileId, userId)) {
+                sources.add(new ZipStreamWriter.ZipSource("文件" + fileId, () -> {
+                    throw new ServiceException("文件不存在或无权限访问");
+                }));
+                continue;
+            }
+            sources.add(new ZipStreamWriter.ZipSource(file.getFileName(),
+                    () -> minioService.downloadFile(BucketType.ACHIEVEMENT_FILES, file.getObjectKey())));
+        }
+
+        // 2. 设置响应头，长度未知，使用分块传输
+        String fileName = archiveName + ".zip";
+        String encodedFileName = java.net.URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
+        response.setContentType("application/zip");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"" + fileName + "\"; filename*=UTF-8''" + encodedFileName);
+
+        // 3. 流式写出
+        try {
+            ZipStreamWriter.Result result = new ZipStreamWriter().write(sources, response.getOutputStream());
+            log.info("打包下载完成: written={}, failed={}", result.written(), result.failed().size());
+        } catch (java.io.IOException e) {
+            // 多数情况是客户端中途断开
+            log.warn("打包下载中断: fileCount={}, userId={}, error={}", fileIds.size(), userId, e.getMessage());
+            throw new ServiceException("打包下载中断: " + e.getMessage());
+        }
+    }
+
     /**
      * 删除文件
      *
@@ -357,22 +749,15 @@ public class AchievementFileServiceImpl implements AchievementFileService {
             throw new ServiceException("无权限删除该文件");
         }
 
-        // 4. 从MinIO删除文件
-        try {
-            minioService.deleteFile(BucketType.ACHIEVEMENT_FILES, file.getObjectKey());
-            log.info("MinIO文件删除成功: objectKey={}", file.getObjectKey());
+        // 4. 释放文件内容引用（无其他引用时在事务提交后删除MinIO对象）
+        achievementFileBlobService.release(file);
 
-            // 5. 删除数据库记录
-            achievementFileRepository.deleteById(fileId);
-            log.info("文件删除成功: fileId={}", fileId);
+        // 5. 删除数据库记录
+        achievementFileRepository.deleteById(fileId);
+        log.info("文件删除成功: fileId={}, objectKey={}", fileId, file.getObjectKey());
 
-            // 6. 发送成果文件删除的通知
-            knowledgeMessageService.notifyAchievementFileDeleted(achievement, file, userId);
-        } catch (ServiceException e) {
-            log.error("MinIO文件删除失败: objectKey={}", file.getObjectKey(), e);
-            // MinIO删除失败，不继续删除数据库记录，避免悬空
-            throw new ServiceException("文件删除失败: " + e.getMessage());
-        }
+        // 6. 发送成果文件删除的通知
+        knowledgeMessageService.notifyAchievementFileDeleted(achievement, file, userId);
     }
 
     /**
@@ -450,6 +835,17 @@ public class AchievementFileServiceImpl implements AchievementFileService {
         return achievementFileRepository.countByAchievementId(achievementId);
     }
 
+    /**
+     * 统计项目下所有成果的文件数量
+     *
+     * @param projectId 项目ID
+     * @return 文件数量
+     */
+    @Override
+    public long countFilesByProjectId(Long projectId) {
+        return achievementFileRepository.countByProjectId(projectId);
+    }
+
     /**
      * 检查用户是否有权限访问文件
      *
@@ -494,7 +890,8 @@ public class AchievementFileServiceImpl implements AchievementFileService {
             fileUrl = minioService.getPresignedUrl(
                     bucketType,
                     file.getObjectKey(),
-                    DEFAULT_EXPIRY_SECONDS
+                    DEFAULT_EXPIRY_SECONDS,
+                    file.getFileName()
             );
         } catch (Exception e) {
             log.error("[文件上下文] 生成文件 URL 失败: fileId={}", fileId, e);
@@ -1,11 +1,16 @@
 package hbnu.project.zhiyanknowledge.service.impl;
 
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
 import hbnu.project.zhiyancommonbasic.exception.ServiceException;
 import hbnu.project.zhiyancommonbasic.utils.StringUtils;
 import hbnu.project.zhiyanknowledge.mapper.AchievementConverter;
 import hbnu.project.zhiyanknowledge.model.dto.AchievementDTO;
 import hbnu.project.zhiyanknowledge.model.dto.AchievementFileDTO;
 import hbnu.project.zhiyanknowledge.model.dto.AchievementQueryDTO;
+import hbnu.project.zhiyanknowledge.model.dto.AchievementSearchHitDTO;
+import hbnu.project.zhiyanknowledge.model.dto.AchievementSearchResultDTO;
 import hbnu.project.zhiyanknowledge.model.entity.Achievement;
 import hbnu.project.zhiyanknowledge.model.entity.AchievementDetail;
 import hbnu.project.zhiyanknowledge.model.entity.AchievementFile;
@@ -13,7 +18,9 @@ import hbnu.project.zhiyanknowledge.model.enums.AchievementStatus;
 import hbnu.project.zhiyanknowledge.model.enums.AchievementType;
 import hbnu.project.zhiyanknowledge.repository.AchievementFileRepository;
 import hbnu.project.zhiyanknowledge.repository.AchievementRepository;
+import hbnu.project.zhiyanknowledge.search.AchievementSearchIndex;
 import hbnu.project.zhiyanknowledge.service.AchievementSearchService;
+import hbnu.project.zhiyanknowledge.statistics.AchievementStatsCache;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
@@ -21,6 +28,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -32,7 +40,7 @@ import java.util.*;
 
 /**
  * 成果搜索部分的服务实现
- * 使用MySQL + JPA Specification实现动态查询
+ * 结构化查询使用MySQL + JPA Specification，关键字检索走 Elasticsearch 成果索引
  *
  * @author ErgouTree
  */
@@ -52,6 +60,10 @@ public class AchievementSearchServiceImpl implements AchievementSearchService {
     @Autowired
     private final hbnu.project.zhiyanknowledge.permission.KnowledgeSecurityUtils knowledgeSecurityUtils;
 
+    private final AchievementStatsCache achievementStatsCache;
+
+    private final AchievementSearchIndex achievementSearchIndex;
+
     /**
      * 根据项目ID查询成果列表
      * 根据用户权限自动过滤：
@@ -82,37 +94,35 @@ public class AchievementSearchServiceImpl implements AchievementSearchService {
         log.info("用户权限检查: userId={}, projectId={}, isProjectMember={}", 
                 currentUserId, projectId, isProjectMember);
 
-        // 使用急加载查询避免LazyInitializationException
-        List<Achievement> achievements = achievementRepository.findByProjectIdWithFiles(projectId);
-        
-        // 根据权限过滤成果
-        List<Achievement> filteredAchievements;
-        if (isProjectMember) {
-            // 项目成员可以看到所有成果
-            filteredAchievements = achievements;
-            log.info("项目成员，显示所有成果: 共{}个", achievements.size());
-        } else {
-            // 非项目成员只能看到公开成果
-            filteredAchievements = achievements.stream()
-                    .filter(achievement -> Boolean.TRUE.equals(achievement.getIsPublic()))
-                    .collect(java.util.stream.Collectors.toList());
-            log.info("非项目成员，只显示公开成果: 共{}个（总数{}个）", 
-                    filteredAchievements.size(), achievements.size());
+        // 1. 可见性过滤和分页都在数据库完成，只取本页的成果ID
+        // 排序字段可能重复（如同一时刻创建），追加ID保证翻页时顺序稳定
+        Pageable idPageable = pageable;
+        if (pageable.getSort().getOrderFor("id") == null) {
+            idPageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                    pageable.getSort().and(Sort.by(Sort.Direction.DESC, "id")));
         }
-        
-        // 手动分页
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), filteredAchievements.size());
-        List<Achievement> pageContent = filteredAchievements.subList(start, end);
-        
-        // 转换为Page对象
-        Page<Achievement> achievementPage = new org.springframework.data.domain.PageImpl<>(
-            pageContent, 
-            pageable, 
-            filteredAchievements.size()
-        );
-        
-        return achievementPage.map(achievementConverter::toDTO);
+        Page<Long> idPage = isProjectMember
+                ? achievementRepository.findIdsByProjectId(projectId, idPageable)
+                : achievementRepository.findPublicIdsByProjectId(projectId, idPageable);
+        log.info("成果分页查询: isProjectMember={}, total={}, pageSize={}",
+                isProjectMember, idPage.getTotalElements(), idPage.getNumberOfElements());
+
+        if (idPage.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, idPage.getTotalElements());
+        }
+
+        // 2. 只为本页成果批量加载文件（避免懒加载异常），并按分页结果的顺序输出
+        Map<Long, Achievement> achievementById = new HashMap<>();
+        for (Achievement achievement : achievementRepository.findWithFilesByIdIn(idPage.getContent())) {
+            achievementById.put(achievement.getId(), achievement);
+        }
+        List<AchievementDTO> content = idPage.getContent().stream()
+                .map(achievementById::get)
+                .filter(Objects::nonNull)
+                .map(achievementConverter::toDTO)
+                .toList();
+
+        return new PageImpl<>(content, pageable, idPage.getTotalElements());
     }
 
     /**
@@ -238,6 +248,16 @@ public class AchievementSearchServiceImpl implements AchievementSearchService {
             throw new ServiceException("搜索关键字不能为空");
         }
 
+        try {
+            SearchResponse<Void> response = achievementSearchIndex.search(new AchievementSearchIndex.SearchCriteria(
+                    keyword, null, false, null, null, null,
+                    (int) pageable.getOffset(), pageable.getPageSize(), false));
+            Map<Long, AchievementDTO> achievements = loadInHitOrder(response.hits().hits());
+            return new PageImpl<>(new ArrayList<>(achievements.values()), pageable, totalHits(response));
+        } catch (Exception e) {
+            log.warn("成果检索索引不可用，回退到数据库模糊查询: {}", e.getMessage());
+        }
+
         Specification<Achievement> spec = (root, query, criteriaBuilder) -> {
             // 不区分大小写
             String lowerKeyword = keyword.toLowerCase();
@@ -275,13 +295,108 @@ public class AchievementSearchServiceImpl implements AchievementSearchService {
         log.info("按类型统计成果数量: projectId={}", projectId);
 
         Map<String, Long> statistics = new HashMap<>();
+        achievementStatsCache.get(projectId).byType()
+                .forEach((type, count) -> statistics.put(type.name(), count));
+
+        return statistics;
+    }
 
-        for (AchievementType type : AchievementType.values()) {
-            long count = achievementRepository.countByProjectIdAndType(projectId, type);
-            statistics.put(type.name(), count);
+    /**
+     * 全文检索：按相关度排序，返回类型、状态分面和高亮片段
+     *
+     * @param keyword   搜索关键字
+     * @param projectId 项目ID（可选）
+     * @param type      类型筛选（可选）
+     * @param status    状态筛选（可选）
+     * @param page      页码（从0开始）
+     * @param size      每页数量
+     * @return 检索结果
+     */
+    @Override
+    public AchievementSearchResultDTO fullTextSearch(String keyword, Long projectId,
+                                                     AchievementType type, AchievementStatus status,
+                                                     int page, int size) {
+        log.info("全文检索成果: keyword={}, projectId={}, type={}, status={}", keyword, projectId, type, status);
+
+        if (StringUtils.isEmpty(keyword)) {
+            throw new ServiceException("搜索关键字不能为空");
         }
 
-        return statistics;
+        // 项目成员检索本项目时不限可见性，其余情况只看公开成果和自己创建的成果
+        Long currentUserId = hbnu.project.zhiyancommonsecurity.utils.SecurityUtils.getUserId();
+        boolean isProjectMember = projectId != null && currentUserId != null
+                && knowledgeSecurityUtils.isProjectMemberByProjectId(projectId, currentUserId);
+
+        SearchResponse<Void> response;
+        try {
+            response = achievementSearchIndex.search(new AchievementSearchIndex.SearchCriteria(
+                    keyword, projectId, !isProjectMember, currentUserId,
+                    type != null ? type.name() : null, status != null ? status.name() : null,
+                    page * size, size, true));
+        } catch (Exception e) {
+            log.error("全文检索成果失败: keyword={}", keyword, e);
+            throw new ServiceException("全文检索服务暂不可用，请稍后重试");
+        }
+
+        Map<Long, AchievementDTO> achievements = loadInHitOrder(response.hits().hits());
+        List<AchievementSearchHitDTO> content = new ArrayList<>(achievements.size());
+        for (Hit<Void> hit : response.hits().hits()) {
+            AchievementDTO achievement = achievements.get(Long.valueOf(hit.id()));
+            if (achievement == null) {
+                // 索引尚未同步到删除
+                continue;
+            }
+            content.add(AchievementSearchHitDTO.builder()
+                    .achievement(achievement)
+                    .score(hit.score())
+                    .highlights(hit.highlight())
+                    .build());
+        }
+
+        return AchievementSearchResultDTO.builder()
+                .content(content)
+                .pageNumber(page)
+                .pageSize(size)
+                .totalElements(totalHits(response))
+                .typeFacets(termFacet(response.aggregations().get(AchievementSearchIndex.TYPE_FACET)))
+                .statusFacets(termFacet(response.aggregations().get(AchievementSearchIndex.STATUS_FACET)))
+                .build();
+    }
+
+    /**
+     * 按命中顺序批量加载成果（一次查询），已从数据库删除的成果不会出现在结果中
+     */
+    private Map<Long, AchievementDTO> loadInHitOrder(List<Hit<Void>> hits) {
+        List<Long> ids = hits.stream().map(hit -> Long.valueOf(hit.id())).toList();
+        Map<Long, AchievementDTO> result = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return result;
+        }
+        Map<Long, Achievement> achievementById = new HashMap<>();
+        for (Achievement achievement : achievementRepository.findWithFilesByIdIn(ids)) {
+            achievementById.put(achievement.getId(), achievement);
+        }
+        for (Long id : ids) {
+            Achievement achievement = achievementById.get(id);
+            if (achievement != null) {
+                result.put(id, achievementConverter.toDTO(achievement));
+            }
+        }
+        return result;
+    }
+
+    private long totalHits(SearchResponse<Void> response) {
+        return response.hits().total() != null ? response.hits().total().value() : response.hits().hits().size();
+    }
+
+    private Map<String, Long> termFacet(Aggregate aggregate) {
+        Map<String, Long> facet = new LinkedHashMap<>();
+        if (aggregate == null || !aggregate.isSterms()) {
+            return facet;
+        }
+        aggregate.sterms().buckets().array()
+                .forEach(bucket -> facet.put(bucket.key().stringValue(), bucket.docCount()));
+        return facet;
     }
 
     /**
@@ -344,6 +459,16 @@ public class AchievementSearchServiceImpl implements AchievementSearchService {
 
     // ==================== 私有辅助方法 ====================
 
+    /**
+     * 是否包含详情字段（生成列）条件
+     */
+    private boolean hasDetailFieldFilter(AchievementQueryDTO queryDTO) {
+        return StringUtils.isNotEmpty(queryDTO.getJournal())
+                || queryDTO.getPublishYear() != null
+                || StringUtils.isNotEmpty(queryDTO.getPatentNo())
+                || StringUtils.isNotEmpty(queryDTO.getPatentType());
+    }
+
     /**
      * 构建动态查询条件（Specification）
      * 根据查询DTO动态组合查询条件
@@ -400,10 +525,15 @@ public class AchievementSearchServiceImpl implements AchievementSearchService {
                 ));
             }
 
-            // 6. 摘要关键词模糊查询
-            if (StringUtils.isNotEmpty(queryDTO.getAbstractKeyword())) {
+            // 6. 摘要关键词和详情字段条件共用一次详情表连接
+            Join<Achievement, AchievementDetail> detailJoin = null;
+            if (StringUtils.isNotEmpty(queryDTO.getAbstractKeyword()) || hasDetailFieldFilter(queryDTO)) {
                 // 左连接AchievementDetail表
-                Join<Achievement, AchievementDetail> detailJoin = root.join("detail", JoinType.LEFT);
+                detailJoin = root.join("detail", JoinType.LEFT);
+            }
+
+            // 6.1 摘要关键词模糊查询
+            if (StringUtils.isNotEmpty(queryDTO.getAbstractKeyword())) {
                 String keyword = queryDTO.getAbstractKeyword().toLowerCase();
                 predicates.add(criteriaBuilder.like(
                         criteriaBuilder.lower(detailJoin.get("abstractText")),
@@ -411,6 +541,20 @@ public class AchievementSearchServiceImpl implements AchievementSearchService {
                 ));
             }
 
+            // 6.2 详情字段条件，走详情表上带索引的生成列
+            if (StringUtils.isNotEmpty(queryDTO.getJournal())) {
+                predicates.add(criteriaBuilder.equal(detailJoin.get("journal"), queryDTO.getJournal()));
+            }
+            if (queryDTO.getPublishYear() != null) {
+                predicates.add(criteriaBuilder.equal(detailJoin.get("publishYear"), queryDTO.getPublishYear()));
+            }
+            if (StringUtils.isNotEmpty(queryDTO.getPatentNo())) {
+                predicates.add(criteriaBuilder.equal(detailJoin.get("patentNo"), queryDTO.getPatentNo()));
+            }
+            if (StringUtils.isNotEmpty(queryDTO.getPatentType())) {
+                predicates.add(criteriaBuilder.equal(detailJoin.get("patentType"), queryDTO.getPatentType()));
+            }
+
             // 7. 创建时间范围查询
             if (queryDTO.getCreatedAtStart() != null) {
                 predicates.add(criteriaBuilder.greaterThanOrEqualTo(
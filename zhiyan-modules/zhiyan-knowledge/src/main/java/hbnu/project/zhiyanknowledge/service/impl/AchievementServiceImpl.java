@@ -6,16 +6,19 @@ import hbnu.project.zhiyanknowledge.model.entity.Achievement;
 import hbnu.project.zhiyanknowledge.model.enums.AchievementStatus;
 import hbnu.project.zhiyanknowledge.repository.AchievementRepository;
 import hbnu.project.zhiyanknowledge.service.AchievementFileService;
+import hbnu.project.zhiyanknowledge.search.AchievementIndexer.AchievementIndexEvent;
 import hbnu.project.zhiyanknowledge.service.AchievementService;
+import hbnu.project.zhiyanknowledge.statistics.AchievementStatsCache;
+import hbnu.project.zhiyanknowledge.statistics.AchievementStatsCache.AchievementStatsChangedEvent;
 
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -37,6 +40,10 @@ public class AchievementServiceImpl implements AchievementService {
     @Autowired
     private final KnowledgeMessageService knowledgeMessageService;
 
+    private final AchievementStatsCache achievementStatsCache;
+
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * 更新成果状态
      *
@@ -57,6 +64,8 @@ public class AchievementServiceImpl implements AchievementService {
 
         achievement.setStatus(status);
         achievementRepository.save(achievement);
+        eventPublisher.publishEvent(AchievementStatsChangedEvent.statusChanged(achievement, oldStatus));
+        eventPublisher.publishEvent(new AchievementIndexEvent(achievementId));
 
         knowledgeMessageService.notifyAchievementStatusChange(achievement, oldStatus, status, userId);
         log.info("成果状态更新: id={}, newStatus={}", achievementId, status);
@@ -65,6 +74,7 @@ public class AchievementServiceImpl implements AchievementService {
 
     /**
      * 统计项目成果数量
+     * 总数和状态分布来自同一份缓存聚合，文件总数一条关联计数查询
      *
      * @param projectId 项目ID
      * @return 统计信息
@@ -72,21 +82,16 @@ public class AchievementServiceImpl implements AchievementService {
     @Override
     public Map<String, Object> getProjectAchievementStats(Long projectId) {
         Map<String, Object> stats = new HashMap<>();
+        AchievementStatsCache.AchievementStats aggregate = achievementStatsCache.get(projectId);
 
         // 总数
-        long totalCount = achievementRepository.countByProjectId(projectId);
-        stats.put("totalCount", totalCount);
+        stats.put("totalCount", aggregate.total());
 
         // 按状态统计
-        Map<AchievementStatus, Long> statusStats = countByStatus(projectId);
-        stats.put("byStatus", statusStats);
+        stats.put("byStatus", aggregate.byStatus());
 
         // 文件总数
-        List<Achievement> achievements = achievementRepository.findByProjectId(projectId);
-        long fileCount = achievements.stream()
-                .mapToLong(a -> achievementFileService.countFilesByAchievementId(a.getId()))
-                .sum();
-        stats.put("fileCount", fileCount);
+        stats.put("fileCount", achievementFileService.countFilesByProjectId(projectId));
 
         return stats;
     }
@@ -99,11 +104,6 @@ public class AchievementServiceImpl implements AchievementService {
      */
     @Override
     public Map<AchievementStatus, Long> countByStatus(Long projectId) {
-        Map<AchievementStatus, Long> result = new HashMap<>();
-        for (AchievementStatus status : AchievementStatus.values()) {
-            long count = achievementRepository.countByProjectIdAndStatus(projectId, status);
-            result.put(status, count);
-        }
-        return result;
+        return achievementStatsCache.get(projectId).byStatus();
     }
 }
@@ -1,6 +1,9 @@
 package hbnu.project.zhiyanknowledge.service.impl;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import hbnu.project.zhiyancommonbasic.exception.ServiceException;
+import hbnu.project.zhiyancommonbasic.utils.JsonUtils;
 import hbnu.project.zhiyancommonoss.enums.BucketType;
 import hbnu.project.zhiyancommonoss.service.MinioService;
 import hbnu.project.zhiyancommonoss.util.MinioUtils;
@@ -13,21 +16,29 @@ import hbnu.project.zhiyanknowledge.model.entity.FileUploadSession;
 import hbnu.project.zhiyanknowledge.repository.AchievementFileRepository;
 import hbnu.project.zhiyanknowledge.repository.AchievementRepository;
 import hbnu.project.zhiyanknowledge.repository.FileUploadSessionRepository;
+import hbnu.project.zhiyanknowledge.service.AchievementFileBlobService;
 import hbnu.project.zhiyanknowledge.service.ChunkedUploadService;
+import hbnu.project.zhiyanknowledge.upload.ChunkBitmapTracker;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import software.amazon.awssdk.services.s3.model.Part;
 
 import javax.annotation.Resource;
 import java.io.InputStream;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * 分片上传服务实现
+ * 配置了 Redis 时分片进度记录在位图中，数据库只在初始化、完成和周期性检查点时写入；
+ * 未配置 Redis 时退回到逐分片读写数据库会话。
+ * 直传模式下客户端凭预签名URL把分片直接上传到MinIO，完成时按 listParts 校验分片后合并
  *
  * @author ErgouTree
  */
@@ -56,9 +67,33 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
     @Resource
     private final KnowledgeMessageService knowledgeMessageService;
 
+    private final ChunkBitmapTracker chunkBitmapTracker;
+
+    private final AchievementFileBlobService achievementFileBlobService;
+
     // 分片大小阈值：超过此大小才使用分片上传
     private static final long MULTIPART_THRESHOLD = 30 * 1024 * 1024; // 30MB
 
+    // 检查点：每上传这么多个分片，或距上次检查点超过该间隔，把进度写回数据库一次
+    private static final int CHECKPOINT_EVERY_CHUNKS = 50;
+    private static final Duration CHECKPOINT_INTERVAL = Duration.ofSeconds(30);
+
+    // 直传模式：预签名地址有效期、S3 分片上限与最小分片大小（最后一片除外）
+    private static final int PART_URL_EXPIRY_SECONDS = 3600;
+    // 单次下发的预签名地址上限，其余分片由客户端按需分页获取
+    private static final int PART_URL_PAGE_SIZE = 100;
+    private static final int MAX_PARTS = 10_000;
+    private static final long MIN_PART_SIZE = 5 * 1024 * 1024; // 5MB
+
+    /**
+     * uploadId -> 会话，只读取其中不变的字段（归属、桶、对象键、分片数）
+     * 会话是否仍在进行由位图是否存在判断，位图缺失时回查数据库
+     */
+    private final Cache<String, FileUploadSession> sessionCache = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
     /**
      * 初始化分片上传
      *
@@ -91,6 +126,10 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
         // 4. 计算分片信息
         int chunkSize = dto.getChunkSize();
         int totalChunks = (int) Math.ceil((double) dto.getFileSize() / chunkSize);
+        boolean directUpload = Boolean.TRUE.equals(dto.getDirectUpload());
+        if (directUpload && (chunkSize < MIN_PART_SIZE || totalChunks > MAX_PARTS)) {
+            throw new ServiceException(String.format("直传模式要求分片不小于5MB且分片数不超过%d", MAX_PARTS));
+        }
 
         // 5. 初始化MinIO分片上传
         String bucketName = minioUtils.getBucketName(BucketType.ACHIEVEMENT_FILES);
@@ -107,18 +146,78 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
                 .objectKey(objectKey)
                 .bucketName(bucketName)
                 .uploadBy(userId)
+                .directUpload(directUpload)
                 .status(FileUploadSession.UploadStatus.IN_PROGRESS)
                 .build();
 
         session.setUploadedChunks(new ArrayList<>());
         session = sessionRepository.save(session);
 
-        log.info("分片上传初始化成功: sessionId={}, uploadId={}, totalChunks={}",
-                session.getId(), uploadId, totalChunks);
+        log.info("分片上传初始化成功: sessionId={}, uploadId={}, totalChunks={}, directUpload={}",
+                session.getId(), uploadId, totalChunks, directUpload);
+
+        // 7. 直传模式下发第一页分片的预签名地址，服务端不再经手分片数据
+        if (directUpload) {
+            UploadSessionDTO sessionDTO = achievementConverter.toUploadSessionDTO(session);
+            fillPartUploadUrls(sessionDTO, session, IntStream.rangeClosed(1, totalChunks).boxed().toList());
+            return sessionDTO;
+        }
+
+        if (chunkBitmapTracker.isEnabled()) {
+            chunkBitmapTracker.init(uploadId, totalChunks, Collections.emptyList());
+            sessionCache.put(uploadId, session);
+        }
 
         return achievementConverter.toUploadSessionDTO(session);
     }
 
+    /**
+     * 重新获取直传分片的预签名地址（地址过期或断点续传时使用）
+     *
+     * @param uploadId    上传ID
+     * @param partNumbers 分片号，为空时返回全部未上传的分片
+     * @param userId      用户ID
+     * @return 带预签名地址的上传会话信息
+     */
+    @Override
+    public UploadSessionDTO getPartUploadUrls(String uploadId, List<Integer> partNumbers, Long userId) {
+        FileUploadSession session = sessionRepository.findByUploadId(uploadId)
+                .orElseThrow(() -> new ServiceException("上传会话不存在"));
+
+        if (!session.getUploadBy().equals(userId)) {
+            throw new ServiceException("无权限操作此上传会话");
+        }
+        if (!isDirectUpload(session)) {
+            throw new ServiceException("该上传会话不是直传模式");
+        }
+        if (session.getStatus() != FileUploadSession.UploadStatus.IN_PROGRESS) {
+            throw new ServiceException("上传会话状态异常: " + session.getStatus());
+        }
+
+        UploadSessionDTO sessionDTO = toSessionDTO(session);
+        List<Integer> targets;
+        if (partNumbers == null || partNumbers.isEmpty()) {
+            Set<Integer> uploaded = new HashSet<>(sessionDTO.getUploadedChunks());
+            targets = IntStream.rangeClosed(1, session.getTotalChunks())
+                    .filter(n -> !uploaded.contains(n))
+                    .boxed()
+                    .toList();
+        } else {
+            if (partNumbers.size() > PART_URL_PAGE_SIZE) {
+                throw new ServiceException("单次最多获取" + PART_URL_PAGE_SIZE + "个分片的上传地址");
+            }
+            for (Integer partNumber : partNumbers) {
+                if (partNumber == null || partNumber < 1 || partNumber > session.getTotalChunks()) {
+                    throw new ServiceException("分片号无效: " + partNumber);
+                }
+            }
+            targets = partNumbers.stream().distinct().sorted().toList();
+        }
+
+        fillPartUploadUrls(sessionDTO, session, targets);
+        return sessionDTO;
+    }
+
     /**
      * 上传分片
      *
@@ -133,6 +232,84 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
     public UploadSessionDTO uploadChunk(String uploadId, Integer chunkNumber, InputStream chunkData, Long chunkSize, Long userId) {
         log.info("上传分片: uploadId={}, chunkNumber={}, size={}", uploadId, chunkNumber, chunkSize);
 
+        if (!chunkBitmapTracker.isEnabled()) {
+            return uploadChunkWithDatabase(uploadId, chunkNumber, chunkData, chunkSize, userId);
+        }
+
+        // 1. 查询上传会话（本地缓存，未命中才查库）
+        FileUploadSession session = sessionCache.get(uploadId,
+                key -> sessionRepository.findByUploadId(key).orElse(null));
+        if (session == null) {
+            throw new ServiceException("上传会话不存在");
+        }
+
+        // 2. 验证权限
+        if (!session.getUploadBy().equals(userId)) {
+            throw new ServiceException("无权限操作此上传会话");
+        }
+        if (isDirectUpload(session)) {
+            throw new ServiceException("直传模式的分片请通过预签名地址上传");
+        }
+
+        // 3. 验证分片号
+        if (chunkNumber < 1 || chunkNumber > session.getTotalChunks()) {
+            throw new ServiceException("分片号无效: " + chunkNumber);
+        }
+
+        // 4. 检查此分片是否已上传，位图缺失时按数据库状态恢复
+        Boolean uploaded = chunkBitmapTracker.isUploaded(uploadId, chunkNumber);
+        if (uploaded == null) {
+            List<Integer> restored = restoreBitmap(uploadId);
+            uploaded = restored.contains(chunkNumber);
+        }
+        if (uploaded) {
+            log.info("分片已存在，跳过上传: uploadId={}, chunkNumber={}", uploadId, chunkNumber);
+            return toSessionDTO(session);
+        }
+
+        try {
+            // 5. 上传分片到MinIO（同一分片号重复上传时以最后一次为准）
+            minioService.uploadPart(
+                    session.getBucketName(),
+                    session.getObjectKey(),
+                    uploadId,
+                    chunkNumber,
+                    chunkData,
+                    chunkSize
+            );
+        } catch (ServiceException e) {
+            log.error("分片上传失败: uploadId={}, chunkNumber={}", uploadId, chunkNumber, e);
+            throw new ServiceException("分片上传失败: " + e.getMessage(), e);
+        }
+
+        // 6. 原子标记并计数
+        ChunkBitmapTracker.MarkResult mark = chunkBitmapTracker.markUploaded(
+                uploadId, chunkNumber, CHECKPOINT_INTERVAL, CHECKPOINT_EVERY_CHUNKS);
+        if (mark.sessionMissing()) {
+            // 上传期间会话被取消或已完成
+            sessionCache.invalidate(uploadId);
+            throw new ServiceException("上传会话已结束");
+        }
+
+        // 7. 周期性检查点
+        List<Integer> uploadedChunks = chunkBitmapTracker.getUploadedChunks(uploadId);
+        if (mark.checkpointDue() && uploadedChunks != null) {
+            saveCheckpoint(uploadId, uploadedChunks);
+        }
+
+        double progress = (double) mark.uploadedCount() / session.getTotalChunks() * 100;
+        log.info("分片上传成功: uploadId={}, chunkNumber={}, progress={}%", uploadId, chunkNumber, progress);
+
+        UploadSessionDTO dto = achievementConverter.toUploadSessionDTO(session);
+        dto.setUploadedChunks(uploadedChunks != null ? uploadedChunks : new ArrayList<>());
+        dto.setProgress(progress);
+        return dto;
+    }
+
+    /**
+     * 未配置 Redis 时的分片上传：逐分片读写数据库会话
+     */
+    private UploadSessionDTO uploadChunkWithDatabase(String uploadId, Integer chunkNumber, InputStream chunkData, Long chunkSize, Long userId) {
         // 1. 查询上传会话
         FileUploadSession session = sessionRepository.findByUploadId(uploadId)
                 .orElseThrow(() -> new ServiceException("上传会话不存在"));
@@ -146,6 +323,9 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
         if (session.getStatus() != FileUploadSession.UploadStatus.IN_PROGRESS) {
             throw new ServiceException("上传会话状态异常: " + session.getStatus());
         }
+        if (isDirectUpload(session)) {
+            throw new ServiceException("直传模式的分片请通过预签名地址上传");
+        }
 
         // 4. 验证分片号
         if (chunkNumber < 1 || chunkNumber > session.getTotalChunks()) {
@@ -161,7 +341,7 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
 
         try {
             // 6. 上传分片到MinIO
-            String etag = minioService.uploadPart(
+            minioService.uploadPart(
                     session.getBucketName(),
                     session.getObjectKey(),
                     uploadId,
@@ -209,20 +389,28 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
             throw new ServiceException("上传会话状态异常: " + session.getStatus());
         }
 
-        // 4.验证所有分片是否都已上传
+        // 4.验证所有分片是否都已上传（直传模式以存储端的分片列表为准）
+        List<Part> verifiedParts = null;
         List<Integer> uploadedChunks = session.getUploadedChunks();
+        if (isDirectUpload(session)) {
+            verifiedParts = verifyDirectParts(session);
+            uploadedChunks = verifiedParts.stream().map(Part::partNumber).toList();
+            session.setUploadedChunks(uploadedChunks);
+        } else if (chunkBitmapTracker.isEnabled()) {
+            List<Integer> tracked = chunkBitmapTracker.getUploadedChunks(uploadId);
+            uploadedChunks = tracked != null ? tracked : restoreBitmap(uploadId);
+            session.setUploadedChunks(uploadedChunks);
+        }
         if (uploadedChunks.size() != session.getTotalChunks()) {
             throw new ServiceException(String.format("分片未完全上传: 已上传%d/%d",
                     uploadedChunks.size(), session.getTotalChunks()));
         }
 
         try{
-            // 5. 直接在存储端列举已上传分片并合并（兼容 MinIO 8.x / AWS S3 客户端）
-            String etag = minioService.completeMultipartUploadAuto(
-                    session.getBucketName(),
-                    session.getObjectKey(),
-                    uploadId
-            );
+            // 5. 合并分片：直传模式使用已校验的分片列表，否则在存储端列举已上传分片（兼容 MinIO 8.x / AWS S3 客户端）
+            String etag = verifiedParts != null
+                    ? minioService.completeMultipartUpload(session.getBucketName(), session.getObjectKey(), uploadId, verifiedParts)
+                    : minioService.completeMultipartUploadAuto(session.getBucketName(), session.getObjectKey(), uploadId);
 
             // 6. 检查同名文件并删除
             Optional<AchievementFile> existingFile = fileRepository
@@ -231,12 +419,11 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
             if(existingFile.isPresent()){
                 AchievementFile oldFile = existingFile.get();
                 log.info("检测到同名文件，执行覆盖删除: fileId={}", oldFile.getId());
-                try {
-                    minioService.deleteFile(BucketType.ACHIEVEMENT_FILES, oldFile.getObjectKey());
-                    fileRepository.deleteById(oldFile.getId());
-                } catch (Exception e) {
-                    log.error("删除旧文件失败: fileId={}", oldFile.getId(), e);
+                // 旧的历史文件与本次合并出的对象键相同时，对象已被覆盖，只删记录
+                if (!oldFile.getObjectKey().equals(session.getObjectKey())) {
+                    achievementFileBlobService.release(oldFile);
                 }
+                fileRepository.deleteById(oldFile.getId());
             }
 
             // 7. 保存文件记录到数据库
@@ -262,6 +449,7 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
             // 8。更新会话状态为已完成
             session.setStatus(FileUploadSession.UploadStatus.COMPLETED);
             sessionRepository.save(session);
+            releaseTracking(uploadId);
 
             log.info("分片上传完成: sessionId={}, fileId={}", session.getId(), achievementFile.getId());
 
@@ -274,6 +462,7 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
             // 更新会话状态为失败
             session.setStatus(FileUploadSession.UploadStatus.FAILED);
             sessionRepository.save(session);
+            releaseTracking(uploadId);
             throw new ServiceException("完成分片上传失败了: " + e.getMessage(), e);
         }
     }
@@ -309,6 +498,7 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
             // 4.更新会话状态
             session.setStatus(FileUploadSession.UploadStatus.CANCELLED);
             sessionRepository.save(session);
+            releaseTracking(uploadId);
 
             log.info("分片上传已取消: sessionId={}", session.getId());
         }catch (Exception e) {
@@ -334,7 +524,7 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
             throw new ServiceException("无权限查看此上传会话");
         }
 
-        return achievementConverter.toUploadSessionDTO(session);
+        return toSessionDTO(session);
     }
 
     /**
@@ -349,7 +539,140 @@ public class ChunkedUploadServiceImpl implements ChunkedUploadService {
                 userId, FileUploadSession.UploadStatus.IN_PROGRESS);
 
         return sessions.stream()
-                .map(achievementConverter::toUploadSessionDTO)
+                .map(this::toSessionDTO)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * 转换会话DTO，进行中的会话以位图中的进度为准
+     */
+    private UploadSessionDTO toSessionDTO(FileUploadSession session) {
+        UploadSessionDTO dto = achievementConverter.toUploadSessionDTO(session);
+        if (session.getStatus() != FileUploadSession.UploadStatus.IN_PROGRESS) {
+            return dto;
+        }
+        if (isDirectUpload(session)) {
+            // 直传分片不经过服务端，进度从存储端的分片列表获得
+            List<Integer> uploadedChunks = minioService.listAllParts(
+                            session.getBucketName(), session.getObjectKey(), session.getUploadId())
+                    .stream()
+                    .map(Part::partNumber)
+                    .toList();
+            dto.setUploadedChunks(uploadedChunks);
+            dto.setProgress(session.getTotalChunks() == 0 ? 0.0
+                    : (double) uploadedChunks.size() / session.getTotalChunks() * 100);
+            return dto;
+        }
+        if (!chunkBitmapTracker.isEnabled()) {
+            return dto;
+        }
+        List<Integer> uploadedChunks = chunkBitmapTracker.getUploadedChunks(session.getUploadId());
+        if (uploadedChunks != null) {
+            dto.setUploadedChunks(uploadedChunks);
+            dto.setProgress(session.getTotalChunks() == 0 ? 0.0
+                    : (double) uploadedChunks.size() / session.getTotalChunks() * 100);
+        }
+        return dto;
+    }
+
+    private boolean isDirectUpload(FileUploadSession session) {
+        return Boolean.TRUE.equals(session.getDirectUpload());
+    }
+
+    /**
+     * 为指定分片中的前一页生成预签名上传地址，剩余分片由客户端通过 getPartUploadUrls 继续获取
+     */
+    private void fillPartUploadUrls(UploadSessionDTO dto, FileUploadSession session, List<Integer> partNumbers) {
+        List<Integer> page = partNumbers.size() > PART_URL_PAGE_SIZE
+                ? partNumbers.subList(0, PART_URL_PAGE_SIZE)
+                : partNumbers;
+        List<PartUploadUrlDTO> urls = new ArrayList<>(page.size());
+        for (Integer partNumber : page) {
+            urls.add(PartUploadUrlDTO.builder()
+                    .partNumber(partNumber)
+                    .url(minioService.getPresignedUploadPartUrl(session.getBucketName(), session.getObjectKey(),
+                            session.getUploadId(), partNumber, PART_URL_EXPIRY_SECONDS))
+                    .build());
+        }
+        dto.setPartUploadUrls(urls);
+        dto.setPartUrlExpiresAt(LocalDateTime.now().plusSeconds(PART_URL_EXPIRY_SECONDS));
+        dto.setHasMorePartUrls(partNumbers.size() > page.size());
+    }
+
+    /**
+     * 校验直传分片：分片号必须完整覆盖 1..totalChunks，
+     * 除最后一片外每片大小等于分片大小，且总大小与声明的文件大小一致
+     *
+     * @return 按分片号升序、可直接用于合并的分片列表
+     */
+    private List<Part> verifyDirectParts(FileUploadSession session) {
+        List<Part> listed = minioService.listAllParts(
+                session.getBucketName(), session.getObjectKey(), session.getUploadId());
+
+        int totalChunks = session.getTotalChunks();
+        if (listed.size() != totalChunks) {
+            throw new ServiceException(String.format("分片未完全上传: 已上传%d/%d", listed.size(), totalChunks));
+        }
+
+        long lastPartSize = session.getFileSize() - (long) session.getChunkSize() * (totalChunks - 1);
+        Part[] parts = new Part[totalChunks];
+        for (Part listedPart : listed) {
+            int partNumber = listedPart.partNumber();
+            if (partNumber < 1 || partNumber > totalChunks || parts[partNumber - 1] != null) {
+                throw new ServiceException("分片号无效: " + partNumber);
+            }
+            long expectedSize = partNumber == totalChunks ? lastPartSize : session.getChunkSize();
+            if (listedPart.size() == null || listedPart.size() != expectedSize) {
+                throw new ServiceException(String.format("分片%d大小不符: 期望%d字节, 实际%s字节",
+                        partNumber, expectedSize, listedPart.size()));
+            }
+            parts[partNumber - 1] = listedPart;
+        }
+        return Arrays.asList(parts);
+    }
+
+    /**
+     * 位图缺失（过期或 Redis 重启）时回查数据库：
+     * 会话仍在进行则用最近一次检查点重建位图，否则说明会话已结束
+     *
+     * @return 重建后的已上传分片列表
+     */
+    private List<Integer> restoreBitmap(String uploadId) {
+        sessionCache.invalidate(uploadId);
+        FileUploadSession session = sessionRepository.findByUploadId(uploadId)
+                .orElseThrow(() -> new ServiceException("上传会话不存在"));
+        if (session.getStatus() != FileUploadSession.UploadStatus.IN_PROGRESS) {
+            throw new ServiceException("上传会话状态异常: " + session.getStatus());
+        }
+
+        // 检查点之后上传的分片会被重新上传，MinIO 以最后一次为准
+        List<Integer> uploadedChunks = session.getUploadedChunks();
+        chunkBitmapTracker.init(uploadId, session.getTotalChunks(), uploadedChunks);
+        log.warn("分片位图缺失，已按检查点恢复: uploadId={}, uploaded={}/{}",
+                uploadId, uploadedChunks.size(), session.getTotalChunks());
+        return uploadedChunks;
+    }
+
+    /**
+     * 把位图中的进度写回数据库
+     */
+    private void saveCheckpoint(String uploadId, List<Integer> uploadedChunks) {
+        try {
+            sessionRepository.updateUploadedChunks(uploadId, JsonUtils.toJsonString(uploadedChunks),
+                    FileUploadSession.UploadStatus.IN_PROGRESS, LocalDateTime.now());
+        } catch (Exception e) {
+            // 检查点只用于位图丢失后的恢复，失败不影响本次上传
+            log.warn("写入分片上传检查点失败: uploadId={}", uploadId, e);
+        }
+    }
+
+    /**
+     * 会话结束后清理位图与本地缓存
+     */
+    private void releaseTracking(String uploadId) {
+        sessionCache.invalidate(uploadId);
+        if (chunkBitmapTracker.isEnabled()) {
+            chunkBitmapTracker.remove(uploadId);
+        }
+    }
 }
@@ -0,0 +1,226 @@
+package hbnu.project.zhiyanknowledge.statistics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hbnu.project.zhiyancommonbasic.constants.CacheConstants;
+import hbnu.project.zhiyanknowledge.model.entity.Achievement;
+import hbnu.project.zhiyanknowledge.model.enums.AchievementStatus;
+import hbnu.project.zhiyanknowledge.model.enums.AchievementType;
+import hbnu.project.zhiyanknowledge.repository.AchievementRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 项目成果数量聚合本地缓存
+ * 未命中时用一条 GROUP BY (type, status) 查询加载整个项目的分布，所有统计接口都从这份聚合派生；
+ * 成果创建、状态变更、删除在事务提交后按增量修正本节点已缓存的聚合，并广播给其他节点失效
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AchievementStatsCache {
+
+    private final AchievementRepository achievementRepository;
+
+    private final ObjectProvider<RedissonClient> redissonClientProvider;
+
+    /**
+     * 本节点标识，收到自己发出的广播时忽略（本节点已按增量修正）
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * projectId -> 类型×状态计数，过期时间兜底增量修正与加载并发时可能出现的偏差
+     */
+    private final Cache<Long, AchievementStats> cache = Caffeine.newBuilder()
+            .maximumSize(5_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    /**
+     * 成果计数变更事件，随业务事务提交后应用
+     * 创建时 old* 为空，删除时 new* 为空
+     */
+    public record AchievementStatsChangedEvent(Long projectId,
+                                               AchievementType oldType, AchievementStatus oldStatus,
+                                               AchievementType newType, AchievementStatus newStatus) {
+
+        public static AchievementStatsChangedEvent created(Achievement achievement) {
+            return new AchievementStatsChangedEvent(achievement.getProjectId(),
+                    null, null, achievement.getType(), achievement.getStatus());
+        }
+
+        public static AchievementStatsChangedEvent statusChanged(Achievement achievement, AchievementStatus oldStatus) {
+            return new AchievementStatsChangedEvent(achievement.getProjectId(),
+                    achievement.getType(), oldStatus, achievement.getType(), achievement.getStatus());
+        }
+
+        public static AchievementStatsChangedEvent deleted(Achievement achievement) {
+            return new AchievementStatsChangedEvent(achievement.getProjectId(),
+                    achievement.getType(), achievement.getStatus(), null, null);
+        }
+    }
+
+    /**
+     * 获取项目的成果数量聚合
+     *
+     * @param projectId 项目ID
+     * @return 类型×状态计数
+     */
+    public AchievementStats get(Long projectId) {
+        return cache.get(projectId, this::load);
+    }
+
+    /**
+     * 业务事务提交后修正已缓存的聚合，未缓存的项目等下次读取时再完整加载；
+     * 其他节点无法安全地重放增量，广播后由它们直接失效
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChanged(AchievementStatsChangedEvent event) {
+        if (event.projectId() == null) {
+            return;
+        }
+        cache.asMap().computeIfPresent(event.projectId(), (projectId, stats) -> stats
+                .adjust(event.oldType(), event.oldStatus(), -1)
+                .adjust(event.newType(), event.newStatus(), 1));
+        broadcast(event.projectId());
+    }
+
+    /**
+     * 处理其他节点的变更广播
+     *
+     * @param message "nodeId:projectId"
+     */
+    public void onRemoteChanged(String message) {
+        int separator = message.lastIndexOf(':');
+        if (separator <= 0) {
+            log.warn("忽略格式错误的成果数量变更消息: {}", message);
+            return;
+        }
+        if (nodeId.equals(message.substring(0, separator))) {
+            return;
+        }
+        try {
+            evict(Long.valueOf(message.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的成果数量变更消息: {}", message);
+        }
+    }
+
+    /**
+     * 失效本节点指定项目的聚合
+     *
+     * @param projectId 项目ID
+     */
+    public void evict(Long projectId) {
+        cache.invalidate(projectId);
+    }
+
+    private void broadcast(Long projectId) {
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient == null) {
+            return;
+        }
+        try {
+            redissonClient.getTopic(CacheConstants.ACHIEVEMENT_STATS_CHANGE_TOPIC).publish(nodeId + ":" + projectId);
+        } catch (Exception e) {
+            // 广播失败时其他节点依赖过期时间兜底
+            log.error("广播成果数量变更失败: projectId={}", projectId, e);
+        }
+    }
+
+    private AchievementStats load(Long projectId) {
+        List<Object[]> rows = achievementRepository.countGroupByTypeAndStatus(projectId);
+        long[][] counts = new long[AchievementType.values().length][AchievementStatus.values().length];
+        long total = 0;
+        for (Object[] row : rows) {
+            long count = ((Number) row[2]).longValue();
+            total += count;
+            if (row[0] instanceof AchievementType type && row[1] instanceof AchievementStatus status) {
+                counts[type.ordinal()][status.ordinal()] = count;
+            }
+        }
+        log.debug("加载项目成果数量聚合: projectId={}, total={}", projectId, total);
+        return new AchievementStats(counts, total);
+    }
+
+    /**
+     * 不可变的类型×状态计数，修正时复制出新实例
+     */
+    public static final class AchievementStats {
+
+        private final long[][] counts;
+
+        /**
+         * 总数单独记录，类型或状态为空的历史数据只计入总数
+         */
+        private final long total;
+
+        private AchievementStats(long[][] counts, long total) {
+            this.counts = counts;
+            this.total = total;
+        }
+
+        public long total() {
+            return total;
+        }
+
+        /**
+         * 按类型汇总，包含数量为 0 的类型
+         */
+        public Map<AchievementType, Long> byType() {
+            Map<AchievementType, Long> result = new EnumMap<>(AchievementType.class);
+            for (AchievementType type : AchievementType.values()) {
+                long sum = 0;
+                for (long count : counts[type.ordinal()]) {
+                    sum += count;
+                }
+                result.put(type, sum);
+            }
+            return result;
+        }
+
+        /**
+         * 按状态汇总，包含数量为 0 的状态
+         */
+        public Map<AchievementStatus, Long> byStatus() {
+            Map<AchievementStatus, Long> result = new HashMap<>();
+            for (AchievementStatus status : AchievementStatus.values()) {
+                long sum = 0;
+                for (long[] row : counts) {
+                    sum += row[status.ordinal()];
+                }
+                result.put(status, sum);
+            }
+            return result;
+        }
+
+        private AchievementStats adjust(AchievementType type, AchievementStatus status, int delta) {
+            if (type == null && status == null) {
+                return this;
+            }
+            long[][] copy = new long[counts.length][];
+            for (int i = 0; i < counts.length; i++) {
+                copy[i] = counts[i].clone();
+            }
+            if (type != null && status != null) {
+                copy[type.ordinal()][status.ordinal()] = Math.max(0, copy[type.ordinal()][status.ordinal()] + delta);
+            }
+            return new AchievementStats(copy, Math.max(0, total + delta));
+        }
+    }
+}
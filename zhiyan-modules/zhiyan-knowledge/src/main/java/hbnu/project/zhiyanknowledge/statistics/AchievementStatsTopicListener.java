@@ -0,0 +1,39 @@
+package hbnu.project.zhiyanknowledge.statistics;
+
+import hbnu.project.zhiyancommonbasic.constants.CacheConstants;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * 成果数量聚合变更频道监听器
+ * 其他节点修改成果后，失效本节点缓存的项目成果数量聚合
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AchievementStatsTopicListener implements ApplicationRunner {
+
+    private final AchievementStatsCache achievementStatsCache;
+    private final ObjectProvider<RedissonClient> redissonClientProvider;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient == null) {
+            // 没有 Redis 时成果数量聚合只能依赖过期时间
+            log.warn("未配置 RedissonClient，成果数量变更频道监听器未启动");
+            return;
+        }
+
+        redissonClient.getTopic(CacheConstants.ACHIEVEMENT_STATS_CHANGE_TOPIC)
+                .addListener(String.class, (channel, message) -> achievementStatsCache.onRemoteChanged(message));
+        log.info("初始化成果数量变更频道监听器成功");
+    }
+}
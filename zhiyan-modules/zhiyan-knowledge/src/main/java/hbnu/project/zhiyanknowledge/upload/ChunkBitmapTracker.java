@@ -0,0 +1,171 @@
+package hbnu.project.zhiyanknowledge.upload;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 分片上传进度位图
+ * 每个 uploadId 对应一个 Redis 位图，第 n 个分片对应第 n-1 位
+ * 标记与计数在同一段 Lua 中完成，同一文件的多个分片可以安全地并行上传
+ * 未配置 Redis 时 {@link #isEnabled()} 返回 false，由调用方回退到数据库记录
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChunkBitmapTracker {
+
+    private static final String BITMAP_KEY_PREFIX = "knowledge:upload:chunks:";
+    private static final String CHECKPOINT_KEY_PREFIX = "knowledge:upload:checkpoint:";
+
+    /**
+     * 位图过期时间，与上传会话的有效期一致
+     */
+    private static final Duration BITMAP_TTL = Duration.ofDays(7);
+
+    /**
+     * 键不存在返回 -1（会话已结束或位图丢失），否则返回该分片是否已上传
+     */
+    private static final String IS_UPLOADED_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+            "return redis.call('GETBIT', KEYS[1], ARGV[1])";
+
+    /**
+     * 标记分片并返回 {此前是否已标记, 已上传分片数, 是否需要落库检查点}
+     * 检查点节流键用 SET NX PX 实现，多节点之间同样只会有一个请求落库
+     */
+    private static final String MARK_SCRIPT =
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return {-1, 0, 0} end " +
+            "local prev = redis.call('SETBIT', KEYS[1], ARGV[1], 1) " +
+            "local count = redis.call('BITCOUNT', KEYS[1]) " +
+            "redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "local due = 0 " +
+            "if prev == 0 and (count % tonumber(ARGV[4]) == 0 " +
+            "    or redis.call('SET', KEYS[2], '1', 'NX', 'PX', ARGV[3])) then due = 1 end " +
+            "return {prev, count, due}";
+
+    private final ObjectProvider<RedissonClient> redissonClientProvider;
+
+    /**
+     * 单次标记的结果
+     *
+     * @param sessionMissing 位图不存在，需要调用方回查数据库
+     * @param alreadyUploaded 此前已标记过（重复上传）
+     * @param uploadedCount  当前已上传分片数
+     * @param checkpointDue  本次需要把进度落库
+     */
+    public record MarkResult(boolean sessionMissing, boolean alreadyUploaded, long uploadedCount, boolean checkpointDue) {
+    }
+
+    /**
+     * 是否启用 Redis 位图
+     */
+    public boolean isEnabled() {
+        return redissonClientProvider.getIfAvailable() != null;
+    }
+
+    /**
+     * 初始化位图，已有分片（断点续传恢复）一并写入
+     *
+     * @param uploadId       上传ID
+     * @param totalChunks    总分片数
+     * @param uploadedChunks 已上传分片号
+     */
+    public void init(String uploadId, int totalChunks, Collection<Integer> uploadedChunks) {
+        RedissonClient client = redissonClientProvider.getObject();
+        var bitSet = client.getBitSet(bitmapKey(uploadId));
+        // 写最后一位的 0 值，一次分配好位图长度，同时让键存在
+        bitSet.clear(totalChunks - 1);
+        for (Integer chunk : uploadedChunks) {
+            if (chunk != null && chunk >= 1 && chunk <= totalChunks) {
+                bitSet.set(chunk - 1);
+            }
+        }
+        bitSet.expire(BITMAP_TTL);
+    }
+
+    /**
+     * 查询分片是否已上传
+     *
+     * @return null 表示位图不存在
+     */
+    public Boolean isUploaded(String uploadId, int chunkNumber) {
+        Long result = redissonClientProvider.getObject().getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_ONLY, IS_UPLOADED_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(bitmapKey(uploadId)), String.valueOf(chunkNumber - 1));
+        return result == null || result < 0 ? null : result == 1;
+    }
+
+    /**
+     * 原子地标记分片已上传并返回最新计数
+     *
+     * @param uploadId           上传ID
+     * @param chunkNumber        分片号（从1开始）
+     * @param checkpointInterval 两次检查点之间的最长间隔
+     * @param checkpointEvery    每上传多少个分片落库一次
+     */
+    public MarkResult markUploaded(String uploadId, int chunkNumber, Duration checkpointInterval, int checkpointEvery) {
+        List<Object> keys = List.of(bitmapKey(uploadId), checkpointKey(uploadId));
+        List<Long> result = redissonClientProvider.getObject().getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE, MARK_SCRIPT, RScript.ReturnType.MULTI, keys,
+                String.valueOf(chunkNumber - 1),
+                String.valueOf(BITMAP_TTL.toMillis()),
+                String.valueOf(checkpointInterval.toMillis()),
+                String.valueOf(checkpointEvery));
+        if (result == null || result.size() < 3 || result.get(0) < 0) {
+            return new MarkResult(true, false, 0, false);
+        }
+        return new MarkResult(false, result.get(0) == 1, result.get(1), result.get(2) == 1);
+    }
+
+    /**
+     * 读取已上传分片号列表
+     *
+     * @return null 表示位图不存在
+     */
+    public List<Integer> getUploadedChunks(String uploadId) {
+        var bitSet = redissonClientProvider.getObject().getBitSet(bitmapKey(uploadId));
+        if (!bitSet.isExists()) {
+            return null;
+        }
+        BitSet bits = bitSet.asBitSet();
+        List<Integer> chunks = new ArrayList<>(bits.cardinality());
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            chunks.add(i + 1);
+        }
+        return chunks;
+    }
+
+    /**
+     * 会话结束（完成/取消）后删除位图
+     */
+    public void remove(String uploadId) {
+        try {
+            redissonClientProvider.getObject().getKeys().delete(bitmapKey(uploadId), checkpointKey(uploadId));
+        } catch (Exception e) {
+            // 删除失败时等待过期即可
+            log.warn("删除分片位图失败: uploadId={}", uploadId, e);
+        }
+    }
+
+    private String bitmapKey(String uploadId) {
+        return BITMAP_KEY_PREFIX + uploadId;
+    }
+
+    private String checkpointKey(String uploadId) {
+        return CHECKPOINT_KEY_PREFIX + uploadId;
+    }
+}
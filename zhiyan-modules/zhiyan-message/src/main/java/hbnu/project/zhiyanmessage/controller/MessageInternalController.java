@@ -15,6 +15,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -236,4 +237,82 @@ public class MessageInternalController {
             return R.fail("消息批量发送失败: " + e.getMessage());
         }
     }
+
+
+    /**
+     * 批量投递多条消息（每条可为单收件人或多收件人）
+     * 供发件箱投递器一次调用发送多条通知，返回结果与请求下标一一对应
+     */
+    @PostMapping("/send/bulk")
+    public R<List<Boolean>> sendBulkMessages(@RequestBody List<SendMessageRequestPOJO> requests) {
+        if (requests == null || requests.isEmpty()) {
+            return R.ok(List.of());
+        }
+
+        List<Boolean> results = new ArrayList<>(requests.size());
+        int successCount = 0;
+        for (SendMessageRequestPOJO request : requests) {
+            boolean success = dispatchSingle(request);
+            if (success) {
+                successCount++;
+            }
+            results.add(success);
+        }
+
+        log.info("内部接口批量投递消息完成: 总数={}, 成功={}, 失败={}",
+                requests.size(), successCount, requests.size() - successCount);
+        return R.ok(results);
+    }
+
+    /**
+     * 投递单条消息，有 receiverIds 时按群发处理，否则按单收件人处理
+     *
+     * @return 是否发送成功
+     */
+    private boolean dispatchSingle(SendMessageRequestPOJO request) {
+        if (request == null || request.getScene() == null || request.getTitle() == null || request.getContent() == null) {
+            return false;
+        }
+
+        MessageScene scene;
+        try {
+            scene = MessageScene.valueOf(request.getScene());
+        } catch (IllegalArgumentException e) {
+            log.warn("无效的消息场景: {}", request.getScene());
+            return false;
+        }
+
+        try {
+            if (request.getReceiverIds() != null && !request.getReceiverIds().isEmpty()) {
+                inboxMessageService.sendBatchPersonalMessage(
+                        scene,
+                        request.getSenderId(),
+                        request.getReceiverIds(),
+                        request.getTitle(),
+                        request.getContent(),
+                        request.getBusinessId(),
+                        request.getBusinessType(),
+                        request.getExtendData()
+                );
+            } else if (request.getReceiverId() != null) {
+                inboxMessageService.sendPersonalMessage(
+                        scene,
+                        request.getSenderId(),
+                        request.getReceiverId(),
+                        request.getTitle(),
+                        request.getContent(),
+                        request.getBusinessId(),
+                        request.getBusinessType(),
+                        request.getExtendData()
+                );
+            } else {
+                return false;
+            }
+            return true;
+        } catch (Exception e) {
+            log.error("批量投递中单条消息发送失败: scene={}, businessId={}",
+                    request.getScene(), request.getBusinessId(), e);
+            return false;
+        }
+    }
 }
@@ -29,6 +29,7 @@ public enum MessageScene {
     ACHIEVEMENT_REVIEW_REQUEST("ACHIEVEMENT", "成果评审请求"),
     ACHIEVEMENT_STATUS_CHANGED("ACHIEVEMENT", "成果状态变更"),
     ACHIEVEMENT_PUBLISHED("ACHIEVEMENT", "成果发布通知"),
+    WIKI_EXPORT_READY("WIKI", "Wiki导出结果"),
     SYSTEM_SECURITY_ALERT("SYSTEM", "账号安全提醒"),
     SYSTEM_BROADCAST("SYSTEM", "平台广播");
 
@@ -7,6 +7,8 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.List;
+
 /**
  * 消息服务Feign客户端
  * 用于项目模块调用消息模块的接口
@@ -34,4 +36,11 @@ public interface MessageServiceClient {
      */
     @PostMapping("/send/broadcast")
     R<Void> sendBroadcastMessage(@RequestBody SendMessageRequestPOJO request);
+
+    /**
+     * 批量投递多条消息(发件箱投递器使用)
+     * 返回结果与请求下标一一对应
+     */
+    @PostMapping("/send/bulk")
+    R<List<Boolean>> sendBulkMessages(@RequestBody List<SendMessageRequestPOJO> requests);
 }
@@ -8,6 +8,7 @@ import hbnu.project.zhiyanactivelog.model.enums.BizOperationModule;
 import hbnu.project.zhiyancommonbasic.domain.R;
 import hbnu.project.zhiyancommonsecurity.utils.SecurityUtils;
 import hbnu.project.zhiyanproject.client.AuthServiceClient;
+import hbnu.project.zhiyanproject.model.dto.MemberAccessDTO;
 import hbnu.project.zhiyanproject.model.dto.PageResult;
 import hbnu.project.zhiyanproject.model.dto.ProjectMemberDTO;
 import hbnu.project.zhiyanproject.model.dto.UserDTO;
@@ -412,4 +413,23 @@ public class ProjectMemberController {
             return R.fail("获取成员ID列表失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 批量查询成员关系、角色和权限（用于其他微服务调用）
+     * knowledge、wiki 等模块一次请求即可完成多个 (projectId, userId) 的权限判断
+     * 路径: POST /zhiyan/projects/members/batch-check
+     */
+    @PostMapping("/members/batch-check")
+    @Operation(summary = "批量检查成员关系", description = "批量查询多个项目与用户组合的成员身份、角色和权限")
+    public R<List<MemberAccessDTO>> batchCheckMembers(@RequestBody List<MemberAccessDTO> queries) {
+        if (queries != null && queries.size() > 500) {
+            return R.fail("单次最多查询500个组合");
+        }
+        try {
+            return R.ok(projectMemberService.batchGetMemberAccess(queries));
+        } catch (Exception e) {
+            log.error("批量检查成员关系失败: size={}", queries != null ? queries.size() : 0, e);
+            return R.fail("批量检查成员关系失败: " + e.getMessage());
+        }
+    }
 }
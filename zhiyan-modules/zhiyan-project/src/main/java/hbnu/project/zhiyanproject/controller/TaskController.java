@@ -11,12 +11,18 @@ import hbnu.project.zhiyancommonidempotent.annotation.Idempotent;
 import hbnu.project.zhiyancommonidempotent.enums.IdempotentType;
 import hbnu.project.zhiyancommonsecurity.utils.SecurityUtils;
 import hbnu.project.zhiyanproject.handler.ProjectSentinelHandler;
+import hbnu.project.zhiyanproject.model.dto.BatchTaskResultDTO;
+import hbnu.project.zhiyanproject.model.dto.CursorPageResult;
 import hbnu.project.zhiyanproject.model.dto.TaskBoardDTO;
 import hbnu.project.zhiyanproject.model.dto.TaskDetailDTO;
 import hbnu.project.zhiyanproject.model.dto.UserTaskStatisticsDTO;
 import hbnu.project.zhiyanproject.model.entity.Tasks;
 import hbnu.project.zhiyanproject.model.enums.TaskPriority;
 import hbnu.project.zhiyanproject.model.enums.TaskStatus;
+import hbnu.project.zhiyanproject.model.form.BatchAssignTaskRequest;
+import hbnu.project.zhiyanproject.model.form.BatchCreateTaskRequest;
+import hbnu.project.zhiyanproject.model.form.BatchDeleteTaskRequest;
+import hbnu.project.zhiyanproject.model.form.BatchUpdateTaskStatusRequest;
 import hbnu.project.zhiyanproject.model.form.CreateTaskRequest;
 import hbnu.project.zhiyanproject.model.form.UpdateTaskRequest;
 import hbnu.project.zhiyanproject.service.TaskService;
@@ -255,6 +261,92 @@ public class TaskController {
         }
     }
 
+    // ==================== 批量操作接口 ====================
+
+    /**
+     * 批量创建任务
+     * 业务场景：导入工具、项目模板一次性创建多个任务
+     */
+    @PostMapping("/batch")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "批量创建任务", description = "在同一项目中一次创建多个任务，全部成功或全部回滚")
+    @OperationLog(module = "任务管理", type = OperationType.INSERT, description = "批量创建任务", recordParams = false, recordResult = true)
+    public R<BatchTaskResultDTO> batchCreateTasks(@Valid @RequestBody BatchCreateTaskRequest request) {
+        Long currentUserId = SecurityUtils.getUserId();
+        log.info("用户[{}]批量创建任务: count={}", currentUserId, request.getTasks().size());
+
+        try {
+            BatchTaskResultDTO result = taskService.batchCreateTasks(request.getTasks(), currentUserId);
+            return R.ok(result, "批量创建成功");
+        } catch (IllegalArgumentException e) {
+            log.warn("批量创建任务失败: {}", e.getMessage());
+            return R.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * 批量分配任务
+     * 业务场景：一次为多个任务设置执行者
+     */
+    @PutMapping("/batch/assign")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "批量分配任务", description = "为多个任务设置执行者，执行者列表为目标全集")
+    @OperationLog(module = "任务管理", type = OperationType.GRANT, description = "批量分配任务", recordParams = true, recordResult = true)
+    public R<BatchTaskResultDTO> batchAssignTasks(@Valid @RequestBody BatchAssignTaskRequest request) {
+        Long currentUserId = SecurityUtils.getUserId();
+        log.info("用户[{}]批量分配任务: count={}", currentUserId, request.getAssignments().size());
+
+        try {
+            BatchTaskResultDTO result = taskService.batchAssignTasks(request.getAssignments(), currentUserId);
+            return R.ok(result, "批量分配成功");
+        } catch (IllegalArgumentException e) {
+            log.warn("批量分配任务失败: {}", e.getMessage());
+            return R.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * 批量更新任务状态
+     * 业务场景：看板多选后一次移动到目标列
+     */
+    @PatchMapping("/batch/status")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "批量更新任务状态", description = "将多个任务移动到同一状态")
+    @OperationLog(module = "任务管理", type = OperationType.UPDATE, description = "批量更新任务状态", recordParams = true, recordResult = true)
+    public R<BatchTaskResultDTO> batchUpdateTaskStatus(@Valid @RequestBody BatchUpdateTaskStatusRequest request) {
+        Long currentUserId = SecurityUtils.getUserId();
+        log.info("用户[{}]批量更新任务状态为{}: count={}", currentUserId, request.getStatus(), request.getTaskIds().size());
+
+        try {
+            BatchTaskResultDTO result = taskService.batchUpdateTaskStatus(request.getTaskIds(), request.getStatus(), currentUserId);
+            return R.ok(result, "状态已批量更新");
+        } catch (IllegalArgumentException e) {
+            log.warn("批量更新任务状态失败: {}", e.getMessage());
+            return R.fail(e.getMessage());
+        }
+    }
+
+    /**
+     * 批量删除任务（软删除）
+     * 业务场景：清理模板导入的多余任务
+     */
+    @PostMapping("/batch/delete")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "批量删除任务", description = "软删除多个任务，仅任务创建者或项目负责人可操作")
+    @OperationLog(module = "任务管理", type = OperationType.DELETE, description = "批量删除任务", recordParams = true, recordResult = false)
+    public R<BatchTaskResultDTO> batchDeleteTasks(@Valid @RequestBody BatchDeleteTaskRequest request) {
+        Long currentUserId = SecurityUtils.getUserId();
+        log.info("用户[{}]批量删除任务: count={}", currentUserId, request.getTaskIds().size());
+
+        try {
+            BatchTaskResultDTO result = taskService.batchDeleteTasks(request.getTaskIds(), currentUserId);
+            return R.ok(result, "任务已批量删除");
+        } catch (IllegalArgumentException e) {
+            log.warn("批量删除任务失败: {}", e.getMessage());
+            return R.fail(e.getMessage());
+        }
+    }
+
     // ==================== 任务查询接口 ====================
 
     /**
@@ -537,6 +629,191 @@ public class TaskController {
         }
     }
 
+    // ==================== 游标分页查询接口 ====================
+
+    /**
+     * 游标分页获取项目任务
+     */
+    @GetMapping("/projects/{projectId}/cursor")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "游标分页获取项目任务", description = "按创建时间倒序游标分页获取项目任务，适合无限滚动")
+    public R<CursorPageResult<TaskDetailDTO>> getProjectTasksByCursor(
+            @PathVariable @Parameter(description = "项目ID") Long projectId,
+            @RequestParam(required = false) @Parameter(description = "上一页返回的游标，第一页不传") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "每页大小（最大100）") int size) {
+
+        try {
+            CursorPageResult<TaskDetailDTO> tasks = taskService.getProjectTasksByCursor(projectId, cursor, size);
+            return R.ok(tasks);
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("游标分页获取项目任务失败", e);
+            return R.fail("获取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 游标分页按状态获取任务
+     */
+    @GetMapping("/projects/{projectId}/status/{status}/cursor")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "游标分页按状态获取任务", description = "按任务状态筛选，按创建时间倒序游标分页")
+    public R<CursorPageResult<TaskDetailDTO>> getTasksByStatusByCursor(
+            @PathVariable @Parameter(description = "项目ID") Long projectId,
+            @PathVariable @Parameter(description = "任务状态") TaskStatus status,
+            @RequestParam(required = false) @Parameter(description = "上一页返回的游标，第一页不传") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "每页大小（最大100）") int size) {
+
+        try {
+            CursorPageResult<TaskDetailDTO> tasks = taskService.getTasksByStatusByCursor(projectId, status, cursor, size);
+            return R.ok(tasks);
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("游标分页按状态获取任务失败", e);
+            return R.fail("获取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 游标分页获取我的任务
+     */
+    @GetMapping("/my-assigned/cursor")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "游标分页获取我的任务", description = "按分配时间倒序游标分页获取分配给当前用户的任务")
+    public R<CursorPageResult<TaskDetailDTO>> getMyAssignedTasksByCursor(
+            @RequestParam(required = false) @Parameter(description = "上一页返回的游标，第一页不传") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "每页大小（最大100）") int size) {
+
+        Long currentUserId = SecurityUtils.getUserId();
+
+        try {
+            CursorPageResult<TaskDetailDTO> tasks = taskService.getMyAssignedTasksByCursor(currentUserId, cursor, size);
+            return R.ok(tasks);
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("游标分页获取我的任务失败", e);
+            return R.fail("获取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 游标分页获取我创建的任务
+     */
+    @GetMapping("/my-created/cursor")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "游标分页获取我创建的任务", description = "按创建时间倒序游标分页获取当前用户创建的任务")
+    public R<CursorPageResult<TaskDetailDTO>> getMyCreatedTasksByCursor(
+            @RequestParam(required = false) @Parameter(description = "上一页返回的游标，第一页不传") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "每页大小（最大100）") int size) {
+
+        Long currentUserId = SecurityUtils.getUserId();
+
+        try {
+            CursorPageResult<TaskDetailDTO> tasks = taskService.getMyCreatedTasksByCursor(currentUserId, cursor, size);
+            return R.ok(tasks);
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("游标分页获取我创建的任务失败", e);
+            return R.fail("获取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 游标分页获取即将到期的任务
+     */
+    @GetMapping("/projects/{projectId}/upcoming/cursor")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "游标分页获取即将到期的任务", description = "按截止日期正序游标分页获取指定天数内即将到期的任务")
+    public R<CursorPageResult<TaskDetailDTO>> getUpcomingTasksByCursor(
+            @PathVariable @Parameter(description = "项目ID") Long projectId,
+            @RequestParam(defaultValue = "7") @Parameter(description = "未来天数") int days,
+            @RequestParam(required = false) @Parameter(description = "上一页返回的游标，第一页不传") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "每页大小（最大100）") int size) {
+
+        try {
+            CursorPageResult<TaskDetailDTO> tasks = taskService.getUpcomingTasksByCursor(projectId, days, cursor, size);
+            return R.ok(tasks);
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("游标分页获取即将到期的任务失败", e);
+            return R.fail("获取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 游标分页获取已逾期的任务
+     */
+    @GetMapping("/projects/{projectId}/overdue/cursor")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "游标分页获取已逾期的任务", description = "按截止日期倒序游标分页获取项目中已逾期且未完成的任务")
+    public R<CursorPageResult<TaskDetailDTO>> getOverdueTasksByCursor(
+            @PathVariable @Parameter(description = "项目ID") Long projectId,
+            @RequestParam(required = false) @Parameter(description = "上一页返回的游标，第一页不传") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "每页大小（最大100）") int size) {
+
+        try {
+            CursorPageResult<TaskDetailDTO> tasks = taskService.getOverdueTasksByCursor(projectId, cursor, size);
+            return R.ok(tasks);
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("游标分页获取逾期任务失败", e);
+            return R.fail("获取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 游标分页获取我的即将到期任务
+     */
+    @GetMapping("/my-upcoming/cursor")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "游标分页获取我的即将到期任务", description = "按截止日期正序游标分页获取当前用户在所有参与项目中即将到期的任务")
+    public R<CursorPageResult<TaskDetailDTO>> getMyUpcomingTasksByCursor(
+            @RequestParam(defaultValue = "7") @Parameter(description = "未来天数") int days,
+            @RequestParam(required = false) @Parameter(description = "上一页返回的游标，第一页不传") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "每页大小（最大100）") int size) {
+
+        Long currentUserId = SecurityUtils.getUserId();
+
+        try {
+            CursorPageResult<TaskDetailDTO> tasks = taskService.getMyUpcomingTasksByCursor(currentUserId, days, cursor, size);
+            return R.ok(tasks);
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("游标分页获取我的即将到期任务失败", e);
+            return R.fail("获取失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 游标分页获取我的已逾期任务
+     */
+    @GetMapping("/my-overdue/cursor")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "游标分页获取我的已逾期任务", description = "按截止日期倒序游标分页获取当前用户在所有参与项目中已逾期的任务")
+    public R<CursorPageResult<TaskDetailDTO>> getMyOverdueTasksByCursor(
+            @RequestParam(required = false) @Parameter(description = "上一页返回的游标，第一页不传") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "每页大小（最大100）") int size) {
+
+        Long currentUserId = SecurityUtils.getUserId();
+
+        try {
+            CursorPageResult<TaskDetailDTO> tasks = taskService.getMyOverdueTasksByCursor(currentUserId, cursor, size);
+            return R.ok(tasks);
+        } catch (IllegalArgumentException e) {
+            return R.fail(e.getMessage());
+        } catch (Exception e) {
+            log.error("游标分页获取我的已逾期任务失败", e);
+            return R.fail("获取失败: " + e.getMessage());
+        }
+    }
+
     // ==================== 新增：基于task_user表的查询接口 ====================
 
     /**
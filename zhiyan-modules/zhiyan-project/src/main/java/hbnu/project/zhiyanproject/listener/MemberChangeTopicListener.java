@@ -0,0 +1,41 @@
+package hbnu.project.zhiyanproject.listener;
+
+import hbnu.project.zhiyancommonbasic.constants.CacheConstants;
+import hbnu.project.zhiyancommonredis.utils.RedisUtils;
+import hbnu.project.zhiyanproject.service.MemberRoleCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * 项目成员变更频道监听器
+ * 其他节点修改成员关系后，失效本节点的成员角色缓存
+ *
+ * @author Tokito
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MemberChangeTopicListener implements ApplicationRunner {
+
+    private final MemberRoleCacheService memberRoleCacheService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        RedisUtils.subscribe(CacheConstants.PROJECT_MEMBER_CHANGE_TOPIC, String.class, message -> {
+            String[] parts = message.split(":");
+            if (parts.length != 2) {
+                log.warn("忽略格式错误的成员变更消息: {}", message);
+                return;
+            }
+            try {
+                memberRoleCacheService.evictLocal(Long.valueOf(parts[0]), Long.valueOf(parts[1]));
+            } catch (NumberFormatException e) {
+                log.warn("忽略格式错误的成员变更消息: {}", message);
+            }
+        });
+        log.info("初始化项目成员变更频道监听器成功");
+    }
+}
@@ -0,0 +1,47 @@
+package hbnu.project.zhiyanproject.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量任务操作结果DTO
+ * 批量操作在同一事务内执行，要么全部成功要么全部回滚
+ *
+ * @author Tokito
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批量任务操作结果")
+public class BatchTaskResultDTO {
+
+    /**
+     * 请求中的任务数量
+     */
+    @Schema(description = "请求任务数", example = "50")
+    private Integer total;
+
+    /**
+     * 实际发生变化的任务数量（状态已是目标值、执行者未变化的任务不计入）
+     */
+    @Schema(description = "实际变更任务数", example = "48")
+    private Integer affected;
+
+    /**
+     * 实际发生变化的任务ID
+     */
+    @Schema(description = "实际变更的任务ID列表")
+    private List<String> taskIds;
+
+    /**
+     * 收到通知的用户数量
+     */
+    @Schema(description = "收到通知的用户数", example = "6")
+    private Integer notifiedUsers;
+}
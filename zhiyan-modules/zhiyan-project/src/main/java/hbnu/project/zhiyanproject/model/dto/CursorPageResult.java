@@ -0,0 +1,44 @@
+package hbnu.project.zhiyanproject.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页结果DTO
+ * 按 (排序键, id) 定位下一页，深翻页耗时与页码无关；不返回总数
+ *
+ * @param <T> 数据元素类型
+ * @author Tokito
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CursorPageResult<T> {
+
+    /**
+     * 当前页的数据列表
+     */
+    private List<T> content;
+
+    /**
+     * 每页大小
+     */
+    private int size;
+
+    /**
+     * 下一页游标（不透明字符串），没有下一页时为 null
+     */
+    private String nextCursor;
+
+    /**
+     * 是否有下一页
+     */
+    private boolean hasNext;
+}
@@ -0,0 +1,38 @@
+package hbnu.project.zhiyanproject.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Set;
+
+/**
+ * 成员访问信息 DTO
+ * 批量成员校验接口的请求项与返回项，请求时只需填写 projectId 和 userId
+ *
+ * @author Tokito
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "成员访问信息")
+public class MemberAccessDTO {
+
+    @Schema(description = "项目ID")
+    private Long projectId;
+
+    @Schema(description = "用户ID")
+    private Long userId;
+
+    @Schema(description = "是否为项目成员")
+    private Boolean member;
+
+    @Schema(description = "角色代码，非成员为空", example = "OWNER")
+    private String roleCode;
+
+    @Schema(description = "权限名称集合（ProjectPermission 枚举名），非成员为空集合")
+    private Set<String> permissions;
+}
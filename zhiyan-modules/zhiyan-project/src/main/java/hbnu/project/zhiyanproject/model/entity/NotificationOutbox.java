@@ -0,0 +1,104 @@
+package hbnu.project.zhiyanproject.model.entity;
+
+import hbnu.project.zhiyancommonbasic.annotation.LongToString;
+import hbnu.project.zhiyancommonbasic.utils.id.SnowflakeIdUtil;
+import hbnu.project.zhiyanproject.model.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * 通知发件箱实体类
+ * 与业务数据在同一事务中写入，由投递器在事务提交后异步发送到消息服务
+ *
+ * @author ErgouTree
+ */
+@Entity
+@Table(name = "notification_outbox",
+        indexes = {
+                @Index(name = "idx_status_next_attempt", columnList = "status, next_attempt_at")
+        })
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationOutbox {
+
+    /**
+     * 雪花id
+     */
+    @Id
+    @LongToString
+    @Column(name = "id", nullable = false, columnDefinition = "BIGINT COMMENT '发件箱记录ID（雪花ID）'")
+    private Long id;
+
+    /**
+     * 消息场景（冗余字段，便于排查）
+     */
+    @Column(name = "scene", nullable = false, length = 64)
+    private String scene;
+
+    /**
+     * 消息请求体（SendMessageRequestPOJO 的 JSON）
+     */
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT COMMENT '消息请求体JSON'")
+    private String payload;
+
+    /**
+     * 投递状态
+     */
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private OutboxStatus status = OutboxStatus.PENDING;
+
+    /**
+     * 已尝试投递次数
+     */
+    @Builder.Default
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts = 0;
+
+    /**
+     * 下次可投递时间（PENDING 为退避时间，SENDING 为租约到期时间）
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    /**
+     * 最近一次失败原因
+     */
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    /**
+     * 记录创建时间
+     */
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    /**
+     * 投递成功时间
+     */
+    @Column(name = "sent_at")
+    private Instant sentAt;
+
+    /**
+     * 在持久化之前生成雪花ID并设置时间戳
+     */
+    @PrePersist
+    protected void onCreate() {
+        if (this.id == null) {
+            this.id = SnowflakeIdUtil.nextId();
+        }
+        Instant now = Instant.now();
+        if (this.createdAt == null) {
+            this.createdAt = now;
+        }
+        if (this.nextAttemptAt == null) {
+            this.nextAttemptAt = now;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package hbnu.project.zhiyanproject.model.enums;
+
+import lombok.Getter;
+
+/**
+ * 通知发件箱状态枚举
+ *
+ * @author ErgouTree
+ */
+@Getter
+public enum OutboxStatus {
+
+    /**
+     * 待投递（包括等待重试）
+     */
+    PENDING("待投递", "已随业务事务提交，等待投递到消息服务"),
+
+    /**
+     * 投递中（已被某个节点领取，租约过期后可被重新领取）
+     */
+    SENDING("投递中", "已被投递器领取，正在调用消息服务"),
+
+    /**
+     * 已投递
+     */
+    SENT("已投递", "消息服务已确认接收"),
+
+    /**
+     * 投递失败（超过最大重试次数）
+     */
+    FAILED("投递失败", "超过最大重试次数，需人工排查");
+
+    private final String name;
+    private final String description;
+
+    OutboxStatus(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+}
@@ -0,0 +1,51 @@
+package hbnu.project.zhiyanproject.model.form;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量分配任务请求体
+ * 每个任务的执行者列表为目标全集，与现有执行者做差集后增删
+ *
+ * @author Tokito
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批量分配任务请求")
+public class BatchAssignTaskRequest {
+
+    @Valid
+    @NotEmpty(message = "分配列表不能为空")
+    @Size(max = 200, message = "单次最多分配200个任务")
+    @Schema(description = "任务分配列表", required = true)
+    private List<Assignment> assignments;
+
+    /**
+     * 单个任务的分配
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "单个任务的分配")
+    public static class Assignment {
+
+        @NotNull(message = "任务ID不能为空")
+        @Schema(description = "任务ID", required = true)
+        private Long taskId;
+
+        @Schema(description = "执行者ID列表（目标全集，空列表表示清空执行者）")
+        private List<Long> assigneeIds;
+    }
+}
@@ -0,0 +1,32 @@
+package hbnu.project.zhiyanproject.model.form;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量创建任务请求体
+ * 用于导入工具、项目模板一次性创建多个任务
+ *
+ * @author Tokito
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批量创建任务请求")
+public class BatchCreateTaskRequest {
+
+    @Valid
+    @NotEmpty(message = "任务列表不能为空")
+    @Size(max = 200, message = "单次最多创建200个任务")
+    @Schema(description = "待创建的任务列表（须属于同一项目）", required = true)
+    private List<CreateTaskRequest> tasks;
+}
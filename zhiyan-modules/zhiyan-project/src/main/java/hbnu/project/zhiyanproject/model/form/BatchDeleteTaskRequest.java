@@ -0,0 +1,29 @@
+package hbnu.project.zhiyanproject.model.form;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量删除任务请求体
+ *
+ * @author Tokito
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批量删除任务请求")
+public class BatchDeleteTaskRequest {
+
+    @NotEmpty(message = "任务ID列表不能为空")
+    @Size(max = 500, message = "单次最多删除500个任务")
+    @Schema(description = "任务ID列表", required = true)
+    private List<Long> taskIds;
+}
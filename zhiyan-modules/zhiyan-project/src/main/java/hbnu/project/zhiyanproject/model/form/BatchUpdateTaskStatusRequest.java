@@ -0,0 +1,35 @@
+package hbnu.project.zhiyanproject.model.form;
+
+import hbnu.project.zhiyanproject.model.enums.TaskStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量更新任务状态请求体
+ *
+ * @author Tokito
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "批量更新任务状态请求")
+public class BatchUpdateTaskStatusRequest {
+
+    @NotEmpty(message = "任务ID列表不能为空")
+    @Size(max = 500, message = "单次最多更新500个任务")
+    @Schema(description = "任务ID列表", required = true)
+    private List<Long> taskIds;
+
+    @NotNull(message = "状态不能为空")
+    @Schema(description = "目标状态", required = true)
+    private TaskStatus status;
+}
@@ -0,0 +1,71 @@
+package hbnu.project.zhiyanproject.repository;
+
+import hbnu.project.zhiyanproject.model.entity.NotificationOutbox;
+import hbnu.project.zhiyanproject.model.enums.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 通知发件箱Repository
+ *
+ * @author ErgouTree
+ */
+@Repository
+public interface NotificationOutboxRepository extends JpaRepository<NotificationOutbox, Long> {
+
+    /**
+     * 查询到期可投递的记录并加行锁
+     * 包含退避到期的 PENDING 以及租约过期的 SENDING（投递节点宕机后可被重新领取）
+     * lock.timeout=-2 对应 SKIP LOCKED，多节点并发领取时互不阻塞
+     *
+     * @param statuses 可领取的状态
+     * @param now      当前时间
+     * @param pageable 单次领取数量
+     * @return 到期记录
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT o FROM NotificationOutbox o WHERE o.status IN :statuses " +
+           "AND o.nextAttemptAt <= :now ORDER BY o.nextAttemptAt ASC")
+    List<NotificationOutbox> findDueForUpdate(@Param("statuses") Collection<OutboxStatus> statuses,
+                                              @Param("now") Instant now,
+                                              Pageable pageable);
+
+    /**
+     * 批量标记为已投递
+     *
+     * @param ids    记录ID
+     * @param status 已投递状态
+     * @param sentAt 投递时间
+     * @return 更新行数
+     */
+    @Modifying
+    @Query("UPDATE NotificationOutbox o SET o.status = :status, o.sentAt = :sentAt, o.lastError = null " +
+           "WHERE o.id IN :ids")
+    int markSent(@Param("ids") Collection<Long> ids,
+                 @Param("status") OutboxStatus status,
+                 @Param("sentAt") Instant sentAt);
+
+    /**
+     * 清理指定时间之前已投递的记录
+     *
+     * @param status 已投递状态
+     * @param before 截止时间
+     * @return 删除行数
+     */
+    @Modifying
+    @Query("DELETE FROM NotificationOutbox o WHERE o.status = :status AND o.sentAt < :before")
+    int deleteSentBefore(@Param("status") OutboxStatus status, @Param("before") Instant before);
+}
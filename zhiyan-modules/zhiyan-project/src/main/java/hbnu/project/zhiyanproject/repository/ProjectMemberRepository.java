@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -183,4 +184,14 @@ public interface ProjectMemberRepository extends JpaRepository<ProjectMember, Lo
      */
     @Query("SELECT pm FROM ProjectMember pm WHERE pm.projectId IN :projectIds")
     List<ProjectMember> findByProjectIdIn(@Param("projectIds") List<Long> projectIds);
+
+    /**
+     * 批量查询多个项目、多个用户的成员关系
+     * 结果是两组ID的笛卡尔积中实际存在的记录，调用方需按需要的组合过滤
+     *
+     * @param projectIds 项目ID集合
+     * @param userIds    用户ID集合
+     * @return 项目成员列表
+     */
+    List<ProjectMember> findByProjectIdInAndUserIdIn(Collection<Long> projectIds, Collection<Long> userIds);
 }
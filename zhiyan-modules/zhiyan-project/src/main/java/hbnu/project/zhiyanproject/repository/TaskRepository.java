@@ -13,6 +13,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -263,4 +264,146 @@ public interface TaskRepository extends JpaRepository<Tasks, Long> {
      */
     @Query("SELECT t FROM Tasks t WHERE t.isDeleted = false AND t.dueDate < :currentDate AND t.status != 'DONE'")
     List<Tasks> findOverdueTasks(@Param("currentDate") LocalDate currentDate);
+
+    // ==================== 游标分页（seek）查询 ====================
+    // 按 (排序键, id) 定位，配合 V2.3 的组合索引走范围扫描，深翻页不再随页码线性变慢
+    // 第一页传入哨兵值（见 TaskCursorUtils），pageable 只用来限制条数
+
+    /**
+     * 游标分页查询项目任务（按创建时间倒序）
+     *
+     * @param projectId 项目ID
+     * @param cursorAt 上一页最后一条的创建时间
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 条数限制
+     * @return 任务列表
+     */
+    @Query("SELECT t FROM Tasks t WHERE t.projectId = :projectId AND t.isDeleted = false " +
+           "AND (t.createdAt < :cursorAt OR (t.createdAt = :cursorAt AND t.id < :cursorId)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Tasks> findProjectTasksBefore(@Param("projectId") Long projectId,
+                                       @Param("cursorAt") LocalDateTime cursorAt,
+                                       @Param("cursorId") Long cursorId,
+                                       Pageable limit);
+
+    /**
+     * 游标分页按状态查询项目任务（按创建时间倒序）
+     *
+     * @param projectId 项目ID
+     * @param status 任务状态
+     * @param cursorAt 上一页最后一条的创建时间
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 条数限制
+     * @return 任务列表
+     */
+    @Query("SELECT t FROM Tasks t WHERE t.projectId = :projectId AND t.status = :status AND t.isDeleted = false " +
+           "AND (t.createdAt < :cursorAt OR (t.createdAt = :cursorAt AND t.id < :cursorId)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Tasks> findProjectTasksByStatusBefore(@Param("projectId") Long projectId,
+                                               @Param("status") TaskStatus status,
+                                               @Param("cursorAt") LocalDateTime cursorAt,
+                                               @Param("cursorId") Long cursorId,
+                                               Pageable limit);
+
+    /**
+     * 游标分页查询用户创建的任务，排除已删除的项目（按创建时间倒序）
+     *
+     * @param createdBy 创建者ID
+     * @param cursorAt 上一页最后一条的创建时间
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 条数限制
+     * @return 任务列表
+     */
+    @Query("SELECT t FROM Tasks t WHERE t.createdBy = :createdBy AND t.isDeleted = false " +
+           "AND t.projectId IN (SELECT p.id FROM Project p WHERE p.isDeleted = false) " +
+           "AND (t.createdAt < :cursorAt OR (t.createdAt = :cursorAt AND t.id < :cursorId)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Tasks> findMyCreatedTasksBefore(@Param("createdBy") Long createdBy,
+                                         @Param("cursorAt") LocalDateTime cursorAt,
+                                         @Param("cursorId") Long cursorId,
+                                         Pageable limit);
+
+    /**
+     * 游标分页查询项目即将到期的任务（按截止日期正序）
+     *
+     * @param projectId 项目ID
+     * @param dueDate 截止日期上限
+     * @param cursorDate 上一页最后一条的截止日期
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 条数限制
+     * @return 任务列表
+     */
+    @Query("SELECT t FROM Tasks t WHERE t.projectId = :projectId AND t.isDeleted = false " +
+           "AND t.dueDate <= :dueDate AND t.status != 'DONE' " +
+           "AND (t.dueDate > :cursorDate OR (t.dueDate = :cursorDate AND t.id > :cursorId)) " +
+           "ORDER BY t.dueDate ASC, t.id ASC")
+    List<Tasks> findUpcomingTasksAfter(@Param("projectId") Long projectId,
+                                       @Param("dueDate") LocalDate dueDate,
+                                       @Param("cursorDate") LocalDate cursorDate,
+                                       @Param("cursorId") Long cursorId,
+                                       Pageable limit);
+
+    /**
+     * 游标分页查询项目已逾期的任务（按截止日期倒序）
+     *
+     * @param projectId 项目ID
+     * @param currentDate 当前日期
+     * @param cursorDate 上一页最后一条的截止日期
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 条数限制
+     * @return 任务列表
+     */
+    @Query("SELECT t FROM Tasks t WHERE t.projectId = :projectId AND t.isDeleted = false " +
+           "AND t.dueDate < :currentDate AND t.status != 'DONE' " +
+           "AND (t.dueDate < :cursorDate OR (t.dueDate = :cursorDate AND t.id < :cursorId)) " +
+           "ORDER BY t.dueDate DESC, t.id DESC")
+    List<Tasks> findOverdueTasksBefore(@Param("projectId") Long projectId,
+                                       @Param("currentDate") LocalDate currentDate,
+                                       @Param("cursorDate") LocalDate cursorDate,
+                                       @Param("cursorId") Long cursorId,
+                                       Pageable limit);
+
+    /**
+     * 游标分页查询用户在所有项目中即将到期的任务（基于task_user表，按截止日期正序）
+     *
+     * @param userId 用户ID
+     * @param today 今天
+     * @param dueDate 截止日期上限
+     * @param cursorDate 上一页最后一条的截止日期
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 条数限制
+     * @return 任务列表
+     */
+    @Query("SELECT t FROM Tasks t WHERE t.isDeleted = false " +
+           "AND t.dueDate >= :today AND t.dueDate <= :dueDate AND t.status != 'DONE' " +
+           "AND EXISTS (SELECT 1 FROM TaskUser tu WHERE tu.taskId = t.id AND tu.userId = :userId AND tu.isActive = true) " +
+           "AND (t.dueDate > :cursorDate OR (t.dueDate = :cursorDate AND t.id > :cursorId)) " +
+           "ORDER BY t.dueDate ASC, t.id ASC")
+    List<Tasks> findMyUpcomingTasksAfter(@Param("userId") Long userId,
+                                         @Param("today") LocalDate today,
+                                         @Param("dueDate") LocalDate dueDate,
+                                         @Param("cursorDate") LocalDate cursorDate,
+                                         @Param("cursorId") Long cursorId,
+                                         Pageable limit);
+
+    /**
+     * 游标分页查询用户在所有项目中已逾期的任务（基于task_user表，按截止日期倒序）
+     *
+     * @param userId 用户ID
+     * @param currentDate 当前日期
+     * @param cursorDate 上一页最后一条的截止日期
+     * @param cursorId 上一页最后一条的ID
+     * @param limit 条数限制
+     * @return 任务列表
+     */
+    @Query("SELECT t FROM Tasks t WHERE t.isDeleted = false " +
+           "AND t.dueDate < :currentDate AND t.status != 'DONE' " +
+           "AND EXISTS (SELECT 1 FROM TaskUser tu WHERE tu.taskId = t.id AND tu.userId = :userId AND tu.isActive = true) " +
+           "AND (t.dueDate < :cursorDate OR (t.dueDate = :cursorDate AND t.id < :cursorId)) " +
+           "ORDER BY t.dueDate DESC, t.id DESC")
+    List<Tasks> findMyOverdueTasksBefore(@Param("userId") Long userId,
+                                         @Param("currentDate") LocalDate currentDate,
+                                         @Param("cursorDate") LocalDate cursorDate,
+                                         @Param("cursorId") Long cursorId,
+                                         Pageable limit);
 }
@@ -0,0 +1,110 @@
+package hbnu.project.zhiyanproject.repository;
+
+import hbnu.project.zhiyanproject.model.entity.TaskUser;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 任务用户关联批量写入Repository
+ * task_user 使用自增主键，Hibernate 对 IDENTITY 实体无法批量插入，这里直接走 JDBC batch；
+ * 连接串开启 rewriteBatchedStatements=true 时 MySQL 驱动会合并为多值 INSERT
+ *
+ * @author Tokito
+ */
+@Repository
+@RequiredArgsConstructor
+public class TaskUserBatchRepository {
+
+    /**
+     * 单批提交条数
+     */
+    private static final int BATCH_SIZE = 200;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO task_user (task_id, project_id, user_id, assign_type, assigned_by, assigned_at, " +
+            "is_active, role_type, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String REACTIVATE_SQL =
+            "UPDATE task_user SET is_active = 1, assign_type = ?, assigned_by = ?, assigned_at = ?, " +
+            "removed_at = NULL, removed_by = NULL, updated_at = ? WHERE id = ?";
+
+    private static final String DEACTIVATE_SQL =
+            "UPDATE task_user SET is_active = 0, removed_at = ?, removed_by = ?, updated_at = ? " +
+            "WHERE id = ? AND is_active = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 批量插入关联记录
+     *
+     * @param taskUsers 待插入记录（id 由数据库生成）
+     */
+    public void batchInsert(List<TaskUser> taskUsers) {
+        if (taskUsers == null || taskUsers.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, taskUsers, BATCH_SIZE, (ps, tu) -> {
+            ps.setLong(1, tu.getTaskId());
+            ps.setLong(2, tu.getProjectId());
+            ps.setLong(3, tu.getUserId());
+            ps.setString(4, tu.getAssignType().name());
+            ps.setLong(5, tu.getAssignedBy());
+            ps.setTimestamp(6, tu.getAssignedAt() != null ? Timestamp.from(tu.getAssignedAt()) : now);
+            ps.setBoolean(7, true);
+            if (tu.getRoleType() != null) {
+                ps.setString(8, tu.getRoleType().name());
+            } else {
+                ps.setNull(8, Types.VARCHAR);
+            }
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+        });
+    }
+
+    /**
+     * 批量重新激活已移除的关联记录
+     *
+     * @param taskUsers 待激活记录（使用其 assignType、assignedBy、assignedAt）
+     */
+    public void batchReactivate(List<TaskUser> taskUsers) {
+        if (taskUsers == null || taskUsers.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(REACTIVATE_SQL, taskUsers, BATCH_SIZE, (ps, tu) -> {
+            ps.setString(1, tu.getAssignType().name());
+            ps.setLong(2, tu.getAssignedBy());
+            ps.setTimestamp(3, tu.getAssignedAt() != null ? Timestamp.from(tu.getAssignedAt()) : now);
+            ps.setTimestamp(4, now);
+            ps.setLong(5, tu.getId());
+        });
+    }
+
+    /**
+     * 批量移除关联记录（软删除）
+     *
+     * @param ids       关联记录ID
+     * @param removedBy 操作人ID
+     * @param removedAt 移除时间
+     */
+    public void batchDeactivate(Collection<Long> ids, Long removedBy, Instant removedAt) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        Timestamp at = Timestamp.from(removedAt);
+        jdbcTemplate.batchUpdate(DEACTIVATE_SQL, ids, BATCH_SIZE, (ps, id) -> {
+            ps.setTimestamp(1, at);
+            ps.setLong(2, removedBy);
+            ps.setTimestamp(3, at);
+            ps.setLong(4, id);
+        });
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,6 +47,25 @@ public interface TaskUserRepository extends JpaRepository<TaskUser, Long> {
            "AND tu.isActive = true ORDER BY tu.assignedAt DESC")
     Page<TaskUser> findActiveTasksByUserId(@Param("userId") Long userId, Pageable pageable);
 
+    /**
+     * 游标分页查询用户的有效任务关联（按分配时间倒序，过滤已删除任务）
+     * 在关联表上直接 seek，已删除任务在查询中过滤，不会出现"半页"
+     *
+     * @param userId 用户ID
+     * @param cursorAt 上一页最后一条的分配时间
+     * @param cursorId 上一页最后一条的关联记录ID
+     * @param limit 条数限制
+     * @return 任务关联列表
+     */
+    @Query("SELECT tu FROM TaskUser tu WHERE tu.userId = :userId AND tu.isActive = true " +
+           "AND EXISTS (SELECT 1 FROM Tasks t WHERE t.id = tu.taskId AND t.isDeleted = false) " +
+           "AND (tu.assignedAt < :cursorAt OR (tu.assignedAt = :cursorAt AND tu.id < :cursorId)) " +
+           "ORDER BY tu.assignedAt DESC, tu.id DESC")
+    List<TaskUser> findActiveTasksByUserIdBefore(@Param("userId") Long userId,
+                                                 @Param("cursorAt") Instant cursorAt,
+                                                 @Param("cursorId") Long cursorId,
+                                                 Pageable limit);
+
     /**
      * 查询用户在项目中的任务（使用project_id加速查询）
      *
@@ -191,6 +211,14 @@ public interface TaskUserRepository extends JpaRepository<TaskUser, Long> {
            "ORDER BY tu.taskId, tu.assignedAt")
     List<TaskUser> findActiveExecutorsByTaskIds(@Param("taskIds") List<Long> taskIds);
 
+    /**
+     * 批量查询任务的全部关联记录（包括已移除的，用于批量分配时做差集与重新激活）
+     *
+     * @param taskIds 任务ID集合
+     * @return 任务用户关联列表
+     */
+    List<TaskUser> findByTaskIdIn(Collection<Long> taskIds);
+
     // ==================== 新增：支持分配类型查询 ====================
 
     /**
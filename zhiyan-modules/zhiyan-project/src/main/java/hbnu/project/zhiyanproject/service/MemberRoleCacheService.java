@@ -0,0 +1,40 @@
+package hbnu.project.zhiyanproject.service;
+
+import hbnu.project.zhiyanproject.model.enums.ProjectMemberRole;
+
+import java.util.Optional;
+
+/**
+ * 项目成员角色缓存服务
+ * 两级缓存：请求内备忘 + 进程内有界缓存，减少权限判断时的重复查库
+ *
+ * @author Tokito
+ */
+public interface MemberRoleCacheService {
+
+    /**
+     * 查询用户在项目中的角色（带缓存）
+     *
+     * @param projectId 项目ID
+     * @param userId    用户ID
+     * @return 角色，不是成员时为空
+     */
+    Optional<ProjectMemberRole> getRole(Long projectId, Long userId);
+
+    /**
+     * 成员关系发生变更
+     * 事务提交后失效本节点缓存，并广播给其他节点
+     *
+     * @param projectId 项目ID
+     * @param userId    用户ID
+     */
+    void onMemberChanged(Long projectId, Long userId);
+
+    /**
+     * 仅失效本节点的缓存（收到广播时调用）
+     *
+     * @param projectId 项目ID
+     * @param userId    用户ID
+     */
+    void evictLocal(Long projectId, Long userId);
+}
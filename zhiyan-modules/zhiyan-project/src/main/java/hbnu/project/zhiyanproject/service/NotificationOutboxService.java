@@ -0,0 +1,63 @@
+package hbnu.project.zhiyanproject.service;
+
+import hbnu.project.zhiyancommonbasic.exception.ServiceException;
+import hbnu.project.zhiyanmessage.model.pojo.SendMessageRequestPOJO;
+import hbnu.project.zhiyanproject.model.entity.NotificationOutbox;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 通知发件箱服务
+ * 业务事务中只写入发件箱，事务提交后由投递器异步批量发送，消息服务故障时自动退避重试
+ *
+ * @author ErgouTree
+ */
+public interface NotificationOutboxService {
+
+    /**
+     * 写入一条待投递通知
+     * 有外层事务时加入外层事务，与业务数据一起提交或回滚；
+     * 写入失败时外层事务已被标记为仅回滚，调用方不得吞掉 {@link EnqueueException}，否则业务提交时只会得到 UnexpectedRollbackException
+     *
+     * @param request 消息请求
+     * @throws EnqueueException 发件箱写入失败
+     */
+    void enqueue(SendMessageRequestPOJO request);
+
+    /**
+     * 领取一批到期的通知，并将其置为投递中（带租约）
+     *
+     * @param limit 最大领取数量
+     * @return 已领取的记录
+     */
+    List<NotificationOutbox> claimDue(int limit);
+
+    /**
+     * 回写投递结果
+     *
+     * @param succeededIds 投递成功的记录ID
+     * @param failedIds    投递失败的记录ID
+     * @param error        失败原因
+     */
+    void complete(Collection<Long> succeededIds, Collection<Long> failedIds, String error);
+
+    /**
+     * 清理过期的已投递记录
+     *
+     * @param retentionDays 保留天数
+     * @return 删除数量
+     */
+    int purgeSent(int retentionDays);
+
+    /**
+     * 发件箱写入失败异常，需透传给业务调用方使外层事务明确失败
+     */
+    class EnqueueException extends ServiceException {
+        private static final long serialVersionUID = 1L;
+
+        public EnqueueException(String message, Throwable e) {
+            super(message, e);
+        }
+    }
+}
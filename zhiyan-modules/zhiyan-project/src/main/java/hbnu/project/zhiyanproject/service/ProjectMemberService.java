@@ -1,6 +1,7 @@
 package hbnu.project.zhiyanproject.service;
 
 import hbnu.project.zhiyancommonbasic.domain.R;
+import hbnu.project.zhiyanproject.model.dto.MemberAccessDTO;
 import hbnu.project.zhiyanproject.model.dto.ProjectMemberDTO;
 import hbnu.project.zhiyanproject.model.dto.RoleInfoDTO;
 import hbnu.project.zhiyanproject.model.entity.ProjectMember;
@@ -222,4 +223,12 @@ public interface ProjectMemberService {
      * @return 用户ID列表
      */
     List<Long> getProjectMemberUserIds(Long projectId);
+
+    /**
+     * 批量查询成员关系、角色和权限（供其他微服务调用）
+     *
+     * @param queries 待查询的 (projectId, userId) 组合
+     * @return 与请求顺序一致的成员访问信息
+     */
+    List<MemberAccessDTO> batchGetMemberAccess(List<MemberAccessDTO> queries);
 }
@@ -1,11 +1,14 @@
 package hbnu.project.zhiyanproject.service;
 
 import  hbnu.project.zhiyanproject.model.dto.TaskBoardDTO;
+import hbnu.project.zhiyanproject.model.dto.BatchTaskResultDTO;
+import hbnu.project.zhiyanproject.model.dto.CursorPageResult;
 import hbnu.project.zhiyanproject.model.dto.TaskDetailDTO;
 import hbnu.project.zhiyanproject.model.dto.UserTaskStatisticsDTO;
 import hbnu.project.zhiyanproject.model.entity.Tasks;
 import hbnu.project.zhiyanproject.model.enums.TaskPriority;
 import hbnu.project.zhiyanproject.model.enums.TaskStatus;
+import hbnu.project.zhiyanproject.model.form.BatchAssignTaskRequest;
 import hbnu.project.zhiyanproject.model.form.CreateTaskRequest;
 import hbnu.project.zhiyanproject.model.form.UpdateTaskRequest;
 import org.springframework.data.domain.Page;
@@ -85,6 +88,48 @@ public interface TaskService {
      */
     Tasks claimTask(Long taskId, Long userId);
 
+    // ==================== 批量操作 ====================
+
+    /**
+     * 批量创建任务（同一项目）
+     * 业务场景：导入工具、项目模板一次性创建多个任务
+     *
+     * @param requests  创建任务请求列表
+     * @param creatorId 创建人ID
+     * @return 创建结果
+     */
+    BatchTaskResultDTO batchCreateTasks(List<CreateTaskRequest> requests, Long creatorId);
+
+    /**
+     * 批量分配任务
+     * 每个任务的执行者列表为目标全集，与现有执行者做差集后增删
+     *
+     * @param assignments 分配列表
+     * @param operatorId  操作人ID
+     * @return 分配结果
+     */
+    BatchTaskResultDTO batchAssignTasks(List<BatchAssignTaskRequest.Assignment> assignments, Long operatorId);
+
+    /**
+     * 批量更新任务状态
+     *
+     * @param taskIds    任务ID列表
+     * @param newStatus  目标状态
+     * @param operatorId 操作人ID
+     * @return 更新结果
+     */
+    BatchTaskResultDTO batchUpdateTaskStatus(List<Long> taskIds, TaskStatus newStatus, Long operatorId);
+
+    /**
+     * 批量删除任务（软删除）
+     * 只有任务创建者或项目负责人可以删除
+     *
+     * @param taskIds    任务ID列表
+     * @param operatorId 操作人ID
+     * @return 删除结果
+     */
+    BatchTaskResultDTO batchDeleteTasks(List<Long> taskIds, Long operatorId);
+
     // ==================== 任务查询 ====================
 
     /**
@@ -203,6 +248,91 @@ public interface TaskService {
      */
     Page<TaskDetailDTO> getMyOverdueTasks(Long userId, Pageable pageable);
 
+    // ==================== 游标分页查询接口 ====================
+
+    /**
+     * 游标分页获取项目任务（按创建时间倒序）
+     *
+     * @param projectId 项目ID
+     * @param cursor    上一页返回的游标，第一页传空
+     * @param size      每页大小
+     * @return 任务详情游标分页结果
+     */
+    CursorPageResult<TaskDetailDTO> getProjectTasksByCursor(Long projectId, String cursor, int size);
+
+    /**
+     * 游标分页按状态获取项目任务（按创建时间倒序）
+     *
+     * @param projectId 项目ID
+     * @param status    任务状态
+     * @param cursor    上一页返回的游标，第一页传空
+     * @param size      每页大小
+     * @return 任务详情游标分页结果
+     */
+    CursorPageResult<TaskDetailDTO> getTasksByStatusByCursor(Long projectId, TaskStatus status, String cursor, int size);
+
+    /**
+     * 游标分页获取分配给我的任务（按分配时间倒序）
+     *
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，第一页传空
+     * @param size   每页大小
+     * @return 任务详情游标分页结果
+     */
+    CursorPageResult<TaskDetailDTO> getMyAssignedTasksByCursor(Long userId, String cursor, int size);
+
+    /**
+     * 游标分页获取我创建的任务（按创建时间倒序）
+     *
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，第一页传空
+     * @param size   每页大小
+     * @return 任务详情游标分页结果
+     */
+    CursorPageResult<TaskDetailDTO> getMyCreatedTasksByCursor(Long userId, String cursor, int size);
+
+    /**
+     * 游标分页获取项目即将到期的任务（按截止日期正序）
+     *
+     * @param projectId 项目ID
+     * @param days      未来天数
+     * @param cursor    上一页返回的游标，第一页传空
+     * @param size      每页大小
+     * @return 任务详情游标分页结果
+     */
+    CursorPageResult<TaskDetailDTO> getUpcomingTasksByCursor(Long projectId, int days, String cursor, int size);
+
+    /**
+     * 游标分页获取项目已逾期的任务（按截止日期倒序）
+     *
+     * @param projectId 项目ID
+     * @param cursor    上一页返回的游标，第一页传空
+     * @param size      每页大小
+     * @return 任务详情游标分页结果
+     */
+    CursorPageResult<TaskDetailDTO> getOverdueTasksByCursor(Long projectId, String cursor, int size);
+
+    /**
+     * 游标分页获取我在所有项目中即将到期的任务（按截止日期正序）
+     *
+     * @param userId 用户ID
+     * @param days   未来天数
+     * @param cursor 上一页返回的游标，第一页传空
+     * @param size   每页大小
+     * @return 任务详情游标分页结果
+     */
+    CursorPageResult<TaskDetailDTO> getMyUpcomingTasksByCursor(Long userId, int days, String cursor, int size);
+
+    /**
+     * 游标分页获取我在所有项目中已逾期的任务（按截止日期倒序）
+     *
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标，第一页传空
+     * @param size   每页大小
+     * @return 任务详情游标分页结果
+     */
+    CursorPageResult<TaskDetailDTO> getMyOverdueTasksByCursor(Long userId, String cursor, int size);
+
     // ==================== 新增：基于task_user表的查询接口 ====================
 
     /**
@@ -0,0 +1,136 @@
+package hbnu.project.zhiyanproject.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import hbnu.project.zhiyancommonbasic.constants.CacheConstants;
+import hbnu.project.zhiyancommonredis.utils.RedisUtils;
+import hbnu.project.zhiyanproject.model.enums.ProjectMemberRole;
+import hbnu.project.zhiyanproject.repository.ProjectMemberRepository;
+import hbnu.project.zhiyanproject.service.MemberRoleCacheService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 项目成员角色缓存服务实现
+ * 第一级：请求作用域备忘，同一请求内多次权限判断只查一次
+ * 第二级：Caffeine 有界缓存，跨请求共享，成员变更时通过 Redis 频道广播失效
+ *
+ * @author Tokito
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberRoleCacheServiceImpl implements MemberRoleCacheService {
+
+    /**
+     * 请求属性中的备忘表名称
+     */
+    private static final String REQUEST_MEMO_ATTR = MemberRoleCacheServiceImpl.class.getName() + ".MEMO";
+
+    private final ProjectMemberRepository projectMemberRepository;
+
+    /**
+     * (projectId, userId) -> 角色，非成员缓存为 Optional.empty()
+     * 过期时间兜底广播丢失的情况
+     */
+    private final Cache<String, Optional<ProjectMemberRole>> roleCache = Caffeine.newBuilder()
+            .maximumSize(20_000)
+            .expireAfterWrite(Duration.ofMinutes(10))
+            .build();
+
+    @Override
+    public Optional<ProjectMemberRole> getRole(Long projectId, Long userId) {
+        if (projectId == null || userId == null) {
+            return Optional.empty();
+        }
+        String key = buildKey(projectId, userId);
+
+        Map<String, Optional<ProjectMemberRole>> memo = getRequestMemo();
+        if (memo != null) {
+            Optional<ProjectMemberRole> memoized = memo.get(key);
+            if (memoized != null) {
+                return memoized;
+            }
+        }
+
+        Optional<ProjectMemberRole> role = roleCache.get(key,
+                k -> projectMemberRepository.findUserRoleInProject(userId, projectId));
+
+        if (memo != null) {
+            memo.put(key, role);
+        }
+        return role;
+    }
+
+    @Override
+    public void onMemberChanged(Long projectId, Long userId) {
+        String key = buildKey(projectId, userId);
+
+        // 当前请求后续的判断要看到本次变更
+        Map<String, Optional<ProjectMemberRole>> memo = getRequestMemo();
+        if (memo != null) {
+            memo.remove(key);
+        }
+
+        // 事务提交前失效会被并发请求用旧数据重新填充，因此放到提交之后
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndBroadcast(projectId, userId);
+                }
+            });
+        } else {
+            evictAndBroadcast(projectId, userId);
+        }
+    }
+
+    @Override
+    public void evictLocal(Long projectId, Long userId) {
+        roleCache.invalidate(buildKey(projectId, userId));
+    }
+
+    /**
+     * 失效本节点缓存并通知其他节点
+     */
+    private void evictAndBroadcast(Long projectId, Long userId) {
+        evictLocal(projectId, userId);
+        try {
+            RedisUtils.publish(CacheConstants.PROJECT_MEMBER_CHANGE_TOPIC, buildKey(projectId, userId));
+        } catch (Exception e) {
+            // 广播失败时其他节点依赖过期时间兜底
+            log.error("广播成员变更失败: projectId={}, userId={}", projectId, userId, e);
+        }
+    }
+
+    /**
+     * 获取当前请求的备忘表，非 Web 线程返回 null
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Optional<ProjectMemberRole>> getRequestMemo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Object memo = attributes.getAttribute(REQUEST_MEMO_ATTR, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<String, Optional<ProjectMemberRole>>();
+            attributes.setAttribute(REQUEST_MEMO_ATTR, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<String, Optional<ProjectMemberRole>>) memo;
+    }
+
+    private String buildKey(Long projectId, Long userId) {
+        return projectId + ":" + userId;
+    }
+}
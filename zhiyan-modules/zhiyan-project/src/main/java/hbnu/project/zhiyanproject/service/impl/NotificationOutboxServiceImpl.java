@@ -0,0 +1,126 @@
+package hbnu.project.zhiyanproject.service.impl;
+
+import hbnu.project.zhiyancommonbasic.utils.JsonUtils;
+import hbnu.project.zhiyanmessage.model.pojo.SendMessageRequestPOJO;
+import hbnu.project.zhiyanproject.model.entity.NotificationOutbox;
+import hbnu.project.zhiyanproject.model.enums.OutboxStatus;
+import hbnu.project.zhiyanproject.repository.NotificationOutboxRepository;
+import hbnu.project.zhiyanproject.service.NotificationOutboxService;
+import hbnu.project.zhiyanproject.service.NotificationOutboxService.EnqueueException;
+import hbnu.project.zhiyanproject.utils.message.NotificationOutboxRelay;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * 通知发件箱服务实现
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationOutboxServiceImpl implements NotificationOutboxService {
+
+    /**
+     * 最大投递次数，超过后置为 FAILED
+     */
+    private static final int MAX_ATTEMPTS = 8;
+
+    /**
+     * 领取后的租约时长，超过后视为投递节点失联，记录可被重新领取
+     */
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(2);
+
+    /**
+     * 重试退避：首次 5 秒，指数增长，最长 10 分钟
+     */
+    private static final long BASE_BACKOFF_SECONDS = 5;
+    private static final long MAX_BACKOFF_SECONDS = 600;
+
+    private final NotificationOutboxRepository notificationOutboxRepository;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void enqueue(SendMessageRequestPOJO request) {
+        NotificationOutbox outbox;
+        try {
+            outbox = notificationOutboxRepository.save(NotificationOutbox.builder()
+                    .scene(request.getScene())
+                    .payload(JsonUtils.toJsonString(request))
+                    .build());
+        } catch (RuntimeException e) {
+            throw new EnqueueException("通知写入发件箱失败: scene=" + request.getScene(), e);
+        }
+
+        // 事务提交后唤醒投递器，回滚时不会发出
+        eventPublisher.publishEvent(new NotificationOutboxRelay.OutboxEnqueuedEvent(outbox.getId()));
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public List<NotificationOutbox> claimDue(int limit) {
+        Instant now = Instant.now();
+        List<NotificationOutbox> due = notificationOutboxRepository.findDueForUpdate(
+                EnumSet.of(OutboxStatus.PENDING, OutboxStatus.SENDING), now, PageRequest.of(0, limit));
+        if (due.isEmpty()) {
+            return due;
+        }
+
+        Instant leaseUntil = now.plus(CLAIM_LEASE);
+        for (NotificationOutbox outbox : due) {
+            outbox.setStatus(OutboxStatus.SENDING);
+            outbox.setNextAttemptAt(leaseUntil);
+        }
+        return notificationOutboxRepository.saveAll(due);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void complete(Collection<Long> succeededIds, Collection<Long> failedIds, String error) {
+        if (succeededIds != null && !succeededIds.isEmpty()) {
+            notificationOutboxRepository.markSent(succeededIds, OutboxStatus.SENT, Instant.now());
+        }
+        if (failedIds == null || failedIds.isEmpty()) {
+            return;
+        }
+
+        String lastError = error != null && error.length() > 500 ? error.substring(0, 500) : error;
+        Instant now = Instant.now();
+        List<NotificationOutbox> failed = notificationOutboxRepository.findAllById(failedIds);
+        for (NotificationOutbox outbox : failed) {
+            int attempts = outbox.getAttempts() + 1;
+            outbox.setAttempts(attempts);
+            outbox.setLastError(lastError);
+            if (attempts >= MAX_ATTEMPTS) {
+                outbox.setStatus(OutboxStatus.FAILED);
+                log.error("通知投递超过最大重试次数: outboxId={}, scene={}, error={}",
+                        outbox.getId(), outbox.getScene(), lastError);
+            } else {
+                long backoff = Math.min(BASE_BACKOFF_SECONDS << (attempts - 1), MAX_BACKOFF_SECONDS);
+                outbox.setStatus(OutboxStatus.PENDING);
+                outbox.setNextAttemptAt(now.plusSeconds(backoff));
+            }
+        }
+        notificationOutboxRepository.saveAll(failed);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int purgeSent(int retentionDays) {
+        return notificationOutboxRepository.deleteSentBefore(OutboxStatus.SENT,
+                Instant.now().minus(retentionDays, ChronoUnit.DAYS));
+    }
+}
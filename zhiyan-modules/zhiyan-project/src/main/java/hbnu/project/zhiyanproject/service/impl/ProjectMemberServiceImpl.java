@@ -2,7 +2,9 @@ package hbnu.project.zhiyanproject.service.impl;
 
 import hbnu.project.zhiyancommonbasic.domain.R;
 import hbnu.project.zhiyanproject.client.AuthServiceClient;
+import hbnu.project.zhiyanproject.service.MemberRoleCacheService;
 import hbnu.project.zhiyanproject.service.UserCacheService;
+import hbnu.project.zhiyanproject.model.dto.MemberAccessDTO;
 import hbnu.project.zhiyanproject.model.dto.ProjectMemberDTO;
 import hbnu.project.zhiyanproject.model.dto.RoleInfoDTO;
 import hbnu.project.zhiyanproject.model.dto.UserDTO;
@@ -41,6 +43,7 @@ public class ProjectMemberServiceImpl implements ProjectMemberService {
     private final ProjectRepository projectRepository;
     private final AuthServiceClient authServiceClient;
     private final UserCacheService userCacheService;
+    private final MemberRoleCacheService memberRoleCacheService;
 
     private final ProjectMemberMessageUtils projectMemberMessageUtils;
 
@@ -98,6 +101,7 @@ public class ProjectMemberServiceImpl implements ProjectMemberService {
         }
         
         log.info("项目[{}]管理员[{}]直接添加用户[{}]为项目成员，角色: {}", projectId, inviterId, userId, role);
+        memberRoleCacheService.onMemberChanged(projectId, userId);
 
         // 发送邀请通知给新成员
         projectMemberMessageUtils.sendMessageInvitedNotification(project, member, inviterId);
@@ -147,6 +151,7 @@ public class ProjectMemberServiceImpl implements ProjectMemberService {
         // 6. 移除成员
         projectMemberRepository.delete(member);
         log.info("项目[{}]管理员[{}]移除成员[{}]", projectId, operatorId, userId);
+        memberRoleCacheService.onMemberChanged(projectId, userId);
 
         // 发送通知给被移除用户
         projectMemberMessageUtils.sendMemberRemovedNotification(project, userId, operatorId);
@@ -199,6 +204,7 @@ public class ProjectMemberServiceImpl implements ProjectMemberService {
         ProjectMember saved = projectMemberRepository.save(member);
 
         log.info("项目[{}]管理员[{}]将成员[{}]角色修改为: {}", projectId, operatorId, userId, newRole);
+        memberRoleCacheService.onMemberChanged(projectId, userId);
 
         // 发送通知给该成员（通过消息队列）
         projectMemberMessageUtils.sendMemberRoleChangedNotification(project, member, oldRole.getRoleName(), newRole.getRoleName(), operatorId);
@@ -232,6 +238,7 @@ public class ProjectMemberServiceImpl implements ProjectMemberService {
         // 3. 退出项目
         projectMemberRepository.delete(member);
         log.info("用户[{}]退出项目[{}]", userId, projectId);
+        memberRoleCacheService.onMemberChanged(projectId, userId);
 
         // 发送通知给项目负责人和管理员
         List<Long> adminIds = projectMemberRepository.findByProjectId(projectId)
@@ -347,6 +354,7 @@ public class ProjectMemberServiceImpl implements ProjectMemberService {
         // 4. 保存到数据库
         ProjectMember saved = projectMemberRepository.save(member);
         log.info("成功添加用户[{}]到项目[{}]，角色: {}（内部调用）", userId, projectId, role);
+        memberRoleCacheService.onMemberChanged(projectId, userId);
 
         return saved;
     }
@@ -382,6 +390,7 @@ public class ProjectMemberServiceImpl implements ProjectMemberService {
             try {
                 projectMemberRepository.save(member);
                 log.info("成功添加用户[{}]到项目[{}]，角色: {}（API调用）", userId, projectId, role);
+                memberRoleCacheService.onMemberChanged(projectId, userId);
                 return R.ok();
             } catch (org.springframework.dao.DataIntegrityViolationException e) {
                 // 处理并发情况下的唯一约束冲突
@@ -411,6 +420,7 @@ public class ProjectMemberServiceImpl implements ProjectMemberService {
             // 2. 移除成员
             projectMemberRepository.delete(member);
             log.info("成功移除项目[{}]成员[{}]", projectId, userId);
+            memberRoleCacheService.onMemberChanged(projectId, userId);
 
             return R.ok();
         } catch (Exception e) {
@@ -440,6 +450,7 @@ public class ProjectMemberServiceImpl implements ProjectMemberService {
             member.setProjectRole(newRole);
             projectMemberRepository.save(member);
             log.info("成功更新项目[{}]成员[{}]角色为: {}", projectId, userId, newRole);
+            memberRoleCacheService.onMemberChanged(projectId, userId);
 
             return R.ok();
         } catch (Exception e) {
@@ -630,4 +641,43 @@ public class ProjectMemberServiceImpl implements ProjectMemberService {
     public List<Long> getProjectMemberUserIds(Long projectId) {
         return projectMemberRepository.findUserIdsByProjectId(projectId);
     }
+
+    @Override
+    public List<MemberAccessDTO> batchGetMemberAccess(List<MemberAccessDTO> queries) {
+        if (queries == null || queries.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Long> projectIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (MemberAccessDTO query : queries) {
+            if (query.getProjectId() != null && query.getUserId() != null) {
+                projectIds.add(query.getProjectId());
+                userIds.add(query.getUserId());
+            }
+        }
+
+        // 一次查询取回所有涉及的成员记录，再按组合索引
+        Map<String, ProjectMemberRole> roleMap = new HashMap<>();
+        if (!projectIds.isEmpty()) {
+            projectMemberRepository.findByProjectIdInAndUserIdIn(projectIds, userIds)
+                    .forEach(m -> roleMap.put(m.getProjectId() + ":" + m.getUserId(), m.getProjectRole()));
+        }
+
+        List<MemberAccessDTO> result = new ArrayList<>(queries.size());
+        for (MemberAccessDTO query : queries) {
+            ProjectMemberRole role = roleMap.get(query.getProjectId() + ":" + query.getUserId());
+            result.add(MemberAccessDTO.builder()
+                    .projectId(query.getProjectId())
+                    .userId(query.getUserId())
+                    .member(role != null)
+                    .roleCode(role != null ? role.name() : null)
+                    .permissions(role != null
+                            ? role.getPermissions().stream().map(ProjectPermission::name).collect(Collectors.toSet())
+                            : Collections.emptySet())
+                    .build());
+        }
+        log.debug("批量查询成员访问信息: 请求数={}, 命中成员数={}", queries.size(), roleMap.size());
+        return result;
+    }
 }
@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import hbnu.project.zhiyancommonbasic.domain.R;
 import hbnu.project.zhiyanproject.client.AuthServiceClient;
 import hbnu.project.zhiyanproject.service.UserCacheService;
+import hbnu.project.zhiyanproject.model.dto.BatchTaskResultDTO;
+import hbnu.project.zhiyanproject.model.dto.CursorPageResult;
 import hbnu.project.zhiyanproject.model.dto.TaskBoardDTO;
 import hbnu.project.zhiyanproject.model.dto.TaskDetailDTO;
 import hbnu.project.zhiyanproject.model.dto.UserDTO;
@@ -16,16 +18,23 @@ import hbnu.project.zhiyanproject.model.enums.AssignType;
 import hbnu.project.zhiyanproject.model.enums.RoleType;
 import hbnu.project.zhiyanproject.model.enums.TaskPriority;
 import hbnu.project.zhiyanproject.model.enums.TaskStatus;
+import hbnu.project.zhiyanproject.model.form.BatchAssignTaskRequest;
 import hbnu.project.zhiyanproject.model.form.CreateTaskRequest;
 import hbnu.project.zhiyanproject.model.form.UpdateTaskRequest;
+import hbnu.project.zhiyanproject.repository.ProjectMemberRepository;
 import hbnu.project.zhiyanproject.repository.ProjectRepository;
 import hbnu.project.zhiyanproject.repository.TaskRepository;
+import hbnu.project.zhiyanproject.repository.TaskUserBatchRepository;
 import hbnu.project.zhiyanproject.repository.TaskUserRepository;
 import hbnu.project.zhiyanproject.service.ProjectMemberService;
 import hbnu.project.zhiyanproject.service.TaskService;
+import hbnu.project.zhiyanproject.utils.TaskCursorUtils;
 import hbnu.project.zhiyanproject.utils.message.TaskMessageUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -36,6 +45,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -58,6 +68,11 @@ public class TaskServiceImpl implements TaskService {
     
     // 新增：task_user关联表Repository
     private final TaskUserRepository taskUserRepository;
+    private final TaskUserBatchRepository taskUserBatchRepository;
+    private final ProjectMemberRepository projectMemberRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     private final TaskMessageUtils taskMessageUtils;
 
@@ -476,6 +491,362 @@ public class TaskServiceImpl implements TaskService {
         return saved;
     }
 
+    // ==================== 批量操作 ====================
+
+    /**
+     * 批量操作时 Hibernate 单批提交条数（仅作用于当前事务的 Session）
+     */
+    private static final int JDBC_BATCH_SIZE = 50;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchTaskResultDTO batchCreateTasks(List<CreateTaskRequest> requests, Long creatorId) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("任务列表不能为空");
+        }
+
+        // 1. 批量创建的任务必须属于同一项目
+        Set<Long> projectIds = requests.stream()
+                .map(CreateTaskRequest::getProjectId)
+                .collect(Collectors.toSet());
+        if (projectIds.size() != 1 || projectIds.contains(null)) {
+            throw new IllegalArgumentException("批量创建的任务必须属于同一项目");
+        }
+        Long projectId = projectIds.iterator().next();
+
+        // 2. 检查项目与创建人
+        if (!projectRepository.existsById(projectId)) {
+            throw new IllegalArgumentException("项目不存在");
+        }
+        if (!projectMemberService.isMember(projectId, creatorId)) {
+            throw new IllegalArgumentException("只有项目成员才能创建任务");
+        }
+
+        // 3. 校验每个任务的执行者数量不超过委托人数，再一次查询校验所有执行者都是项目成员
+        for (CreateTaskRequest request : requests) {
+            int requiredPeople = request.getRequiredPeople() != null ? request.getRequiredPeople() : 1;
+            int assigneeCount = request.getAssigneeIds() != null ? new HashSet<>(request.getAssigneeIds()).size() : 0;
+            if (assigneeCount > requiredPeople) {
+                throw new IllegalArgumentException("任务「" + request.getTitle() + "」分配的执行者数量(" + assigneeCount
+                        + ")不能超过任务委托人数限制(" + requiredPeople + ")");
+            }
+        }
+        Set<Long> allAssigneeIds = requests.stream()
+                .filter(r -> r.getAssigneeIds() != null)
+                .flatMap(r -> r.getAssigneeIds().stream())
+                .collect(Collectors.toSet());
+        requireProjectMembers(Map.of(projectId, allAssigneeIds));
+
+        // 4. 批量插入任务（雪花ID，可走 JDBC batch）
+        enableJdbcBatching();
+        List<Tasks> tasks = requests.stream()
+                .map(request -> Tasks.builder()
+                        .projectId(projectId)
+                        .title(request.getTitle())
+                        .description(request.getDescription())
+                        .status(TaskStatus.TODO)
+                        .priority(request.getPriority() != null ? request.getPriority() : TaskPriority.MEDIUM)
+                        .assigneeId("[]")  // 暂时废弃字段，设为空
+                        .dueDate(request.getDueDate())
+                        .worktime(request.getWorktime())
+                        .requiredPeople(request.getRequiredPeople() != null ? request.getRequiredPeople() : 1)
+                        .isMilestone(request.getIsMilestone() != null ? request.getIsMilestone() : false)
+                        .createdBy(creatorId)
+                        .isDeleted(false)
+                        .build())
+                .collect(Collectors.toList());
+        // task_user 有外键指向 tasks，先刷出任务再写关联
+        List<Tasks> saved = taskRepository.saveAllAndFlush(tasks);
+
+        // 5. 批量插入task_user关联记录
+        Instant now = Instant.now();
+        List<TaskUser> taskUsers = new ArrayList<>();
+        Map<Long, List<Tasks>> tasksByUser = new LinkedHashMap<>();
+        for (int i = 0; i < saved.size(); i++) {
+            Tasks task = saved.get(i);
+            List<Long> assigneeIds = requests.get(i).getAssigneeIds();
+            if (assigneeIds == null) {
+                continue;
+            }
+            for (Long userId : new LinkedHashSet<>(assigneeIds)) {
+                taskUsers.add(TaskUser.builder()
+                        .taskId(task.getId())
+                        .projectId(projectId)
+                        .userId(userId)
+                        .assignType(AssignType.ASSIGNED)
+                        .assignedBy(creatorId)
+                        .assignedAt(now)
+                        .isActive(true)
+                        .roleType(RoleType.EXECUTOR)
+                        .build());
+                tasksByUser.computeIfAbsent(userId, k -> new ArrayList<>()).add(task);
+            }
+        }
+        taskUserBatchRepository.batchInsert(taskUsers);
+
+        // 6. 每个执行者一条汇总通知
+        int notified = taskMessageUtils.sendBatchTaskNotification("TASK_ASSIGN", "新任务分配",
+                "为您分配了新任务", tasksByUser, creatorId);
+
+        log.info("批量创建任务成功: projectId={}, count={}, taskUsers={}, creator={}",
+                projectId, saved.size(), taskUsers.size(), creatorId);
+        return buildBatchResult(requests.size(), saved, notified);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchTaskResultDTO batchAssignTasks(List<BatchAssignTaskRequest.Assignment> assignments, Long operatorId) {
+        if (assignments == null || assignments.isEmpty()) {
+            throw new IllegalArgumentException("分配列表不能为空");
+        }
+
+        // 1. 整理每个任务的目标执行者全集
+        Map<Long, Set<Long>> targetByTask = new LinkedHashMap<>();
+        for (BatchAssignTaskRequest.Assignment assignment : assignments) {
+            Set<Long> target = assignment.getAssigneeIds() != null
+                    ? new LinkedHashSet<>(assignment.getAssigneeIds()) : new LinkedHashSet<>();
+            if (targetByTask.put(assignment.getTaskId(), target) != null) {
+                throw new IllegalArgumentException("任务重复出现在分配列表中 (任务ID: " + assignment.getTaskId() + ")");
+            }
+        }
+
+        // 2. 查询任务并校验操作人
+        List<Tasks> tasks = loadTasksForBatch(targetByTask.keySet());
+        requireMemberOfProjects(tasks, operatorId, "只有项目成员才能分配任务");
+
+        // 3. 一次查询校验所有执行者，并检查人数限制
+        Map<Long, Set<Long>> userIdsByProject = new HashMap<>();
+        for (Tasks task : tasks) {
+            Set<Long> target = targetByTask.get(task.getId());
+            if (target.size() > task.getRequiredPeople()) {
+                throw new IllegalArgumentException("任务「" + task.getTitle() + "」分配的执行者数量(" + target.size()
+                        + ")不能超过任务委托人数限制(" + task.getRequiredPeople() + ")");
+            }
+            userIdsByProject.computeIfAbsent(task.getProjectId(), k -> new HashSet<>()).addAll(target);
+        }
+        requireProjectMembers(userIdsByProject);
+
+        // 4. 与现有关联记录做差集（一次查询取回所有任务的关联，包括已移除的）
+        Map<Long, Map<Long, TaskUser>> existingByTask = taskUserRepository.findByTaskIdIn(targetByTask.keySet()).stream()
+                .collect(Collectors.groupingBy(TaskUser::getTaskId,
+                        Collectors.toMap(TaskUser::getUserId, tu -> tu,
+                                (a, b) -> Boolean.TRUE.equals(a.getIsActive()) ? a : b)));
+
+        Instant now = Instant.now();
+        List<Long> toDeactivate = new ArrayList<>();
+        List<TaskUser> toReactivate = new ArrayList<>();
+        List<TaskUser> toInsert = new ArrayList<>();
+        Map<Long, List<Tasks>> tasksByNewUser = new LinkedHashMap<>();
+        List<Tasks> affected = new ArrayList<>();
+
+        enableJdbcBatching();
+        for (Tasks task : tasks) {
+            Set<Long> target = targetByTask.get(task.getId());
+            Map<Long, TaskUser> current = existingByTask.getOrDefault(task.getId(), Collections.emptyMap());
+            boolean changed = false;
+
+            // 移除不在目标集合中的执行者
+            for (TaskUser taskUser : current.values()) {
+                if (Boolean.TRUE.equals(taskUser.getIsActive()) && !target.contains(taskUser.getUserId())) {
+                    toDeactivate.add(taskUser.getId());
+                    changed = true;
+                }
+            }
+
+            // 新增或重新激活目标集合中的执行者
+            for (Long userId : target) {
+                TaskUser existing = current.get(userId);
+                if (existing != null && Boolean.TRUE.equals(existing.getIsActive())) {
+                    continue;
+                }
+                // 不修改托管实体，避免提交时 Hibernate 再发一次 UPDATE
+                TaskUser row = TaskUser.builder()
+                        .id(existing != null ? existing.getId() : null)
+                        .taskId(task.getId())
+                        .projectId(task.getProjectId())
+                        .userId(userId)
+                        .assignType(AssignType.ASSIGNED)
+                        .assignedBy(operatorId)
+                        .assignedAt(now)
+                        .isActive(true)
+                        .roleType(RoleType.EXECUTOR)
+                        .build();
+                (existing != null ? toReactivate : toInsert).add(row);
+                tasksByNewUser.computeIfAbsent(userId, k -> new ArrayList<>()).add(task);
+                changed = true;
+            }
+
+            // 与单个分配保持一致：有执行者的待办任务自动进入进行中
+            if (task.getStatus() == TaskStatus.TODO && !target.isEmpty()) {
+                task.setStatus(TaskStatus.IN_PROGRESS);
+                changed = true;
+            }
+            if (changed) {
+                affected.add(task);
+            }
+        }
+
+        taskUserBatchRepository.batchDeactivate(toDeactivate, operatorId, now);
+        taskUserBatchRepository.batchReactivate(toReactivate);
+        taskUserBatchRepository.batchInsert(toInsert);
+
+        // 5. 每个新执行者一条汇总通知
+        int notified = taskMessageUtils.sendBatchTaskNotification("TASK_ASSIGN", "任务分配",
+                "为您分配了任务", tasksByNewUser, operatorId);
+
+        log.info("批量分配任务: tasks={}, affected={}, removed={}, reactivated={}, added={}, operator={}",
+                tasks.size(), affected.size(), toDeactivate.size(), toReactivate.size(), toInsert.size(), operatorId);
+        return buildBatchResult(tasks.size(), affected, notified);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchTaskResultDTO batchUpdateTaskStatus(List<Long> taskIds, TaskStatus newStatus, Long operatorId) {
+        if (newStatus == null) {
+            throw new IllegalArgumentException("状态不能为空");
+        }
+        List<Tasks> tasks = loadTasksForBatch(taskIds);
+        requireMemberOfProjects(tasks, operatorId, "只有项目成员才能更新任务状态");
+
+        // 只更新状态确实变化的任务，提交时由脏检查按批刷出
+        enableJdbcBatching();
+        List<Tasks> affected = tasks.stream()
+                .filter(task -> task.getStatus() != newStatus)
+                .collect(Collectors.toList());
+        affected.forEach(task -> task.setStatus(newStatus));
+
+        int notified = taskMessageUtils.sendBatchTaskNotification("TASK_STATUS_CHANGED", "任务状态更新",
+                "将您参与的任务状态变更为「" + newStatus.getStatusName() + "」",
+                groupTasksByExecutor(affected), operatorId);
+
+        log.info("批量更新任务状态: tasks={}, affected={}, status={}, operator={}",
+                tasks.size(), affected.size(), newStatus, operatorId);
+        return buildBatchResult(tasks.size(), affected, notified);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchTaskResultDTO batchDeleteTasks(List<Long> taskIds, Long operatorId) {
+        List<Tasks> tasks = loadTasksForBatch(taskIds);
+
+        // 任务创建者或项目负责人可以删除，负责人判断按项目只查一次
+        Map<Long, Boolean> ownerByProject = new HashMap<>();
+        for (Tasks task : tasks) {
+            boolean isCreator = task.getCreatedBy().equals(operatorId);
+            boolean isOwner = ownerByProject.computeIfAbsent(task.getProjectId(),
+                    projectId -> projectMemberService.isOwner(projectId, operatorId));
+            if (!isCreator && !isOwner) {
+                throw new IllegalArgumentException("只有任务创建者或项目负责人才能删除任务 (任务ID: " + task.getId() + ")");
+            }
+        }
+
+        enableJdbcBatching();
+        tasks.forEach(task -> task.setIsDeleted(true));
+
+        int notified = taskMessageUtils.sendBatchTaskNotification("TASK_STATUS_CHANGED", "任务已删除",
+                "删除了您参与的任务", groupTasksByExecutor(tasks), operatorId);
+
+        log.info("批量删除任务: count={}, operator={}", tasks.size(), operatorId);
+        return buildBatchResult(tasks.size(), tasks, notified);
+    }
+
+    /**
+     * 批量查询任务，任一任务不存在或已删除则整体失败
+     * 返回顺序与请求顺序一致
+     */
+    private List<Tasks> loadTasksForBatch(Collection<Long> taskIds) {
+        if (taskIds == null || taskIds.isEmpty()) {
+            throw new IllegalArgumentException("任务ID列表不能为空");
+        }
+        Set<Long> distinctIds = new LinkedHashSet<>(taskIds);
+        Map<Long, Tasks> taskMap = taskRepository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(Tasks::getId, t -> t));
+
+        List<Tasks> tasks = new ArrayList<>(distinctIds.size());
+        for (Long taskId : distinctIds) {
+            Tasks task = taskMap.get(taskId);
+            if (task == null || Boolean.TRUE.equals(task.getIsDeleted())) {
+                throw new IllegalArgumentException("任务不存在或已删除 (任务ID: " + taskId + ")");
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    /**
+     * 校验操作人是这些任务所属项目的成员（按项目去重）
+     */
+    private void requireMemberOfProjects(List<Tasks> tasks, Long operatorId, String message) {
+        Set<Long> projectIds = tasks.stream()
+                .map(Tasks::getProjectId)
+                .collect(Collectors.toSet());
+        for (Long projectId : projectIds) {
+            if (!projectMemberService.isMember(projectId, operatorId)) {
+                throw new IllegalArgumentException(message);
+            }
+        }
+    }
+
+    /**
+     * 一次查询校验用户都是对应项目的成员
+     *
+     * @param userIdsByProject 项目ID -> 需要校验的用户ID
+     */
+    private void requireProjectMembers(Map<Long, Set<Long>> userIdsByProject) {
+        Set<Long> allUserIds = userIdsByProject.values().stream()
+                .flatMap(Set::stream)
+                .collect(Collectors.toSet());
+        if (allUserIds.isEmpty()) {
+            return;
+        }
+
+        Set<String> memberKeys = projectMemberRepository
+                .findByProjectIdInAndUserIdIn(userIdsByProject.keySet(), allUserIds).stream()
+                .map(member -> member.getProjectId() + ":" + member.getUserId())
+                .collect(Collectors.toSet());
+
+        userIdsByProject.forEach((projectId, userIds) -> {
+            for (Long userId : userIds) {
+                if (!memberKeys.contains(projectId + ":" + userId)) {
+                    throw new IllegalArgumentException("执行者必须是项目成员 (用户ID: " + userId + ")");
+                }
+            }
+        });
+    }
+
+    /**
+     * 按执行者分组任务（一次查询取回所有任务的执行者）
+     */
+    private Map<Long, List<Tasks>> groupTasksByExecutor(List<Tasks> tasks) {
+        if (tasks.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Long, Tasks> taskMap = tasks.stream()
+                .collect(Collectors.toMap(Tasks::getId, t -> t));
+        Map<Long, List<Tasks>> tasksByUser = new LinkedHashMap<>();
+        for (TaskUser taskUser : taskUserRepository.findActiveExecutorsByTaskIds(new ArrayList<>(taskMap.keySet()))) {
+            tasksByUser.computeIfAbsent(taskUser.getUserId(), k -> new ArrayList<>())
+                    .add(taskMap.get(taskUser.getTaskId()));
+        }
+        return tasksByUser;
+    }
+
+    /**
+     * 为当前事务的 Session 开启 JDBC 批量写入
+     */
+    private void enableJdbcBatching() {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(JDBC_BATCH_SIZE);
+    }
+
+    private BatchTaskResultDTO buildBatchResult(int total, List<Tasks> affected, int notifiedUsers) {
+        return BatchTaskResultDTO.builder()
+                .total(total)
+                .affected(affected.size())
+                .taskIds(affected.stream().map(t -> String.valueOf(t.getId())).collect(Collectors.toList()))
+                .notifiedUsers(notifiedUsers)
+                .build();
+    }
+
     // ==================== 任务查询 ====================
 
     @Override
@@ -639,6 +1010,156 @@ public class TaskServiceImpl implements TaskService {
         return new PageImpl<>(dtoList, pageable, tasks.getTotalElements());
     }
 
+    // ==================== 游标分页查询 ====================
+
+    private static final String CURSOR_PROJECT = "PT";
+    private static final String CURSOR_PROJECT_STATUS = "PS";
+    private static final String CURSOR_MY_ASSIGNED = "MA";
+    private static final String CURSOR_MY_CREATED = "MC";
+    private static final String CURSOR_UPCOMING = "UP";
+    private static final String CURSOR_OVERDUE = "OD";
+    private static final String CURSOR_MY_UPCOMING = "MU";
+    private static final String CURSOR_MY_OVERDUE = "MO";
+
+    @Override
+    public CursorPageResult<TaskDetailDTO> getProjectTasksByCursor(Long projectId, String cursor, int size) {
+        TaskCursorUtils.Cursor c = TaskCursorUtils.decode(CURSOR_PROJECT, cursor);
+        int limit = TaskCursorUtils.normalizeSize(size);
+        List<Tasks> rows = taskRepository.findProjectTasksBefore(projectId,
+                c != null ? c.sortKeyAsDateTime() : TaskCursorUtils.MAX_DATE_TIME,
+                c != null ? c.id() : Long.MAX_VALUE,
+                PageRequest.of(0, limit + 1));
+        return toCursorPage(rows, limit, t -> TaskCursorUtils.encode(CURSOR_PROJECT, t.getCreatedAt(), t.getId()));
+    }
+
+    @Override
+    public CursorPageResult<TaskDetailDTO> getTasksByStatusByCursor(Long projectId, TaskStatus status, String cursor, int size) {
+        TaskCursorUtils.Cursor c = TaskCursorUtils.decode(CURSOR_PROJECT_STATUS, cursor);
+        int limit = TaskCursorUtils.normalizeSize(size);
+        List<Tasks> rows = taskRepository.findProjectTasksByStatusBefore(projectId, status,
+                c != null ? c.sortKeyAsDateTime() : TaskCursorUtils.MAX_DATE_TIME,
+                c != null ? c.id() : Long.MAX_VALUE,
+                PageRequest.of(0, limit + 1));
+        return toCursorPage(rows, limit, t -> TaskCursorUtils.encode(CURSOR_PROJECT_STATUS, t.getCreatedAt(), t.getId()));
+    }
+
+    @Override
+    public CursorPageResult<TaskDetailDTO> getMyAssignedTasksByCursor(Long userId, String cursor, int size) {
+        TaskCursorUtils.Cursor c = TaskCursorUtils.decode(CURSOR_MY_ASSIGNED, cursor);
+        int limit = TaskCursorUtils.normalizeSize(size);
+        List<TaskUser> rows = taskUserRepository.findActiveTasksByUserIdBefore(userId,
+                c != null ? c.sortKeyAsInstant() : TaskCursorUtils.MAX_INSTANT,
+                c != null ? c.id() : Long.MAX_VALUE,
+                PageRequest.of(0, limit + 1));
+
+        boolean hasNext = rows.size() > limit;
+        List<TaskUser> pageRows = hasNext ? rows.subList(0, limit) : rows;
+        if (pageRows.isEmpty()) {
+            return emptyCursorPage(limit);
+        }
+
+        // 已删除任务已在查询中过滤，这里只按主键取回本页任务并保持分配时间顺序
+        List<Long> taskIds = pageRows.stream()
+                .map(TaskUser::getTaskId)
+                .collect(Collectors.toList());
+        Map<Long, Tasks> taskMap = taskRepository.findAllById(taskIds).stream()
+                .collect(Collectors.toMap(Tasks::getId, t -> t));
+        List<Tasks> sortedTasks = taskIds.stream()
+                .map(taskMap::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        TaskUser last = pageRows.get(pageRows.size() - 1);
+        return CursorPageResult.<TaskDetailDTO>builder()
+                .content(convertListToDetailDTO(sortedTasks))
+                .size(limit)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? TaskCursorUtils.encode(CURSOR_MY_ASSIGNED, last.getAssignedAt(), last.getId()) : null)
+                .build();
+    }
+
+    @Override
+    public CursorPageResult<TaskDetailDTO> getMyCreatedTasksByCursor(Long userId, String cursor, int size) {
+        TaskCursorUtils.Cursor c = TaskCursorUtils.decode(CURSOR_MY_CREATED, cursor);
+        int limit = TaskCursorUtils.normalizeSize(size);
+        List<Tasks> rows = taskRepository.findMyCreatedTasksBefore(userId,
+                c != null ? c.sortKeyAsDateTime() : TaskCursorUtils.MAX_DATE_TIME,
+                c != null ? c.id() : Long.MAX_VALUE,
+                PageRequest.of(0, limit + 1));
+        return toCursorPage(rows, limit, t -> TaskCursorUtils.encode(CURSOR_MY_CREATED, t.getCreatedAt(), t.getId()));
+    }
+
+    @Override
+    public CursorPageResult<TaskDetailDTO> getUpcomingTasksByCursor(Long projectId, int days, String cursor, int size) {
+        TaskCursorUtils.Cursor c = TaskCursorUtils.decode(CURSOR_UPCOMING, cursor);
+        int limit = TaskCursorUtils.normalizeSize(size);
+        List<Tasks> rows = taskRepository.findUpcomingTasksAfter(projectId, LocalDate.now().plusDays(days),
+                c != null ? c.sortKeyAsDate() : TaskCursorUtils.MIN_DATE,
+                c != null ? c.id() : Long.MIN_VALUE,
+                PageRequest.of(0, limit + 1));
+        return toCursorPage(rows, limit, t -> TaskCursorUtils.encode(CURSOR_UPCOMING, t.getDueDate(), t.getId()));
+    }
+
+    @Override
+    public CursorPageResult<TaskDetailDTO> getOverdueTasksByCursor(Long projectId, String cursor, int size) {
+        TaskCursorUtils.Cursor c = TaskCursorUtils.decode(CURSOR_OVERDUE, cursor);
+        int limit = TaskCursorUtils.normalizeSize(size);
+        List<Tasks> rows = taskRepository.findOverdueTasksBefore(projectId, LocalDate.now(),
+                c != null ? c.sortKeyAsDate() : TaskCursorUtils.MAX_DATE,
+                c != null ? c.id() : Long.MAX_VALUE,
+                PageRequest.of(0, limit + 1));
+        return toCursorPage(rows, limit, t -> TaskCursorUtils.encode(CURSOR_OVERDUE, t.getDueDate(), t.getId()));
+    }
+
+    @Override
+    public CursorPageResult<TaskDetailDTO> getMyUpcomingTasksByCursor(Long userId, int days, String cursor, int size) {
+        TaskCursorUtils.Cursor c = TaskCursorUtils.decode(CURSOR_MY_UPCOMING, cursor);
+        int limit = TaskCursorUtils.normalizeSize(size);
+        LocalDate today = LocalDate.now();
+        List<Tasks> rows = taskRepository.findMyUpcomingTasksAfter(userId, today, today.plusDays(days),
+                c != null ? c.sortKeyAsDate() : TaskCursorUtils.MIN_DATE,
+                c != null ? c.id() : Long.MIN_VALUE,
+                PageRequest.of(0, limit + 1));
+        return toCursorPage(rows, limit, t -> TaskCursorUtils.encode(CURSOR_MY_UPCOMING, t.getDueDate(), t.getId()));
+    }
+
+    @Override
+    public CursorPageResult<TaskDetailDTO> getMyOverdueTasksByCursor(Long userId, String cursor, int size) {
+        TaskCursorUtils.Cursor c = TaskCursorUtils.decode(CURSOR_MY_OVERDUE, cursor);
+        int limit = TaskCursorUtils.normalizeSize(size);
+        List<Tasks> rows = taskRepository.findMyOverdueTasksBefore(userId, LocalDate.now(),
+                c != null ? c.sortKeyAsDate() : TaskCursorUtils.MAX_DATE,
+                c != null ? c.id() : Long.MAX_VALUE,
+                PageRequest.of(0, limit + 1));
+        return toCursorPage(rows, limit, t -> TaskCursorUtils.encode(CURSOR_MY_OVERDUE, t.getDueDate(), t.getId()));
+    }
+
+    /**
+     * 组装游标分页结果
+     * 查询时多取一条用于判断是否还有下一页，不做 count
+     */
+    private CursorPageResult<TaskDetailDTO> toCursorPage(List<Tasks> rows, int limit, Function<Tasks, String> cursorOf) {
+        boolean hasNext = rows.size() > limit;
+        List<Tasks> pageRows = hasNext ? rows.subList(0, limit) : rows;
+        if (pageRows.isEmpty()) {
+            return emptyCursorPage(limit);
+        }
+        return CursorPageResult.<TaskDetailDTO>builder()
+                .content(convertListToDetailDTO(pageRows))
+                .size(limit)
+                .hasNext(hasNext)
+                .nextCursor(hasNext ? cursorOf.apply(pageRows.get(pageRows.size() - 1)) : null)
+                .build();
+    }
+
+    private CursorPageResult<TaskDetailDTO> emptyCursorPage(int limit) {
+        return CursorPageResult.<TaskDetailDTO>builder()
+                .content(Collections.emptyList())
+                .size(limit)
+                .hasNext(false)
+                .build();
+    }
+
     // ==================== 新增：基于task_user表的查询接口 ====================
 
     @Override
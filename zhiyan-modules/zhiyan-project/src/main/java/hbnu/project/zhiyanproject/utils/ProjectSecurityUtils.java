@@ -1,19 +1,17 @@
 package hbnu.project.zhiyanproject.utils;
 
 import hbnu.project.zhiyancommonsecurity.utils.SecurityUtils;
-import hbnu.project.zhiyanproject.model.entity.ProjectMember;
 import hbnu.project.zhiyanproject.model.enums.ProjectMemberRole;
 import hbnu.project.zhiyanproject.model.enums.ProjectPermission;
-import hbnu.project.zhiyanproject.repository.ProjectMemberRepository;
+import hbnu.project.zhiyanproject.service.MemberRoleCacheService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.Optional;
-
 /**
  * 项目级别的安全工具类
  * 用于检查用户在特定项目中的权限
+ * 角色查询走 MemberRoleCacheService，同一请求内的多次判断只查一次
  *
  * @author Tokito
  */
@@ -22,7 +20,7 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ProjectSecurityUtils {
 
-    private final ProjectMemberRepository projectMemberRepository;
+    private final MemberRoleCacheService memberRoleCacheService;
 
     /**
      * 检查当前用户是否为项目成员
@@ -46,7 +44,7 @@ public class ProjectSecurityUtils {
      * @return 是否为成员
      */
     public boolean isMember(Long projectId, Long userId) {
-        return projectMemberRepository.findByProjectIdAndUserId(projectId, userId).isPresent();
+        return memberRoleCacheService.getRole(projectId, userId).isPresent();
     }
 
     /**
@@ -71,8 +69,7 @@ public class ProjectSecurityUtils {
      * @return 是否为拥有者
      */
     public boolean isOwner(Long projectId, Long userId) {
-        Optional<ProjectMember> member = projectMemberRepository.findByProjectIdAndUserId(projectId, userId);
-        return member.isPresent() && member.get().getProjectRole() == ProjectMemberRole.OWNER;
+        return getRole(projectId, userId) == ProjectMemberRole.OWNER;
     }
 
     /**
@@ -97,11 +94,7 @@ public class ProjectSecurityUtils {
      * @return 是否为项目管理员
      */
     public boolean isAdmin(Long projectId, Long userId) {
-        Optional<ProjectMember> member = projectMemberRepository.findByProjectIdAndUserId(projectId, userId);
-        if (!member.isPresent()) {
-            return false;
-        }
-        ProjectMemberRole role = member.get().getProjectRole();
+        ProjectMemberRole role = getRole(projectId, userId);
         return role == ProjectMemberRole.OWNER || role == ProjectMemberRole.ADMIN;
     }
 
@@ -129,8 +122,9 @@ public class ProjectSecurityUtils {
      * @return 是否拥有权限
      */
     public boolean hasPermission(Long projectId, Long userId, ProjectPermission permission) {
-        Optional<ProjectMember> member = projectMemberRepository.findByProjectIdAndUserId(projectId, userId);
-        return member.map(projectMember -> projectMember.getProjectRole().hasPermission(permission)).orElse(false);
+        return memberRoleCacheService.getRole(projectId, userId)
+                .map(role -> role.hasPermission(permission))
+                .orElse(false);
     }
 
     /**
@@ -155,8 +149,7 @@ public class ProjectSecurityUtils {
      * @return 角色（如果不是成员则返回null）
      */
     public ProjectMemberRole getRole(Long projectId, Long userId) {
-        Optional<ProjectMember> member = projectMemberRepository.findByProjectIdAndUserId(projectId, userId);
-        return member.map(ProjectMember::getProjectRole).orElse(null);
+        return memberRoleCacheService.getRole(projectId, userId).orElse(null);
     }
 
     /**
@@ -0,0 +1,119 @@
+package hbnu.project.zhiyanproject.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 任务列表游标编解码工具
+ * 游标内容为 "列表类型|排序键|id" 的 Base64URL 编码，对前端不透明；
+ * 列表类型用于拒绝把 A 列表的游标用在 B 列表上
+ *
+ * @author Tokito
+ */
+public final class TaskCursorUtils {
+
+    /**
+     * 首页哨兵值：降序列表从"最大值"开始，升序列表从"最小值"开始，
+     * 这样首页与后续页共用同一条 seek 查询，无需 ":cursor IS NULL OR ..." 分支（会让 MySQL 放弃范围扫描）；
+     * created_at / assigned_at 为 MySQL TIMESTAMP 列（上限 2038-01-19 03:14:07 UTC），时间哨兵必须落在该范围内，
+     * 取上限前一天以抵消会话时区换算
+     */
+    public static final LocalDateTime MAX_DATE_TIME = LocalDateTime.of(2038, 1, 18, 0, 0, 0);
+    public static final Instant MAX_INSTANT = Instant.parse("2038-01-18T00:00:00Z");
+    public static final LocalDate MIN_DATE = LocalDate.of(1000, 1, 1);
+    public static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    /**
+     * 单页最大条数
+     */
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String SEPARATOR = "|";
+
+    private TaskCursorUtils() {
+    }
+
+    /**
+     * 游标解码结果
+     *
+     * @param sortKey 排序键的字符串形式
+     * @param id      同排序键下的 id 决胜
+     */
+    public record Cursor(String sortKey, Long id) {
+
+        public LocalDateTime sortKeyAsDateTime() {
+            try {
+                return LocalDateTime.parse(sortKey);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("无效的分页游标", e);
+            }
+        }
+
+        public Instant sortKeyAsInstant() {
+            try {
+                return Instant.parse(sortKey);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("无效的分页游标", e);
+            }
+        }
+
+        public LocalDate sortKeyAsDate() {
+            try {
+                return LocalDate.parse(sortKey);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("无效的分页游标", e);
+            }
+        }
+    }
+
+    /**
+     * 编码游标
+     *
+     * @param listType 列表类型
+     * @param sortKey  最后一条记录的排序键
+     * @param id       最后一条记录的 id
+     * @return 不透明游标
+     */
+    public static String encode(String listType, Object sortKey, Long id) {
+        String raw = listType + SEPARATOR + sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解码游标
+     *
+     * @param listType 期望的列表类型
+     * @param cursor   游标，为空表示第一页
+     * @return 解码结果，第一页返回 null
+     * @throws IllegalArgumentException 游标格式错误或不属于该列表
+     */
+    public static Cursor decode(String listType, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR);
+            if (parts.length != 3 || !listType.equals(parts[0])) {
+                throw new IllegalArgumentException("游标与当前列表不匹配");
+            }
+            return new Cursor(parts[1], Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+
+    /**
+     * 规范化每页大小
+     */
+    public static int normalizeSize(int size) {
+        if (size <= 0) {
+            return 20;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,187 @@
+package hbnu.project.zhiyanproject.utils.message;
+
+import hbnu.project.zhiyancommonbasic.domain.R;
+import hbnu.project.zhiyancommonbasic.utils.JsonUtils;
+import hbnu.project.zhiyanmessage.model.pojo.SendMessageRequestPOJO;
+import hbnu.project.zhiyanproject.client.MessageServiceClient;
+import hbnu.project.zhiyanproject.model.entity.NotificationOutbox;
+import hbnu.project.zhiyanproject.service.NotificationOutboxService;
+import jakarta.annotation.Resource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 通知发件箱投递器
+ * 业务事务提交后立即唤醒投递，另有周期任务兜底重试与租约回收
+ * 每批通知通过一次 Feign 调用批量发送到消息服务
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxRelay implements ApplicationRunner {
+
+    /**
+     * 单批领取数量
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * 兜底轮询间隔（秒）
+     */
+    private static final long POLL_INTERVAL_SECONDS = 5;
+
+    /**
+     * 清理已投递记录的间隔（小时）与保留天数
+     */
+    private static final long PURGE_INTERVAL_HOURS = 6;
+    private static final int SENT_RETENTION_DAYS = 7;
+
+    private final NotificationOutboxService notificationOutboxService;
+
+    private final MessageServiceClient messageServiceClient;
+
+    @Resource(name = "scheduledExecutorService")
+    private ScheduledExecutorService scheduledExecutorService;
+
+    /**
+     * 本节点同一时刻只跑一个投递循环，唤醒请求合并
+     */
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicBoolean pendingWakeUp = new AtomicBoolean(false);
+
+    /**
+     * 发件箱写入事件，随业务事务提交后触发
+     */
+    public record OutboxEnqueuedEvent(Long outboxId) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        scheduledExecutorService.scheduleWithFixedDelay(this::drainSafely,
+                POLL_INTERVAL_SECONDS, POLL_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        scheduledExecutorService.scheduleWithFixedDelay(this::purgeSafely,
+                PURGE_INTERVAL_HOURS, PURGE_INTERVAL_HOURS, TimeUnit.HOURS);
+        log.info("通知发件箱投递器已启动: pollInterval={}s, batchSize={}", POLL_INTERVAL_SECONDS, BATCH_SIZE);
+    }
+
+    /**
+     * 业务事务提交后唤醒投递
+     * 无事务时（fallbackExecution）写入即已落库，同样可以直接投递
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEnqueued(OutboxEnqueuedEvent event) {
+        pendingWakeUp.set(true);
+        if (!draining.get()) {
+            scheduledExecutorService.execute(this::drainSafely);
+        }
+    }
+
+    /**
+     * 循环领取并投递，直到没有到期记录
+     */
+    private void drainSafely() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            do {
+                pendingWakeUp.set(false);
+                while (drainOnce() == BATCH_SIZE) {
+                    // 满批说明可能还有积压，继续领取
+                }
+            } while (pendingWakeUp.get());
+        } catch (Exception e) {
+            log.error("通知发件箱投递异常", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    /**
+     * 领取一批并投递
+     *
+     * @return 本批领取数量
+     */
+    private int drainOnce() {
+        List<NotificationOutbox> batch = notificationOutboxService.claimDue(BATCH_SIZE);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> ids = new ArrayList<>(batch.size());
+        List<SendMessageRequestPOJO> requests = new ArrayList<>(batch.size());
+        List<Long> malformedIds = new ArrayList<>();
+        for (NotificationOutbox outbox : batch) {
+            SendMessageRequestPOJO request;
+            try {
+                request = JsonUtils.parseObject(outbox.getPayload(), SendMessageRequestPOJO.class);
+            } catch (RuntimeException e) {
+                request = null;
+            }
+            if (request == null) {
+                malformedIds.add(outbox.getId());
+                continue;
+            }
+            ids.add(outbox.getId());
+            requests.add(request);
+        }
+        if (!malformedIds.isEmpty()) {
+            notificationOutboxService.complete(List.of(), malformedIds, "消息请求体无法解析");
+        }
+        if (requests.isEmpty()) {
+            return batch.size();
+        }
+
+        List<Long> succeeded = new ArrayList<>();
+        List<Long> failed = new ArrayList<>();
+        String error = null;
+        try {
+            R<List<Boolean>> result = messageServiceClient.sendBulkMessages(requests);
+            if (R.isSuccess(result) && result.getData() != null && result.getData().size() == ids.size()) {
+                List<Boolean> flags = result.getData();
+                for (int i = 0; i < ids.size(); i++) {
+                    (Boolean.TRUE.equals(flags.get(i)) ? succeeded : failed).add(ids.get(i));
+                }
+                error = "消息服务拒绝该条消息";
+            } else {
+                failed.addAll(ids);
+                error = result != null ? result.getMsg() : "消息服务无响应";
+            }
+        } catch (Exception e) {
+            failed.addAll(ids);
+            error = e.getMessage();
+            log.warn("批量投递通知失败，稍后重试: count={}, error={}", ids.size(), e.getMessage());
+        }
+
+        notificationOutboxService.complete(succeeded, failed, error);
+        log.debug("通知发件箱投递完成: 成功={}, 失败={}", succeeded.size(), failed.size());
+        return batch.size();
+    }
+
+    /**
+     * 清理过期的已投递记录
+     */
+    private void purgeSafely() {
+        try {
+            int deleted = notificationOutboxService.purgeSent(SENT_RETENTION_DAYS);
+            if (deleted > 0) {
+                log.info("清理已投递通知记录: {} 条", deleted);
+            }
+        } catch (Exception e) {
+            log.error("清理已投递通知记录失败", e);
+        }
+    }
+}
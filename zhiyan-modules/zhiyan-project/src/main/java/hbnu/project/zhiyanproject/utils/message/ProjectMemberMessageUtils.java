@@ -4,10 +4,10 @@ import hbnu.project.zhiyancommonbasic.domain.R;
 
 import hbnu.project.zhiyanmessage.model.pojo.SendMessageRequestPOJO;
 import hbnu.project.zhiyanproject.client.AuthServiceClient;
-import hbnu.project.zhiyanproject.client.MessageServiceClient;
 import hbnu.project.zhiyanproject.model.dto.UserDTO;
 import hbnu.project.zhiyanproject.model.entity.Project;
 import hbnu.project.zhiyanproject.model.entity.ProjectMember;
+import hbnu.project.zhiyanproject.service.NotificationOutboxService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,7 +27,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProjectMemberMessageUtils {
 
-    private final MessageServiceClient messageServiceClient;
+    private final NotificationOutboxService notificationOutboxService;
     private final AuthServiceClient authServiceClient;
 
     /**
@@ -76,11 +76,10 @@ public class ProjectMemberMessageUtils {
                     .businessType("PROJECT")
                     .extendData(buildProjectExtendData(project, member))
                     .build();
-            R<Void> result = messageServiceClient.sendPersonalMessage(sendMessageRequestDTO);
-            if(!R.isSuccess(result)){
-                log.warn("发送成员邀请通知失败: projectId={}, userId={}, error={}", project.getId(), member.getUserId(), result.getMsg());
-            }
-        }catch (Exception e){
+            notificationOutboxService.enqueue(sendMessageRequestDTO);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送成员邀请通知异常: projectId={}, userId={}", project.getId(), member.getUserId(), e);
         }
     }
@@ -114,12 +113,10 @@ public class ProjectMemberMessageUtils {
                     .extendData(buildProjectExtendData(project, newMember))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送新成员加入通知失败: projectId={}, error={}",
-                        project.getId(), result.getMsg());
-            }
-        }catch (Exception e){
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送新成员加入通知异常: projectId={}", project.getId(), e);
         }
     }
@@ -145,12 +142,10 @@ public class ProjectMemberMessageUtils {
                     .build();
 
 
-            R<Void> result = messageServiceClient.sendPersonalMessage(sendMessageRequestDTO);
-            if (!R.isSuccess(result)) {
-                log.warn("发送成员移除通知失败: projectId={}, userId={}, error={}",
-                        project.getId(), removedUserId, result.getMsg());
-            }
-        }catch (Exception e){
+            notificationOutboxService.enqueue(sendMessageRequestDTO);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送成员移除通知异常: projectId={}, userId={}", project.getId(), removedUserId, e);
         }
     }
@@ -182,12 +177,10 @@ public class ProjectMemberMessageUtils {
                     .extendData(buildProjectExtendData(project, leftMember))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送成员离开通知失败: projectId={}, error={}",
-                        project.getId(), result.getMsg());
-            }
-        }catch (Exception e) {
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送成员离开通知异常: projectId={}", project.getId(), e);
         }
     }
@@ -219,12 +212,10 @@ public class ProjectMemberMessageUtils {
                     .extendData(buildProjectExtendData(project, member))
                     .build();
 
-            R<Void> result = messageServiceClient.sendPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送角色变更通知给成员失败: projectId={}, userId={}, error={}",
-                        project.getId(), member.getUserId(), result.getMsg());
-            }
-        }catch (Exception e){
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送角色变更通知给成员异常: projectId={}, userId={}", project.getId(), member.getUserId(), e);
         }
     }
@@ -253,11 +244,9 @@ public class ProjectMemberMessageUtils {
                     .extendData(buildProjectExtendData(project, member))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送角色变更通知给管理员失败: projectId={}, error={}",
-                        project.getId(), result.getMsg());
-            }
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
         } catch (Exception e) {
             log.error("发送角色变更通知给管理员异常: projectId={}", project.getId(), e);
         }
@@ -3,10 +3,10 @@ package hbnu.project.zhiyanproject.utils.message;
 import hbnu.project.zhiyancommonbasic.domain.R;
 import hbnu.project.zhiyanmessage.model.pojo.SendMessageRequestPOJO;
 import hbnu.project.zhiyanproject.client.AuthServiceClient;
-import hbnu.project.zhiyanproject.client.MessageServiceClient;
 import hbnu.project.zhiyanproject.model.dto.UserDTO;
 import hbnu.project.zhiyanproject.model.entity.Project;
 import hbnu.project.zhiyanproject.model.enums.ProjectStatus;
+import hbnu.project.zhiyanproject.service.NotificationOutboxService;
 
 
 
@@ -28,7 +28,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ProjectMessageUtils {
 
-    private final MessageServiceClient messageServiceClient;
+    private final NotificationOutboxService notificationOutboxService;
     private final AuthServiceClient authServiceClient;
 
     /**
@@ -76,12 +76,10 @@ public class ProjectMessageUtils {
                     .extendData(buildProjectExtendData(project))
                     .build();
 
-            R<Void> result = messageServiceClient.sendPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送项目创建通知失败: projectId={}, error={}",
-                        project.getId(), result.getMsg());
-            }
-        }catch(Exception e){
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送项目创建通知异常: projectId={}", project.getId(), e);
         }
     }
@@ -110,12 +108,10 @@ public class ProjectMessageUtils {
                     .extendData(buildProjectExtendData(project))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送项目状态变更通知失败: projectId={}, error={}",
-                        project.getId(), result.getMsg());
-            }
-        }catch(Exception e){
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送项目状态变更通知异常: projectId={}", project.getId(), e);
         }
     }
@@ -146,12 +142,10 @@ public class ProjectMessageUtils {
                     .extendData(buildProjectExtendData(project))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送项目删除通知失败: projectId={}, error={}",
-                        project.getId(), result.getMsg());
-            }
-        }catch(Exception e){
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送项目删除通知异常: projectId={}", project.getId(), e);
         }
     }
@@ -181,12 +175,10 @@ public class ProjectMessageUtils {
                     .extendData(buildProjectExtendData(project))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送项目归档通知失败: projectId={}, error={}",
-                        project.getId(), result.getMsg());
-            }
-        }catch(Exception e){
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送项目归档通知异常: projectId={}", project.getId(), e);
         }
     }
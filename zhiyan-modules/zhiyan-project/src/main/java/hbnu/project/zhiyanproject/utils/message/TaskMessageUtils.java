@@ -3,7 +3,6 @@ package hbnu.project.zhiyanproject.utils.message;
 import hbnu.project.zhiyancommonbasic.domain.R;
 import hbnu.project.zhiyanmessage.model.pojo.SendMessageRequestPOJO;
 import hbnu.project.zhiyanproject.client.AuthServiceClient;
-import hbnu.project.zhiyanproject.client.MessageServiceClient;
 import hbnu.project.zhiyanproject.model.dto.UserDTO;
 import hbnu.project.zhiyanproject.model.entity.TaskUser;
 import hbnu.project.zhiyanproject.model.entity.Tasks;
@@ -11,12 +10,17 @@ import hbnu.project.zhiyanproject.model.entity.TaskSubmission;
 import hbnu.project.zhiyanproject.model.enums.ReviewStatus;
 import hbnu.project.zhiyanproject.model.enums.TaskStatus;
 import hbnu.project.zhiyanproject.repository.TaskUserRepository;
+import hbnu.project.zhiyanproject.service.NotificationOutboxService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -30,7 +34,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class TaskMessageUtils {
 
-    private final MessageServiceClient messageServiceClient;
+    private final NotificationOutboxService notificationOutboxService;
 
     private final TaskUserRepository taskUserRepository;
 
@@ -85,10 +89,9 @@ public class TaskMessageUtils {
                     .extendData(buildTaskExtendData(task))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送任务创建通知失败: taskId={}, error={}", task.getId(), result.getMsg());
-            }
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
         } catch (Exception e) {
             log.error("发送任务创建通知异常: taskId={}", task.getId(), e);
         }
@@ -118,11 +121,10 @@ public class TaskMessageUtils {
                     .extendData(buildTaskExtendData(task))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送任务分配通知失败: taskId={}, error={}", task.getId(), result.getMsg());
-            }
-        }catch (Exception e){
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送任务分配通知异常: taskId={}", task.getId(), e);
         }
     }
@@ -156,10 +158,9 @@ public class TaskMessageUtils {
                     .extendData(buildTaskExtendData(task))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送任务状态变更通知失败: taskId={}, error={}", task.getId(), result.getMsg());
-            }
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
         } catch (Exception e) {
             log.error("发送任务状态变更通知异常: taskId={}", task.getId(), e);
         }
@@ -191,11 +192,10 @@ public class TaskMessageUtils {
                     .extendData(buildTaskExtendData(task))
                     .build();
 
-            R<Void> result = messageServiceClient.sendPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送任务接取通知失败: taskId={}, error={}", task.getId(), result.getMsg());
-            }
-        }catch (Exception e) {
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送任务接取通知异常: taskId={}", task.getId(), e);
         }
     }
@@ -227,10 +227,9 @@ public class TaskMessageUtils {
                     .extendData(buildTaskSubmissionExtendData(submission, task))
                     .build();
 
-            R<Void> result = messageServiceClient.sendPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送任务提交通知失败: submissionId={}, error={}", submission.getId(), result.getMsg());
-            }
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
         } catch (Exception e) {
             log.error("发送任务提交通知异常: submissionId={}", submission.getId(), e);
         }
@@ -260,16 +259,15 @@ public class TaskMessageUtils {
                     .extendData(buildTaskSubmissionExtendData(submission, task))
                     .build();
 
-            R<Void> result = messageServiceClient.sendPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送任务审核结果通知失败: submissionId={}, error={}", submission.getId(), result.getMsg());
-            }
+            notificationOutboxService.enqueue(request);
 
             // 如果最终提交被通过，通知项目内所有人
             if (reviewStatus == ReviewStatus.APPROVED && Boolean.TRUE.equals(submission.getIsFinal())) {
                 sendTaskCompletedNotification(task, submission.getSubmitterId());
             }
-        }catch (Exception e) {
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送任务审核结果通知异常: submissionId={}", submission.getId(), e);
         }
     }
@@ -299,10 +297,9 @@ public class TaskMessageUtils {
                     .extendData(buildTaskExtendData(task))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送任务完成通知失败: taskId={}, error={}", task.getId(), result.getMsg());
-            }
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
         } catch (Exception e) {
             log.error("发送任务完成通知异常: taskId={}", task.getId(), e);
         }
@@ -332,10 +329,9 @@ public class TaskMessageUtils {
                     .extendData(buildTaskSubmissionExtendData(submission, task))
                     .build();
 
-            R<Void> result = messageServiceClient.sendPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送任务撤回通知失败: submissionId={}, error={}", submission.getId(), result.getMsg());
-            }
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
         } catch (Exception e) {
             log.error("发送任务撤回通知异常: submissionId={}", submission.getId(), e);
         }
@@ -363,10 +359,9 @@ public class TaskMessageUtils {
                     .extendData(buildTaskExtendData(task))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送任务人数已满通知失败: taskId={}, error={}", task.getId(), result.getMsg());
-            }
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
         } catch (Exception e) {
             log.error("发送任务人数已满通知异常: taskId={}", task.getId(), e);
         }
@@ -393,11 +388,10 @@ public class TaskMessageUtils {
                     .extendData(buildTaskExtendData(task))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(requestDTO);
-            if (!R.isSuccess(result)) {
-                log.warn("发送任务到期提醒失败: taskId={}, error={}", task.getId(), result.getMsg());
-            }
-        }catch (Exception e) {
+            notificationOutboxService.enqueue(requestDTO);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
             log.error("发送任务到期提醒异常: taskId={}", task.getId(), e);
         }
     }
@@ -423,16 +417,99 @@ public class TaskMessageUtils {
                     .extendData(buildTaskExtendData(task))
                     .build();
 
-            R<Void> result = messageServiceClient.sendBatchPersonalMessage(request);
-            if (!R.isSuccess(result)) {
-                log.warn("发送任务逾期警告失败: taskId={}, error={}", task.getId(), result.getMsg());
-            }
+            notificationOutboxService.enqueue(request);
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
         } catch (Exception e) {
             log.error("发送任务逾期警告异常: taskId={}", task.getId(), e);
         }
     }
 
 
+    /**
+     * 发送批量任务操作的汇总通知
+     * 每个用户只收到一条消息；受影响任务集合相同的用户合并为一次群发
+     *
+     * @param scene       消息场景
+     * @param title       消息标题
+     * @param action      操作描述，例如"为您分配了任务"
+     * @param tasksByUser 用户ID -> 该用户受影响的任务
+     * @param operatorId  操作人ID
+     * @return 收到通知的用户数
+     */
+    public int sendBatchTaskNotification(String scene, String title, String action,
+                                         Map<Long, List<Tasks>> tasksByUser, Long operatorId) {
+        if (tasksByUser == null || tasksByUser.isEmpty()) {
+            return 0;
+        }
+        try {
+            String operatorName = getUserNameById(operatorId);
+
+            // 按任务集合分组，集合相同的用户共用一条群发消息
+            Map<List<Long>, List<Long>> receiversByTaskSet = new LinkedHashMap<>();
+            Map<List<Long>, List<Tasks>> tasksByTaskSet = new HashMap<>();
+            tasksByUser.forEach((userId, tasks) -> {
+                if (tasks == null || tasks.isEmpty()) {
+                    return;
+                }
+                List<Long> taskIds = tasks.stream().map(Tasks::getId).sorted().toList();
+                receiversByTaskSet.computeIfAbsent(taskIds, k -> new ArrayList<>()).add(userId);
+                tasksByTaskSet.putIfAbsent(taskIds, tasks);
+            });
+
+            int notified = 0;
+            for (Map.Entry<List<Long>, List<Long>> entry : receiversByTaskSet.entrySet()) {
+                List<Tasks> tasks = tasksByTaskSet.get(entry.getKey());
+                SendMessageRequestPOJO request = SendMessageRequestPOJO.builder()
+                        .scene(scene)
+                        .senderId(operatorId)
+                        .receiverIds(entry.getValue())
+                        .title(title)
+                        .content(String.format("「%s」%s（共%d个）：%s",
+                                operatorName, action, tasks.size(), summarizeTaskTitles(tasks)))
+                        .businessId(tasks.size() == 1 ? tasks.get(0).getId() : null)
+                        .businessType("TASK")
+                        .extendData(tasks.size() == 1 ? buildTaskExtendData(tasks.get(0)) : buildBatchTaskExtendData(tasks))
+                        .build();
+                notificationOutboxService.enqueue(request);
+                notified += entry.getValue().size();
+            }
+            return notified;
+        } catch (NotificationOutboxService.EnqueueException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("发送批量任务通知异常: scene={}, users={}", scene, tasksByUser.size(), e);
+            return 0;
+        }
+    }
+
+    /**
+     * 汇总任务标题，最多列出5个
+     */
+    private String summarizeTaskTitles(List<Tasks> tasks) {
+        String titles = tasks.stream()
+                .limit(5)
+                .map(t -> "「" + t.getTitle() + "」")
+                .collect(Collectors.joining("、"));
+        return tasks.size() > 5 ? titles + " 等" : titles;
+    }
+
+    /**
+     * 构建批量任务扩展数据
+     */
+    private String buildBatchTaskExtendData(List<Tasks> tasks) {
+        String taskIds = tasks.stream()
+                .map(t -> "\"" + t.getId() + "\"")
+                .collect(Collectors.joining(","));
+        String projectIds = tasks.stream()
+                .map(Tasks::getProjectId)
+                .distinct()
+                .map(id -> "\"" + id + "\"")
+                .collect(Collectors.joining(","));
+        return String.format("{\"taskIds\":[%s],\"projectIds\":[%s],\"batch\":true,\"jumpUrl\":\"/tasks\"}",
+                taskIds, projectIds);
+    }
+
     /**
      * 构建任务扩展数据
      */
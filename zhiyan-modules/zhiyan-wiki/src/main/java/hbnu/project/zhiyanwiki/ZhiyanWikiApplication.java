@@ -5,6 +5,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.Import;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
@@ -27,6 +28,14 @@ import org.springframework.data.mongodb.repository.config.EnableMongoRepositorie
         "hbnu.project.zhiyanwiki.model.entity"
         // 移除 activelog entity 扫描，避免在本服务数据库创建操作日志表
 })
+// 只引入 ES 客户端与工具类，不扫描检索模块自带的启动类
+@Import({
+        hbnu.project.zhiyancommonelasticsearch.config.ElasticsearchConfig.class,
+        hbnu.project.zhiyancommonelasticsearch.util.ElasticsearchUtil.class,
+        // 成员访问信息缓存及其失效监听（加载器由本服务的 ProjectMemberAccessLoader 提供）
+        hbnu.project.zhiyancommonsecurity.member.MemberAccessCache.class,
+        hbnu.project.zhiyancommonsecurity.member.MemberChangeTopicListener.class
+})
 public class ZhiyanWikiApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,26 @@
+package hbnu.project.zhiyanwiki.client;
+
+import hbnu.project.zhiyancommonbasic.domain.R;
+import hbnu.project.zhiyancommonsecurity.member.MemberAccessDTO;
+import hbnu.project.zhiyancommonsecurity.member.MemberAccessLoader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 通过项目服务批量接口加载成员访问信息
+ *
+ * @author ErgouTree
+ */
+@Component
+@RequiredArgsConstructor
+public class ProjectMemberAccessLoader implements MemberAccessLoader {
+
+    private final ProjectServiceClient projectServiceClient;
+
+    @Override
+    public R<List<MemberAccessDTO>> batchCheckMembers(List<MemberAccessDTO> queries) {
+        return projectServiceClient.batchCheckMembers(queries);
+    }
+}
@@ -1,10 +1,13 @@
 package hbnu.project.zhiyanwiki.client;
 
 import hbnu.project.zhiyancommonbasic.domain.R;
+import hbnu.project.zhiyancommonsecurity.member.MemberAccessDTO;
 import hbnu.project.zhiyanwiki.model.dto.ProjectDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
@@ -76,4 +79,14 @@ public interface ProjectServiceClient {
      */
     @GetMapping("/{projectId}")
     R<ProjectDTO>  getProjectById(@PathVariable("projectId") Long projectId);
+
+
+    /**
+     * 批量查询成员关系、角色和权限
+     *
+     * @param queries 待查询的 (projectId, userId) 组合
+     * @return 与请求顺序一致的成员访问信息
+     */
+    @PostMapping("/members/batch-check")
+    R<List<MemberAccessDTO>> batchCheckMembers(@RequestBody List<MemberAccessDTO> queries);
 }
@@ -1,5 +1,6 @@
 package hbnu.project.zhiyanwiki.config;
 
+import hbnu.project.zhiyanwiki.interceptor.WikiTopicRelayInterceptor;
 import hbnu.project.zhiyanwiki.interceptor.WikiWebSocketInterceptor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
@@ -21,6 +22,8 @@ public class WikiWebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final WikiWebSocketInterceptor wikiWebSocketInterceptor;
 
+    private final WikiTopicRelayInterceptor wikiTopicRelayInterceptor;
+
     /**
      * 配置消息代理
      */
@@ -29,6 +32,8 @@ public class WikiWebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // 启用简单的内存消息代理，用于向客户端发送消息
         // 客户端订阅 /topic/wiki/{pageId} 接收广播消息
         config.enableSimpleBroker("/topic", "/user");
+        // 内存代理只能投递给本节点的连接，/topic/wiki/** 经 Redis 频道中继给其他节点
+        config.configureBrokerChannel().interceptors(wikiTopicRelayInterceptor);
         // 客户端发送消息的目标前缀
         config.setApplicationDestinationPrefixes("/app");
         // 用户专属消息前缀
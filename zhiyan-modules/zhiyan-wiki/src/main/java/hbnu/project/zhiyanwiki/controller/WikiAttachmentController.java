@@ -83,6 +83,49 @@ public class WikiAttachmentController {
         return R.ok(result, "附件上传成功");
     }
 
+    /**
+     * 秒传附件
+     * 客户端先提交文件的SHA-256，本项目已有相同内容时直接登记，返回 data 为空时需改为正常上传
+     * 权限要求：已登录 + 项目成员
+     */
+    @PostMapping("/upload/instant")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "秒传附件", description = "按文件内容哈希登记附件，本项目已有相同内容时无需上传")
+    public R<WikiAttachmentDTO> uploadAttachmentByHash(
+            @Parameter(description = "文件名") @RequestParam("fileName") String fileName,
+            @Parameter(description = "文件内容SHA-256（十六进制）") @RequestParam("sha256") String sha256,
+            @Parameter(description = "文件大小（字节）") @RequestParam("fileSize") Long fileSize,
+            @Parameter(description = "Wiki页面ID") @RequestParam("wikiPageId") Long wikiPageId,
+            @Parameter(description = "项目ID") @RequestParam("projectId") Long projectId,
+            @Parameter(description = "附件类型（IMAGE/FILE，可选）") @RequestParam(value = "attachmentType", required = false) String attachmentType,
+            @Parameter(description = "文件描述") @RequestParam(value = "description", required = false) String description) {
+
+        Long userId = SecurityUtils.getUserId();
+        if (userId == null) {
+            return R.fail(R.UNAUTHORIZED, "未登录或令牌无效");
+        }
+
+        log.info("用户[{}]秒传Wiki附件: wikiPageId={}, projectId={}, fileName={}, sha256={}",
+                userId, wikiPageId, projectId, fileName, sha256);
+
+        // 权限检查：必须是项目成员
+        wikiSecurityUtils.requireProjectMember(projectId);
+
+        WikiAttachmentUploadDTO uploadDTO = WikiAttachmentUploadDTO.builder()
+                .wikiPageId(wikiPageId)
+                .projectId(projectId)
+                .attachmentType(attachmentType)
+                .description(description)
+                .uploadBy(userId)
+                .build();
+
+        WikiAttachmentDTO result = wikiOssService.uploadAttachmentByHash(uploadDTO, fileName, sha256, fileSize);
+        if (result == null) {
+            return R.ok(null, "服务端没有相同内容，请上传文件");
+        }
+        return R.ok(result, "秒传成功");
+    }
+
     /**
      * 批量上传附件
      * 权限要求：已登录 + 项目成员
@@ -1,10 +1,12 @@
 package hbnu.project.zhiyanwiki.controller;
 
 import hbnu.project.zhiyancommonbasic.exception.ControllerException;
+import hbnu.project.zhiyancommonbasic.exception.ServiceException;
 import hbnu.project.zhiyancommonsecurity.utils.SecurityUtils;
 import hbnu.project.zhiyanwiki.model.dto.WikiCollaborationDTO;
 import hbnu.project.zhiyanwiki.service.WikiCollaborationService;
 import hbnu.project.zhiyanwiki.service.WikiContentService;
+import hbnu.project.zhiyanwiki.service.WikiOperationTransformService;
 import hbnu.project.zhiyanwiki.service.WikiPageService;
 import hbnu.project.zhiyanwiki.utils.WikiSecurityUtils;
 import jakarta.annotation.Resource;
@@ -44,6 +46,9 @@ public class WikiCollaborationController {
     @Resource
     private final WikiSecurityUtils wikiSecurityUtils;
 
+    @Resource
+    private final WikiOperationTransformService operationTransformService;
+
 
     /**
      * 用户加入编辑页面
@@ -93,6 +98,9 @@ public class WikiCollaborationController {
                 );
             }
 
+            // 发送协同编辑会话快照，新加入的用户从快照和之后的操作追平
+            sendOtSnapshot(pageId, principal);
+
             log.info("用户[{}]加入页面[{}]编辑", userId, pageId);
         }catch (ControllerException e){
             log.error("用户加入编辑失败", e);
@@ -122,6 +130,11 @@ public class WikiCollaborationController {
             // 释放内容锁（如果有）
             collaborationService.releaseLock(pageId, userId);
 
+            // 最后一个编辑者离开时保存并关闭协同编辑会话
+            if (collaborationService.getEditorCount(pageId) == 0) {
+                operationTransformService.closeSession(pageId);
+            }
+
             // 通知其他用户有人离开
             List<WikiCollaborationDTO.EditorInfo> editors =
                     collaborationService.getOnlineEditors(pageId);
@@ -154,23 +167,9 @@ public class WikiCollaborationController {
             // 权限检查
             wikiSecurityUtils.requireAccess(pageId);
 
-            // 检查用户是否在编辑
-            if(!collaborationService.isUserEditing(userId, pageId)){
-                return;
-            }
-
-            // 刷新编辑状态
-            collaborationService.refreshEditingStatus(pageId, userId);
-
-            // 保存用户位置
-            cursorPosition.setUserId(userId);
-            collaborationService.updateCursorPosition(userId, cursorPosition);
-
-            // 广播光标位置给用户
-            simpMessagingTemplate.convertAndSend(
-                    "/topic/wiki/"+ pageId + "/cursors",
-                    cursorPosition
-            );
+            // 登记最新光标位置，同一用户的连续移动按 tick 合并，
+            // 校验编辑状态、写入和广播到 /topic/wiki/{pageId}/cursors 都在合并后统一进行
+            collaborationService.updateCursorPosition(pageId, userId, cursorPosition);
         }catch (ControllerException e){
             log.error("更新光标位置失败", e);
         }
@@ -203,30 +202,9 @@ public class WikiCollaborationController {
             }
 
             try {
-                // 获取项目ID
-                Long projectId = wikiContentService.getProjectIdByPageId(pageId);
-                if (projectId == null) {
-                    throw new RuntimeException("无法获取项目ID");
-                }
-
-                // 保存新版本，先输入的被覆盖
-                String newContent = change.getContent();
-                wikiContentService.saveNewVersion(
-                        pageId,
-                        projectId,
-                        newContent,
-                        "协同编辑更新",
-                        userId
-                );
-
-                // 广播内容变更给所有编辑者
-                change.setUserId(userId);
-                change.setTimestamp(java.time.LocalDateTime.now());
-
-                simpMessagingTemplate.convertAndSend(
-                        "/topic/wiki/" + pageId + "/content",
-                        change
-                );
+                // 替换协同编辑会话的工作副本，先输入的被覆盖；版本在静默、积压或显式保存时合并写入
+                // 新内容由会话所有者按序列号顺序广播给所有编辑者
+                operationTransformService.replaceContent(pageId, userId, change.getContent());
 
                 log.info("用户[{}]提交页面[{}]内容变更", userId, pageId);
             }finally {
@@ -265,21 +243,80 @@ public class WikiCollaborationController {
             // 刷新编辑状态
             collaborationService.refreshEditingStatus(pageId, userId);
 
-            // 设置用户ID和时间戳
-            change.setUserId(userId);
-            change.setTimestamp(java.time.LocalDateTime.now());
-
-            // 广播增量变更给其他用户（不发给发送者自己）
-            simpMessagingTemplate.convertAndSend(
-                    "/topic/wiki/" + pageId + "/incremental",
-                    change
-            );
+            // 变换到已接受的并发操作之上并分配序列号，规范操作由会话所有者广播，发送者据 clientOpId 确认自己的操作
+            try {
+                operationTransformService.submit(pageId, userId, change);
+            } catch (ServiceException e) {
+                // 基线过期或操作无效，发送者按会话快照重新同步
+                log.warn("增量变更被拒绝: pageId={}, userId={}, reason={}", pageId, userId, e.getDefaultMessage());
+                sendOtSnapshot(pageId, principal);
+            }
         }catch (ControllerException e){
             log.error("处理增量变更失败", e);
         }
     }
 
 
+    /**
+     * 立即保存协同编辑内容
+     * 客户端发送消息到: /app/wiki/{pageId}/save
+     */
+    @MessageMapping("/wiki/{pageId}/save")
+    public void saveNow(
+            @DestinationVariable Long pageId,
+            Principal principal) {
+        Long userId = Long.parseLong(principal.getName());
+
+        // 权限检查
+        wikiSecurityUtils.requireEdit(pageId);
+
+        Integer version = operationTransformService.saveNow(pageId);
+        simpMessagingTemplate.convertAndSendToUser(
+                principal.getName(),
+                "/queue/saved",
+                WikiCollaborationDTO.SyncMessage.builder()
+                        .type("SAVED")
+                        .pageId(pageId)
+                        .userId(userId)
+                        .data(version)
+                        .timestamp(java.time.LocalDateTime.now())
+                        .build()
+        );
+    }
+
+
+    /**
+     * 重新同步协同编辑会话
+     * 客户端发送消息到: /app/wiki/{pageId}/ot-sync
+     */
+    @MessageMapping("/wiki/{pageId}/ot-sync")
+    public void syncOperations(
+            @DestinationVariable Long pageId,
+            Principal principal) {
+        Long userId = Long.parseLong(principal.getName());
+        if (!collaborationService.isUserEditing(userId, pageId)) {
+            return;
+        }
+        sendOtSnapshot(pageId, principal);
+    }
+
+
+    /**
+     * 发送会话快照给指定用户，页面没有内容（目录节点）时不发送
+     */
+    private void sendOtSnapshot(Long pageId, Principal principal) {
+        try {
+            simpMessagingTemplate.convertAndSendToUser(
+                    principal.getName(),
+                    "/queue/ot-snapshot",
+                    operationTransformService.snapshot(pageId)
+            );
+        } catch (ServiceException e) {
+            log.debug("页面[{}]没有可协同编辑的内容: {}", pageId, e.getMessage());
+        }
+    }
+
+
     /**
      * 心跳消息（保持连接活跃）
      * 客户端发送消息到: /app/wiki/{pageId}/heartbeat
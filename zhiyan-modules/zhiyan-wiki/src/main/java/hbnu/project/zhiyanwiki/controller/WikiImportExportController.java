@@ -1,6 +1,7 @@
 package hbnu.project.zhiyanwiki.controller;
 
 import hbnu.project.zhiyancommonbasic.domain.R;
+import hbnu.project.zhiyancommonoss.util.ZipStreamWriter;
 import hbnu.project.zhiyancommonsecurity.utils.SecurityUtils;
 import hbnu.project.zhiyanwiki.model.dto.WikiExportDTO;
 import hbnu.project.zhiyanwiki.model.dto.WikiImportDTO;
@@ -95,7 +96,7 @@ public class WikiImportExportController {
      */
     @PostMapping("/projects/{projectId}/export/batch")
     @PreAuthorize("isAuthenticated()")
-    @Operation(summary = "批量导出Wiki页面", description = "将多个Wiki页面打包导出为ZIP文件")
+    @Operation(summary = "批量导出Wiki页面", description = "将多个Wiki页面打包导出为ZIP文件（流式下载）")
     public void exportPages(
             @PathVariable Long projectId,
             @RequestBody List<Long> pageIds,
@@ -114,24 +115,40 @@ public class WikiImportExportController {
                 .pageIds(pageIds)
                 .build();
 
-        // 批量导出
-        byte[] zipContent = exportService.exportPages(pageIds, exportDTO);
+        // 写响应头之前完成校验，出错时仍能返回正常的错误响应
+        List<ZipStreamWriter.ZipSource> sources = exportService.pageSources(projectId, pageIds, exportDTO);
+        exportService.requireSyncExportable(sources);
 
-        // 设置响应头
-        String fileName = "wiki_pages_" + projectId + ".zip";
-        String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8)
-                .replaceAll("\\+", "%20");
+        writeZipResponse("wiki_pages_" + projectId + ".zip", sources, response);
+    }
 
-        response.setContentType("application/zip");
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=\"" + encodedFileName + "\"; filename*=UTF-8''" + encodedFileName);
-        response.setContentLength(zipContent.length);
+    /**
+     * 异步批量导出Wiki页面
+     * 压缩包生成后上传到对象存储，通过站内消息发送下载链接
+     * 权限要求：已登录 + 项目成员
+     */
+    @PostMapping("/projects/{projectId}/export/batch/async")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "异步批量导出Wiki页面", description = "后台打包，完成后通过站内消息发送下载链接")
+    public R<String> exportPagesAsync(
+            @PathVariable Long projectId,
+            @RequestBody List<Long> pageIds,
+            @RequestParam(defaultValue = "MARKDOWN") String format) {
 
-        // 写入响应
-        response.getOutputStream().write(zipContent);
-        response.flushBuffer();
+        Long userId = SecurityUtils.getUserId();
+        log.info("用户[{}]异步批量导出项目[{}]的Wiki页面，数量: {}", userId, projectId, pageIds.size());
 
-        log.info("批量导出成功: projectId={}, count={}, size={}", projectId, pageIds.size(), zipContent.length);
+        // 权限检查：必须是项目成员
+        wikiSecurityUtils.requireProjectMember(projectId);
+
+        WikiExportDTO exportDTO = WikiExportDTO.builder()
+                .format(format)
+                .pageIds(pageIds)
+                .build();
+
+        String taskId = exportService.exportPagesAsync(projectId, pageIds, userId, exportDTO);
+
+        return R.ok(taskId, "导出任务已提交，完成后将通过消息通知");
     }
 
     /**
@@ -140,7 +157,7 @@ public class WikiImportExportController {
      */
     @GetMapping("/pages/{pageId}/export/directory")
     @PreAuthorize("isAuthenticated()")
-    @Operation(summary = "导出Wiki目录树", description = "导出Wiki目录及其所有子页面（ZIP格式）")
+    @Operation(summary = "导出Wiki目录树", description = "导出Wiki目录及其所有子页面（ZIP格式，流式下载）")
     public void exportDirectory(
             @PathVariable Long pageId,
             @RequestParam(defaultValue = "MARKDOWN") String format,
@@ -158,24 +175,38 @@ public class WikiImportExportController {
                 .includeChildren(true)
                 .build();
 
-        // 导出目录树
-        byte[] zipContent = exportService.exportDirectory(pageId, exportDTO);
+        // 写响应头之前完成校验，出错时仍能返回正常的错误响应
+        List<ZipStreamWriter.ZipSource> sources = exportService.directorySources(pageId, exportDTO);
+        exportService.requireSyncExportable(sources);
 
-        // 设置响应头
-        String fileName = "wiki_directory_" + pageId + ".zip";
-        String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8)
-                .replaceAll("\\+", "%20");
+        writeZipResponse("wiki_directory_" + pageId + ".zip", sources, response);
+    }
 
-        response.setContentType("application/zip");
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=\"" + encodedFileName + "\"; filename*=UTF-8''" + encodedFileName);
-        response.setContentLength(zipContent.length);
+    /**
+     * 异步导出整个Wiki目录树
+     * 权限要求：已登录 + 有访问权限
+     */
+    @PostMapping("/pages/{pageId}/export/directory/async")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "异步导出Wiki目录树", description = "后台打包，完成后通过站内消息发送下载链接")
+    public R<String> exportDirectoryAsync(
+            @PathVariable Long pageId,
+            @RequestParam(defaultValue = "MARKDOWN") String format) {
 
-        // 写入响应
-        response.getOutputStream().write(zipContent);
-        response.flushBuffer();
+        Long userId = SecurityUtils.getUserId();
+        log.info("用户[{}]异步导出Wiki目录树[{}]", userId, pageId);
+
+        // 权限检查：必须有访问权限
+        wikiSecurityUtils.requireAccess(pageId);
 
-        log.info("目录树导出成功: pageId={}, size={}", pageId, zipContent.length);
+        WikiExportDTO exportDTO = WikiExportDTO.builder()
+                .format(format)
+                .includeChildren(true)
+                .build();
+
+        String taskId = exportService.exportDirectoryAsync(pageId, userId, exportDTO);
+
+        return R.ok(taskId, "导出任务已提交，完成后将通过消息通知");
     }
 
     /**
@@ -262,6 +293,24 @@ public class WikiImportExportController {
         return R.ok(result, result.getMessage());
     }
 
+    /**
+     * 流式写出ZIP响应，长度未知，使用分块传输
+     */
+    private void writeZipResponse(String fileName, List<ZipStreamWriter.ZipSource> sources,
+                                  HttpServletResponse response) throws IOException {
+        String encodedFileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8)
+                .replaceAll("\\+", "%20");
+
+        response.setContentType("application/zip");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + encodedFileName + "\"; filename*=UTF-8''" + encodedFileName);
+
+        ZipStreamWriter.Result result = exportService.writeZip(sources, response.getOutputStream());
+        response.flushBuffer();
+
+        log.info("ZIP导出完成: file={}, written={}, failed={}", fileName, result.written(), result.failed().size());
+    }
+
     /**
      * 获取文件扩展名
      */
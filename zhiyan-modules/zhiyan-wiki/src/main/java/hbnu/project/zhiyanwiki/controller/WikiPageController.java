@@ -197,6 +197,24 @@ public class WikiPageController {
         return R.ok(tree);
     }
 
+    /**
+     * 按需加载Wiki子树
+     * 权限要求：已登录 + 项目成员
+     */
+    @GetMapping("/projects/{projectId}/tree/children")
+    @PreAuthorize("isAuthenticated()")
+    @Operation(summary = "加载Wiki子树", description = "按层加载目录树，适用于页面很多的项目")
+    public R<List<WikiPageTreeDTO>> getWikiSubtree(
+            @PathVariable Long projectId,
+            @Parameter(description = "父页面ID，为空时加载根页面") @RequestParam(required = false) Long parentId,
+            @Parameter(description = "加载层数") @RequestParam(defaultValue = "1") int depth) {
+
+        // 权限检查：必须是项目成员
+        wikiSecurityUtils.requireProjectMember(projectId);
+
+        return R.ok(wikiPageService.getWikiSubtree(projectId, parentId, depth));
+    }
+
     /**
      * 搜索Wiki页面（标题）
      * 权限要求：已登录 + 项目成员
@@ -229,17 +247,27 @@ public class WikiPageController {
     @GetMapping("/projects/{projectId}/search/content")
     @PreAuthorize("isAuthenticated()")
     @Operation(summary = "全文搜索Wiki", description = "根据关键字搜索Wiki内容")
-    public R<List<WikiSearchDTO>> searchContent(
+    public R<Page<WikiSearchDTO>> searchContent(
             @PathVariable Long projectId,
-            @RequestParam String keyword) {
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
 
         Long userId = SecurityUtils.getUserId();
-        log.info("用户[{}]全文搜索项目[{}]的Wiki: keyword={}", userId, projectId, keyword);
+        log.info("用户[{}]全文搜索项目[{}]的Wiki: keyword={}, page={}, size={}", userId, projectId, keyword, page, size);
+
+        if (page < 0) {
+            return R.fail("页码必须大于等于0");
+        }
+        if (size <= 0 || size > 100) {
+            return R.fail("每页数量必须在1-100之间");
+        }
 
         // 权限检查：必须是项目成员
         wikiSecurityUtils.requireProjectMember(projectId);
 
-        List<WikiSearchDTO> result = wikiPageService.searchByContent(projectId, keyword);
+        Pageable pageable = PageRequest.of(page, size);
+        Page<WikiSearchDTO> result = wikiPageService.searchByContent(projectId, keyword, pageable);
 
         return R.ok(result);
     }
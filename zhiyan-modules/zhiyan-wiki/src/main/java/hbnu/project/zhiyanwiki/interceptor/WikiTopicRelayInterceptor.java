@@ -0,0 +1,312 @@
+package hbnu.project.zhiyanwiki.interceptor;
+
+import hbnu.project.zhiyancommonbasic.utils.JsonUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wiki 广播消息跨节点中继
+ * 挂在 brokerChannel 上，本节点发往 /topic/wiki/** 的消息照常由内存代理投递给本节点订阅者，
+ * 同时按页面缓冲，每个 tick 把同一页面的消息合并成一条通过 Redis 频道发给其他节点；
+ * 其他节点收到后交给自己的内存代理投递，并打上来源标记避免再次中继。
+ * 没有 Redis 时只做本节点投递，和原来的内存代理行为一致。
+ * <p>
+ * content、incremental 只由页面 OT 会话的所有者节点按序列号顺序广播（见 WikiOtSessionRouter），
+ * 同一页面的消息按 tick 成批、按原顺序中继，其他节点的订阅者收到的是同一条规范序列
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+public class WikiTopicRelayInterceptor implements ChannelInterceptor, ApplicationRunner {
+
+    public static final String RELAY_TOPIC = "wiki:stomp:relay";
+
+    /**
+     * 中继消息的来源节点标记，只在服务端消息头中，不会下发给客户端
+     */
+    public static final String RELAY_ORIGIN_HEADER = "wikiRelayOrigin";
+
+    private static final String WIKI_TOPIC_PREFIX = "/topic/wiki/";
+
+    /**
+     * 合并发送的间隔（毫秒）
+     */
+    private static final long TICK_MILLIS = 20;
+
+    /**
+     * 单个页面一个 tick 内最多缓冲的消息数，超出的丢弃（光标等高频消息后到的会覆盖前面的状态）
+     */
+    private static final int MAX_PENDING_PER_PAGE = 1000;
+
+    /**
+     * 页面扇出指标在没有中继消息多久后注销（毫秒），只保留活跃页面的指标
+     */
+    private static final long FANOUT_METER_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 页面ID -> 待中继的消息，增删都在 ConcurrentHashMap 的单键原子操作里完成，不会丢消息
+     */
+    private final Map<String, List<RelayMessage>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 页面ID -> 该页面的扇出指标
+     */
+    private final Map<String, PageFanOut> fanOutSummaries = new ConcurrentHashMap<>();
+
+    @Resource
+    private ObjectProvider<RedissonClient> redissonClientProvider;
+
+    @Resource
+    private ObjectProvider<SimpMessagingTemplate> messagingTemplateProvider;
+
+    @Resource
+    private ObjectProvider<SimpUserRegistry> userRegistryProvider;
+
+    @Resource
+    private MeterRegistry meterRegistry;
+
+    @Resource(name = "scheduledExecutorService")
+    private ScheduledExecutorService scheduledExecutorService;
+
+    private volatile RTopic relayTopic;
+
+    private Timer latencyTimer;
+    private DistributionSummary batchSizeSummary;
+    private Counter publishedCounter;
+    private Counter receivedCounter;
+    private Counter droppedCounter;
+
+    /**
+     * 单条中继消息，payload 是代理通道上已经序列化好的 JSON 文本
+     *
+     * @param destination 目标地址
+     * @param contentType 内容类型
+     * @param payload     消息体
+     * @param sentAt      进入本节点代理通道的时间（毫秒），用于统计跨节点投递延迟
+     */
+    public record RelayMessage(String destination, String contentType, String payload, long sentAt) {
+    }
+
+    /**
+     * 同一页面一个 tick 内的消息批
+     */
+    public record RelayBatch(String origin, String pageId, List<RelayMessage> messages) {
+    }
+
+    /**
+     * 页面的扇出指标和最近一次记录的时间
+     */
+    private static final class PageFanOut {
+        private final DistributionSummary summary;
+        private volatile long lastRecordedAt;
+
+        private PageFanOut(DistributionSummary summary) {
+            this.summary = summary;
+        }
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        latencyTimer = Timer.builder("wiki.collab.relay.latency")
+                .description("Wiki 广播消息从源节点进入代理到本节点投递的耗时")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        batchSizeSummary = DistributionSummary.builder("wiki.collab.relay.batch.size")
+                .description("每个页面每个 tick 合并发送的消息数")
+                .register(meterRegistry);
+        publishedCounter = meterRegistry.counter("wiki.collab.relay.messages", "direction", "out");
+        receivedCounter = meterRegistry.counter("wiki.collab.relay.messages", "direction", "in");
+        droppedCounter = meterRegistry.counter("wiki.collab.relay.messages", "direction", "dropped");
+
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient == null) {
+            log.warn("未配置 RedissonClient，Wiki 协同消息只在本节点投递");
+            return;
+        }
+        RTopic topic = redissonClient.getTopic(RELAY_TOPIC);
+        topic.addListener(String.class, (channel, message) -> onRelayBatch(message));
+        relayTopic = topic;
+        scheduledExecutorService.scheduleAtFixedRate(this::flushSafely, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+        scheduledExecutorService.scheduleWithFixedDelay(this::removeIdleFanOutMeters, 1, 1, TimeUnit.MINUTES);
+        log.info("Wiki 协同消息跨节点中继已启动: nodeId={}, tick={}ms", nodeId, TICK_MILLIS);
+    }
+
+    /**
+     * 登记本节点发出的页面广播，消息本身原样交给内存代理
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (relayTopic == null || message.getHeaders().containsKey(RELAY_ORIGIN_HEADER)) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE
+                || destination == null || !destination.startsWith(WIKI_TOPIC_PREFIX)
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        String pageId = extractPageId(destination);
+        MimeType contentType = accessor.getContentType();
+        RelayMessage relayMessage = new RelayMessage(destination,
+                contentType != null ? contentType.toString() : null,
+                new String(payload, StandardCharsets.UTF_8),
+                System.currentTimeMillis());
+        pending.compute(pageId, (key, messages) -> {
+            if (messages == null) {
+                messages = new ArrayList<>();
+            }
+            if (messages.size() < MAX_PENDING_PER_PAGE) {
+                messages.add(relayMessage);
+            } else {
+                droppedCounter.increment();
+            }
+            return messages;
+        });
+        return message;
+    }
+
+    /**
+     * 每个 tick 把各页面缓冲的消息合并成一批发布
+     */
+    private void flushSafely() {
+        RTopic topic = relayTopic;
+        if (topic == null || pending.isEmpty()) {
+            return;
+        }
+        for (String pageId : pending.keySet()) {
+            List<RelayMessage> messages = pending.remove(pageId);
+            if (messages == null || messages.isEmpty()) {
+                continue;
+            }
+            try {
+                topic.publishAsync(JsonUtils.toJsonString(new RelayBatch(nodeId, pageId, messages)));
+                batchSizeSummary.record(messages.size());
+                publishedCounter.increment(messages.size());
+            } catch (Exception e) {
+                droppedCounter.increment(messages.size());
+                log.warn("中继Wiki协同消息失败: pageId={}, count={}, error={}", pageId, messages.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 收到其他节点的消息批，逐条交给本节点内存代理投递
+     */
+    private void onRelayBatch(String json) {
+        RelayBatch batch;
+        try {
+            batch = JsonUtils.parseObject(json, RelayBatch.class);
+        } catch (Exception e) {
+            log.warn("忽略格式错误的Wiki中继消息: {}", e.getMessage());
+            return;
+        }
+        if (batch == null || nodeId.equals(batch.origin()) || batch.messages() == null) {
+            return;
+        }
+        SimpMessagingTemplate messagingTemplate = messagingTemplateProvider.getIfAvailable();
+        if (messagingTemplate == null) {
+            return;
+        }
+
+        Map<String, Integer> subscriberCounts = new HashMap<>();
+        PageFanOut fanOut = fanOutSummary(batch.pageId());
+        long now = System.currentTimeMillis();
+        for (RelayMessage relayMessage : batch.messages()) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(relayMessage.destination());
+            if (relayMessage.contentType() != null) {
+                accessor.setContentType(MimeType.valueOf(relayMessage.contentType()));
+            }
+            accessor.setHeader(RELAY_ORIGIN_HEADER, batch.origin());
+            accessor.setLeaveMutable(true);
+            Message<byte[]> message = MessageBuilder.createMessage(
+                    relayMessage.payload().getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+            try {
+                messagingTemplate.send(relayMessage.destination(), message);
+            } catch (Exception e) {
+                log.warn("投递Wiki中继消息失败: destination={}, error={}", relayMessage.destination(), e.getMessage());
+                continue;
+            }
+            receivedCounter.increment();
+            // 节点间时钟偏差会计入延迟，只用于观察趋势
+            latencyTimer.record(Math.max(0, now - relayMessage.sentAt()), TimeUnit.MILLISECONDS);
+            fanOut.summary.record(subscriberCounts.computeIfAbsent(relayMessage.destination(), this::countSubscribers));
+        }
+        log.debug("投递Wiki中继消息: pageId={}, origin={}, count={}", batch.pageId(), batch.origin(), batch.messages().size());
+    }
+
+    private int countSubscribers(String destination) {
+        SimpUserRegistry userRegistry = userRegistryProvider.getIfAvailable();
+        return userRegistry != null
+                ? userRegistry.findSubscriptions(subscription -> destination.equals(subscription.getDestination())).size()
+                : 0;
+    }
+
+    /**
+     * 页面的扇出指标，按页面ID打标签，便于定位订阅集中在哪些页面
+     */
+    private PageFanOut fanOutSummary(String pageId) {
+        PageFanOut fanOut = fanOutSummaries.computeIfAbsent(pageId, key -> new PageFanOut(
+                DistributionSummary.builder("wiki.collab.relay.fanout")
+                        .description("中继消息在本节点投递到的订阅数")
+                        .tag("pageId", key)
+                        .register(meterRegistry)));
+        fanOut.lastRecordedAt = System.currentTimeMillis();
+        return fanOut;
+    }
+
+    /**
+     * 注销长时间没有中继消息的页面扇出指标，避免页面标签无限增长
+     */
+    private void removeIdleFanOutMeters() {
+        long now = System.currentTimeMillis();
+        fanOutSummaries.forEach((pageId, fanOut) -> {
+            if (now - fanOut.lastRecordedAt > FANOUT_METER_IDLE_MILLIS
+                    && fanOutSummaries.remove(pageId, fanOut)) {
+                meterRegistry.remove(fanOut.summary);
+            }
+        });
+    }
+
+    /**
+     * /topic/wiki/{pageId}/... 中的页面ID，同一页面的各类消息合并为一批
+     */
+    private String extractPageId(String destination) {
+        int start = WIKI_TOPIC_PREFIX.length();
+        int end = destination.indexOf('/', start);
+        return end < 0 ? destination.substring(start) : destination.substring(start, end);
+    }
+}
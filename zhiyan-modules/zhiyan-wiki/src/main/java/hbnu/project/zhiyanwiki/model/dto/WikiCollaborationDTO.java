@@ -3,6 +3,7 @@ package hbnu.project.zhiyanwiki.model.dto;
 import lombok.*;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 
 /**
@@ -95,6 +96,10 @@ public class WikiCollaborationDTO {
         private Long userId;
         private String content;
         private Integer version;
+        /**
+         * 整篇替换后的序列号，之后的增量操作以此为基线
+         */
+        private Long sequence;
         private LocalDateTime timestamp;
     }
 
@@ -124,6 +129,18 @@ public class WikiCollaborationDTO {
          * 删除的文本长度
          */
         private Integer length;
+        /**
+         * 客户端生成操作时已确认的最新序列号，服务端据此变换并发操作
+         */
+        private Long baseSequence;
+        /**
+         * 服务端分配的序列号（广播的规范操作流中有值）
+         */
+        private Long sequence;
+        /**
+         * 客户端操作ID，发送者据此确认自己的操作已被接受
+         */
+        private String clientOpId;
         /**
          * 用户ID
          */
@@ -135,6 +152,39 @@ public class WikiCollaborationDTO {
     }
 
 
+    /**
+     * 协同编辑会话快照（新加入或需要重新同步的编辑者用）
+     * 客户端加载 content 后依次应用 ops，即得到 latestSequence 时的文档
+     */
+    @Setter
+    @Getter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OtSnapshot {
+        /**
+         * 页面ID
+         */
+        private Long pageId;
+        /**
+         * 快照对应的序列号
+         */
+        private Long sequence;
+        /**
+         * 快照内容
+         */
+        private String content;
+        /**
+         * 快照之后的规范操作
+         */
+        private List<IncrementalChange> ops;
+        /**
+         * 最新序列号
+         */
+        private Long latestSequence;
+    }
+
+
     /**
      * 编辑状态同步消息
      */
@@ -0,0 +1,19 @@
+package hbnu.project.zhiyanwiki.model.dto;
+
+import hbnu.project.zhiyanwiki.model.enums.PageType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Wiki内容搜索结果的页面投影
+ * 只包含 {@link WikiSearchDTO} 需要的列，一页搜索结果用一条查询加载
+ *
+ * @author ErgouTree
+ */
+public record WikiPageSearchRow(Long id,
+                                String title,
+                                String path,
+                                PageType pageType,
+                                LocalDateTime updatedAt,
+                                Long lastEditorId) {
+}
@@ -0,0 +1,24 @@
+package hbnu.project.zhiyanwiki.model.dto;
+
+import hbnu.project.zhiyanwiki.model.enums.PageType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Wiki树节点投影
+ * 构建目录树只需要的列，一条查询取出整个项目的页面
+ *
+ * @author ErgouTree
+ */
+public record WikiPageTreeRow(Long id,
+                              Long parentId,
+                              String title,
+                              String path,
+                              Integer sortOrder,
+                              Boolean isPublic,
+                              PageType pageType,
+                              Integer currentVersion,
+                              String contentSummary,
+                              LocalDateTime createdAt,
+                              LocalDateTime updatedAt) {
+}
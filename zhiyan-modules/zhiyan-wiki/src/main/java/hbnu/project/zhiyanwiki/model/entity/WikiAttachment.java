@@ -26,7 +26,8 @@ import java.time.LocalDateTime;
         @Index(name = "idx_project", columnList = "project_id"),
         @Index(name = "idx_type", columnList = "attachment_type"),
         @Index(name = "idx_upload_by", columnList = "upload_by"),
-        @Index(name = "idx_upload_at", columnList = "upload_at")
+        @Index(name = "idx_upload_at", columnList = "upload_at"),
+        @Index(name = "idx_content_hash", columnList = "content_hash")
 })
 @DynamicInsert
 @DynamicUpdate
@@ -94,6 +95,13 @@ public class WikiAttachment {
     @Column(name = "object_key", nullable = false, length = 500, columnDefinition = "VARCHAR(500) COMMENT 'MinIO对象键'")
     private String objectKey;
 
+    /**
+     * 文件内容SHA-256（内容寻址存储）
+     * 为空表示历史附件，对象由该记录独占
+     */
+    @Column(name = "content_hash", length = 64, columnDefinition = "CHAR(64) COMMENT '文件内容SHA-256'")
+    private String contentHash;
+
     /**
      * 完整访问URL
      */
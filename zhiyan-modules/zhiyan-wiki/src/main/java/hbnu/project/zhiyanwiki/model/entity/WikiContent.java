@@ -1,5 +1,6 @@
 package hbnu.project.zhiyanwiki.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Id;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -72,6 +73,12 @@ public class WikiContent {
      */
     private List<RecentVersion> recentVersions;
 
+    /**
+     * 上次保存快照之后累计的差异补丁字符数，用于按大小决定是否提前保存快照
+     */
+    @JsonIgnore
+    private Long patchCharsSinceSnapshot;
+
     // ==================== 元数据 ====================
 
     /**
@@ -101,14 +108,12 @@ public class WikiContent {
     private Set<Long> activeEditors;
 
     /**
-     * 操作序列号（用于协同编辑的操作变换 OT）
-     * TODO: 暂未使用，待协同编辑功能实现
+     * 操作序列号（协同编辑会话分配的最后一个操作序列号，会话重建时从这里继续）
      */
     private Long operationSequence;
 
     /**
      * 最后一次协同编辑同步时间
-     * TODO: 暂未使用，待协同编辑功能实现
      */
     private LocalDateTime lastSyncAt;
 
@@ -167,5 +172,11 @@ public class WikiContent {
          * 内容哈希值（该版本的完整内容哈希）
          */
         private String contentHash;
+
+        /**
+         * 该版本完整内容的压缩快照（仅检查点版本有），归档时随版本移入历史表
+         */
+        @JsonIgnore
+        private byte[] snapshot;
     }
 }
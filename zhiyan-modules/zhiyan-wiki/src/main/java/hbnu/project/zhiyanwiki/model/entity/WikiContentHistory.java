@@ -1,5 +1,6 @@
 package hbnu.project.zhiyanwiki.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Id;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -94,6 +95,13 @@ public class WikiContentHistory {
      */
     private String contentHash;
 
+    /**
+     * 该版本完整内容的 GZIP 压缩快照，每隔若干版本保存一次，为空表示只有差异补丁
+     * 重建历史版本时从不低于目标版本的最近快照开始逆向应用补丁
+     */
+    @JsonIgnore
+    private byte[] snapshot;
+
     /**
      * 归档时间（当该版本从recent移入history时的时间）
      */
@@ -0,0 +1,62 @@
+package hbnu.project.zhiyanwiki.repository;
+
+import hbnu.project.zhiyanwiki.model.entity.WikiAttachmentBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * Wiki附件内容索引Repository
+ * 引用计数的增减都用单条 UPDATE 完成，依赖行锁保证并发安全
+ *
+ * @author Tokito
+ */
+@Repository
+public interface WikiAttachmentBlobRepository extends JpaRepository<WikiAttachmentBlob, Long> {
+
+    /**
+     * 根据内容哈希查询
+     *
+     * @param sha256 内容SHA-256
+     * @return 内容索引
+     */
+    Optional<WikiAttachmentBlob> findBySha256(String sha256);
+
+    /**
+     * 引用计数加一（计数已归零、正在回收的记录不能再被引用）
+     *
+     * @param id 内容ID
+     * @return 更新行数，0 表示内容已被回收
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WikiAttachmentBlob b SET b.refCount = b.refCount + 1 WHERE b.id = :id AND b.refCount > 0")
+    int incrementRefCount(@Param("id") Long id);
+
+    /**
+     * 引用计数减一
+     *
+     * @param id 内容ID
+     * @return 更新行数
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE WikiAttachmentBlob b SET b.refCount = b.refCount - 1 WHERE b.id = :id AND b.refCount > 0")
+    int decrementRefCount(@Param("id") Long id);
+
+    /**
+     * 删除已无引用的内容记录
+     *
+     * @param id 内容ID
+     * @return 删除行数，1 表示由本次调用负责删除对象
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM WikiAttachmentBlob b WHERE b.id = :id AND b.refCount = 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+}
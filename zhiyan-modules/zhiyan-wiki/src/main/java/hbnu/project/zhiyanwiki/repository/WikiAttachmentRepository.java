@@ -39,6 +39,15 @@ public interface WikiAttachmentRepository extends JpaRepository<WikiAttachment,
     List<WikiAttachment> findByWikiPageIdAndAttachmentTypeAndIsDeletedFalse(
             Long wikiPageId, AttachmentType attachmentType);
 
+    /**
+     * 检查项目下是否已有引用该内容的附件（秒传只允许复用本项目已有的内容）
+     *
+     * @param projectId   项目ID
+     * @param contentHash 内容SHA-256
+     * @return 是否存在
+     */
+    boolean existsByProjectIdAndContentHashAndIsDeletedFalse(Long projectId, String contentHash);
+
     /**
      * 根据项目ID查询所有附件（分页）
      *
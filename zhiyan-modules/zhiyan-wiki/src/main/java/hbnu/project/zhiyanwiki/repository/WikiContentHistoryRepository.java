@@ -24,8 +24,9 @@ public interface WikiContentHistoryRepository extends MongoRepository<WikiConten
      * 根据Wiki页面ID查询所有历史版本（按版本号降序）
      *
      * @param wikiPageId Wiki页面ID
-     * @return 历史版本列表
+     * @return 历史版本列表（不含快照）
      */
+    @Query(value = "{ 'wikiPageId': ?0 }", fields = "{ 'snapshot': 0 }", sort = "{ 'version': -1 }")
     List<WikiContentHistory> findByWikiPageIdOrderByVersionDesc(Long wikiPageId);
 
     /**
@@ -104,5 +105,38 @@ public interface WikiContentHistoryRepository extends MongoRepository<WikiConten
      */
     @Query("{ 'wikiPageId': ?0, 'version': { $gte: ?1, $lte: ?2 } }")
     List<WikiContentHistory> findByWikiPageIdAndVersionBetween(Long wikiPageId, Integer minVersion, Integer maxVersion);
+
+    /**
+     * 查询版本号范围内的差异补丁（不加载快照），用于重建历史版本
+     *
+     * @param wikiPageId Wiki页面ID
+     * @param minVersion 最小版本号
+     * @param maxVersion 最大版本号
+     * @return 历史版本列表（按版本号降序）
+     */
+    @Query(value = "{ 'wikiPageId': ?0, 'version': { $gte: ?1, $lte: ?2 } }",
+            fields = "{ 'snapshot': 0 }", sort = "{ 'version': -1 }")
+    List<WikiContentHistory> findDiffsByWikiPageIdAndVersionBetween(Long wikiPageId, Integer minVersion, Integer maxVersion);
+
+    /**
+     * 查询不低于指定版本的快照（按版本号升序），取第一条即为离目标版本最近的快照
+     *
+     * @param wikiPageId Wiki页面ID
+     * @param minVersion 最小版本号
+     * @param pageable   分页参数
+     * @return 带快照的历史版本
+     */
+    @Query(value = "{ 'wikiPageId': ?0, 'version': { $gte: ?1 }, 'snapshot': { $exists: true } }",
+            sort = "{ 'version': 1 }")
+    List<WikiContentHistory> findSnapshotsFrom(Long wikiPageId, Integer minVersion, Pageable pageable);
+
+    /**
+     * 查询Wiki页面已有快照的版本（只取版本号）
+     *
+     * @param wikiPageId Wiki页面ID
+     * @return 带快照的历史版本（只含版本号）
+     */
+    @Query(value = "{ 'wikiPageId': ?0, 'snapshot': { $exists: true } }", fields = "{ 'version': 1 }")
+    List<WikiContentHistory> findSnapshotVersionsByWikiPageId(Long wikiPageId);
 }
 
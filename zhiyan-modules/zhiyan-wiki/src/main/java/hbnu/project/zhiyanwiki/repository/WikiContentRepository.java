@@ -2,10 +2,12 @@ package hbnu.project.zhiyanwiki.repository;
 
 
 import hbnu.project.zhiyanwiki.model.entity.WikiContent;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,16 +38,21 @@ public interface WikiContentRepository extends MongoRepository<WikiContent, Stri
     void deleteByProjectId(Long projectId);
 
     /**
-     * 全文搜索（MongoDB 文本索引）
-     * 注意：$text 查询必须与其他条件正确组合
+     * 批量查询检索索引需要的字段（不含版本列表等大字段）
      */
-    @Query("{ '$and': [ { 'projectId': ?0 }, { '$text': { '$search': ?1 } } ] }")
-    List<WikiContent> searchByContent(Long projectId, String keyword);
+    @Query(value = "{ 'wikiPageId': { $in: ?0 } }",
+            fields = "{ 'wikiPageId': 1, 'projectId': 1, 'content': 1, 'updatedAt': 1, 'lastEditorId': 1 }")
+    List<WikiContent> findSearchFieldsByWikiPageIdIn(Collection<Long> wikiPageIds);
 
     /**
-     * 正则表达式搜索（用于短关键词和中文单字）
-     * 当文本索引搜索失败时使用此方法作为备选
+     * 只取页面当前内容（不含版本列表），用于导出
      */
-    @Query("{ 'projectId': ?0, 'content': { $regex: ?1, $options: 'i' } }")
-    List<WikiContent> searchByContentRegex(Long projectId, String keyword);
+    @Query(value = "{ 'wikiPageId': ?0 }", fields = "{ 'wikiPageId': 1, 'content': 1 }")
+    Optional<WikiContent> findContentTextByWikiPageId(Long wikiPageId);
+
+    /**
+     * 按页面ID键集分页遍历（只取 wikiPageId），用于后台批处理
+     */
+    @Query(value = "{ 'wikiPageId': { $gt: ?0 } }", fields = "{ 'wikiPageId': 1 }", sort = "{ 'wikiPageId': 1 }")
+    List<WikiContent> findPageIdsAfter(Long lastWikiPageId, Pageable pageable);
 }
@@ -6,8 +6,11 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import hbnu.project.zhiyanwiki.model.dto.WikiPageSearchRow;
+import hbnu.project.zhiyanwiki.model.dto.WikiPageTreeRow;
 import hbnu.project.zhiyanwiki.model.entity.WikiPage;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -58,6 +61,40 @@ public interface WikiPageRepository extends JpaRepository<WikiPage, Long> {
            "ORDER BY w.sortOrder ASC, w.createdAt ASC")
     List<WikiPage> findRootPages(@Param("projectId") Long projectId);
 
+    /**
+     * 查询项目下全部页面的树节点投影，用于一次性组装目录树
+     *
+     * @param projectId 项目ID
+     * @return 树节点列表（按排序序号升序，同级节点顺序与 findChildPages 一致）
+     */
+    @Query("SELECT new hbnu.project.zhiyanwiki.model.dto.WikiPageTreeRow(w.id, w.parentId, w.title, w.path, " +
+           "w.sortOrder, w.isPublic, w.pageType, w.currentVersion, w.contentSummary, w.createdAt, w.updatedAt) " +
+           "FROM WikiPage w WHERE w.projectId = :projectId ORDER BY w.sortOrder ASC, w.createdAt ASC")
+    List<WikiPageTreeRow> findTreeRows(@Param("projectId") Long projectId);
+
+    /**
+     * 批量查询项目内指定页面的树节点投影，不属于该项目的ID不会返回
+     *
+     * @param projectId 项目ID
+     * @param ids       页面ID列表
+     * @return 树节点列表（顺序不保证）
+     */
+    @Query("SELECT new hbnu.project.zhiyanwiki.model.dto.WikiPageTreeRow(w.id, w.parentId, w.title, w.path, " +
+           "w.sortOrder, w.isPublic, w.pageType, w.currentVersion, w.contentSummary, w.createdAt, w.updatedAt) " +
+           "FROM WikiPage w WHERE w.projectId = :projectId AND w.id IN :ids")
+    List<WikiPageTreeRow> findTreeRowsByProjectIdAndIdIn(@Param("projectId") Long projectId,
+                                                         @Param("ids") Collection<Long> ids);
+
+    /**
+     * 批量查询搜索结果需要的页面列
+     *
+     * @param ids 页面ID列表
+     * @return 页面投影（顺序不保证，调用方按命中顺序组装）
+     */
+    @Query("SELECT new hbnu.project.zhiyanwiki.model.dto.WikiPageSearchRow(w.id, w.title, w.path, w.pageType, " +
+           "w.updatedAt, w.lastEditorId) FROM WikiPage w WHERE w.id IN :ids")
+    List<WikiPageSearchRow> findSearchRowsByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * 根据项目ID和标题查询Wiki页面
      *
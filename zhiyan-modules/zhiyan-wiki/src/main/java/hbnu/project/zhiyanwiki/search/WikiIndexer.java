@@ -0,0 +1,141 @@
+package hbnu.project.zhiyanwiki.search;
+
+import hbnu.project.zhiyancommonelasticsearch.index.GenerationIndexer;
+import hbnu.project.zhiyanwiki.model.entity.WikiContent;
+import hbnu.project.zhiyanwiki.model.entity.WikiPage;
+import hbnu.project.zhiyanwiki.repository.WikiContentRepository;
+import hbnu.project.zhiyanwiki.repository.WikiPageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Wiki检索索引维护
+ * 内容保存、标题修改、页面删除后登记页面ID，合并后按批从 MongoDB（内容）和 MySQL（标题）重新加载并写入索引，
+ * 已不存在的页面从索引删除；合并写入、失败重试和按代次全量重建见 {@link GenerationIndexer}
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+public class WikiIndexer extends GenerationIndexer {
+
+    /**
+     * 单批处理的页面数量
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * 每日全量重建的时刻
+     */
+    private static final int REINDEX_HOUR = 4;
+
+    private final WikiContentRepository wikiContentRepository;
+
+    private final WikiPageRepository wikiPageRepository;
+
+    private final WikiSearchIndex wikiSearchIndex;
+
+    public WikiIndexer(WikiContentRepository wikiContentRepository, WikiPageRepository wikiPageRepository,
+                       WikiSearchIndex wikiSearchIndex) {
+        super(wikiSearchIndex, "Wiki检索索引", "wiki:index", BATCH_SIZE, REINDEX_HOUR);
+        this.wikiContentRepository = wikiContentRepository;
+        this.wikiPageRepository = wikiPageRepository;
+        this.wikiSearchIndex = wikiSearchIndex;
+    }
+
+    /**
+     * 页面变更事件，保存、改名、删除都只携带页面ID，索引内容以提交后的数据为准
+     */
+    public record WikiIndexEvent(Long wikiPageId) {
+    }
+
+    /**
+     * 项目下的Wiki内容被整体删除
+     */
+    public record WikiProjectRemovedEvent(Long projectId) {
+    }
+
+    /**
+     * 业务事务提交后登记变更，延迟合并后写入索引
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChanged(WikiIndexEvent event) {
+        enqueue(event.wikiPageId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProjectRemoved(WikiProjectRemovedEvent event) {
+        getScheduledExecutorService().execute(() -> {
+            try {
+                long removed = wikiSearchIndex.deleteByProject(event.projectId());
+                log.info("删除项目Wiki检索文档: projectId={}, removed={}", event.projectId(), removed);
+            } catch (Exception e) {
+                // 残留文档在每日全量重建时清理，查询时也会因页面不存在被过滤
+                log.error("删除项目Wiki检索文档失败: projectId={}", event.projectId(), e);
+            }
+        });
+    }
+
+    @Override
+    protected List<Long> findIdsAfter(long lastId, int limit) {
+        return wikiContentRepository.findPageIdsAfter(lastId, PageRequest.of(0, limit)).stream()
+                .map(WikiContent::getWikiPageId)
+                .toList();
+    }
+
+    /**
+     * 不属于本代次的文档按最新数据重写，页面或内容已不存在的删除
+     */
+    @Override
+    protected long reconcileOutsideGeneration(List<Long> ids) throws Exception {
+        if (!indexBatch(ids, null)) {
+            throw new IllegalStateException("复查Wiki检索文档失败: count=" + ids.size());
+        }
+        return ids.size();
+    }
+
+    /**
+     * 加载一批页面的内容和标题写入索引，内容或页面已不存在的从索引删除
+     *
+     * @param generation 全量重建代次，增量写入传 null
+     */
+    @Override
+    protected boolean indexBatch(List<Long> ids, String generation) throws Exception {
+        Map<Long, WikiPage> pageById = wikiPageRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(WikiPage::getId, Function.identity()));
+
+        List<WikiSearchDocument> documents = new ArrayList<>(ids.size());
+        Set<Long> missing = new HashSet<>(ids);
+        for (WikiContent content : wikiContentRepository.findSearchFieldsByWikiPageIdIn(ids)) {
+            WikiPage page = pageById.get(content.getWikiPageId());
+            if (page == null) {
+                continue;
+            }
+            missing.remove(content.getWikiPageId());
+            documents.add(WikiSearchDocument.builder()
+                    .id(String.valueOf(content.getWikiPageId()))
+                    .projectId(page.getProjectId())
+                    .title(page.getTitle())
+                    .content(content.getContent())
+                    .updatedAt(toEpochMillis(content.getUpdatedAt()))
+                    .generation(generation)
+                    .build());
+        }
+        boolean upserted = wikiSearchIndex.upsert(documents);
+        boolean deleted = wikiSearchIndex.delete(missing);
+        return upserted && deleted;
+    }
+
+    private Long toEpochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : null;
+    }
+}
@@ -0,0 +1,49 @@
+package hbnu.project.zhiyanwiki.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Wiki检索文档
+ * 只保存参与检索和高亮的字段，页面路径等元数据在查询时从数据库加载，页面移动后无需重建索引
+ *
+ * @author ErgouTree
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WikiSearchDocument {
+
+    /**
+     * Wiki页面ID（文档ID）
+     */
+    private String id;
+
+    /**
+     * 所属项目ID
+     */
+    private Long projectId;
+
+    /**
+     * 页面标题
+     */
+    private String title;
+
+    /**
+     * Markdown 内容（当前最新版本）
+     */
+    private String content;
+
+    /**
+     * 内容更新时间（毫秒）
+     */
+    private Long updatedAt;
+
+    /**
+     * 写入该文档的全量重建代次，增量写入为空；全量重建后只复查不属于本代次的文档
+     */
+    private String generation;
+}
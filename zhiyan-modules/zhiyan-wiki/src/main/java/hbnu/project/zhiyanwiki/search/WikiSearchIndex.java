@@ -0,0 +1,135 @@
+package hbnu.project.zhiyanwiki.search;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.mapping.TypeMapping;
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.elasticsearch._types.query_dsl.TextQueryType;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.HighlightField;
+import co.elastic.clients.elasticsearch.core.search.HighlighterEncoder;
+import co.elastic.clients.util.NamedValue;
+import hbnu.project.zhiyancommonbasic.utils.StringUtils;
+import hbnu.project.zhiyancommonelasticsearch.index.GenerationSearchIndex;
+import hbnu.project.zhiyancommonelasticsearch.util.ElasticsearchUtil;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Wiki检索索引
+ * 封装索引结构、文档写入和检索请求，索引内容由 {@link WikiIndexer} 维护
+ *
+ * @author ErgouTree
+ */
+@Component
+public class WikiSearchIndex extends GenerationSearchIndex {
+
+    public static final String INDEX_NAME = "zhiyan_wiki";
+
+    /**
+     * 中文文本使用内置 cjk 分析器（二元切分），不依赖额外的分词插件
+     */
+    private static final String TEXT_ANALYZER = "cjk";
+
+    /**
+     * 高亮片段长度，与原先截取的上下文长度一致
+     */
+    private static final int SNIPPET_LENGTH = 200;
+
+    public static final String HIGHLIGHT_PRE_TAG = "<mark>";
+    public static final String HIGHLIGHT_POST_TAG = "</mark>";
+
+    public WikiSearchIndex(ElasticsearchClient elasticsearchClient, ElasticsearchUtil elasticsearchUtil) {
+        super(elasticsearchClient, elasticsearchUtil, INDEX_NAME);
+    }
+
+    /**
+     * 检索条件，anyWords 与 phrase 至少有一个
+     *
+     * @param projectId    项目ID
+     * @param anyWords     包含任意一个即可的词
+     * @param excludeWords 必须排除的词，可为空
+     * @param phrase       精确短语，可为空
+     * @param from         起始偏移
+     * @param size         返回条数
+     */
+    public record SearchCriteria(Long projectId, String anyWords, String excludeWords, String phrase,
+                                 int from, int size) {
+    }
+
+    @Override
+    protected void defineMappings(TypeMapping.Builder mappings) {
+        mappings.properties("title", p -> p.text(t -> t.analyzer(TEXT_ANALYZER)))
+                .properties("content", p -> p.text(t -> t.analyzer(TEXT_ANALYZER)))
+                .properties("projectId", p -> p.long_(l -> l))
+                .properties("updatedAt", p -> p.date(d -> d.format("epoch_millis")));
+    }
+
+    /**
+     * 批量写入文档（存在则覆盖）
+     */
+    public boolean upsert(List<WikiSearchDocument> documents) throws IOException {
+        if (documents.isEmpty()) {
+            return true;
+        }
+        return elasticsearchUtil.bulkIndex(INDEX_NAME, documents, WikiSearchDocument::getId);
+    }
+
+    /**
+     * 删除项目下的全部文档
+     *
+     * @return 删除的文档数
+     */
+    public long deleteByProject(Long projectId) throws IOException {
+        var response = elasticsearchClient.deleteByQuery(d -> d
+                .index(INDEX_NAME)
+                .query(q -> q.term(t -> t.field("projectId").value(projectId))));
+        return response.deleted() != null ? response.deleted() : 0;
+    }
+
+    /**
+     * 按相关度检索，只取文档ID和高亮片段（页面元数据由调用方从数据库加载）
+     * 内容没有命中（只命中标题）时返回内容开头作为片段
+     */
+    public SearchResponse<Void> search(SearchCriteria criteria) throws IOException {
+        Query query = Query.of(q -> q.bool(b -> {
+            b.filter(f -> f.term(t -> t.field("projectId").value(criteria.projectId())));
+            if (StringUtils.isNotBlank(criteria.anyWords())) {
+                b.must(m -> m.multiMatch(mm -> mm
+                        .query(criteria.anyWords())
+                        .fields("title^3", "content")));
+            }
+            if (StringUtils.isNotBlank(criteria.phrase())) {
+                b.must(m -> m.multiMatch(mm -> mm
+                        .query(criteria.phrase())
+                        .type(TextQueryType.Phrase)
+                        .fields("title^3", "content")));
+            }
+            if (StringUtils.isNotBlank(criteria.excludeWords())) {
+                b.mustNot(m -> m.multiMatch(mm -> mm
+                        .query(criteria.excludeWords())
+                        .fields("title", "content")));
+            }
+            return b;
+        }));
+
+        return elasticsearchClient.search(s -> s
+                .index(INDEX_NAME)
+                .query(query)
+                .from(criteria.from())
+                .size(criteria.size())
+                .trackTotalHits(t -> t.enabled(true))
+                .source(src -> src.fetch(false))
+                .highlight(h -> h
+                        .preTags(HIGHLIGHT_PRE_TAG)
+                        .postTags(HIGHLIGHT_POST_TAG)
+                        // 先对原文做 HTML 转义再插入高亮标签，页面中的标签不会被前端当作 HTML 渲染
+                        .encoder(HighlighterEncoder.Html)
+                        .fields(NamedValue.of("title", HighlightField.of(f -> f.numberOfFragments(0))),
+                                NamedValue.of("content", HighlightField.of(f -> f
+                                        .fragmentSize(SNIPPET_LENGTH)
+                                        .numberOfFragments(1)
+                                        .noMatchSize(SNIPPET_LENGTH))))), Void.class);
+    }
+}
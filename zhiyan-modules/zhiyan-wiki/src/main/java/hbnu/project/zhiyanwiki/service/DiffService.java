@@ -8,11 +8,17 @@ import hbnu.project.zhiyanwiki.model.entity.ChangeStats; // 导入独立实体
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * 内容差异对比服务
@@ -212,4 +218,37 @@ public class DiffService {
             throw new RuntimeException("逆向应用补丁失败: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 压缩完整内容（用于版本快照存储）
+     *
+     * @param content 完整内容
+     * @return GZIP 压缩后的字节
+     */
+    public byte[] compressContent(String content) {
+        if (content == null) {
+            content = "";
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.max(64, content.length() / 3));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException("压缩版本快照失败", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 解压版本快照
+     *
+     * @param compressed {@link #compressContent(String)} 的结果
+     * @return 完整内容
+     */
+    public String decompressContent(byte[] compressed) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("解压版本快照失败", e);
+        }
+    }
+}
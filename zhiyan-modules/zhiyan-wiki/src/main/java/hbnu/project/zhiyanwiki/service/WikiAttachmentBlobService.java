@@ -0,0 +1,198 @@
+package hbnu.project.zhiyanwiki.service;
+
+import hbnu.project.zhiyancommonbasic.exception.ServiceException;
+import hbnu.project.zhiyancommonbasic.utils.file.FileTypeUtils;
+import hbnu.project.zhiyancommonoss.enums.BucketType;
+import hbnu.project.zhiyancommonoss.service.MinioService;
+import hbnu.project.zhiyancommonoss.util.ContentHashUtils;
+import hbnu.project.zhiyancommonoss.util.MinioUtils;
+import hbnu.project.zhiyanwiki.model.entity.WikiAttachment;
+import hbnu.project.zhiyanwiki.model.entity.WikiAttachmentBlob;
+import hbnu.project.zhiyanwiki.repository.WikiAttachmentBlobRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Wiki附件内容存储服务
+ * 按 SHA-256 内容寻址去重，多个附件共享同一个 MinIO 对象，引用计数归零时才删除对象
+ * 引用计数随调用方事务提交或回滚；新内容的登记在独立事务中完成，调用方回滚时再补偿释放
+ *
+ * @author Tokito
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WikiAttachmentBlobService {
+
+    private static final BucketType WIKI_BUCKET_TYPE = BucketType.WIKI_ASSETS;
+
+    private final WikiAttachmentBlobRepository blobRepository;
+    private final MinioService minioService;
+    private final MinioUtils minioUtils;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * 按内容哈希引用已存储的内容（秒传），命中时引用计数加一
+     *
+     * @param sha256   内容SHA-256
+     * @param fileSize 文件大小，与已存储内容不一致时视为未命中
+     * @return 内容索引，未命中返回 null
+     */
+    @Transactional
+    public WikiAttachmentBlob reference(String sha256, long fileSize) {
+        return tryReference(ContentHashUtils.normalize(sha256), fileSize);
+    }
+
+    /**
+     * 存储上传的附件内容
+     * 相同内容已存在时只增加引用，否则上传到内容寻址对象键并登记
+     *
+     * @param file 上传的文件
+     * @return 内容索引（已计入本次引用）
+     */
+    public WikiAttachmentBlob store(MultipartFile file) {
+        // 命中时不会再经过 MinIO 上传，文件校验需要提前做
+        minioUtils.validateFile(file, FileTypeUtils.getExtension(file), file.getSize());
+
+        String sha256 = ContentHashUtils.sha256Hex(file);
+        WikiAttachmentBlob existing = tryReference(sha256, file.getSize());
+        if (existing != null) {
+            log.info("附件内容已存在，复用已有对象: sha256={}, objectKey={}", sha256, existing.getObjectKey());
+            return existing;
+        }
+
+        String objectKey = minioUtils.buildContentObjectKey(sha256);
+        var uploadResult = minioService.uploadFile(file, WIKI_BUCKET_TYPE, objectKey);
+
+        WikiAttachmentBlob blob = WikiAttachmentBlob.builder()
+                .sha256(sha256)
+                .objectKey(objectKey)
+                .fileUrl(uploadResult.getUrl())
+                .fileSize(file.getSize())
+                .refCount(1)
+                .build();
+        WikiAttachmentBlob saved;
+        try {
+            saved = requiresNew().execute(status -> blobRepository.saveAndFlush(blob));
+        } catch (DataIntegrityViolationException e) {
+            // 其他请求同时上传了相同内容并先完成登记，改为引用对方，删除本次上传的对象
+            deleteObjectQuietly(objectKey);
+            WikiAttachmentBlob winner = tryReference(sha256, file.getSize());
+            if (winner == null) {
+                throw new ServiceException("附件内容登记冲突，请重试");
+            }
+            return winner;
+        } catch (RuntimeException e) {
+            deleteObjectQuietly(objectKey);
+            throw e;
+        }
+
+        compensateOnRollback(sha256);
+        return saved;
+    }
+
+    /**
+     * 释放附件对内容的引用
+     * 引用归零时在事务提交后删除对象；没有内容哈希的历史附件直接删除其对象
+     *
+     * @param attachment 附件记录
+     */
+    @Transactional
+    public void release(WikiAttachment attachment) {
+        if (attachment.getContentHash() == null) {
+            deleteObjectAfterCommit(attachment.getObjectKey());
+            return;
+        }
+        releaseHash(attachment.getContentHash());
+    }
+
+    private WikiAttachmentBlob tryReference(String sha256, long fileSize) {
+        Optional<WikiAttachmentBlob> blob = blobRepository.findBySha256(sha256);
+        if (blob.isEmpty() || !Objects.equals(blob.get().getFileSize(), fileSize)) {
+            return null;
+        }
+        if (blobRepository.incrementRefCount(blob.get().getId()) == 0) {
+            // 引用计数已归零，内容正在被回收
+            return null;
+        }
+        return blob.get();
+    }
+
+    private void releaseHash(String sha256) {
+        Optional<WikiAttachmentBlob> blob = blobRepository.findBySha256(sha256);
+        if (blob.isEmpty()) {
+            log.warn("释放附件内容引用时未找到内容记录: sha256={}", sha256);
+            return;
+        }
+        Long blobId = blob.get().getId();
+        blobRepository.decrementRefCount(blobId);
+        if (blobRepository.deleteIfUnreferenced(blobId) > 0) {
+            log.info("附件内容已无引用，删除对象: sha256={}, objectKey={}", sha256, blob.get().getObjectKey());
+            deleteObjectAfterCommit(blob.get().getObjectKey());
+        }
+    }
+
+    /**
+     * 新内容的登记已在独立事务中提交，调用方事务回滚时需要把这次引用释放掉
+     */
+    private void compensateOnRollback(String sha256) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    requiresNew().executeWithoutResult(s -> releaseHash(sha256));
+                } catch (Exception e) {
+                    log.error("回滚后释放附件内容引用失败: sha256={}", sha256, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 对象删除放在事务提交之后，回滚时对象仍然可用
+     */
+    private void deleteObjectAfterCommit(String objectKey) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteObjectQuietly(objectKey);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteObjectQuietly(objectKey);
+            }
+        });
+    }
+
+    private void deleteObjectQuietly(String objectKey) {
+        try {
+            minioService.deleteFile(WIKI_BUCKET_TYPE, objectKey);
+        } catch (Exception e) {
+            log.error("删除MinIO对象失败: objectKey={}", objectKey, e);
+        }
+    }
+
+    private TransactionTemplate requiresNew() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
@@ -8,19 +8,28 @@ import hbnu.project.zhiyanwiki.model.dto.WikiCollaborationDTO;
 import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Wiki 协同编辑服务
  * 管理在线编辑者、编辑位置等信息
  * 使用 Redis 管理在线编辑者、编辑位置等信息
+ * 加入、离开各用一个 Lua 脚本完成；光标按用户合并，每个 tick 只写入、广播最新位置；
+ * 心跳续期先在本地登记，定期按页面一次管道批量续期
  *
  * @author ErgouTree
  * @author yui，ErgouTree,YesMyDarkness
@@ -28,7 +37,7 @@ import java.util.concurrent.TimeUnit;
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class WikiCollaborationService {
+public class WikiCollaborationService implements ApplicationRunner {
 
     @Resource
     private final AuthServiceClient authServiceClient;
@@ -39,6 +48,12 @@ public class WikiCollaborationService {
     @Resource
     private final ObjectMapper objectMapper;
 
+    @Resource
+    private final SimpMessagingTemplate simpMessagingTemplate;
+
+    @Resource(name = "scheduledExecutorService")
+    private ScheduledExecutorService scheduledExecutorService;
+
     // Redis Key 前缀
     private static final String PAGE_EDITORS_KEY = "wiki:editors:page:";
     private static final String USER_CURSOR_KEY = "wiki:cursor:user:";
@@ -50,14 +65,52 @@ public class WikiCollaborationService {
     private static final long CURSOR_TTL = 60; // 1分钟
     private static final long CONTENT_LOCK_TTL = 30; // 30秒
 
-    // 存储每个页面的在线编辑者（页面ID -> 用户ID集合）
-    private final Map<Long, Set<Long>> pageEditors = new ConcurrentHashMap<>();
+    // 光标合并写入、广播的间隔（毫秒）
+    private static final long CURSOR_TICK_MILLIS = 50;
+
+    // 心跳批量续期的间隔（秒），远小于 EDITOR_TTL
+    private static final long REFRESH_INTERVAL_SECONDS = 30;
+
+    /**
+     * 加入编辑：登记编辑者、续期编辑者集合、记录用户所在页面
+     * KEYS: 页面编辑者集合, 用户页面映射; ARGV: 用户ID, 页面ID, 过期秒数
+     */
+    private static final RedisScript<Long> JOIN_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('SADD', KEYS[1], ARGV[1]) " +
+            "redis.call('EXPIRE', KEYS[1], ARGV[3]) " +
+            "redis.call('SET', KEYS[2], ARGV[2], 'EX', ARGV[3]) " +
+            "return redis.call('SCARD', KEYS[1])",
+            Long.class);
 
-    // 存储每个用户的编辑位置（用户ID -> 编辑位置信息）
-    private final Map<Long, WikiCollaborationDTO.CursorPosition> userCursors = new ConcurrentHashMap<>();
+    /**
+     * 离开编辑：移出编辑者集合（为空时删除）、删除用户页面映射和光标
+     * KEYS: 页面编辑者集合, 用户页面映射, 用户光标; ARGV: 用户ID
+     */
+    private static final RedisScript<Long> LEAVE_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('SREM', KEYS[1], ARGV[1]) " +
+            "local size = redis.call('SCARD', KEYS[1]) " +
+            "if size == 0 then redis.call('DEL', KEYS[1]) end " +
+            "redis.call('DEL', KEYS[2], KEYS[3]) " +
+            "return size",
+            Long.class);
 
-    // 存储用户与页面的映射（用户ID -> 正在编辑的页面ID）
-    private final Map<Long, Long> userPageMap = new ConcurrentHashMap<>();
+    // 待写入的光标位置（用户ID -> 最新位置），同一用户一个 tick 内只保留最后一次
+    private final Map<Long, PendingCursor> pendingCursors = new ConcurrentHashMap<>();
+
+    // 待续期的编辑状态（页面ID -> 用户ID集合），增删都在单键原子操作里完成
+    private final Map<Long, Set<Long>> pendingRefresh = new ConcurrentHashMap<>();
+
+    private record PendingCursor(Long pageId, WikiCollaborationDTO.CursorPosition position) {
+    }
+
+
+    @Override
+    public void run(ApplicationArguments args) {
+        scheduledExecutorService.scheduleWithFixedDelay(this::flushCursorsSafely,
+                CURSOR_TICK_MILLIS, CURSOR_TICK_MILLIS, TimeUnit.MILLISECONDS);
+        scheduledExecutorService.scheduleWithFixedDelay(this::flushRefreshSafely,
+                REFRESH_INTERVAL_SECONDS, REFRESH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
 
 
     /**
@@ -65,14 +118,10 @@ public class WikiCollaborationService {
      */
     public void joinEditing(Long pageId, Long userId) {
         try {
-            // 添加到页面编辑者集合
-            String pageKey = PAGE_EDITORS_KEY + pageId;
-            redisTemplate.opsForSet().add(pageKey, userId.toString());
-            redisTemplate.expire(pageKey, Duration.ofSeconds(EDITOR_TTL));
-
-            // 记录用户正在编辑的页面
-            String userPageKey = USER_PAGE_KEY + userId;
-            redisTemplate.opsForValue().set(userPageKey, pageId.toString(), EDITOR_TTL, TimeUnit.SECONDS);
+            // 参数与 opsForSet/opsForValue 一样经值序列化器写入，读取方式不变
+            redisTemplate.execute(JOIN_SCRIPT,
+                    List.of(PAGE_EDITORS_KEY + pageId, USER_PAGE_KEY + userId),
+                    userId.toString(), pageId.toString(), EDITOR_TTL);
 
             log.info("用户[{}]加入页面[{}]的编辑", userId, pageId);
         }catch (Exception e){
@@ -90,28 +139,26 @@ public class WikiCollaborationService {
             String userPageKey = USER_PAGE_KEY + userId;
             String pageIdStr = (String) redisTemplate.opsForValue().get(userPageKey);
 
+            String cursorKey = USER_CURSOR_KEY + userId;
+
+            // 丢弃还没写入的光标和续期，避免离开后又被写回
+            pendingCursors.remove(userId);
+
             if (pageIdStr != null) {
                 Long pageId = Long.parseLong(pageIdStr);
+                pendingRefresh.computeIfPresent(pageId, (key, users) -> {
+                    users.remove(userId);
+                    return users.isEmpty() ? null : users;
+                });
 
-                // 从页面编辑者集合中移除
-                String pageKey = PAGE_EDITORS_KEY + pageId;
-                redisTemplate.opsForSet().remove(pageKey, userId.toString());
-
-                // 检查集合是否为空
-                Long size = redisTemplate.opsForSet().size(pageKey);
-                if (size != null && size == 0) {
-                    redisTemplate.delete(pageKey);
-                }
+                redisTemplate.execute(LEAVE_SCRIPT,
+                        List.of(PAGE_EDITORS_KEY + pageId, userPageKey, cursorKey),
+                        userId.toString());
 
                 log.info("用户[{}]离开页面[{}]的编辑", userId, pageId);
+            } else {
+                redisTemplate.delete(List.of(userPageKey, cursorKey));
             }
-
-            // 删除用户页面映射
-            redisTemplate.delete(userPageKey);
-
-            // 删除用户光标位置
-            String cursorKey = USER_CURSOR_KEY + userId;
-            redisTemplate.delete(cursorKey);
         } catch (Exception e) {
             log.error("用户离开编辑失败: userId={}", userId, e);
         }
@@ -120,22 +167,13 @@ public class WikiCollaborationService {
 
     /**
      * 更新用户编辑的位置
+     * 只在本地登记最新位置，下一个 tick 校验编辑状态后统一写入 Redis 并广播到 /topic/wiki/{pageId}/cursors
      */
-    public void updateCursorPosition(Long userId, WikiCollaborationDTO.CursorPosition position) {
-        try {
-            position.setLastUpdate(LocalDateTime.now());
-            String cursorKey = USER_CURSOR_KEY + userId;
-
-            //序列化，然后存储
-            redisTemplate.opsForValue().set(
-                    cursorKey,
-                    position,
-                    CURSOR_TTL,
-                    TimeUnit.SECONDS
-            );
-        }catch (Exception e){
-            log.error("更新光标位置失败: userId={}", userId, e);
-        }
+    public void updateCursorPosition(Long pageId, Long userId, WikiCollaborationDTO.CursorPosition position) {
+        position.setUserId(userId);
+        position.setLastUpdate(LocalDateTime.now());
+        pendingCursors.put(userId, new PendingCursor(pageId, position));
+        refreshEditingStatus(pageId, userId);
     }
 
 
@@ -204,21 +242,22 @@ public class WikiCollaborationService {
                 return Collections.emptyList();
             }
 
-            List<WikiCollaborationDTO.CursorPosition> positions = new ArrayList<>();
-
-            for(Object userIdObj : userIdsObj){
-                long userId = Long.parseLong(userIdObj.toString());
-                String cursorKey = USER_CURSOR_KEY + userId;
-
-                WikiCollaborationDTO.CursorPosition position =
-                        (WikiCollaborationDTO.CursorPosition) redisTemplate.opsForValue().get(cursorKey);
+            List<String> cursorKeys = userIdsObj.stream()
+                    .map(userIdObj -> USER_CURSOR_KEY + userIdObj)
+                    .toList();
+            List<Object> cursors = redisTemplate.opsForValue().multiGet(cursorKeys);
+            if (cursors == null) {
+                return Collections.emptyList();
+            }
 
-                if (position != null) {
-                    // 过滤掉超过5分钟未更新的位置
-                    if (position.getLastUpdate() != null &&
-                            position.getLastUpdate().isAfter(LocalDateTime.now().minusMinutes(5))) {
-                        positions.add(position);
-                    }
+            List<WikiCollaborationDTO.CursorPosition> positions = new ArrayList<>();
+            LocalDateTime expireBefore = LocalDateTime.now().minusMinutes(5);
+            for (Object cursor : cursors) {
+                // 过滤掉超过5分钟未更新的位置
+                if (cursor instanceof WikiCollaborationDTO.CursorPosition position
+                        && position.getLastUpdate() != null
+                        && position.getLastUpdate().isAfter(expireBefore)) {
+                    positions.add(position);
                 }
             }
 
@@ -247,16 +286,114 @@ public class WikiCollaborationService {
 
     /**
      * 刷新用户编辑状态（延长过期时间）
+     * 只在本地登记，定期按页面批量续期；续期间隔远小于过期时间
      */
     public void refreshEditingStatus(Long pageId, Long userId) {
+        pendingRefresh.compute(pageId, (key, users) -> {
+            if (users == null) {
+                users = new HashSet<>();
+            }
+            users.add(userId);
+            return users;
+        });
+    }
+
+
+    /**
+     * 写入并广播各用户最新的光标位置
+     * 一次管道读取涉及页面的编辑者集合，已离开编辑的用户的光标丢弃；再一次管道写入全部光标
+     */
+    private void flushCursorsSafely() {
+        if (pendingCursors.isEmpty()) {
+            return;
+        }
         try {
-            String pageKey = PAGE_EDITORS_KEY + pageId;
-            redisTemplate.expire(pageKey, Duration.ofSeconds(EDITOR_TTL));
+            Map<Long, List<WikiCollaborationDTO.CursorPosition>> cursorsByPage = new LinkedHashMap<>();
+            for (Long userId : pendingCursors.keySet()) {
+                PendingCursor cursor = pendingCursors.remove(userId);
+                if (cursor != null) {
+                    cursorsByPage.computeIfAbsent(cursor.pageId(), key -> new ArrayList<>()).add(cursor.position());
+                }
+            }
+            if (cursorsByPage.isEmpty()) {
+                return;
+            }
 
-            String userPageKey = USER_PAGE_KEY + userId;
-            redisTemplate.expire(userPageKey, Duration.ofSeconds(EDITOR_TTL));
+            List<Long> pageIds = new ArrayList<>(cursorsByPage.keySet());
+            List<Object> members = redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    for (Long pageId : pageIds) {
+                        ops.opsForSet().members(PAGE_EDITORS_KEY + pageId);
+                    }
+                    return null;
+                }
+            });
+
+            Map<Long, List<WikiCollaborationDTO.CursorPosition>> accepted = new LinkedHashMap<>();
+            for (int i = 0; i < pageIds.size(); i++) {
+                Object pageMembers = i < members.size() ? members.get(i) : null;
+                if (!(pageMembers instanceof Set<?> editorIds) || editorIds.isEmpty()) {
+                    continue;
+                }
+                List<WikiCollaborationDTO.CursorPosition> positions = cursorsByPage.get(pageIds.get(i)).stream()
+                        .filter(position -> editorIds.contains(position.getUserId().toString()))
+                        .toList();
+                if (!positions.isEmpty()) {
+                    accepted.put(pageIds.get(i), positions);
+                }
+            }
+            if (accepted.isEmpty()) {
+                return;
+            }
+
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                    accepted.values().forEach(positions -> positions.forEach(position ->
+                            ops.opsForValue().set(USER_CURSOR_KEY + position.getUserId(), position,
+                                    CURSOR_TTL, TimeUnit.SECONDS)));
+                    return null;
+                }
+            });
+
+            accepted.forEach((pageId, positions) -> positions.forEach(position ->
+                    simpMessagingTemplate.convertAndSend("/topic/wiki/" + pageId + "/cursors", position)));
         } catch (Exception e) {
-            log.error("刷新编辑状态失败: pageId={}, userId={}", pageId, userId, e);
+            log.error("批量写入光标位置失败", e);
+        }
+    }
+
+
+    /**
+     * 批量续期编辑状态，每个页面一次管道：页面编辑者集合和各用户的页面映射一起续期
+     */
+    private void flushRefreshSafely() {
+        for (Long pageId : pendingRefresh.keySet()) {
+            Set<Long> userIds = pendingRefresh.remove(pageId);
+            if (userIds == null || userIds.isEmpty()) {
+                continue;
+            }
+            try {
+                redisTemplate.executePipelined(new SessionCallback<Object>() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public <K, V> Object execute(RedisOperations<K, V> operations) {
+                        RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+                        ops.expire(PAGE_EDITORS_KEY + pageId, EDITOR_TTL, TimeUnit.SECONDS);
+                        for (Long userId : userIds) {
+                            ops.expire(USER_PAGE_KEY + userId, EDITOR_TTL, TimeUnit.SECONDS);
+                        }
+                        return null;
+                    }
+                });
+            } catch (Exception e) {
+                log.error("刷新编辑状态失败: pageId={}, users={}", pageId, userIds.size(), e);
+            }
         }
     }
 
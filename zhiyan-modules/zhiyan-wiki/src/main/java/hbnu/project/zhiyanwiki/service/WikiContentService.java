@@ -8,14 +8,24 @@ import hbnu.project.zhiyanwiki.model.entity.WikiContentHistory;
 import hbnu.project.zhiyanwiki.repository.WikiContentHistoryRepository;
 import hbnu.project.zhiyanwiki.repository.WikiContentRepository;
 import hbnu.project.zhiyanwiki.repository.WikiPageRepository;
+import hbnu.project.zhiyanwiki.search.WikiIndexer.WikiIndexEvent;
+import hbnu.project.zhiyanwiki.search.WikiIndexer.WikiProjectRemovedEvent;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Wiki内容服务
@@ -39,9 +49,29 @@ public class WikiContentService {
     @Resource
     private WikiPageRepository wikiPageRepository;
 
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    @Resource
+    private MongoTemplate mongoTemplate;
+
     // 保留最近 10 个版本
     private static final int MAX_RECENT_VERSIONS = 10;
 
+    // 每隔多少个版本保存一次完整快照，重建归档版本最多逆向应用这么多个历史补丁
+    private static final int SNAPSHOT_INTERVAL = 50;
+
+    /**
+     * 内容在读取之后已被其他写入修改（版本号已变化），本次写入未生效
+     */
+    public static class ContentConflictException extends ServiceException {
+        private static final long serialVersionUID = 1L;
+
+        public ContentConflictException(String message) {
+            super(message);
+        }
+    }
+
     /**
      * 保存Wiki内容的新版本
      * 处理逻辑：
@@ -61,6 +91,27 @@ public class WikiContentService {
     public WikiContent saveNewVersion(Long wikiPageId, Long projectId,
                                       String newContent, String changeDescription,
                                       Long editorId) {
+        return saveNewVersion(wikiPageId, projectId, newContent, changeDescription, editorId, null);
+    }
+
+
+    /**
+     * 保存Wiki内容的新版本，同时记录协同编辑会话的操作序列号
+     * 只在读取到的版本未被其他写入修改时写入
+     *
+     * @param wikiPageId        所属Wiki页面ID
+     * @param projectId         所属项目ID
+     * @param newContent        新的内容文本
+     * @param changeDescription 版本变更描述
+     * @param editorId          编辑者ID
+     * @param operationSequence 会话重置后的序列号，为 null 时不修改
+     * @return 保存后的Wiki内容对象
+     * @throws ContentConflictException 读取之后内容已被其他写入修改
+     */
+    @Transactional
+    public WikiContent saveNewVersion(Long wikiPageId, Long projectId,
+                                      String newContent, String changeDescription,
+                                      Long editorId, Long operationSequence) {
 
         // 尝试获取已有内容，不存在则创建新对象
         WikiContent wikiContent = contentRepo.findByWikiPageId(wikiPageId)
@@ -74,17 +125,77 @@ public class WikiContentService {
             wikiContent.setCurrentVersion(1);
             wikiContent.setContentHash(diffService.calculateHash(newContent));
             wikiContent.setRecentVersions(new ArrayList<>());
+            wikiContent.setPatchCharsSinceSnapshot(0L);
             wikiContent.setCreatedAt(LocalDateTime.now());
             wikiContent.setUpdatedAt(LocalDateTime.now());
             wikiContent.setLastEditorId(editorId);
-            return contentRepo.save(wikiContent);
+            wikiContent.setOperationSequence(operationSequence);
+            WikiContent saved = contentRepo.save(wikiContent);
+            eventPublisher.publishEvent(new WikiIndexEvent(wikiPageId));
+            return saved;
         }
 
+        int expectedVersion = wikiContent.getCurrentVersion();
+        if (!appendVersion(wikiContent, newContent, changeDescription, editorId) && operationSequence == null) {
+            return wikiContent;
+        }
+        if (operationSequence != null) {
+            wikiContent.setOperationSequence(operationSequence);
+        }
+        WikiContent saved = replaceIfUnchanged(wikiContent, expectedVersion);
+        eventPublisher.publishEvent(new WikiIndexEvent(wikiPageId));
+        return saved;
+    }
+
+
+    /**
+     * 保存协同编辑会话的文档，同时记录会话的操作序列号
+     * 新版本、最新内容和序列号在同一次文档写入中完成，只在库中的版本仍是会话所基于的版本时写入，
+     * 会话创建或上次保存之后有其他写入（如 REST 保存）时不会覆盖它
+     *
+     * @param wikiPageId        Wiki页面ID
+     * @param content           会话中的规范文档
+     * @param changeDescription 版本变更描述
+     * @param editorId          最后一个提交操作的编辑者ID
+     * @param operationSequence 会话的最新序列号
+     * @param baseVersion       会话所基于的内容版本
+     * @return 保存后的Wiki内容对象
+     * @throws ContentConflictException 库中的版本已不是 baseVersion
+     */
+    @Transactional
+    public WikiContent saveCollaborativeVersion(Long wikiPageId, String content, String changeDescription,
+                                                Long editorId, Long operationSequence, int baseVersion) {
+        WikiContent wikiContent = contentRepo.findByWikiPageId(wikiPageId)
+                .orElseThrow(() -> new ServiceException("Wiki content not found"));
+        if (wikiContent.getCurrentVersion() != baseVersion) {
+            throw new ContentConflictException("Wiki内容已被其他保存修改");
+        }
+        appendVersion(wikiContent, content, changeDescription, editorId);
+        wikiContent.setOperationSequence(operationSequence);
+        wikiContent.setLastSyncAt(LocalDateTime.now());
+        WikiContent saved = replaceIfUnchanged(wikiContent, baseVersion);
+        eventPublisher.publishEvent(new WikiIndexEvent(wikiPageId));
+        return saved;
+    }
+
+
+    /**
+     * 在已有内容上追加一个新版本（不写库）
+     * 内容有变化时生成差异补丁、维护最近版本列表并归档超出上限的旧版本
+     *
+     * @param wikiContent       已有的Wiki内容
+     * @param newContent        新的内容文本
+     * @param changeDescription 版本变更描述
+     * @param editorId          编辑者ID
+     * @return 内容是否有变化
+     */
+    private boolean appendVersion(WikiContent wikiContent, String newContent,
+                                  String changeDescription, Long editorId) {
         // 计算新内容的哈希值，与当前版本比对判断是否有实质变化
         String newHash = diffService.calculateHash(newContent);
         if (newHash.equals(wikiContent.getContentHash())) {
             log.info("内容未变化，跳过版本保存");
-            return wikiContent;
+            return false;
         }
 
         // 计算新旧内容的差异及变更统计
@@ -104,6 +215,15 @@ public class WikiContentService {
         recentVersion.setDeletedLines(stats.getDeletedLines());
         recentVersion.setChangedChars(stats.getChangedChars());
 
+        // 到达快照间隔，或累计补丁已经比内容本身还大时，随本版本保存完整快照
+        long patchChars = (wikiContent.getPatchCharsSinceSnapshot() != null
+                ? wikiContent.getPatchCharsSinceSnapshot() : 0L) + diff.length();
+        if (newVersion % SNAPSHOT_INTERVAL == 0 || patchChars >= newContent.length()) {
+            recentVersion.setSnapshot(diffService.compressContent(newContent));
+            patchChars = 0;
+        }
+        wikiContent.setPatchCharsSinceSnapshot(patchChars);
+
         // 维护最近版本列表
         List<WikiContent.RecentVersion> versions = wikiContent.getRecentVersions();
         if (versions == null) {
@@ -112,12 +232,6 @@ public class WikiContentService {
         }
         versions.add(recentVersion);
 
-        // 超过最大保留数量时，将最旧的版本归档到历史表
-        if (versions.size() > MAX_RECENT_VERSIONS) {
-            WikiContent.RecentVersion oldest = versions.removeFirst();
-            archiveOldVersion(wikiPageId, projectId, oldest);
-        }
-
         // 更新当前内容为新版本
         wikiContent.setContent(newContent);
         wikiContent.setCurrentVersion(newVersion);
@@ -125,7 +239,37 @@ public class WikiContentService {
         wikiContent.setUpdatedAt(LocalDateTime.now());
         wikiContent.setLastEditorId(editorId);
 
-        return contentRepo.save(wikiContent);
+        return true;
+    }
+
+
+    /**
+     * 只在库中的版本号仍为 expectedVersion 时整篇替换内容文档，成功后归档超出最近版本上限的旧版本
+     * 归档放在写入成功之后，冲突时不会留下重复的历史记录
+     *
+     * @param wikiContent     修改后的内容
+     * @param expectedVersion 读取时的版本号
+     * @return 保存后的Wiki内容对象
+     * @throws ContentConflictException 读取之后内容已被其他写入修改
+     */
+    private WikiContent replaceIfUnchanged(WikiContent wikiContent, int expectedVersion) {
+        List<WikiContent.RecentVersion> overflow = new ArrayList<>();
+        List<WikiContent.RecentVersion> versions = wikiContent.getRecentVersions();
+        while (versions != null && versions.size() > MAX_RECENT_VERSIONS) {
+            overflow.add(versions.removeFirst());
+        }
+
+        Query query = Query.query(Criteria.where("_id").is(wikiContent.getId())
+                .and("currentVersion").is(expectedVersion));
+        WikiContent saved = mongoTemplate.findAndReplace(query, wikiContent,
+                FindAndReplaceOptions.options().returnNew());
+        if (saved == null) {
+            throw new ContentConflictException("Wiki内容已被其他保存修改");
+        }
+
+        // 超过最大保留数量时，将最旧的版本归档到历史表
+        overflow.forEach(oldest -> archiveOldVersion(wikiContent.getWikiPageId(), wikiContent.getProjectId(), oldest));
+        return saved;
     }
 
 
@@ -153,6 +297,7 @@ public class WikiContentService {
                     .deletedLines(recentVersion.getDeletedLines())
                     .changedChars(recentVersion.getChangedChars())
                     .contentHash(recentVersion.getContentHash())
+                    .snapshot(recentVersion.getSnapshot())
                     // 记录归档时间
                     .archivedAt(LocalDateTime.now())
                     .build();
@@ -168,7 +313,8 @@ public class WikiContentService {
 
     /**
      * 获取指定版本的完整内容
-     * 通过逆向应用差异补丁来重建历史版本
+     * 目标版本在最近版本范围内时从当前内容逆向应用差异补丁；
+     * 已归档的版本从不低于目标版本的最近快照开始逆向应用，没有快照的旧数据仍从当前内容一路回退
      *
      * @param wikiPageId    Wiki页面ID
      * @param targetVersion 目标版本号
@@ -189,44 +335,146 @@ public class WikiContentService {
             throw new ServiceException("Target version does not exist");
         }
 
-        // 从当前版本开始逆向应用差异补丁,进行逆向重建
-        String content = current.getContent();
-        int currentVer = current.getCurrentVersion();
+        long startedAt = System.nanoTime();
+        List<WikiContent.RecentVersion> recentVersions = current.getRecentVersions() != null
+                ? current.getRecentVersions() : List.of();
+        int oldestRecent = recentVersions.isEmpty()
+                ? current.getCurrentVersion() + 1 : recentVersions.getFirst().getVersion();
+
+        String content = null;
+        int currentVer = 0;
+        int patches = 0;
+
+        // 目标版本已归档时优先从快照开始
+        if (targetVersion < oldestRecent - 1) {
+            List<WikiContentHistory> snapshots = historyRepo.findSnapshotsFrom(
+                    wikiPageId, targetVersion, PageRequest.of(0, 1));
+            if (!snapshots.isEmpty()) {
+                WikiContentHistory snapshot = snapshots.getFirst();
+                content = diffService.decompressContent(snapshot.getSnapshot());
+                currentVer = snapshot.getVersion();
+            }
+        }
 
-        // 先处理最近版本列表中的版本（从新到旧逆向应用差异）
-        List<WikiContent.RecentVersion> recentVersions = current.getRecentVersions();
-        if (recentVersions != null) {
+        // 没有可用快照：从当前版本开始，先逆向应用最近版本列表中的补丁（从新到旧）
+        if (content == null) {
+            content = current.getContent();
+            currentVer = current.getCurrentVersion();
             for (int i = recentVersions.size() - 1; i >= 0 && currentVer > targetVersion; i--) {
                 WikiContent.RecentVersion v = recentVersions.get(i);
                 if (v.getVersion() == currentVer) {
-                    // 逆向应用差异补丁
                     content = diffService.reversePatch(content, v.getContentDiff());
                     currentVer--;
+                    patches++;
                 }
             }
         }
 
-        // 如果目标版本更早，需要从历史集合中查询
+        // 如果目标版本更早，继续逆向应用历史集合中的补丁（按版本号降序）
         if (currentVer > targetVersion) {
-            // 查询目标版本与当前重建版本之间的历史记录
-            List<WikiContentHistory> histories = historyRepo.findByWikiPageIdAndVersionBetween(
+            List<WikiContentHistory> histories = historyRepo.findDiffsByWikiPageIdAndVersionBetween(
                     wikiPageId, targetVersion + 1, currentVer
             );
-
-            // 按版本号降序排序并逆向应用
-            histories.sort((a, b) -> b.getVersion().compareTo(a.getVersion()));
             for (WikiContentHistory history : histories) {
                 if (history.getVersion() == currentVer) {
                     content = diffService.reversePatch(content, history.getContentDiff());
                     currentVer--;
+                    patches++;
                 }
             }
         }
 
+        log.debug("重建历史版本: wikiPageId={}, targetVersion={}, patches={}, cost={}ms", wikiPageId,
+                targetVersion, patches, (System.nanoTime() - startedAt) / 1_000_000);
         return content;
     }
 
 
+    /**
+     * 为快照间隔过大的已归档版本补建快照（历史数据迁移）
+     * 读取历史版本时从不低于目标版本的最近快照（或当前内容）开始逆向应用补丁，
+     * 只要版本链上有一段连续超过 SNAPSHOT_INTERVAL 个版本没有快照，就从当前内容开始逐个逆向应用补丁，
+     * 每个补丁只应用一次，在缺少快照的间隔版本上补建；补建后不再有过长的区间，可以重复执行
+     *
+     * @param wikiPageId Wiki页面ID
+     * @return 补建的快照数量
+     */
+    public int backfillSnapshots(Long wikiPageId) {
+        WikiContent current = contentRepo.findByWikiPageId(wikiPageId).orElse(null);
+        if (current == null) {
+            return 0;
+        }
+        List<WikiContentHistory> histories = historyRepo.findByWikiPageIdOrderByVersionDesc(wikiPageId);
+        if (histories.size() < SNAPSHOT_INTERVAL) {
+            return 0;
+        }
+        Set<Integer> snapshotVersions = historyRepo.findSnapshotVersionsByWikiPageId(wikiPageId).stream()
+                .map(WikiContentHistory::getVersion)
+                .collect(Collectors.toSet());
+        if (!hasSnapshotGap(current.getCurrentVersion(), histories, snapshotVersions)) {
+            return 0;
+        }
+
+        String content = current.getContent();
+        int currentVer = current.getCurrentVersion();
+        List<WikiContent.RecentVersion> recentVersions = current.getRecentVersions() != null
+                ? current.getRecentVersions() : List.of();
+        for (int i = recentVersions.size() - 1; i >= 0; i--) {
+            WikiContent.RecentVersion v = recentVersions.get(i);
+            if (v.getVersion() != currentVer) {
+                break;
+            }
+            content = diffService.reversePatch(content, v.getContentDiff());
+            currentVer--;
+        }
+
+        List<WikiContentHistory> snapshots = new ArrayList<>();
+        for (WikiContentHistory history : histories) {
+            if (history.getVersion() != currentVer) {
+                // 版本链断开，更早的版本无法从当前内容推出
+                log.warn("历史版本不连续，停止补建快照: wikiPageId={}, expected={}, actual={}",
+                        wikiPageId, currentVer, history.getVersion());
+                break;
+            }
+            if (currentVer % SNAPSHOT_INTERVAL == 0 && !snapshotVersions.contains(currentVer)) {
+                history.setSnapshot(diffService.compressContent(content));
+                snapshots.add(history);
+            }
+            content = diffService.reversePatch(content, history.getContentDiff());
+            currentVer--;
+        }
+
+        // 整页推算完成后再写入，推算失败时不会留下部分快照
+        historyRepo.saveAll(snapshots);
+        log.info("补建版本快照: wikiPageId={}, snapshots={}", wikiPageId, snapshots.size());
+        return snapshots.size();
+    }
+
+    /**
+     * 判断已归档版本中是否有版本离上方最近的重建起点超过 SNAPSHOT_INTERVAL 个版本
+     * 重建起点是已归档的快照或当前内容；最近版本列表中的快照尚未归档，离当前内容的距离多放宽 MAX_RECENT_VERSIONS
+     *
+     * @param currentVersion   当前版本号
+     * @param histories        已归档版本（按版本号降序）
+     * @param snapshotVersions 已有快照的版本号
+     */
+    private boolean hasSnapshotGap(int currentVersion, List<WikiContentHistory> histories,
+                                   Set<Integer> snapshotVersions) {
+        int anchor = currentVersion;
+        int allowed = SNAPSHOT_INTERVAL + MAX_RECENT_VERSIONS;
+        for (WikiContentHistory history : histories) {
+            if (anchor - history.getVersion() > allowed) {
+                return true;
+            }
+            if (snapshotVersions.contains(history.getVersion())) {
+                anchor = history.getVersion();
+                allowed = SNAPSHOT_INTERVAL;
+            }
+        }
+        return false;
+    }
+
+
     /**
      * 获取Wiki内容
      *
@@ -304,6 +552,7 @@ public class WikiContentService {
     public void deleteContent(Long wikiPageId) {
         contentRepo.deleteByWikiPageId(wikiPageId);
         historyRepo.deleteByWikiPageId(wikiPageId);
+        eventPublisher.publishEvent(new WikiIndexEvent(wikiPageId));
         log.info("删除Wiki内容成功: wikiPageId={}", wikiPageId);
     }
 
@@ -318,40 +567,11 @@ public class WikiContentService {
     public void deleteByProjectId(Long projectId) {
         contentRepo.deleteByProjectId(projectId);
         historyRepo.deleteByProjectId(projectId);
+        eventPublisher.publishEvent(new WikiProjectRemovedEvent(projectId));
         log.info("删除项目Wiki内容成功: projectId={}", projectId);
     }
 
 
-    /**
-     * 全文搜索Wiki内容（混合搜索策略）
-     * <p>
-     * 策略：
-     * 1. 优先使用$text文本索引搜索（适合长文本和多词搜索）
-     * 2. 如果结果为空且关键词较短（<=3个字符），使用正则表达式搜索
-     * 3. 正则搜索适合：中文单字、纯数字、短词
-     *
-     * @param projectId 项目ID
-     * @param keyword   关键字
-     * @return 匹配的内容列表
-     */
-    public List<WikiContent> searchContent(Long projectId, String keyword) {
-        log.info("[MongoDB全文搜索] 执行搜索: projectId={}, keyword={}", projectId, keyword);
-        
-        // 1. 首先尝试文本索引搜索
-        List<WikiContent> results = contentRepo.searchByContent(projectId, keyword);
-        log.info("[MongoDB全文搜索] $text索引找到{}条匹配记录", results.size());
-        
-        // 2. 如果$text搜索没有结果，且关键词较短，使用正则表达式搜索
-        if (results.isEmpty() && keyword.length() <= 10) {
-            log.info("[MongoDB全文搜索] $text无结果，尝试正则表达式搜索...");
-            results = contentRepo.searchByContentRegex(projectId, keyword);
-            log.info("[MongoDB全文搜索] 正则搜索找到{}条匹配记录", results.size());
-        }
-        
-        return results;
-    }
-
-
     /**
      * 获取版本历史列表（包含详细信息）
      *
@@ -1,39 +1,118 @@
 package hbnu.project.zhiyanwiki.service;
 
 import hbnu.project.zhiyancommonbasic.exception.ServiceException;
-import hbnu.project.zhiyancommonbasic.utils.DateUtils;
+import hbnu.project.zhiyancommonoss.enums.BucketType;
+import hbnu.project.zhiyancommonoss.service.MinioService;
+import hbnu.project.zhiyancommonoss.util.ZipStreamWriter;
 import hbnu.project.zhiyanwiki.model.dto.WikiExportDTO;
+import hbnu.project.zhiyanwiki.model.dto.WikiPageTreeRow;
 import hbnu.project.zhiyanwiki.model.entity.WikiContent;
 import hbnu.project.zhiyanwiki.model.entity.WikiPage;
 import hbnu.project.zhiyanwiki.model.enums.ExportFormat;
 import hbnu.project.zhiyanwiki.model.enums.PageType;
+import hbnu.project.zhiyanwiki.repository.WikiContentRepository;
 import hbnu.project.zhiyanwiki.repository.WikiPageRepository;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.stereotype.Service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Wiki导出服务
- * 提供将Wiki页面导出为不同格式的功能
+ * 提供将Wiki页面导出为不同格式的功能；多页面导出流式打包为ZIP，规模较大时可异步导出到对象存储
  *
  * @author Tokito
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class WikiExportService {
+public class WikiExportService implements ApplicationRunner {
+
+    /**
+     * 同步导出的页面数上限，更大的导出走异步导出
+     */
+    private static final int MAX_SYNC_EXPORT_PAGES = 500;
+
+    /**
+     * 同时渲染的页面数（含正在写出的页面）
+     */
+    private static final int EXPORT_PREFETCH_WINDOW = 8;
+
+    /**
+     * 每个页面预读的最大字节数，超出部分边读边写
+     */
+    private static final int EXPORT_PREFETCH_BYTES = 1024 * 1024;
+
+    /**
+     * 同时进行的异步导出数
+     */
+    private static final int MAX_ASYNC_EXPORTS = 2;
+
+    /**
+     * 异步导出文件的对象键前缀，启动时为该前缀设置过期删除的生命周期规则
+     */
+    private static final String EXPORT_OBJECT_PREFIX = "exports/";
+
+    private static final String EXPORT_LIFECYCLE_RULE_ID = "wiki-export-expiration";
+
+    /**
+     * 异步导出文件的保留天数，需覆盖下载链接有效期
+     */
+    private static final int EXPORT_RETENTION_DAYS = 2;
+
+    /**
+     * 异步导出下载链接有效期（秒）
+     */
+    private static final int DOWNLOAD_URL_EXPIRY_SECONDS = 24 * 60 * 60;
 
     private final WikiPageRepository wikiPageRepository;
+    private final WikiContentRepository wikiContentRepository;
     private final WikiContentService wikiContentService;
     private final WikiPageService wikiPageService;
+    private final WikiMessageService wikiMessageService;
+    private final MinioService minioService;
+
+    /**
+     * 异步导出专用执行器，并发数由 asyncExportPermits 限制，不占用共享的定时任务线程池
+     */
+    private final ExecutorService asyncExportExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("wiki-export-", 0).factory());
+
+    private final Semaphore asyncExportPermits = new Semaphore(MAX_ASYNC_EXPORTS);
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            minioService.ensureExpirationRule(BucketType.WIKI_ASSETS, EXPORT_LIFECYCLE_RULE_ID,
+                    EXPORT_OBJECT_PREFIX, EXPORT_RETENTION_DAYS);
+        } catch (Exception e) {
+            log.error("设置Wiki导出文件清理规则失败，过期导出文件需要手动清理", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        asyncExportExecutor.shutdown();
+    }
 
     /**
      * 导出单个Wiki页面
@@ -56,113 +135,232 @@ public class WikiExportService {
     }
 
     /**
-     * 批量导出Wiki页面（打包为ZIP）
+     * 组织批量导出的打包源（按请求顺序）
+     * 页面元数据一次查出；不存在、不属于该项目或是目录的页面记入压缩包内的失败清单
      *
+     * @param projectId 项目ID
      * @param pageIds   页面ID列表
      * @param exportDTO 导出配置
-     * @return ZIP文件内容
+     * @return 打包源列表
      */
-    public byte[] exportPages(List<Long> pageIds, WikiExportDTO exportDTO) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             ZipOutputStream zos = new ZipOutputStream(baos)) {
+    public List<ZipStreamWriter.ZipSource> pageSources(Long projectId, List<Long> pageIds, WikiExportDTO exportDTO) {
+        String extension = requireArchiveFormat(exportDTO);
+        if (pageIds == null || pageIds.isEmpty()) {
+            throw new ServiceException("请选择要导出的页面");
+        }
 
-            for (Long pageId : pageIds) {
-                try {
-                    WikiPage page = wikiPageRepository.findById(pageId).orElse(null);
-                    if (page == null) {
-                        log.warn("页面不存在，跳过: pageId={}", pageId);
-                        continue;
-                    }
-
-                    // 导出页面
-                    byte[] content = exportPage(pageId, exportDTO);
-                    
-                    // 生成文件名
-                    String fileName = generateFileName(page, exportDTO.getFormat());
-                    
-                    // 添加到ZIP
-                    ZipEntry entry = new ZipEntry(fileName);
-                    zos.putNextEntry(entry);
-                    zos.write(content);
-                    zos.closeEntry();
-
-                } catch (Exception e) {
-                    log.error("导出页面失败: pageId={}", pageId, e);
-                }
+        Map<Long, WikiPageTreeRow> rowMap = wikiPageRepository.findTreeRowsByProjectIdAndIdIn(projectId, pageIds).stream()
+                .collect(Collectors.toMap(WikiPageTreeRow::id, Function.identity()));
+
+        List<ZipStreamWriter.ZipSource> sources = new ArrayList<>(pageIds.size());
+        for (Long pageId : new LinkedHashSet<>(pageIds)) {
+            WikiPageTreeRow row = rowMap.get(pageId);
+            if (row == null) {
+                sources.add(new ZipStreamWriter.ZipSource("页面" + pageId + extension, () -> {
+                    throw new ServiceException("页面不存在或不属于该项目");
+                }));
+            } else if (row.pageType() == PageType.DIRECTORY) {
+                sources.add(new ZipStreamWriter.ZipSource(sanitizeFileName(row.title()), () -> {
+                    throw new ServiceException("目录类型不能导出，请使用导出目录树功能");
+                }));
+            } else {
+                sources.add(markdownSource(sanitizeFileName(row.title()) + extension, row));
             }
-
-            zos.finish();
-            return baos.toByteArray();
-
-        } catch (IOException e) {
-            log.error("创建ZIP文件失败", e);
-            throw new ServiceException("批量导出失败: " + e.getMessage());
         }
+        return sources;
     }
 
     /**
-     * 导出整个目录树
+     * 组织目录树导出的打包源
+     * 一条查询取出整个项目的页面，在内存中按 findChildPages 的同级顺序深度优先展开，
+     * 条目路径与目录层级一致
      *
      * @param rootPageId 根页面ID
      * @param exportDTO  导出配置
-     * @return ZIP文件内容
+     * @return 打包源列表
      */
-    public byte[] exportDirectory(Long rootPageId, WikiExportDTO exportDTO) {
+    public List<ZipStreamWriter.ZipSource> directorySources(Long rootPageId, WikiExportDTO exportDTO) {
+        return directorySources(getDirectory(rootPageId), exportDTO);
+    }
+
+    private List<ZipStreamWriter.ZipSource> directorySources(WikiPage rootPage, WikiExportDTO exportDTO) {
+        String extension = requireArchiveFormat(exportDTO);
+
+        Map<Long, List<WikiPageTreeRow>> childrenMap = new HashMap<>();
+        for (WikiPageTreeRow row : wikiPageRepository.findTreeRows(rootPage.getProjectId())) {
+            if (row.parentId() != null) {
+                childrenMap.computeIfAbsent(row.parentId(), k -> new ArrayList<>()).add(row);
+            }
+        }
+
+        List<ZipStreamWriter.ZipSource> sources = new ArrayList<>();
+        collectDirectory(rootPage.getId(), "", childrenMap, new HashSet<>(), extension, sources);
+        return sources;
+    }
+
+    private WikiPage getDirectory(Long rootPageId) {
         WikiPage rootPage = wikiPageRepository.findById(rootPageId)
                 .orElseThrow(() -> new ServiceException("Wiki页面不存在"));
 
         if (rootPage.getPageType() != PageType.DIRECTORY) {
             throw new ServiceException("只能导出目录类型的页面");
         }
+        return rootPage;
+    }
+
+    private void collectDirectory(Long directoryId, String pathPrefix, Map<Long, List<WikiPageTreeRow>> childrenMap,
+                                  Set<Long> visited, String extension, List<ZipStreamWriter.ZipSource> sources) {
+        // 防御异常数据中的环
+        if (!visited.add(directoryId)) {
+            return;
+        }
+        for (WikiPageTreeRow child : childrenMap.getOrDefault(directoryId, List.of())) {
+            String currentPath = pathPrefix + sanitizeFileName(child.title());
+            if (child.pageType() == PageType.DIRECTORY) {
+                collectDirectory(child.id(), currentPath + "/", childrenMap, visited, extension, sources);
+            } else {
+                sources.add(markdownSource(currentPath + extension, child));
+            }
+        }
+    }
 
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             ZipOutputStream zos = new ZipOutputStream(baos)) {
+    /**
+     * 同步导出前的规模检查，超出上限的导出需要走异步导出
+     */
+    public void requireSyncExportable(List<ZipStreamWriter.ZipSource> sources) {
+        if (sources.isEmpty()) {
+            throw new ServiceException("没有可导出的页面");
+        }
+        if (sources.size() > MAX_SYNC_EXPORT_PAGES) {
+            throw new ServiceException("导出页面超过" + MAX_SYNC_EXPORT_PAGES + "个，请使用异步导出");
+        }
+    }
 
-            // 递归导出目录及其子页面
-            exportDirectoryRecursive(rootPage, "", zos, exportDTO);
+    /**
+     * 把打包源流式写为ZIP
+     * 页面在预取线程上并行渲染、按顺序写入，同时驻留内存的页面数和每页缓冲都有上限
+     *
+     * @param sources 打包源
+     * @param out     输出流（调用方负责关闭）
+     * @return 打包结果
+     */
+    public ZipStreamWriter.Result writeZip(List<ZipStreamWriter.ZipSource> sources, OutputStream out) throws IOException {
+        return new ZipStreamWriter(EXPORT_PREFETCH_WINDOW, EXPORT_PREFETCH_BYTES).write(sources, out);
+    }
 
-            zos.finish();
-            return baos.toByteArray();
+    /**
+     * 异步批量导出
+     *
+     * @param projectId 项目ID
+     * @param pageIds   页面ID列表
+     * @param userId    发起导出的用户ID
+     * @param exportDTO 导出配置
+     * @return 导出任务ID
+     */
+    public String exportPagesAsync(Long projectId, List<Long> pageIds, Long userId, WikiExportDTO exportDTO) {
+        List<ZipStreamWriter.ZipSource> sources = pageSources(projectId, pageIds, exportDTO);
+        return submitAsyncExport(projectId, userId, "wiki_pages_" + projectId + ".zip", sources);
+    }
 
-        } catch (IOException e) {
-            log.error("导出目录失败", e);
-            throw new ServiceException("目录导出失败: " + e.getMessage());
-        }
+    /**
+     * 异步导出目录树
+     *
+     * @param rootPageId 根页面ID
+     * @param userId     发起导出的用户ID
+     * @param exportDTO  导出配置
+     * @return 导出任务ID
+     */
+    public String exportDirectoryAsync(Long rootPageId, Long userId, WikiExportDTO exportDTO) {
+        WikiPage rootPage = getDirectory(rootPageId);
+        List<ZipStreamWriter.ZipSource> sources = directorySources(rootPage, exportDTO);
+        return submitAsyncExport(rootPage.getProjectId(), userId, "wiki_directory_" + rootPageId + ".zip", sources);
     }
 
     /**
-     * 递归导出目录
+     * 提交异步导出
+     * 压缩包先写入临时文件再上传到对象存储，完成后通过站内消息把下载链接发给发起人
      */
-    private void exportDirectoryRecursive(WikiPage page, String pathPrefix, 
-                                         ZipOutputStream zos, WikiExportDTO exportDTO) throws IOException {
-        // 获取子页面
-        List<WikiPage> children = wikiPageRepository.findChildPages(page.getProjectId(), page.getId());
+    private String submitAsyncExport(Long projectId, Long userId, String fileName,
+                                     List<ZipStreamWriter.ZipSource> sources) {
+        if (sources.isEmpty()) {
+            throw new ServiceException("没有可导出的页面");
+        }
+        if (!asyncExportPermits.tryAcquire()) {
+            throw new ServiceException("当前导出任务较多，请稍后重试");
+        }
 
-        for (WikiPage child : children) {
-            String currentPath = pathPrefix + sanitizeFileName(child.getTitle());
+        String taskId = UUID.randomUUID().toString().replace("-", "");
+        asyncExportExecutor.execute(() -> {
+            try {
+                runAsyncExport(taskId, projectId, userId, fileName, sources);
+            } finally {
+                asyncExportPermits.release();
+            }
+        });
+        log.info("异步导出已提交: taskId={}, projectId={}, userId={}, pages={}",
+                taskId, projectId, userId, sources.size());
+        return taskId;
+    }
 
-            if (child.getPageType() == PageType.DIRECTORY) {
-                // 如果是目录，递归处理
-                exportDirectoryRecursive(child, currentPath + "/", zos, exportDTO);
-            } else {
-                // 如果是文档，导出内容
+    private void runAsyncExport(String taskId, Long projectId, Long userId, String fileName,
+                                List<ZipStreamWriter.ZipSource> sources) {
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile("wiki-export-" + taskId, ".zip");
+            ZipStreamWriter.Result result;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+                result = writeZip(sources, out);
+            }
+
+            String objectKey = EXPORT_OBJECT_PREFIX + projectId + "/" + taskId + ".zip";
+            try (InputStream in = Files.newInputStream(tempFile)) {
+                minioService.uploadStream(in, Files.size(tempFile), BucketType.WIKI_ASSETS, objectKey, "application/zip");
+            }
+            String downloadUrl = minioService.getPresignedUrl(BucketType.WIKI_ASSETS, objectKey,
+                    DOWNLOAD_URL_EXPIRY_SECONDS, fileName);
+
+            log.info("异步导出完成: taskId={}, written={}, failed={}",
+                    taskId, result.written(), result.failed().size());
+            wikiMessageService.notifyWikiExportResult(userId, projectId, taskId, fileName, downloadUrl,
+                    result.written(), result.failed().size());
+        } catch (Exception e) {
+            log.error("异步导出失败: taskId={}, projectId={}", taskId, projectId, e);
+            wikiMessageService.notifyWikiExportResult(userId, projectId, taskId, fileName, null, 0, 0);
+        } finally {
+            if (tempFile != null) {
                 try {
-                    byte[] content = exportPage(child.getId(), exportDTO);
-                    String fileName = currentPath + getFileExtension(exportDTO.getFormat());
-                    
-                    ZipEntry entry = new ZipEntry(fileName);
-                    zos.putNextEntry(entry);
-                    zos.write(content);
-                    zos.closeEntry();
-                    
-                    log.debug("导出页面: {}", fileName);
-                } catch (Exception e) {
-                    log.error("导出页面失败: pageId={}", child.getId(), e);
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.warn("删除导出临时文件失败: {}", tempFile, e);
                 }
             }
         }
     }
 
+    /**
+     * 单个页面的打包源，内容在预取线程上按需读取并渲染
+     */
+    private ZipStreamWriter.ZipSource markdownSource(String entryName, WikiPageTreeRow row) {
+        return new ZipStreamWriter.ZipSource(entryName, () -> {
+            WikiContent content = wikiContentRepository.findContentTextByWikiPageId(row.id())
+                    .orElseThrow(() -> new ServiceException("Wiki内容不存在"));
+            byte[] markdown = renderMarkdown(row.title(), row.createdAt(), row.updatedAt(),
+                    row.currentVersion(), row.path(), content.getContent());
+            return new ByteArrayInputStream(markdown);
+        });
+    }
+
+    /**
+     * 校验打包导出的格式（目前只有Markdown可用），返回条目扩展名
+     */
+    private String requireArchiveFormat(WikiExportDTO exportDTO) {
+        ExportFormat format = getExportFormat(exportDTO.getFormat());
+        if (format != ExportFormat.MARKDOWN) {
+            throw new ServiceException(format.getName() + "格式暂不支持打包导出");
+        }
+        return format.getExtension();
+    }
+
     /**
      * 导出为Markdown格式
      */
@@ -171,28 +369,41 @@ public class WikiExportService {
             throw new ServiceException("目录类型不能导出，请使用导出目录树功能");
         }
 
+        String content;
+        try {
+            content = wikiContentService.getContent(page.getId()).getContent();
+        } catch (Exception e) {
+            log.error("获取Wiki内容失败: pageId={}", page.getId(), e);
+            content = "*内容加载失败*\n";
+        }
+
+        return renderMarkdown(page.getTitle(), page.getCreatedAt(), page.getUpdatedAt(),
+                page.getCurrentVersion(), page.getPath(), content);
+    }
+
+    /**
+     * 渲染Markdown文件：标题、元数据头和正文
+     */
+    private byte[] renderMarkdown(String title, LocalDateTime createdAt, LocalDateTime updatedAt,
+                                  Integer version, String path, String content) {
         StringBuilder markdown = new StringBuilder();
 
         // 添加标题
-        markdown.append("# ").append(page.getTitle()).append("\n\n");
+        markdown.append("# ").append(title).append("\n\n");
 
         // 添加元数据
         markdown.append("---\n");
-        markdown.append("创建时间: ").append(formatDateTime(page.getCreatedAt())).append("\n");
-        markdown.append("更新时间: ").append(formatDateTime(page.getUpdatedAt())).append("\n");
-        markdown.append("版本: ").append(page.getCurrentVersion()).append("\n");
-        if (page.getPath() != null) {
-            markdown.append("路径: ").append(page.getPath()).append("\n");
+        markdown.append("创建时间: ").append(formatDateTime(createdAt)).append("\n");
+        markdown.append("更新时间: ").append(formatDateTime(updatedAt)).append("\n");
+        markdown.append("版本: ").append(version).append("\n");
+        if (path != null) {
+            markdown.append("路径: ").append(path).append("\n");
         }
         markdown.append("---\n\n");
 
         // 添加内容
-        try {
-            WikiContent content = wikiContentService.getContent(page.getId());
-            markdown.append(content.getContent());
-        } catch (Exception e) {
-            log.error("获取Wiki内容失败: pageId={}", page.getId(), e);
-            markdown.append("*内容加载失败*\n");
+        if (content != null) {
+            markdown.append(content);
         }
 
         return markdown.toString().getBytes(StandardCharsets.UTF_8);
@@ -228,23 +439,6 @@ public class WikiExportService {
         }
     }
 
-    /**
-     * 生成导出文件名
-     */
-    private String generateFileName(WikiPage page, String format) {
-        String extension = getFileExtension(format);
-        String safeName = sanitizeFileName(page.getTitle());
-        return safeName + extension;
-    }
-
-    /**
-     * 获取文件扩展名
-     */
-    private String getFileExtension(String format) {
-        ExportFormat exportFormat = getExportFormat(format);
-        return exportFormat.getExtension();
-    }
-
     /**
      * 清理文件名（移除非法字符）
      */
@@ -261,7 +455,7 @@ public class WikiExportService {
     /**
      * 格式化日期时间
      */
-    private String formatDateTime(java.time.LocalDateTime dateTime) {
+    private String formatDateTime(LocalDateTime dateTime) {
         if (dateTime == null) {
             return "未知";
         }
@@ -1,14 +1,24 @@
 package hbnu.project.zhiyanwiki.service;
 
 import hbnu.project.zhiyancommonbasic.exception.ServiceException;
+import hbnu.project.zhiyancommonbasic.utils.id.SnowflakeIdUtil;
 import hbnu.project.zhiyanwiki.model.dto.CreateWikiPageDTO;
 import hbnu.project.zhiyanwiki.model.dto.WikiImportDTO;
 import hbnu.project.zhiyanwiki.model.dto.WikiImportResultDTO;
+import hbnu.project.zhiyanwiki.model.dto.WikiPageTreeRow;
+import hbnu.project.zhiyanwiki.model.entity.WikiContent;
 import hbnu.project.zhiyanwiki.model.entity.WikiPage;
 import hbnu.project.zhiyanwiki.model.enums.PageType;
+import hbnu.project.zhiyanwiki.repository.WikiContentRepository;
+import hbnu.project.zhiyanwiki.repository.WikiPageBatchRepository;
 import hbnu.project.zhiyanwiki.repository.WikiPageRepository;
+import hbnu.project.zhiyanwiki.search.WikiIndexer.WikiIndexEvent;
+import hbnu.project.zhiyanwiki.service.WikiMessageService.WikiPagesImportedEvent;
+import hbnu.project.zhiyanwiki.utils.WikiTreeCache.WikiTreeChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -17,8 +27,12 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -34,7 +48,17 @@ import java.util.regex.Pattern;
 public class WikiImportService {
 
     private final WikiPageRepository wikiPageRepository;
+    private final WikiPageBatchRepository wikiPageBatchRepository;
+    private final WikiContentRepository wikiContentRepository;
     private final WikiPageService wikiPageService;
+    private final DiffService diffService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 页面标题和路径的最大长度，与 wiki_page 表的列长度一致
+     */
+    private static final int MAX_TITLE_LENGTH = 255;
+    private static final int MAX_PATH_LENGTH = 1000;
 
     /**
      * 从Markdown文件导入
@@ -100,6 +124,9 @@ public class WikiImportService {
 
     /**
      * 批量导入Markdown文件
+     * 文件在虚拟线程上并行读取和解析；目录树（文件名中的相对路径会建成目录）一次加载后在内存中组装，
+     * 页面和内容ID预先分配，最后分别用 JDBC batch 和 Mongo insertMany 写入，提交后只发送一条汇总通知。
+     * 单个文件解析失败、标题或路径过长、同名冲突只记入错误列表，写库失败则整批回滚
      *
      * @param files     文件列表
      * @param importDTO 导入配置
@@ -111,22 +138,115 @@ public class WikiImportService {
                 .success(true)
                 .build();
 
-        for (MultipartFile file : files) {
-            try {
-                WikiImportResultDTO singleResult = importFromMarkdown(file, importDTO);
-                
-                if (singleResult.getSuccess()) {
-                    result.setImportedCount(result.getImportedCount() + 1);
-                    result.getPageIds().addAll(singleResult.getPageIds());
-                } else {
-                    result.setFailedCount(result.getFailedCount() + 1);
-                    result.getErrors().addAll(singleResult.getErrors());
+        Long projectId = importDTO.getProjectId();
+        Long parentId = importDTO.getParentId();
+        validateImportParent(projectId, parentId);
+
+        // 1. 并行读取、解析并计算哈希，结果保持上传顺序
+        List<ParsedFile> parsedFiles = parseInParallel(files, result);
+
+        // 2. 在内存中组装目录树，分配页面ID、路径和排序序号
+        ImportTree tree = new ImportTree(wikiPageRepository.findTreeRows(projectId));
+        List<WikiPage> pages = new ArrayList<>();
+        List<WikiContent> contents = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (ParsedFile parsed : parsedFiles) {
+            // 批量写入不经过实体校验，超出列长度的文件在组装前剔除，避免整批失败
+            String lengthError = checkLengths(tree, parentId, parsed);
+            if (lengthError != null) {
+                result.setFailedCount(result.getFailedCount() + 1);
+                result.getErrors().add(parsed.fileName() + ": " + lengthError);
+                continue;
+            }
+
+            Long targetId = parentId;
+            for (String directory : parsed.directories()) {
+                Long directoryId = tree.findDirectory(targetId, directory);
+                if (directoryId == null) {
+                    directoryId = SnowflakeIdUtil.nextId();
+                    pages.add(WikiPage.builder()
+                            .id(directoryId)
+                            .projectId(projectId)
+                            .title(directory)
+                            .pageType(PageType.DIRECTORY)
+                            .parentId(targetId)
+                            .path(tree.childPath(targetId, directory))
+                            .sortOrder(tree.addChild(targetId, directory, directoryId, PageType.DIRECTORY))
+                            .isPublic(importDTO.getIsPublic())
+                            .creatorId(importDTO.getImportBy())
+                            .lastEditorId(importDTO.getImportBy())
+                            .build());
                 }
-            } catch (Exception e) {
-                log.error("导入文件失败: {}", file.getOriginalFilename(), e);
+                targetId = directoryId;
+            }
+
+            String title = parsed.page().getTitle();
+            if (!Boolean.TRUE.equals(importDTO.getOverwrite()) && tree.hasTitle(targetId, title)) {
                 result.setFailedCount(result.getFailedCount() + 1);
-                result.getErrors().add(file.getOriginalFilename() + ": " + e.getMessage());
+                result.getErrors().add(parsed.fileName() + ": 页面已存在: " + title);
+                continue;
             }
+
+            String body = parsed.page().getContent() != null ? parsed.page().getContent() : "";
+            long pageId = SnowflakeIdUtil.nextId();
+            String contentId = new ObjectId().toHexString();
+
+            pages.add(WikiPage.builder()
+                    .id(pageId)
+                    .projectId(projectId)
+                    .title(title)
+                    .pageType(PageType.DOCUMENT)
+                    .parentId(targetId)
+                    .path(tree.childPath(targetId, title))
+                    .sortOrder(tree.addChild(targetId, title, pageId, PageType.DOCUMENT))
+                    .isPublic(importDTO.getIsPublic())
+                    .creatorId(importDTO.getImportBy())
+                    .lastEditorId(importDTO.getImportBy())
+                    .mongoContentId(contentId)
+                    .currentVersion(1)
+                    .contentSize(body.length())
+                    .contentSummary(body.isEmpty() ? null : body.substring(0, Math.min(200, body.length())))
+                    .build());
+
+            WikiContent content = new WikiContent();
+            content.setId(contentId);
+            content.setWikiPageId(pageId);
+            content.setProjectId(projectId);
+            content.setContent(body);
+            content.setCurrentVersion(1);
+            content.setContentHash(parsed.contentHash());
+            content.setRecentVersions(new ArrayList<>());
+            content.setPatchCharsSinceSnapshot(0L);
+            content.setCreatedAt(now);
+            content.setUpdatedAt(now);
+            content.setLastEditorId(importDTO.getImportBy());
+            contents.add(content);
+
+            result.getPageIds().add(String.valueOf(pageId));
+        }
+
+        // 3. 批量写库：MySQL 在事务内，Mongo 写入失败时按预分配的ID清理已写入的内容并回滚 MySQL
+        if (!pages.isEmpty()) {
+            wikiPageBatchRepository.batchInsert(pages);
+            try {
+                wikiContentRepository.insert(contents);
+            } catch (Exception e) {
+                log.error("批量写入Wiki内容失败，回滚本次导入: projectId={}, count={}", projectId, contents.size(), e);
+                wikiContentRepository.deleteAllById(contents.stream().map(WikiContent::getId).toList());
+                throw new ServiceException("批量导入失败: " + e.getMessage());
+            }
+
+            eventPublisher.publishEvent(new WikiTreeChangedEvent(projectId));
+            for (WikiContent content : contents) {
+                eventPublisher.publishEvent(new WikiIndexEvent(content.getWikiPageId()));
+            }
+        }
+
+        result.setImportedCount(contents.size());
+        if (!contents.isEmpty()) {
+            eventPublisher.publishEvent(new WikiPagesImportedEvent(projectId, importDTO.getImportBy(),
+                    contents.size(), pages.size() - contents.size()));
         }
 
         if (result.getFailedCount() > 0) {
@@ -136,9 +256,103 @@ public class WikiImportService {
         result.setMessage(String.format("导入完成：成功%d个，失败%d个", 
                 result.getImportedCount(), result.getFailedCount()));
 
+        log.info("批量导入Markdown完成: projectId={}, imported={}, directories={}, failed={}",
+                projectId, contents.size(), pages.size() - contents.size(), result.getFailedCount());
+
         return result;
     }
 
+    /**
+     * 校验导入目标父页面：必须存在、是目录且属于该项目
+     */
+    private void validateImportParent(Long projectId, Long parentId) {
+        if (parentId == null) {
+            return;
+        }
+        WikiPage parent = wikiPageRepository.findById(parentId)
+                .orElseThrow(() -> new ServiceException("父页面不存在"));
+        if (parent.getPageType() == PageType.DOCUMENT) {
+            throw new ServiceException("不能在文档节点下创建子节点，请选择目录节点");
+        }
+        if (!parent.getProjectId().equals(projectId)) {
+            throw new ServiceException("父页面不属于该项目");
+        }
+    }
+
+    /**
+     * 检查文件对应的目录名、标题和页面路径是否超出列长度
+     *
+     * @return 错误信息，没有问题时返回 null
+     */
+    private String checkLengths(ImportTree tree, Long parentId, ParsedFile parsed) {
+        Long directoryId = parentId;
+        boolean existing = true;
+        String path = tree.pathOf(parentId);
+        for (String directory : parsed.directories()) {
+            if (directory.length() > MAX_TITLE_LENGTH) {
+                return "目录名超过" + MAX_TITLE_LENGTH + "个字符: " + directory;
+            }
+            // 已有的目录沿用库中的路径，新建的目录在父路径后拼接
+            Long existingId = existing ? tree.findDirectory(directoryId, directory) : null;
+            if (existingId != null) {
+                directoryId = existingId;
+                path = tree.pathOf(existingId);
+            } else {
+                existing = false;
+                path = path + "/" + directory;
+            }
+        }
+        String title = parsed.page().getTitle();
+        if (title != null && title.length() > MAX_TITLE_LENGTH) {
+            return "标题超过" + MAX_TITLE_LENGTH + "个字符";
+        }
+        if ((path + "/" + title).length() > MAX_PATH_LENGTH) {
+            return "页面路径超过" + MAX_PATH_LENGTH + "个字符";
+        }
+        return null;
+    }
+
+    /**
+     * 并行读取并解析文件，失败的文件记入导入结果
+     */
+    private List<ParsedFile> parseInParallel(MultipartFile[] files, WikiImportResultDTO result) {
+        List<ParsedFile> parsedFiles = new ArrayList<>(files.length);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<ParsedFile>> futures = new ArrayList<>(files.length);
+            for (MultipartFile file : files) {
+                futures.add(executor.submit(() -> parseFile(file)));
+            }
+            for (int i = 0; i < files.length; i++) {
+                try {
+                    parsedFiles.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    log.error("导入文件失败: {}", files[i].getOriginalFilename(), cause);
+                    result.setFailedCount(result.getFailedCount() + 1);
+                    result.getErrors().add(files[i].getOriginalFilename() + ": " + cause.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ServiceException("导入被中断");
+                }
+            }
+        }
+        return parsedFiles;
+    }
+
+    private ParsedFile parseFile(MultipartFile file) throws IOException {
+        String fileName = file.getOriginalFilename() != null ? file.getOriginalFilename() : "";
+        MarkdownPage page = parseMarkdown(readFileContent(file));
+
+        // 上传文件夹时文件名带相对路径，除最后一段外都作为目录
+        List<String> segments = Arrays.stream(fileName.replace('\\', '/').split("/"))
+                .map(String::trim)
+                .filter(segment -> !segment.isEmpty() && !".".equals(segment) && !"..".equals(segment))
+                .toList();
+        List<String> directories = segments.size() > 1 ? segments.subList(0, segments.size() - 1) : List.of();
+
+        return new ParsedFile(fileName, directories, page, diffService.calculateHash(page.getContent()));
+    }
+
     /**
      * 读取文件内容
      */
@@ -198,6 +412,89 @@ public class WikiImportService {
         return content;
     }
 
+    /**
+     * 解析完成的导入文件
+     *
+     * @param fileName    原始文件名（可含相对路径）
+     * @param directories 文件所在的目录层级
+     * @param page        解析出的标题和正文
+     * @param contentHash 正文哈希
+     */
+    private record ParsedFile(String fileName, List<String> directories, MarkdownPage page, String contentHash) {
+    }
+
+    /**
+     * 导入时的内存目录树
+     * 由项目现有页面初始化，导入过程中新建的目录和文档同步登记，
+     * 用于复用同名目录、检测同名页面以及计算路径和排序序号
+     */
+    private static class ImportTree {
+
+        /**
+         * 根节点的父ID占位（雪花ID不会为0）
+         */
+        private static final Long ROOT = 0L;
+
+        private final Map<Long, String> pathById = new HashMap<>();
+        private final Map<Long, Map<String, Long>> directoryByTitle = new HashMap<>();
+        private final Map<Long, Set<String>> titlesByParent = new HashMap<>();
+        private final Map<Long, Integer> maxSortByParent = new HashMap<>();
+
+        ImportTree(List<WikiPageTreeRow> rows) {
+            for (WikiPageTreeRow row : rows) {
+                register(row.parentId(), row.title(), row.id(), row.pageType(), row.path(),
+                        row.sortOrder() != null ? row.sortOrder() : 0);
+            }
+        }
+
+        /**
+         * 查找父节点下的同名目录（已有的或本次新建的），不存在返回 null
+         */
+        Long findDirectory(Long parentId, String title) {
+            return directoryByTitle.getOrDefault(key(parentId), Map.of()).get(title);
+        }
+
+        boolean hasTitle(Long parentId, String title) {
+            return titlesByParent.getOrDefault(key(parentId), Set.of()).contains(title);
+        }
+
+        String childPath(Long parentId, String title) {
+            return pathOf(parentId) + "/" + title;
+        }
+
+        /**
+         * 节点的路径，根节点为空串
+         */
+        String pathOf(Long id) {
+            return id == null ? "" : pathById.get(id);
+        }
+
+        /**
+         * 登记新建的子节点
+         *
+         * @return 分配的排序序号（同级最大值 + 1）
+         */
+        int addChild(Long parentId, String title, Long id, PageType pageType) {
+            int sortOrder = maxSortByParent.getOrDefault(key(parentId), 0) + 1;
+            register(parentId, title, id, pageType, childPath(parentId, title), sortOrder);
+            return sortOrder;
+        }
+
+        private void register(Long parentId, String title, Long id, PageType pageType, String path, int sortOrder) {
+            Long parentKey = key(parentId);
+            pathById.put(id, path);
+            titlesByParent.computeIfAbsent(parentKey, k -> new HashSet<>()).add(title);
+            if (pageType == PageType.DIRECTORY) {
+                directoryByTitle.computeIfAbsent(parentKey, k -> new HashMap<>()).putIfAbsent(title, id);
+            }
+            maxSortByParent.merge(parentKey, sortOrder, Math::max);
+        }
+
+        private Long key(Long parentId) {
+            return parentId != null ? parentId : ROOT;
+        }
+    }
+
     /**
      * Markdown页面内部类
      */
@@ -14,6 +14,8 @@ import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import java.util.List;
 
@@ -275,6 +277,129 @@ public class WikiMessageService {
         sendBatchMessage(requestDTO, wikiPage.getId());
     }
 
+    /**
+     * 批量导入完成事件，导入事务提交后再发送通知，回滚的导入不会通知
+     */
+    public record WikiPagesImportedEvent(Long projectId, Long importerId, int documentCount, int directoryCount) {
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWikiPagesImported(WikiPagesImportedEvent event) {
+        try {
+            notifyWikiPagesImported(event.projectId(), event.importerId(), event.documentCount(), event.directoryCount());
+        } catch (Exception e) {
+            // 通知失败不影响已提交的导入
+            log.error("发送Wiki批量导入通知失败: projectId={}", event.projectId(), e);
+        }
+    }
+
+    /**
+     * Wiki批量导入通知
+     * 整批导入只发送一条汇总消息，发送给除了导入者之外的所有项目成员
+     */
+    public void notifyWikiPagesImported(Long projectId, Long importerId, int documentCount, int directoryCount) {
+        // 参数校验
+        if (projectId == null || importerId == null) {
+            log.error("Wiki批量导入通知参数不完整，无法发送");
+            return;
+        }
+
+        // 获取项目成员列表
+        List<Long> projectMemberIds = getProjectMemberUserIds(projectId);
+
+        // 过滤导入者自己
+        List<Long> filteredReceiverIds = projectMemberIds.stream()
+                .filter(receiverId -> !receiverId.equals(importerId))
+                .toList();
+
+        if (filteredReceiverIds.isEmpty()) {
+            log.info("过滤后没有接收者，跳过发送Wiki导入通知");
+            return;
+        }
+
+        String content = String.format(
+                "项目「%s」批量导入了Wiki文档\n文档数：%d%s\n导入者：「%s」\n请及时查看",
+                getProjectNameById(projectId),
+                documentCount,
+                directoryCount > 0 ? "\n新建目录数：" + directoryCount : "",
+                getUserNameById(importerId)
+        );
+
+        SendMessageRequestPOJO requestDTO = SendMessageRequestPOJO.builder()
+                .scene("WIKI_PAGE_CREATED")
+                .senderId(importerId)
+                .receiverIds(filteredReceiverIds)
+                .title("Wiki批量导入")
+                .content(content)
+                .businessId(projectId)
+                .businessType("WIKI")
+                .extendData(String.format("{\"projectId\":%d,\"documentCount\":%d,\"jumpUrl\":\"/project-wiki/%d\"}",
+                        projectId, documentCount, projectId))
+                .build();
+
+        sendBatchMessage(requestDTO, projectId);
+    }
+
+
+    /**
+     * 异步导出结果通知
+     * 只发给发起导出的用户，成功时附带临时下载链接
+     *
+     * @param downloadUrl 下载链接，为 null 表示导出失败
+     * @param written     写入压缩包的页面数
+     * @param failed      读取失败的页面数
+     */
+    public void notifyWikiExportResult(Long userId, Long projectId, String taskId, String fileName,
+                                       String downloadUrl, int written, int failed) {
+        if (userId == null || projectId == null) {
+            log.error("Wiki导出通知参数不完整，无法发送");
+            return;
+        }
+
+        String projectName = getProjectNameById(projectId);
+
+        String title;
+        String content;
+        if (downloadUrl != null) {
+            title = "Wiki导出完成";
+            content = String.format(
+                    "项目「%s」的Wiki导出已完成\n文件：「%s」\n页面数：%d%s\n下载链接有效期24小时，请及时下载",
+                    projectName,
+                    fileName,
+                    written,
+                    failed > 0 ? "\n有" + failed + "个页面导出失败，详见压缩包内的失败清单" : ""
+            );
+        } else {
+            title = "Wiki导出失败";
+            content = String.format("项目「%s」的Wiki导出失败\n文件：「%s」\n请稍后重试", projectName, fileName);
+        }
+
+        SendMessageRequestPOJO requestDTO = SendMessageRequestPOJO.builder()
+                .scene("WIKI_EXPORT_READY")
+                .senderId(userId)
+                .receiverId(userId)
+                .title(title)
+                .content(content)
+                .businessId(projectId)
+                .businessType("WIKI")
+                .extendData(String.format(
+                        "{\"projectId\":%d,\"taskId\":\"%s\",\"fileName\":\"%s\",\"downloadUrl\":\"%s\"}",
+                        projectId,
+                        escapeJson(taskId),
+                        escapeJson(fileName),
+                        escapeJson(downloadUrl)))
+                .build();
+
+        try {
+            R<Void> resp = messageServiceClient.sendPersonalMessage(requestDTO);
+            if (!R.isSuccess(resp)) {
+                log.warn("发送Wiki导出通知失败: taskId={}, error={}", taskId, resp.getMsg());
+            }
+        } catch (Exception ex) {
+            log.error("调用Wiki导出通知服务异常: taskId={}", taskId, ex);
+        }
+    }
+
     // ==================== 私有辅助方法 ====================
 
     /**
@@ -0,0 +1,779 @@
+package hbnu.project.zhiyanwiki.service;
+
+import hbnu.project.zhiyancommonbasic.exception.ServiceException;
+import hbnu.project.zhiyancommonbasic.utils.JsonUtils;
+import hbnu.project.zhiyanwiki.model.dto.WikiCollaborationDTO;
+import hbnu.project.zhiyanwiki.model.entity.WikiContent;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.remote.RemoteServiceAckTimeoutException;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wiki 协同编辑操作变换（OT）服务
+ * 每个正在协同编辑的页面在本节点维护一个会话：规范文档、序列号和压缩后的操作日志。
+ * 客户端提交的增量操作携带生成时已确认的序列号，服务端把它依次变换到之后已接受的操作之上，
+ * 应用到规范文档并分配新序列号，只广播变换后的规范操作。
+ * 约定每个客户端同一时刻只有一个未确认的操作，收到带自己 clientOpId 的广播后再发送下一个。
+ * <p>
+ * 会话文档同时是写回缓冲：增量操作和整篇内容变更只修改内存中的工作副本，
+ * 在静默超时、累计变更超过阈值、显式保存、会话关闭或节点停机时才合并保存为一个版本。
+ * <p>
+ * 同一页面的会话只在所有者节点上维护（见 {@link WikiOtSessionRouter}），其他节点收到的请求转发给所有者执行；
+ * 规范操作和整篇内容只由所有者在会话锁内按序列号顺序广播，再经 Redis 中继到其他节点的订阅者。
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Service
+public class WikiOperationTransformService implements ApplicationRunner {
+
+    /**
+     * 操作日志超过该长度时，把较早的操作折叠进快照
+     */
+    private static final int MAX_LOG_OPS = 500;
+
+    /**
+     * 折叠后保留的操作数量，基线早于保留范围的客户端需要重新同步
+     */
+    private static final int COMPACT_TO_OPS = 200;
+
+    /**
+     * 会话空闲多久后保存并关闭（毫秒）
+     */
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    /**
+     * 有未保存变更的会话静默多久后保存（毫秒）
+     */
+    private static final long QUIET_FLUSH_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    /**
+     * 持续编辑时未保存变更的最长保留时间（毫秒）
+     */
+    private static final long MAX_DIRTY_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    /**
+     * 未保存的操作数、变更字符数达到阈值时立即保存
+     */
+    private static final int FLUSH_EDIT_THRESHOLD = 300;
+    private static final long FLUSH_CHAR_THRESHOLD = 8 * 1024;
+
+    private static final long SWEEP_INTERVAL_SECONDS = 5;
+
+    private static final String CHANGE_DESCRIPTION = "协同编辑更新";
+
+    private static final String WIKI_TOPIC_PREFIX = "/topic/wiki/";
+
+    @Resource
+    private WikiOtSessionRouter sessionRouter;
+
+    @Resource
+    private WikiContentService wikiContentService;
+
+    @Resource(name = "scheduledExecutorService")
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Resource
+    private SimpMessagingTemplate simpMessagingTemplate;
+
+    private final Map<Long, PageSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 转发给所有者的请求类型
+     */
+    public enum OtAction {
+        SUBMIT, REPLACE_CONTENT, SNAPSHOT, SAVE_NOW, SAVE_CONTENT, CLOSE
+    }
+
+    /**
+     * 转发给所有者的请求
+     */
+    public record OtRequest(OtAction action, Long pageId, Long userId, String content,
+                            WikiCollaborationDTO.IncrementalChange change, Long projectId, String changeDescription) {
+
+        OtRequest(OtAction action, Long pageId, Long userId, String content,
+                  WikiCollaborationDTO.IncrementalChange change) {
+            this(action, pageId, userId, content, change, null, null);
+        }
+    }
+
+    /**
+     * 所有者的执行结果，error 不为空表示业务异常，payload 是结果的 JSON
+     */
+    public record OtResponse(String error, String payload) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        sessionRouter.register(this::handleRemote);
+        scheduledExecutorService.scheduleWithFixedDelay(this::sweep,
+                SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 提交增量操作，所有者广播变换后的规范操作
+     *
+     * @param pageId 页面ID
+     * @param userId 编辑者ID
+     * @param change 客户端操作
+     * @return 变换并分配序列号后的规范操作
+     * @throws ServiceException 操作无效、基线已不在操作日志范围内（需要重新同步）或所有者不可用
+     */
+    public WikiCollaborationDTO.IncrementalChange submit(Long pageId, Long userId,
+                                                         WikiCollaborationDTO.IncrementalChange change) {
+        String owner = sessionRouter.claimOwner(pageId);
+        if (sessionRouter.isLocal(owner)) {
+            return submitLocal(pageId, userId, change);
+        }
+        return forward(owner, new OtRequest(OtAction.SUBMIT, pageId, userId, null, change),
+                WikiCollaborationDTO.IncrementalChange.class);
+    }
+
+    /**
+     * 整篇替换工作副本（content-change），不立即保存，所有者广播新内容
+     * 序列号递增且操作日志清空，基于旧序列号的增量操作会被要求重新同步
+     *
+     * @param pageId  页面ID
+     * @param userId  编辑者ID
+     * @param content 新内容
+     * @return 替换后的序列号
+     */
+    public long replaceContent(Long pageId, Long userId, String content) {
+        String owner = sessionRouter.claimOwner(pageId);
+        if (sessionRouter.isLocal(owner)) {
+            return replaceContentLocal(pageId, userId, content);
+        }
+        return forward(owner, new OtRequest(OtAction.REPLACE_CONTENT, pageId, userId, content, null), Long.class);
+    }
+
+    /**
+     * 立即保存页面的工作副本（显式保存）
+     *
+     * @param pageId 页面ID
+     * @return 保存后的版本号，没有会话时返回 null
+     */
+    public Integer saveNow(Long pageId) {
+        String owner = sessionRouter.currentOwner(pageId);
+        if (owner == null) {
+            return null;
+        }
+        if (sessionRouter.isLocal(owner)) {
+            return saveNowLocal(pageId);
+        }
+        return forward(owner, new OtRequest(OtAction.SAVE_NOW, pageId, null, null, null), Integer.class);
+    }
+
+    /**
+     * 获取会话快照（快照 + 之后的规范操作），供新加入或需要重新同步的编辑者追平
+     *
+     * @param pageId 页面ID
+     * @return 会话快照
+     */
+    public WikiCollaborationDTO.OtSnapshot snapshot(Long pageId) {
+        String owner = sessionRouter.claimOwner(pageId);
+        if (sessionRouter.isLocal(owner)) {
+            return snapshotLocal(pageId);
+        }
+        return forward(owner, new OtRequest(OtAction.SNAPSHOT, pageId, null, null, null),
+                WikiCollaborationDTO.OtSnapshot.class);
+    }
+
+    /**
+     * 保存整篇内容（REST 保存），正在协同编辑的页面以保存的内容为准
+     * 有会话时由所有者在保存锁和会话锁内写库并重置会话：丢弃未保存的变更，序列号递增，
+     * 基于旧序列号的增量操作会被要求重新同步，并向所有节点的编辑者广播新内容
+     *
+     * @param pageId            页面ID
+     * @param projectId         项目ID
+     * @param content           新内容
+     * @param changeDescription 版本变更描述
+     * @param editorId          保存者ID
+     * @return 保存后的版本号
+     * @throws WikiContentService.ContentConflictException 保存时内容已被其他写入修改
+     */
+    public Integer saveContent(Long pageId, Long projectId, String content, String changeDescription, Long editorId) {
+        String owner = sessionRouter.currentOwner(pageId);
+        if (owner == null) {
+            return wikiContentService.saveNewVersion(pageId, projectId, content, changeDescription, editorId)
+                    .getCurrentVersion();
+        }
+        if (sessionRouter.isLocal(owner)) {
+            return saveContentLocal(pageId, projectId, content, changeDescription, editorId);
+        }
+        return forward(owner, new OtRequest(OtAction.SAVE_CONTENT, pageId, editorId, content, null,
+                projectId, changeDescription), Integer.class);
+    }
+
+    /**
+     * 保存并关闭页面的会话（最后一个编辑者离开时调用）
+     *
+     * @param pageId 页面ID
+     */
+    public void closeSession(Long pageId) {
+        String owner = sessionRouter.currentOwner(pageId);
+        if (owner == null) {
+            return;
+        }
+        if (sessionRouter.isLocal(owner)) {
+            closeSessionLocal(pageId);
+            return;
+        }
+        forward(owner, new OtRequest(OtAction.CLOSE, pageId, null, null, null), Void.class);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        new ArrayList<>(sessions.keySet()).forEach(this::closeSessionLocal);
+    }
+
+    /**
+     * 把请求转发给所有者执行，所有者不可用时按业务异常处理
+     */
+    private <T> T forward(String owner, OtRequest request, Class<T> resultType) {
+        String responseJson;
+        try {
+            responseJson = sessionRouter.forward(owner, JsonUtils.toJsonString(request));
+        } catch (RemoteServiceAckTimeoutException e) {
+            // 所有者未确认请求，通常是已宕机，清除其登记让下一次请求重新认领
+            sessionRouter.evict(request.pageId(), owner);
+            log.warn("协同编辑会话所有者无响应: pageId={}, owner={}", request.pageId(), owner);
+            throw new ServiceException("协同编辑会话暂不可用，请稍后重试", e);
+        } catch (RuntimeException e) {
+            log.warn("转发协同编辑请求失败: pageId={}, action={}, owner={}, error={}",
+                    request.pageId(), request.action(), owner, e.getMessage());
+            throw new ServiceException("协同编辑会话暂不可用，请稍后重试", e);
+        }
+        OtResponse response = JsonUtils.parseObject(responseJson, OtResponse.class);
+        if (response == null) {
+            throw new ServiceException("协同编辑会话暂不可用，请稍后重试");
+        }
+        if (response.error() != null) {
+            throw new ServiceException(response.error());
+        }
+        return resultType == Void.class ? null : JsonUtils.parseObject(response.payload(), resultType);
+    }
+
+    /**
+     * 在所有者上执行其他节点转发的请求
+     */
+    private String handleRemote(String requestJson) {
+        OtRequest request = JsonUtils.parseObject(requestJson, OtRequest.class);
+        try {
+            Object result = switch (request.action()) {
+                case SUBMIT -> {
+                    requireLocalOwner(request.pageId());
+                    yield submitLocal(request.pageId(), request.userId(), request.change());
+                }
+                case REPLACE_CONTENT -> {
+                    requireLocalOwner(request.pageId());
+                    yield replaceContentLocal(request.pageId(), request.userId(), request.content());
+                }
+                case SNAPSHOT -> {
+                    requireLocalOwner(request.pageId());
+                    yield snapshotLocal(request.pageId());
+                }
+                case SAVE_NOW -> saveNowLocal(request.pageId());
+                case SAVE_CONTENT -> saveContentLocal(request.pageId(), request.projectId(), request.content(),
+                        request.changeDescription(), request.userId());
+                case CLOSE -> {
+                    closeSessionLocal(request.pageId());
+                    yield null;
+                }
+            };
+            return JsonUtils.toJsonString(new OtResponse(null, JsonUtils.toJsonString(result)));
+        } catch (ServiceException e) {
+            return JsonUtils.toJsonString(new OtResponse(e.getDefaultMessage(), null));
+        } catch (Exception e) {
+            log.error("执行转发的协同编辑请求失败: pageId={}, action={}", request.pageId(), request.action(), e);
+            return JsonUtils.toJsonString(new OtResponse("协同编辑会话处理失败", null));
+        }
+    }
+
+    /**
+     * 转发途中所有者可能已经变更，此时让调用方重试而不是在非所有者上创建会话
+     */
+    private void requireLocalOwner(Long pageId) {
+        if (!sessionRouter.isLocal(sessionRouter.claimOwner(pageId))) {
+            throw new ServiceException("协同编辑会话所有者已变更，请重试");
+        }
+    }
+
+    private WikiCollaborationDTO.IncrementalChange submitLocal(Long pageId, Long userId,
+                                                              WikiCollaborationDTO.IncrementalChange change) {
+        TextOperation op = TextOperation.from(change);
+        while (true) {
+            PageSession session = session(pageId);
+            synchronized (session) {
+                if (!session.closed) {
+                    return apply(session, userId, change, op);
+                }
+            }
+            awaitClosed(session);
+        }
+    }
+
+    private long replaceContentLocal(Long pageId, Long userId, String content) {
+        String newContent = content != null ? content : "";
+        while (true) {
+            PageSession session = session(pageId);
+            synchronized (session) {
+                if (!session.closed) {
+                    int changedChars = Math.abs(newContent.length() - session.document.length()) + 1;
+                    session.document = new StringBuilder(newContent);
+                    session.snapshot = newContent;
+                    session.snapshotSequence = ++session.sequence;
+                    session.log.clear();
+                    markEdited(session, userId, changedChars);
+                    broadcastContent(session, userId);
+                    return session.sequence;
+                }
+            }
+            awaitClosed(session);
+        }
+    }
+
+    private Integer saveNowLocal(Long pageId) {
+        PageSession session = sessions.get(pageId);
+        if (session == null) {
+            return null;
+        }
+        WikiContent saved = flush(session);
+        return saved != null ? saved.getCurrentVersion() : null;
+    }
+
+    private WikiCollaborationDTO.OtSnapshot snapshotLocal(Long pageId) {
+        PageSession session = session(pageId);
+        synchronized (session) {
+            return WikiCollaborationDTO.OtSnapshot.builder()
+                    .pageId(pageId)
+                    .sequence(session.snapshotSequence)
+                    .content(session.snapshot)
+                    .ops(session.log.stream().map(LoggedOp::toChange).toList())
+                    .latestSequence(session.sequence)
+                    .build();
+        }
+    }
+
+    private Integer saveContentLocal(Long pageId, Long projectId, String content, String changeDescription,
+                                     Long editorId) {
+        PageSession session = sessions.get(pageId);
+        if (session != null) {
+            // 持有保存锁时不会有会话保存在进行，持有会话锁时不会有新操作，写库和重置之间工作副本不变
+            synchronized (session.flushLock) {
+                synchronized (session) {
+                    if (!session.closed) {
+                        long sequence = session.sequence + 1;
+                        WikiContent saved = wikiContentService.saveNewVersion(pageId, projectId, content,
+                                changeDescription, editorId, sequence);
+                        resetTo(session, saved.getContent(), saved.getCurrentVersion(), sequence, editorId);
+                        return saved.getCurrentVersion();
+                    }
+                }
+            }
+        }
+        // 没有会话或会话已保存并关闭
+        return wikiContentService.saveNewVersion(pageId, projectId, content, changeDescription, editorId)
+                .getCurrentVersion();
+    }
+
+    private void closeSessionLocal(Long pageId) {
+        PageSession session = sessions.get(pageId);
+        if (session == null) {
+            return;
+        }
+        // 保存完成后才从会话表移除，之后重新创建的会话能读到刚保存的内容
+        synchronized (session.flushLock) {
+            synchronized (session) {
+                if (session.closed) {
+                    return;
+                }
+                session.closed = true;
+            }
+            flush(session);
+            sessions.remove(pageId, session);
+            sessionRouter.release(pageId);
+        }
+    }
+
+    /**
+     * 会话正在关闭时等待其保存并移除，随后调用方重新获取会话
+     */
+    private void awaitClosed(PageSession session) {
+        synchronized (session.flushLock) {
+            log.debug("协同编辑会话已关闭，重新加载: pageId={}", session.pageId);
+        }
+    }
+
+    /**
+     * 以已保存的内容重置会话并丢弃未保存的变更，向编辑者广播新内容，需在持有保存锁和会话锁时调用
+     */
+    private void resetTo(PageSession session, String content, Integer version, long sequence, Long userId) {
+        String newContent = content != null ? content : "";
+        session.document = new StringBuilder(newContent);
+        session.snapshot = newContent;
+        session.sequence = sequence;
+        session.snapshotSequence = sequence;
+        session.log.clear();
+        session.flushedSequence = sequence;
+        session.pendingEdits = 0;
+        session.pendingChars = 0;
+        session.baseVersion = version;
+        broadcastContent(session, userId);
+    }
+
+    /**
+     * 广播整篇内容（与 content-change 相同的消息），编辑者据此替换本地文档并以新序列号为基线，需在持有会话锁时调用
+     */
+    private void broadcastContent(PageSession session, Long userId) {
+        simpMessagingTemplate.convertAndSend(WIKI_TOPIC_PREFIX + session.pageId + "/content",
+                WikiCollaborationDTO.ContentChange.builder()
+                        .pageId(session.pageId)
+                        .userId(userId)
+                        .content(session.document.toString())
+                        .sequence(session.sequence)
+                        .timestamp(LocalDateTime.now())
+                        .build());
+    }
+
+    private PageSession session(Long pageId) {
+        return sessions.computeIfAbsent(pageId, id -> {
+            WikiContent content = wikiContentService.getContent(id);
+            PageSession session = new PageSession(id,
+                    content.getContent() != null ? content.getContent() : "",
+                    content.getOperationSequence() != null ? content.getOperationSequence() : 0L,
+                    content.getCurrentVersion());
+            log.info("创建协同编辑会话: pageId={}, sequence={}", id, session.sequence);
+            return session;
+        });
+    }
+
+    /**
+     * 把操作变换到基线之后已接受的操作之上并应用，需在持有会话锁时调用
+     */
+    private WikiCollaborationDTO.IncrementalChange apply(PageSession session, Long userId,
+                                                         WikiCollaborationDTO.IncrementalChange change,
+                                                         TextOperation op) {
+        long base = change.getBaseSequence() != null ? change.getBaseSequence() : session.sequence;
+        if (base > session.sequence || base < session.snapshotSequence) {
+            throw new ServiceException("操作基线已过期，请重新同步");
+        }
+
+        for (LoggedOp applied : session.log) {
+            if (applied.sequence() > base) {
+                op = op.transform(applied.op());
+            }
+        }
+        op = op.clamp(session.document.length());
+        op.applyTo(session.document);
+
+        LoggedOp logged = new LoggedOp(++session.sequence, op, userId,
+                change.getClientOpId(), LocalDateTime.now());
+        session.log.addLast(logged);
+        session.compactIfNeeded();
+        markEdited(session, userId, op.deleteLength() + op.insertText().length());
+        // 在会话锁内广播，订阅者收到的规范操作与序列号顺序一致
+        WikiCollaborationDTO.IncrementalChange canonical = logged.toChange();
+        simpMessagingTemplate.convertAndSend(WIKI_TOPIC_PREFIX + session.pageId + "/incremental", canonical);
+        return canonical;
+    }
+
+    /**
+     * 记录一次未保存的变更，达到阈值时在后台保存，需在持有会话锁时调用
+     */
+    private void markEdited(PageSession session, Long userId, long changedChars) {
+        long now = System.currentTimeMillis();
+        if (session.pendingEdits == 0) {
+            session.dirtySince = now;
+        }
+        session.pendingEdits++;
+        session.pendingChars += changedChars;
+        session.lastEditorId = userId;
+        session.lastActiveAt = now;
+        if (!session.flushScheduled && (session.pendingEdits >= FLUSH_EDIT_THRESHOLD
+                || session.pendingChars >= FLUSH_CHAR_THRESHOLD)) {
+            session.flushScheduled = true;
+            scheduledExecutorService.execute(() -> flush(session));
+        }
+    }
+
+    /**
+     * 静默或积压过久的会话保存，长时间空闲的会话关闭
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        for (PageSession session : sessions.values()) {
+            try {
+                if (now - session.lastActiveAt > IDLE_TIMEOUT_MILLIS) {
+                    closeSessionLocal(session.pageId);
+                } else if (!sessionRouter.renew(session.pageId)) {
+                    // 登记过期后可能已被其他节点接管，保存后放弃本地会话，避免两个节点同时维护
+                    log.warn("协同编辑会话所有权已失效，关闭本地会话: pageId={}", session.pageId);
+                    closeSessionLocal(session.pageId);
+                } else if (session.isDirty() && (now - session.lastActiveAt > QUIET_FLUSH_MILLIS
+                        || now - session.dirtySince > MAX_DIRTY_MILLIS)) {
+                    flush(session);
+                }
+            } catch (Exception e) {
+                log.error("处理协同编辑会话失败: pageId={}", session.pageId, e);
+            }
+        }
+    }
+
+    /**
+     * 把工作副本合并保存为一个版本
+     * 在会话锁内取出文档和序列号，写库时不阻塞新的编辑；同一会话的保存串行执行，
+     * 版本、最新内容和序列号在一次文档写入中完成，失败时变更保留在内存中等待下次保存
+     *
+     * @return 保存后的内容，没有未保存的变更或保存失败时返回 null
+     */
+    private WikiContent flush(PageSession session) {
+        synchronized (session.flushLock) {
+            String content;
+            long sequence;
+            int edits;
+            long chars;
+            Long editorId;
+            int baseVersion;
+            synchronized (session) {
+                session.flushScheduled = false;
+                if (!session.isDirty()) {
+                    return null;
+                }
+                content = session.document.toString();
+                sequence = session.sequence;
+                edits = session.pendingEdits;
+                chars = session.pendingChars;
+                editorId = session.lastEditorId;
+                baseVersion = session.baseVersion;
+            }
+
+            try {
+                WikiContent saved = wikiContentService.saveCollaborativeVersion(session.pageId, content,
+                        CHANGE_DESCRIPTION, editorId, sequence, baseVersion);
+                synchronized (session) {
+                    session.baseVersion = saved.getCurrentVersion();
+                    session.flushedSequence = Math.max(session.flushedSequence, sequence);
+                    session.pendingEdits = Math.max(0, session.pendingEdits - edits);
+                    session.pendingChars = Math.max(0, session.pendingChars - chars);
+                    session.dirtySince = System.currentTimeMillis();
+                }
+                log.info("保存协同编辑会话: pageId={}, sequence={}, version={}, coalescedEdits={}",
+                        session.pageId, sequence, saved.getCurrentVersion(), edits);
+                return saved;
+            } catch (WikiContentService.ContentConflictException e) {
+                reloadAfterConflict(session);
+                return null;
+            } catch (Exception e) {
+                log.error("保存协同编辑会话失败: pageId={}, sequence={}", session.pageId, sequence, e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 会话所基于的版本已被其他写入（如其他节点在所有权变更期间的保存）覆盖，以库中内容为准重新加载会话，
+     * 未保存的变更丢弃，编辑者按广播的新内容重新同步，需在持有保存锁时调用
+     */
+    private void reloadAfterConflict(PageSession session) {
+        WikiContent latest = wikiContentService.getContent(session.pageId);
+        synchronized (session) {
+            log.warn("协同编辑会话保存冲突，按已保存内容重新加载: pageId={}, baseVersion={}, latestVersion={}, discardedEdits={}",
+                    session.pageId, session.baseVersion, latest.getCurrentVersion(), session.pendingEdits);
+            long latestSequence = latest.getOperationSequence() != null ? latest.getOperationSequence() : 0L;
+            resetTo(session, latest.getContent(), latest.getCurrentVersion(),
+                    Math.max(session.sequence, latestSequence) + 1, latest.getLastEditorId());
+        }
+    }
+
+    /**
+     * 页面协同编辑会话，所有字段在会话锁内访问
+     */
+    private static final class PageSession {
+
+        private final Long pageId;
+
+        /**
+         * 保存锁，保证同一会话的保存按顺序进行
+         */
+        private final Object flushLock = new Object();
+
+        /**
+         * 规范文档（已应用全部操作）
+         */
+        private StringBuilder document;
+
+        /**
+         * 最新序列号
+         */
+        private long sequence;
+
+        /**
+         * 快照内容及其序列号，snapshot 依次应用 log 即得到 document
+         */
+        private String snapshot;
+        private long snapshotSequence;
+
+        private final Deque<LoggedOp> log = new ArrayDeque<>();
+
+        /**
+         * 已保存到库中的序列号，小于 sequence 表示工作副本有未保存的变更
+         */
+        private long flushedSequence;
+
+        /**
+         * 工作副本所基于的已保存内容版本，保存时库中版本不同说明有其他写入
+         */
+        private int baseVersion;
+
+        /**
+         * 上次保存之后合并的操作数、变更字符数，以及第一个未保存变更的时间
+         */
+        private int pendingEdits;
+        private long pendingChars;
+        private long dirtySince;
+        private boolean flushScheduled;
+
+        private Long lastEditorId;
+        private volatile long lastActiveAt = System.currentTimeMillis();
+        private boolean closed;
+
+        private PageSession(Long pageId, String content, long sequence, int baseVersion) {
+            this.pageId = pageId;
+            this.document = new StringBuilder(content);
+            this.sequence = sequence;
+            this.snapshot = content;
+            this.snapshotSequence = sequence;
+            this.flushedSequence = sequence;
+            this.baseVersion = baseVersion;
+        }
+
+        private synchronized boolean isDirty() {
+            return sequence > flushedSequence;
+        }
+
+        private void compactIfNeeded() {
+            if (log.size() <= MAX_LOG_OPS) {
+                return;
+            }
+            StringBuilder folded = new StringBuilder(snapshot);
+            while (log.size() > COMPACT_TO_OPS) {
+                LoggedOp oldest = log.pollFirst();
+                oldest.op().applyTo(folded);
+                snapshotSequence = oldest.sequence();
+            }
+            snapshot = folded.toString();
+        }
+    }
+
+    /**
+     * 已接受的规范操作
+     */
+    private record LoggedOp(long sequence, TextOperation op, Long userId, String clientOpId,
+                            LocalDateTime timestamp) {
+
+        private WikiCollaborationDTO.IncrementalChange toChange() {
+            return WikiCollaborationDTO.IncrementalChange.builder()
+                    .operation(op.operation())
+                    .position(op.position())
+                    .text(op.insertText())
+                    .length(op.deleteLength())
+                    .baseSequence(sequence - 1)
+                    .sequence(sequence)
+                    .clientOpId(clientOpId)
+                    .userId(userId)
+                    .timestamp(timestamp)
+                    .build();
+        }
+    }
+
+    /**
+     * 文本操作：从 position 起删除 deleteLength 个字符后插入 insertText
+     * INSERT、DELETE、REPLACE 都归一为这一种形式，位置按 UTF-16 字符计
+     */
+    private record TextOperation(int position, int deleteLength, String insertText) {
+
+        static TextOperation from(WikiCollaborationDTO.IncrementalChange change) {
+            if (change.getOperation() == null || change.getPosition() == null || change.getPosition() < 0) {
+                throw new ServiceException("无效的增量操作");
+            }
+            int length = change.getLength() != null ? change.getLength() : 0;
+            String text = change.getText() != null ? change.getText() : "";
+            if (length < 0) {
+                throw new ServiceException("无效的增量操作");
+            }
+            return switch (change.getOperation().toUpperCase()) {
+                case "INSERT" -> new TextOperation(change.getPosition(), 0, text);
+                case "DELETE" -> new TextOperation(change.getPosition(), length, "");
+                case "REPLACE" -> new TextOperation(change.getPosition(), length, text);
+                default -> throw new ServiceException("不支持的操作类型: " + change.getOperation());
+            };
+        }
+
+        /**
+         * 把本操作变换到已先行应用的并发操作 other 之上
+         * 同一位置的两个插入，先被接受的排在前面；删除范围重叠时不重复删除，也不删除对方插入的文本
+         */
+        TextOperation transform(TextOperation other) {
+            int start = position;
+            int end = position + deleteLength;
+            int otherStart = other.position;
+            int otherEnd = other.position + other.deleteLength;
+            int otherInserted = other.insertText.length();
+
+            // 完全在对方之后：整体平移
+            if (start >= otherEnd) {
+                return new TextOperation(start + otherInserted - other.deleteLength, deleteLength, insertText);
+            }
+            // 完全在对方之前：不受影响
+            if (end <= otherStart) {
+                return this;
+            }
+
+            // 范围重叠：对方已删除的部分不再删除
+            int left = Math.max(0, otherStart - start);
+            int right = Math.max(0, end - otherEnd);
+            if (left > 0 && right > 0) {
+                // 两侧都有剩余：连同对方插入的文本一起替换，并原样保留对方的文本
+                return new TextOperation(start, left + otherInserted + right, other.insertText + insertText);
+            }
+            if (left > 0) {
+                return new TextOperation(start, left, insertText);
+            }
+            return new TextOperation(otherStart + otherInserted, right, insertText);
+        }
+
+        /**
+         * 把越界的位置和长度收敛到文档范围内
+         */
+        TextOperation clamp(int documentLength) {
+            int start = Math.min(position, documentLength);
+            int length = Math.min(deleteLength, documentLength - start);
+            return start == position && length == deleteLength ? this : new TextOperation(start, length, insertText);
+        }
+
+        void applyTo(StringBuilder document) {
+            document.replace(position, position + deleteLength, insertText);
+        }
+
+        String operation() {
+            if (deleteLength == 0) {
+                return "INSERT";
+            }
+            return insertText.isEmpty() ? "DELETE" : "REPLACE";
+        }
+    }
+}
@@ -4,10 +4,13 @@ import hbnu.project.zhiyancommonbasic.exception.ServiceException;
 import hbnu.project.zhiyancommonbasic.utils.file.FileTypeUtils;
 import hbnu.project.zhiyancommonoss.enums.BucketType;
 import hbnu.project.zhiyancommonoss.service.MinioService;
+import hbnu.project.zhiyancommonoss.util.ContentHashUtils;
+import hbnu.project.zhiyancommonoss.util.MinioUtils;
 import hbnu.project.zhiyanwiki.model.dto.WikiAttachmentDTO;
 import hbnu.project.zhiyanwiki.model.dto.WikiAttachmentQueryDTO;
 import hbnu.project.zhiyanwiki.model.dto.WikiAttachmentUploadDTO;
 import hbnu.project.zhiyanwiki.model.entity.WikiAttachment;
+import hbnu.project.zhiyanwiki.model.entity.WikiAttachmentBlob;
 import hbnu.project.zhiyanwiki.model.enums.AttachmentType;
 import hbnu.project.zhiyanwiki.repository.WikiAttachmentRepository;
 import lombok.RequiredArgsConstructor;
@@ -22,7 +25,6 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -40,7 +42,9 @@ import java.util.stream.Collectors;
 public class WikiOssService {
 
     private final MinioService minioService;
+    private final MinioUtils minioUtils;
     private final WikiAttachmentRepository attachmentRepository;
+    private final WikiAttachmentBlobService attachmentBlobService;
 
     // Wiki附件使用的桶类型
     private static final BucketType WIKI_BUCKET_TYPE = BucketType.WIKI_ASSETS;
@@ -63,13 +67,6 @@ public class WikiOssService {
             // 验证文件
             validateFile(file);
 
-            // 生成对象键（存储路径）
-            String objectKey = generateObjectKey(
-                    uploadDTO.getProjectId(),
-                    uploadDTO.getWikiPageId(),
-                    file.getOriginalFilename()
-            );
-
             // 获取文件信息
             String originalFilename = file.getOriginalFilename();
             String fileExtension = FileTypeUtils.getExtension(file);
@@ -78,25 +75,11 @@ public class WikiOssService {
             // 确定附件类型
             AttachmentType attachmentType = determineAttachmentType(fileExtension, uploadDTO.getAttachmentType());
 
-            // 上传到MinIO
-            var uploadResult = minioService.uploadFile(file, WIKI_BUCKET_TYPE, objectKey);
+            // 按内容存储：相同内容已存在时只增加引用，不再重复上传
+            WikiAttachmentBlob blob = attachmentBlobService.store(file);
 
             // 保存附件元数据到数据库
-            WikiAttachment attachment = WikiAttachment.builder()
-                    .wikiPageId(uploadDTO.getWikiPageId())
-                    .projectId(uploadDTO.getProjectId())
-                    .attachmentType(attachmentType)
-                    .fileName(originalFilename)
-                    .fileSize(fileSize)
-                    .fileType(fileExtension)
-                    .bucketName(WIKI_BUCKET_TYPE.name().toLowerCase())
-                    .objectKey(objectKey)
-                    .fileUrl(uploadResult.getUrl())
-                    .description(uploadDTO.getDescription())
-                    .uploadBy(uploadDTO.getUploadBy())
-                    .uploadAt(LocalDateTime.now())
-                    .isDeleted(false)
-                    .build();
+            WikiAttachment attachment = buildAttachment(uploadDTO, attachmentType, originalFilename, fileExtension, blob);
 
             attachment = attachmentRepository.save(attachment);
 
@@ -112,6 +95,50 @@ public class WikiOssService {
         }
     }
 
+    /**
+     * 秒传附件：本项目已有相同内容时直接登记附件记录，无需上传文件
+     *
+     * @param uploadDTO 上传配置
+     * @param fileName  文件名
+     * @param sha256    文件内容SHA-256
+     * @param fileSize  文件大小（字节）
+     * @return 附件DTO，服务端没有相同内容时返回 null
+     */
+    @Transactional
+    public WikiAttachmentDTO uploadAttachmentByHash(WikiAttachmentUploadDTO uploadDTO, String fileName,
+                                                    String sha256, long fileSize) {
+        if (fileName == null || fileName.isEmpty()) {
+            throw new ServiceException("文件名不能为空");
+        }
+        if (!ContentHashUtils.isSha256Hex(sha256)) {
+            throw new ServiceException("文件哈希必须是SHA-256十六进制字符串");
+        }
+        String fileExtension = FileTypeUtils.getFileExtension(fileName);
+        minioUtils.validateFile(fileName, fileExtension, fileSize);
+
+        // 仅凭哈希无法证明持有文件，只复用本项目已引用的内容，避免按哈希探测或获取其他项目的附件
+        String contentHash = ContentHashUtils.normalize(sha256);
+        if (!attachmentRepository.existsByProjectIdAndContentHashAndIsDeletedFalse(uploadDTO.getProjectId(), contentHash)) {
+            log.info("Wiki附件秒传未命中: wikiPageId={}, fileName={}", uploadDTO.getWikiPageId(), fileName);
+            return null;
+        }
+
+        WikiAttachmentBlob blob = attachmentBlobService.reference(contentHash, fileSize);
+        if (blob == null) {
+            log.info("Wiki附件秒传未命中: wikiPageId={}, fileName={}", uploadDTO.getWikiPageId(), fileName);
+            return null;
+        }
+
+        AttachmentType attachmentType = determineAttachmentType(fileExtension, uploadDTO.getAttachmentType());
+        WikiAttachment attachment = attachmentRepository.save(
+                buildAttachment(uploadDTO, attachmentType, fileName, fileExtension, blob));
+
+        log.info("Wiki附件秒传成功: attachmentId={}, fileName={}, sha256={}",
+                attachment.getId(), fileName, blob.getSha256());
+
+        return convertToDTO(attachment);
+    }
+
     /**
      * 批量上传附件
      *
@@ -246,7 +273,7 @@ public class WikiOssService {
     }
 
     /**
-     * 软删除附件（标记为删除，不从MinIO删除）
+     * 软删除附件（标记为删除，不从MinIO删除，内容引用保留到物理删除）
      *
      * @param attachmentId 附件ID
      */
@@ -273,8 +300,8 @@ public class WikiOssService {
                 .orElseThrow(() -> new ServiceException("附件不存在"));
 
         try {
-            // 从MinIO删除
-            minioService.deleteFile(WIKI_BUCKET_TYPE, attachment.getObjectKey());
+            // 释放内容引用（无其他引用时在事务提交后从MinIO删除）
+            attachmentBlobService.release(attachment);
 
             // 从数据库删除
             attachmentRepository.delete(attachment);
@@ -297,8 +324,8 @@ public class WikiOssService {
 
         for (WikiAttachment attachment : attachments) {
             try {
-                // 从MinIO删除
-                minioService.deleteFile(WIKI_BUCKET_TYPE, attachment.getObjectKey());
+                // 释放内容引用（无其他引用时在事务提交后从MinIO删除）
+                attachmentBlobService.release(attachment);
 
                 // 从数据库删除
                 attachmentRepository.delete(attachment);
@@ -377,27 +404,26 @@ public class WikiOssService {
     }
 
     /**
-     * 生成MinIO对象键（存储路径）
-     * 格式：wiki/{projectId}/{wikiPageId}/{timestamp}_{uuid}_{filename}
+     * 构建引用指定内容的附件记录
      */
-    private String generateObjectKey(Long projectId, Long wikiPageId, String originalFilename) {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
-        String uuid = UUID.randomUUID().toString().substring(0, 8);
-        String safeFilename = sanitizeFilename(originalFilename);
-        
-        return String.format("wiki/%d/%d/%s_%s_%s",
-                projectId, wikiPageId, timestamp, uuid, safeFilename);
-    }
-
-    /**
-     * 清理文件名（移除非法字符）
-     */
-    private String sanitizeFilename(String filename) {
-        if (filename == null) {
-            return "unknown";
-        }
-        // 替换非法字符为下划线
-        return filename.replaceAll("[\\\\/:*?\"<>|]", "_");
+    private WikiAttachment buildAttachment(WikiAttachmentUploadDTO uploadDTO, AttachmentType attachmentType,
+                                           String fileName, String fileExtension, WikiAttachmentBlob blob) {
+        return WikiAttachment.builder()
+                .wikiPageId(uploadDTO.getWikiPageId())
+                .projectId(uploadDTO.getProjectId())
+                .attachmentType(attachmentType)
+                .fileName(fileName)
+                .fileSize(blob.getFileSize())
+                .fileType(fileExtension)
+                .bucketName(WIKI_BUCKET_TYPE.name().toLowerCase())
+                .objectKey(blob.getObjectKey())
+                .contentHash(blob.getSha256())
+                .fileUrl(blob.getFileUrl())
+                .description(uploadDTO.getDescription())
+                .uploadBy(uploadDTO.getUploadBy())
+                .uploadAt(LocalDateTime.now())
+                .isDeleted(false)
+                .build();
     }
 
     /**
@@ -0,0 +1,216 @@
+package hbnu.project.zhiyanwiki.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.RemoteInvocationOptions;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wiki 协同编辑会话路由
+ * 每个页面的 OT 会话只在一个节点（所有者）上维护：所有者在 Redis 中登记并由会话清扫任务续期，
+ * 其他节点收到的操作通过 Redisson 远程服务转发给所有者执行；所有者停机或续期失败后登记过期，由下一个请求的节点接管。
+ * 没有 Redis 时本节点就是所有页面的所有者
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+public class WikiOtSessionRouter {
+
+    private static final String OWNER_KEY = "wiki:ot:owner:";
+
+    private static final String RPC_SERVICE_PREFIX = "wiki:ot:rpc:";
+
+    /**
+     * 所有者登记的有效期，需远大于会话清扫间隔
+     */
+    private static final Duration OWNER_TTL = Duration.ofSeconds(30);
+
+    /**
+     * 转发请求的确认和执行超时（秒）
+     */
+    private static final long RPC_ACK_TIMEOUT_SECONDS = 2;
+    private static final long RPC_RESULT_TIMEOUT_SECONDS = 15;
+
+    /**
+     * 处理转发请求的并发数
+     */
+    private static final int RPC_WORKERS = 16;
+
+    /**
+     * 登记仍属于本节点时续期
+     */
+    private static final String RENEW_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('PEXPIRE', KEYS[1], ARGV[2]) end " +
+            "return 0";
+
+    /**
+     * 登记仍属于指定节点时删除
+     */
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+            "return 0";
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ExecutorService rpcExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("wiki-ot-rpc-", 0).factory());
+
+    @Resource
+    private ObjectProvider<RedissonClient> redissonClientProvider;
+
+    /**
+     * 所有者上执行转发请求的处理器，请求和结果都是 JSON 文本，不依赖 Redisson 编解码器对业务类型的支持
+     */
+    public interface OtRemote {
+        String invoke(String requestJson);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 注册本节点的转发请求处理器
+     */
+    public void register(OtRemote handler) {
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient == null) {
+            log.warn("未配置 RedissonClient，Wiki 协同编辑会话只在本节点维护");
+            return;
+        }
+        redissonClient.getRemoteService(RPC_SERVICE_PREFIX + nodeId)
+                .register(OtRemote.class, handler, RPC_WORKERS, rpcExecutor);
+        log.info("Wiki 协同编辑会话路由已启动: nodeId={}", nodeId);
+    }
+
+    /**
+     * 获取页面会话的所有者，没有所有者时由本节点认领
+     *
+     * @param pageId 页面ID
+     * @return 所有者节点ID
+     */
+    public String claimOwner(Long pageId) {
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient == null) {
+            return nodeId;
+        }
+        RBucket<String> owner = redissonClient.getBucket(OWNER_KEY + pageId, StringCodec.INSTANCE);
+        while (true) {
+            if (owner.setIfAbsent(nodeId, OWNER_TTL)) {
+                return nodeId;
+            }
+            String current = owner.get();
+            // 读取前登记恰好过期时重新认领
+            if (current != null) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * 获取页面会话的当前所有者，不认领
+     *
+     * @param pageId 页面ID
+     * @return 所有者节点ID，没有会话时返回 null
+     */
+    public String currentOwner(Long pageId) {
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient == null) {
+            return nodeId;
+        }
+        return redissonClient.<String>getBucket(OWNER_KEY + pageId, StringCodec.INSTANCE).get();
+    }
+
+    public boolean isLocal(String owner) {
+        return nodeId.equals(owner);
+    }
+
+    /**
+     * 续期本节点持有的登记
+     *
+     * @return 登记是否仍属于本节点
+     */
+    public boolean renew(Long pageId) {
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient == null) {
+            return true;
+        }
+        Long result = redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE, RENEW_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(OWNER_KEY + pageId), nodeId, String.valueOf(OWNER_TTL.toMillis()));
+        return result != null && result == 1;
+    }
+
+    /**
+     * 会话关闭后释放本节点持有的登记
+     */
+    public void release(Long pageId) {
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient == null) {
+            return;
+        }
+        try {
+            redissonClient.getScript(StringCodec.INSTANCE).eval(
+                    RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                    Collections.singletonList(OWNER_KEY + pageId), nodeId);
+        } catch (Exception e) {
+            // 释放失败时登记会自然过期
+            log.warn("释放协同编辑会话登记失败: pageId={}, error={}", pageId, e.getMessage());
+        }
+    }
+
+    /**
+     * 清除无响应所有者的登记，登记已变更时不处理
+     *
+     * @param pageId 页面ID
+     * @param owner  无响应的所有者节点ID
+     */
+    public void evict(Long pageId, String owner) {
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient == null) {
+            return;
+        }
+        redissonClient.getScript(StringCodec.INSTANCE).eval(
+                RScript.Mode.READ_WRITE, RELEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(OWNER_KEY + pageId), owner);
+    }
+
+    /**
+     * 把请求转发给所有者执行
+     *
+     * @param owner       所有者节点ID
+     * @param requestJson 请求
+     * @return 所有者返回的结果
+     */
+    public String forward(String owner, String requestJson) {
+        RedissonClient redissonClient = redissonClientProvider.getObject();
+        OtRemote remote = redissonClient.getRemoteService(RPC_SERVICE_PREFIX + owner).get(OtRemote.class,
+                RemoteInvocationOptions.defaults()
+                        .expectAckWithin(RPC_ACK_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                        .expectResultWithin(RPC_RESULT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        return remote.invoke(requestJson);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient != null && !redissonClient.isShutdown()) {
+            redissonClient.getRemoteService(RPC_SERVICE_PREFIX + nodeId).deregister(OtRemote.class);
+        }
+        rpcExecutor.shutdown();
+    }
+}
@@ -1,19 +1,28 @@
 package hbnu.project.zhiyanwiki.service;
 
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
 import hbnu.project.zhiyancommonbasic.exception.ServiceException;
 import hbnu.project.zhiyanwiki.model.dto.*;
 import hbnu.project.zhiyanwiki.model.entity.WikiContent;
 import hbnu.project.zhiyanwiki.model.entity.WikiPage;
 import hbnu.project.zhiyanwiki.model.enums.PageType;
 import hbnu.project.zhiyanwiki.repository.WikiPageRepository;
+import hbnu.project.zhiyanwiki.search.WikiIndexer.WikiIndexEvent;
+import hbnu.project.zhiyanwiki.search.WikiSearchIndex;
+import hbnu.project.zhiyanwiki.utils.WikiTreeCache;
+import hbnu.project.zhiyanwiki.utils.WikiTreeCache.WikiTreeChangedEvent;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
+import org.springframework.web.util.HtmlUtils;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -38,6 +47,23 @@ public class WikiPageService {
     @Resource
     private WikiMessageService wikiMessageService;
 
+    @Resource
+    private WikiTreeCache wikiTreeCache;
+
+    @Resource
+    private WikiOperationTransformService operationTransformService;
+
+    @Resource
+    private ApplicationEventPublisher eventPublisher;
+
+    @Resource
+    private WikiSearchIndex wikiSearchIndex;
+
+    /**
+     * 内容搜索可翻到的结果上限
+     */
+    private static final int CONTENT_SEARCH_LIMIT = 1000;
+
     /**
      * 创建 Wiki 页面（事务一致性策略）
      * 支持创建目录节点和文档节点
@@ -117,6 +143,7 @@ public class WikiPageService {
         }
 
         log.info("创建Wiki页面成功: id={}, title={}, type={}", page.getId(), page.getTitle(), page.getPageType());
+        eventPublisher.publishEvent(new WikiTreeChangedEvent(page.getProjectId()));
 
         // 7. 发送消息
         wikiMessageService.notifyWikiPageCreate(page, dto.getProjectId(),  dto.getCreatorId());
@@ -146,11 +173,14 @@ public class WikiPageService {
             page.setTitle(title);
             // 重新计算路径
             page.setPath(calculatePath(page.getProjectId(), page.getParentId(), title));
+            // 标题参与检索评分，内容没有变化时也要重建索引文档
+            eventPublisher.publishEvent(new WikiIndexEvent(pageId));
         }
 
         // 如果是文档类型，更新内容
         if (page.getPageType() == PageType.DOCUMENT && content != null) {
-            WikiContent wikiContent = contentService.saveNewVersion(
+            // 正在协同编辑的页面由会话所有者保存并重置会话，以保存的内容为准丢弃会话中未保存的变更
+            Integer version = operationTransformService.saveContent(
                     pageId,
                     page.getProjectId(),
                     content,
@@ -158,7 +188,7 @@ public class WikiPageService {
                     editorId
             );
 
-            page.setCurrentVersion(wikiContent.getCurrentVersion());
+            page.setCurrentVersion(version);
             page.setContentSize(content.length());
             
             // 更新摘要
@@ -170,6 +200,8 @@ public class WikiPageService {
         WikiPage saved = wikiPageRepository.save(page);
 
         log.info("更新Wiki页面成功: id={}, title={}", page.getId(), page.getTitle());
+        // 树节点包含标题、路径、版本号和摘要，任何更新都要失效目录树
+        eventPublisher.publishEvent(new WikiTreeChangedEvent(page.getProjectId()));
 
         wikiMessageService.notifyWikiPageUpdate(saved, saved.getProjectId(), editorId, changeDesc);
 
@@ -192,6 +224,7 @@ public class WikiPageService {
         wikiPageRepository.save(page);
 
         log.info("更新Wiki页面排序: pageId={}, sortOrder={}", pageId, sortOrder);
+        eventPublisher.publishEvent(new WikiTreeChangedEvent(page.getProjectId()));
     }
 
 
@@ -219,6 +252,7 @@ public class WikiPageService {
         // 删除元数据
         wikiPageRepository.delete(page);
         log.info("删除Wiki页面成功: id={}, title={}", page.getId(), page.getTitle());
+        eventPublisher.publishEvent(new WikiTreeChangedEvent(page.getProjectId()));
 
         wikiMessageService.notifyWikiPageDelete(page, page.getProjectId(), operatorId);
     }
@@ -249,62 +283,119 @@ public class WikiPageService {
 
         wikiPageRepository.delete(page);
         log.info("递归删除Wiki页面: id={}, title={}", page.getId(), page.getTitle());
+        eventPublisher.publishEvent(new WikiTreeChangedEvent(page.getProjectId()));
     }
 
 
     /**
      * 获取项目的Wiki树状结构
+     * 一条投影查询取出项目全部页面后在内存中组装，结果按项目缓存
      *
      * @param projectId 项目ID
      * @return 树状结构列表
      */
     public List<WikiPageTreeDTO> getProjectWikiTree(Long projectId) {
-        // 获取所有根页面
-        List<WikiPage> rootPages = wikiPageRepository.findRootPages(projectId);
-        
-        // 构建树状结构
-        return rootPages.stream()
-                .map(this::buildWikiTree)
-                .collect(Collectors.toList());
+        return wikiTreeCache.get(projectId, () -> buildProjectTree(projectId));
     }
 
     /**
-     * 递归构建Wiki树
+     * 按需加载子树（大项目的侧边栏懒加载）
+     * 超出深度的节点不返回子节点列表，只保留 hasChildren 和 childrenCount 供前端展开时再请求
      *
-     * @param page Wiki页面
-     * @return 树节点DTO
+     * @param projectId 项目ID
+     * @param parentId  父页面ID，为空时从根页面开始
+     * @param depth     返回的层数，至少为 1
+     * @return 子树节点列表
      */
-    private WikiPageTreeDTO buildWikiTree(WikiPage page) {
-        WikiPageTreeDTO dto = WikiPageTreeDTO.builder()
-                .id(String.valueOf(page.getId()))
-                .title(page.getTitle())
-                .parentId(page.getParentId() != null ? String.valueOf(page.getParentId()) : null)
-                .path(page.getPath())
-                .sortOrder(page.getSortOrder())
-                .isPublic(page.getIsPublic())
-                .pageType(page.getPageType().name())
-                .currentVersion(page.getCurrentVersion())
-                .contentSummary(page.getContentSummary())
-                .createdAt(page.getCreatedAt() != null ? page.getCreatedAt().toString() : null)
-                .updatedAt(page.getUpdatedAt() != null ? page.getUpdatedAt().toString() : null)
+    public List<WikiPageTreeDTO> getWikiSubtree(Long projectId, Long parentId, int depth) {
+        List<WikiPageTreeDTO> nodes = getProjectWikiTree(projectId);
+        if (parentId != null) {
+            WikiPageTreeDTO parent = findTreeNode(nodes, String.valueOf(parentId));
+            if (parent == null) {
+                throw new ServiceException("Wiki页面不存在");
+            }
+            nodes = parent.getChildren() != null ? parent.getChildren() : new ArrayList<>();
+        }
+        pruneTree(nodes, Math.max(depth, 1));
+        return nodes;
+    }
+
+    /**
+     * 从投影行组装整棵目录树，每个节点只访问一次
+     * 父页面已不存在的悬挂节点不会出现在树中（与逐层查询的结果一致）
+     *
+     * @param projectId 项目ID
+     * @return 根节点列表
+     */
+    private List<WikiPageTreeDTO> buildProjectTree(Long projectId) {
+        List<WikiPageTreeRow> rows = wikiPageRepository.findTreeRows(projectId);
+
+        Map<Long, WikiPageTreeDTO> nodes = new HashMap<>(rows.size() * 2);
+        for (WikiPageTreeRow row : rows) {
+            nodes.put(row.id(), toTreeNode(row));
+        }
+
+        // 查询结果已按排序序号排好，按原顺序挂到父节点下即保持同级顺序
+        List<WikiPageTreeDTO> roots = new ArrayList<>();
+        for (WikiPageTreeRow row : rows) {
+            WikiPageTreeDTO node = nodes.get(row.id());
+            if (row.parentId() == null) {
+                roots.add(node);
+                continue;
+            }
+            WikiPageTreeDTO parent = nodes.get(row.parentId());
+            if (parent != null) {
+                parent.getChildren().add(node);
+            }
+        }
+        for (WikiPageTreeDTO node : nodes.values()) {
+            node.setHasChildren(!node.getChildren().isEmpty());
+            node.setChildrenCount(node.getChildren().size());
+        }
+
+        log.debug("构建Wiki目录树: projectId={}, pages={}", projectId, rows.size());
+        return roots;
+    }
+
+    private WikiPageTreeDTO toTreeNode(WikiPageTreeRow row) {
+        return WikiPageTreeDTO.builder()
+                .id(String.valueOf(row.id()))
+                .title(row.title())
+                .parentId(row.parentId() != null ? String.valueOf(row.parentId()) : null)
+                .path(row.path())
+                .sortOrder(row.sortOrder())
+                .isPublic(row.isPublic())
+                .pageType(row.pageType().name())
+                .currentVersion(row.currentVersion())
+                .contentSummary(row.contentSummary())
+                .createdAt(row.createdAt() != null ? row.createdAt().toString() : null)
+                .updatedAt(row.updatedAt() != null ? row.updatedAt().toString() : null)
+                .children(new ArrayList<>())
                 .build();
+    }
 
-        // 获取子页面
-        List<WikiPage> children = wikiPageRepository.findChildPages(page.getProjectId(), page.getId());
-        dto.setHasChildren(!children.isEmpty());
-        dto.setChildrenCount(children.size());
-
-        // 递归构建子树
-        if (!children.isEmpty()) {
-            List<WikiPageTreeDTO> childDtos = children.stream()
-                    .map(this::buildWikiTree)
-                    .collect(Collectors.toList());
-            dto.setChildren(childDtos);
-        } else {
-            dto.setChildren(new ArrayList<>());
+    private WikiPageTreeDTO findTreeNode(List<WikiPageTreeDTO> nodes, String id) {
+        Deque<WikiPageTreeDTO> stack = new ArrayDeque<>(nodes);
+        while (!stack.isEmpty()) {
+            WikiPageTreeDTO node = stack.pop();
+            if (id.equals(node.getId())) {
+                return node;
+            }
+            if (node.getChildren() != null) {
+                node.getChildren().forEach(stack::push);
+            }
         }
+        return null;
+    }
 
-        return dto;
+    private void pruneTree(List<WikiPageTreeDTO> nodes, int depth) {
+        for (WikiPageTreeDTO node : nodes) {
+            if (depth <= 1) {
+                node.setChildren(null);
+            } else if (node.getChildren() != null) {
+                pruneTree(node.getChildren(), depth - 1);
+            }
+        }
     }
 
     /**
@@ -395,77 +486,73 @@ public class WikiPageService {
 
 
     /**
-     * 搜索Wiki页面（根据内容 - MongoDB全文搜索）
+     * 搜索Wiki页面（根据内容 - Wiki检索索引）
+     * 分页和结果上限都下推到检索请求，每页结果只用一条投影查询加载页面元数据
      *
      * @param projectId 项目ID
      * @param keyword   搜索关键字
-     * @return 搜索结果列表
+     * @param pageable  分页参数
+     * @return 搜索结果分页（总数不超过结果上限）
      */
-    public List<WikiSearchDTO> searchByContent(Long projectId, String keyword) {
-        log.info("[Wiki内容搜索] 开始搜索: projectId={}, keyword={}", projectId, keyword);
-        
-        // 从MongoDB搜索内容
-        List<WikiContent> contents = contentService.searchContent(projectId, keyword);
-        log.info("[Wiki内容搜索] MongoDB返回结果数: {}", contents.size());
+    public Page<WikiSearchDTO> searchByContent(Long projectId, String keyword, Pageable pageable) {
+        log.info("[Wiki内容搜索] 开始搜索: projectId={}, keyword={}, page={}", projectId, keyword, pageable.getPageNumber());
 
-        // 获取对应的Wiki页面元数据
-        List<WikiSearchDTO> results = new ArrayList<>();
-        for (WikiContent content : contents) {
-            Optional<WikiPage> pageOpt = wikiPageRepository.findById(content.getWikiPageId());
-            if (pageOpt.isPresent()) {
-                WikiPage page = pageOpt.get();
+        int from = (int) Math.min(pageable.getOffset(), CONTENT_SEARCH_LIMIT);
+        int size = Math.min(pageable.getPageSize(), CONTENT_SEARCH_LIMIT - from);
+        if (size <= 0) {
+            return new PageImpl<>(Collections.emptyList(), pageable, CONTENT_SEARCH_LIMIT);
+        }
 
-                // 提取匹配内容的上下文作为摘要
-                String summary = extractMatchContext(content.getContent(), keyword, 200);
+        SearchResponse<Void> response;
+        try {
+            response = wikiSearchIndex.search(new WikiSearchIndex.SearchCriteria(projectId, keyword, null, null, from, size));
+        } catch (Exception e) {
+            log.error("[Wiki内容搜索] 检索失败: projectId={}, keyword={}", projectId, keyword, e);
+            throw new ServiceException("全文检索服务暂不可用，请稍后重试");
+        }
 
-                results.add(WikiSearchDTO.builder()
-                        .id(String.valueOf(page.getId()))
-                        .title(page.getTitle())
-                        .path(page.getPath())
-                        .pageType(page.getPageType().name())
-                        .contentSummary(summary)
-                        .updatedAt(page.getUpdatedAt())
-                        .lastEditorId(page.getLastEditorId() != null ? String.valueOf(page.getLastEditorId()) : null)
-                        .build());
+        List<Hit<Void>> hits = response.hits().hits();
+        List<Long> pageIds = hits.stream().map(hit -> Long.valueOf(hit.id())).toList();
+        Map<Long, WikiPageSearchRow> rowById = pageIds.isEmpty() ? Collections.emptyMap()
+                : wikiPageRepository.findSearchRowsByIdIn(pageIds).stream()
+                        .collect(Collectors.toMap(WikiPageSearchRow::id, row -> row));
+
+        List<WikiSearchDTO> results = new ArrayList<>(hits.size());
+        for (Hit<Void> hit : hits) {
+            WikiPageSearchRow row = rowById.get(Long.valueOf(hit.id()));
+            if (row == null) {
+                // 索引尚未同步到删除
+                continue;
             }
+            results.add(WikiSearchDTO.builder()
+                    .id(String.valueOf(row.id()))
+                    .title(row.title())
+                    .path(row.path())
+                    .pageType(row.pageType().name())
+                    .contentSummary(plainSnippet(hit))
+                    .updatedAt(row.updatedAt())
+                    .lastEditorId(row.lastEditorId() != null ? String.valueOf(row.lastEditorId()) : null)
+                    .build());
         }
 
-        log.info("[Wiki内容搜索] 搜索完成: 返回{}个结果", results.size());
-        return results;
+        long total = response.hits().total() != null ? response.hits().total().value() : hits.size();
+        log.info("[Wiki内容搜索] 搜索完成: 返回{}个结果, 共{}个", results.size(), total);
+        return new PageImpl<>(results, pageable, Math.min(total, CONTENT_SEARCH_LIMIT));
     }
 
 
     /**
-     * 提取匹配关键字的上下文
-     *
-     * @param content     完整内容
-     * @param keyword     关键字
-     * @param maxLength   最大长度
-     * @return 上下文摘要
+     * 取内容的匹配片段作为摘要，与原来的纯文本摘要保持一致
+     * 片段由 HTML 编码的高亮器生成，去掉高亮标记后还要把转义的字符还原
      */
-    private String extractMatchContext(String content, String keyword, int maxLength) {
-        if (content == null || keyword == null) {
+    private String plainSnippet(Hit<Void> hit) {
+        List<String> fragments = hit.highlight().get("content");
+        if (fragments == null || fragments.isEmpty()) {
             return "";
         }
-
-        int index = content.toLowerCase().indexOf(keyword.toLowerCase());
-        if (index == -1) {
-            return content.length() > maxLength ? content.substring(0, maxLength) + "..." : content;
-        }
-
-        // 提取关键字前后的上下文
-        int start = Math.max(0, index - maxLength / 2);
-        int end = Math.min(content.length(), index + keyword.length() + maxLength / 2);
-
-        String context = content.substring(start, end);
-        if (start > 0) {
-            context = "..." + context;
-        }
-        if (end < content.length()) {
-            context = context + "...";
-        }
-
-        return context;
+        return HtmlUtils.htmlUnescape(fragments.getFirst()
+                .replace(WikiSearchIndex.HIGHLIGHT_PRE_TAG, "")
+                .replace(WikiSearchIndex.HIGHLIGHT_POST_TAG, ""));
     }
 
 
@@ -647,6 +734,7 @@ public class WikiPageService {
         wikiPageRepository.save(page);
 
         log.info("移动Wiki页面成功: id={}, newParentId={}", pageId, newParentId);
+        eventPublisher.publishEvent(new WikiTreeChangedEvent(page.getProjectId()));
 
         wikiMessageService.notifyWikiPageMove(page, page.getProjectId(), operatorId, oldPath, page.getPath());
     }
@@ -1,18 +1,17 @@
 package hbnu.project.zhiyanwiki.service;
 
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import hbnu.project.zhiyancommonbasic.exception.ServiceException;
 import hbnu.project.zhiyanwiki.model.dto.WikiSearchResultDTO;
 import hbnu.project.zhiyanwiki.model.entity.WikiPage;
 import hbnu.project.zhiyanwiki.repository.WikiPageRepository;
+import hbnu.project.zhiyanwiki.search.WikiSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.mongodb.core.MongoTemplate;
-import org.springframework.data.mongodb.core.query.Criteria;
-import org.springframework.data.mongodb.core.query.Query;
-import org.springframework.data.mongodb.core.query.TextCriteria;
-import org.springframework.data.mongodb.core.query.TextQuery;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -23,7 +22,7 @@ import java.util.stream.Collectors;
 
 /**
  * Wiki全文搜索服务
- * 基于MongoDB的文本索引实现高性能全文检索
+ * 基于 Wiki 检索索引（Elasticsearch，cjk 二元切分）实现，中文关键词同样按相关度排序并返回高亮片段
  *
  * @author Tokito
  */
@@ -32,7 +31,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class WikiSearchService {
 
-    private final MongoTemplate mongoTemplate;
+    private final WikiSearchIndex wikiSearchIndex;
     private final WikiPageRepository wikiPageRepository;
 
     /**
@@ -43,42 +42,16 @@ public class WikiSearchService {
      * @param pageable  分页参数
      * @return 搜索结果分页
      */
-    @SuppressWarnings("unchecked")
     public Page<WikiSearchResultDTO> fullTextSearch(Long projectId, String keyword, Pageable pageable) {
         log.info("执行全文搜索: projectId={}, keyword={}, page={}", projectId, keyword, pageable.getPageNumber());
 
-        // 构建文本搜索条件
-        TextCriteria textCriteria = TextCriteria.forDefaultLanguage()
-                .matchingAny(keyword);
-
-        // 构建查询
-        Query query = TextQuery.queryText(textCriteria)
-                .sortByScore()  // 按相关性评分排序
-                .with(pageable);
-
-        // 添加项目ID过滤
-        query.addCriteria(Criteria.where("projectId").is(projectId));
-
-        // 包含评分信息
-        query.fields()
-                .include("wikiPageId", "projectId", "content", "updatedAt", "lastEditorId")
-                .include("score");  // 包含搜索评分
-
-        // 执行搜索（返回原始Map类型）
-        List<Map> results = mongoTemplate.find(query, Map.class, "wiki_contents");
-
-        // 统计总数
-        long total = mongoTemplate.count(
-                Query.query(textCriteria).addCriteria(Criteria.where("projectId").is(projectId)),
-                "wiki_contents"
-        );
-
-        // 转换为DTO
-        List<WikiSearchResultDTO> dtoList = convertToSearchResults(results, keyword);
+        SearchResponse<Void> response = search(new WikiSearchIndex.SearchCriteria(
+                projectId, keyword, null, null, (int) pageable.getOffset(), pageable.getPageSize()));
+        List<WikiSearchResultDTO> dtoList = convertToSearchResults(response.hits().hits());
 
         log.info("搜索完成: 找到{}个结果", dtoList.size());
 
-        return new PageImpl<>(dtoList, pageable, total);
+        return new PageImpl<>(dtoList, pageable, totalHits(response));
     }
 
     /**
@@ -89,23 +62,10 @@ public class WikiSearchService {
      * @param limit     结果数量限制
      * @return 搜索结果列表
      */
-    @SuppressWarnings("unchecked")
     public List<WikiSearchResultDTO> simpleSearch(Long projectId, String keyword, int limit) {
-        TextCriteria textCriteria = TextCriteria.forDefaultLanguage()
-                .matchingAny(keyword);
-
-        Query query = TextQuery.queryText(textCriteria)
-                .sortByScore()
-                .limit(limit);
-
-        query.addCriteria(Criteria.where("projectId").is(projectId));
-        query.fields()
-                .include("wikiPageId", "projectId", "content", "updatedAt", "lastEditorId")
-                .include("score");
-
-        List<Map> results = mongoTemplate.find(query, Map.class, "wiki_contents");
-
-        return convertToSearchResults(results, keyword);
+        SearchResponse<Void> response = search(new WikiSearchIndex.SearchCriteria(
+                projectId, keyword, null, null, 0, limit));
+        return convertToSearchResults(response.hits().hits());
     }
 
     /**
@@ -118,7 +78,6 @@ public class WikiSearchService {
      * @param pageable      分页参数
      * @return 搜索结果分页
      */
-    @SuppressWarnings("unchecked")
     public Page<WikiSearchResultDTO> advancedSearch(
             Long projectId,
             String includeWords,
@@ -129,92 +88,61 @@ public class WikiSearchService {
         // 参数验证：至少需要一个搜索条件
         boolean hasInclude = includeWords != null && !includeWords.trim().isEmpty();
         boolean hasPhrase = phrase != null && !phrase.trim().isEmpty();
-        boolean hasExclude = excludeWords != null && !excludeWords.trim().isEmpty();
-        
+
         if (!hasInclude && !hasPhrase) {
             // 如果只有排除词没有包含词，返回空结果
             return new PageImpl<>(new ArrayList<>(), pageable, 0);
         }
 
-        // 构建文本搜索条件
-        TextCriteria textCriteria = TextCriteria.forDefaultLanguage();
-
-        if (hasInclude) {
-            textCriteria.matchingAny(includeWords);
-        }
+        SearchResponse<Void> response = search(new WikiSearchIndex.SearchCriteria(
+                projectId, includeWords, excludeWords, phrase,
+                (int) pageable.getOffset(), pageable.getPageSize()));
+        List<WikiSearchResultDTO> dtoList = convertToSearchResults(response.hits().hits());
 
-        if (hasPhrase) {
-            textCriteria.matchingPhrase(phrase);
-        }
+        return new PageImpl<>(dtoList, pageable, totalHits(response));
+    }
 
-        if (hasExclude) {
-            textCriteria.notMatching(excludeWords);
+    private SearchResponse<Void> search(WikiSearchIndex.SearchCriteria criteria) {
+        try {
+            return wikiSearchIndex.search(criteria);
+        } catch (Exception e) {
+            log.error("Wiki全文检索失败: projectId={}", criteria.projectId(), e);
+            throw new ServiceException("全文检索服务暂不可用，请稍后重试");
         }
-
-        Query query = TextQuery.queryText(textCriteria)
-                .sortByScore()
-                .with(pageable);
-
-        query.addCriteria(Criteria.where("projectId").is(projectId));
-        query.fields()
-                .include("wikiPageId", "projectId", "content", "updatedAt", "lastEditorId")
-                .include("score");
-
-        List<Map> results = mongoTemplate.find(query, Map.class, "wiki_contents");
-
-        long total = mongoTemplate.count(
-                Query.query(textCriteria).addCriteria(Criteria.where("projectId").is(projectId)),
-                "wiki_contents"
-        );
-
-        // 修复：使用有效的关键词进行高亮（优先使用phrase，其次includeWords）
-        String highlightKeyword = hasPhrase ? phrase : includeWords;
-        List<WikiSearchResultDTO> dtoList = convertToSearchResults(results, highlightKeyword);
-
-        return new PageImpl<>(dtoList, pageable, total);
     }
 
     /**
-     * 转换MongoDB结果为DTO
+     * 转换检索命中为DTO
+     * 页面元数据按命中一次批量加载，索引尚未同步删除的页面会被跳过
      */
-    @SuppressWarnings("unchecked")
-    private List<WikiSearchResultDTO> convertToSearchResults(List<Map> results, String keyword) {
-        // 提取所有wikiPageId
-        List<Long> wikiPageIds = results.stream()
-                .map(map -> ((Number) map.get("wikiPageId")).longValue())
+    private List<WikiSearchResultDTO> convertToSearchResults(List<Hit<Void>> hits) {
+        List<Long> wikiPageIds = hits.stream()
+                .map(hit -> Long.valueOf(hit.id()))
                 .collect(Collectors.toList());
+        if (wikiPageIds.isEmpty()) {
+            return new ArrayList<>();
+        }
 
         // 批量查询Wiki页面信息
-        List<WikiPage> wikiPages = wikiPageRepository.findAllById(wikiPageIds);
-        Map<Long, WikiPage> pageMap = wikiPages.stream()
+        Map<Long, WikiPage> pageMap = wikiPageRepository.findAllById(wikiPageIds).stream()
                 .collect(Collectors.toMap(WikiPage::getId, Function.identity()));
 
-        // 转换为DTO
-        List<WikiSearchResultDTO> dtoList = new ArrayList<>();
-
-        for (Map<String, Object> result : results) {
-            Long wikiPageId = ((Number) result.get("wikiPageId")).longValue();
-            WikiPage page = pageMap.get(wikiPageId);
-
+        List<WikiSearchResultDTO> dtoList = new ArrayList<>(hits.size());
+        for (Hit<Void> hit : hits) {
+            WikiPage page = pageMap.get(Long.valueOf(hit.id()));
             if (page == null) {
                 continue;
             }
 
-            // 提取匹配片段
-            String content = (String) result.get("content");
-            String snippet = extractSnippet(content, keyword, 200);
-
-            // 获取搜索评分
-            Double score = result.containsKey("score") ?
-                    ((Number) result.get("score")).doubleValue() : 0.0;
+            String snippet = firstFragment(hit, "content");
 
             WikiSearchResultDTO dto = WikiSearchResultDTO.builder()
-                    .wikiPageId(String.valueOf(wikiPageId))
+                    .wikiPageId(String.valueOf(page.getId()))
                     .title(page.getTitle())
                     .path(page.getPath())
                     .matchedSnippet(snippet)
-                    .score(score)
-                    .matchCount(countMatches(content, keyword))
+                    .score(hit.score() != null ? hit.score() : 0.0)
+                    .matchCount(countHighlights(snippet) + countHighlights(firstFragment(hit, "title")))
                     .updatedAt(page.getUpdatedAt())
                     .lastEditorId(page.getLastEditorId() != null ?
                             String.valueOf(page.getLastEditorId()) : null)
@@ -227,126 +155,28 @@ public class WikiSearchService {
         return dtoList;
     }
 
-    /**
-     * 提取匹配内容的上下文片段（优化版：缓存toLowerCase结果）
-     */
-    private String extractSnippet(String content, String keyword, int maxLength) {
-        if (content == null || keyword == null || keyword.isEmpty()) {
-            return content != null && content.length() > maxLength ?
-                    content.substring(0, maxLength) + "..." : content;
-        }
-
-        // 缓存toLowerCase结果，避免重复调用
-        String lowerContent = content.toLowerCase();
-        String lowerKeyword = keyword.toLowerCase();
-
-        // 查找关键字位置（不区分大小写）
-        int index = lowerContent.indexOf(lowerKeyword);
-
-        if (index == -1) {
-            // 如果没找到，尝试查找关键字的第一个词
-            String[] words = keyword.split("\\s+");
-            for (String word : words) {
-                if (word.length() > 0) {
-                    index = lowerContent.indexOf(word.toLowerCase());
-                    if (index != -1) {
-                        break;
-                    }
-                }
-            }
-        }
-
-        if (index == -1) {
-            // 还是没找到，返回开头
-            return content.length() > maxLength ?
-                    content.substring(0, maxLength) + "..." : content;
-        }
-
-        // 提取关键字周围的上下文
-        int start = Math.max(0, index - maxLength / 2);
-        int end = Math.min(content.length(), index + keyword.length() + maxLength / 2);
-
-        String snippet = content.substring(start, end);
-
-        // 添加省略号
-        if (start > 0) {
-            snippet = "..." + snippet;
-        }
-        if (end < content.length()) {
-            snippet = snippet + "...";
-        }
-
-        // 高亮关键字
-        snippet = highlightKeyword(snippet, keyword);
-
-        return snippet;
-    }
-
-    /**
-     * 高亮关键字（优化版：支持中文，避免重复高亮）
-     * 移除\b单词边界限制以支持中文、日文等语言
-     */
-    private String highlightKeyword(String text, String keyword) {
-        if (text == null || keyword == null || keyword.trim().isEmpty()) {
-            return text;
-        }
-
-        // 使用<mark>标签包裹关键字（更符合HTML5语义）
-        String[] words = keyword.trim().split("\\s+");
-        
-        // 过滤掉过短的词（避免误匹配）
-        List<String> validWords = new ArrayList<>();
-        for (String word : words) {
-            if (word.length() >= 1) {  // 中文单字也可以高亮
-                validWords.add(word);
-            }
-        }
-        
-        if (validWords.isEmpty()) {
-            return text;
-        }
-
-        // 按词长度降序排序（先匹配长词，避免短词被长词包含时重复高亮）
-        validWords.sort((a, b) -> b.length() - a.length());
-
-        // 使用正则表达式进行不区分大小写的替换
-        for (String word : validWords) {
-            // 修复：移除\b单词边界以支持中文
-            // 使用负向前瞻和后顾断言，避免重复高亮已标记的内容
-            String escapedWord = java.util.regex.Pattern.quote(word);
-            text = text.replaceAll(
-                    "(?i)(?!<mark>)(" + escapedWord + ")(?!</mark>)",
-                    "<mark>$1</mark>"
-            );
-        }
-
-        return text;
+    private String firstFragment(Hit<Void> hit, String field) {
+        List<String> fragments = hit.highlight().get(field);
+        return fragments != null && !fragments.isEmpty() ? fragments.getFirst() : null;
     }
 
     /**
-     * 统计关键字出现次数（优化版：缓存toLowerCase结果）
+     * 统计高亮片段中的命中数（相邻的切分词条会被合并成一处高亮）
      */
-    private Integer countMatches(String content, String keyword) {
-        if (content == null || keyword == null || keyword.isEmpty()) {
+    private int countHighlights(String fragment) {
+        if (fragment == null) {
             return 0;
         }
-
         int count = 0;
-        String lowerContent = content.toLowerCase();
-        String[] words = keyword.toLowerCase().split("\\s+");
-
-        for (String word : words) {
-            if (word.isEmpty()) {
-                continue;
-            }
-            int index = 0;
-            while ((index = lowerContent.indexOf(word, index)) != -1) {
-                count++;
-                index += word.length();
-            }
+        int index = 0;
+        while ((index = fragment.indexOf(WikiSearchIndex.HIGHLIGHT_PRE_TAG, index)) != -1) {
+            count++;
+            index += WikiSearchIndex.HIGHLIGHT_PRE_TAG.length();
         }
-
         return count;
     }
-}
 
+    private long totalHits(SearchResponse<Void> response) {
+        return response.hits().total() != null ? response.hits().total().value() : response.hits().hits().size();
+    }
+}
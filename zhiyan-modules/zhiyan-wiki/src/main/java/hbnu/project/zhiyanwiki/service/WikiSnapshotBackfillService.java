@@ -0,0 +1,127 @@
+package hbnu.project.zhiyanwiki.service;
+
+import hbnu.project.zhiyanwiki.model.entity.WikiContent;
+import hbnu.project.zhiyanwiki.repository.WikiContentRepository;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Wiki版本快照补建服务
+ * 启动后在后台遍历所有页面，为快照间隔过大的已归档版本补建快照；
+ * 分布式锁保证同一时刻只有一个节点执行，全部完成后写入完成标记，之后启动的节点不再遍历
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Service
+public class WikiSnapshotBackfillService implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * 补建互斥锁
+     */
+    private static final String BACKFILL_LOCK_KEY = "wiki:snapshot:backfill-lock";
+
+    /**
+     * 补建完成标记，存在时跳过补建
+     */
+    private static final String BACKFILL_DONE_KEY = "wiki:snapshot:backfill-done";
+
+    @Resource
+    private WikiContentRepository contentRepo;
+
+    @Resource
+    private WikiContentService wikiContentService;
+
+    @Resource
+    private ObjectProvider<RedissonClient> redissonClientProvider;
+
+    @Resource(name = "scheduledExecutorService")
+    private ScheduledExecutorService scheduledExecutorService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        scheduledExecutorService.execute(this::backfillOnce);
+    }
+
+    /**
+     * 未完成过补建且没有其他节点正在补建时执行补建，全部页面成功后写入完成标记
+     */
+    private void backfillOnce() {
+        RedissonClient redissonClient = redissonClientProvider.getIfAvailable();
+        if (redissonClient == null) {
+            // 未配置 Redis 时只能按单节点处理，每次启动都检查一遍
+            backfillAll();
+            return;
+        }
+        RBucket<String> doneMarker = redissonClient.getBucket(BACKFILL_DONE_KEY);
+        if (doneMarker.isExists()) {
+            log.debug("版本快照已补建完成，跳过");
+            return;
+        }
+        RLock lock = redissonClient.getLock(BACKFILL_LOCK_KEY);
+        if (!lock.tryLock()) {
+            log.info("其他节点正在补建版本快照，跳过");
+            return;
+        }
+        try {
+            // 获取锁期间其他节点可能刚好完成
+            if (!doneMarker.isExists() && backfillAll()) {
+                doneMarker.set(String.valueOf(System.currentTimeMillis()));
+            }
+        } catch (Exception e) {
+            log.error("版本快照补建失败", e);
+        } finally {
+            if (lock.isHeldByCurrentThread()) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 按页面ID顺序补建全部页面的快照，单个页面失败不影响其他页面
+     *
+     * @return 是否全部页面都处理成功
+     */
+    public boolean backfillAll() {
+        long startedAt = System.currentTimeMillis();
+        long lastPageId = 0;
+        int pages = 0;
+        int snapshots = 0;
+        int failed = 0;
+        while (true) {
+            List<WikiContent> batch = contentRepo.findPageIdsAfter(lastPageId, PageRequest.of(0, BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            for (WikiContent content : batch) {
+                try {
+                    int created = wikiContentService.backfillSnapshots(content.getWikiPageId());
+                    if (created > 0) {
+                        pages++;
+                        snapshots += created;
+                    }
+                } catch (Exception e) {
+                    failed++;
+                    log.error("补建版本快照失败: wikiPageId={}", content.getWikiPageId(), e);
+                }
+            }
+            lastPageId = batch.getLast().getWikiPageId();
+        }
+        log.info("版本快照补建完成: pages={}, snapshots={}, failed={}, cost={}ms",
+                pages, snapshots, failed, System.currentTimeMillis() - startedAt);
+        return failed == 0;
+    }
+}
@@ -1,9 +1,9 @@
 package hbnu.project.zhiyanwiki.utils;
 
-import hbnu.project.zhiyancommonbasic.domain.R;
 import hbnu.project.zhiyancommonbasic.exception.ServiceException;
+import hbnu.project.zhiyancommonsecurity.member.MemberAccessCache;
+import hbnu.project.zhiyancommonsecurity.member.MemberAccessDTO;
 import hbnu.project.zhiyancommonsecurity.utils.SecurityUtils;
-import hbnu.project.zhiyanwiki.client.ProjectServiceClient;
 import hbnu.project.zhiyanwiki.model.entity.WikiPage;
 import hbnu.project.zhiyanwiki.repository.WikiPageRepository;
 import lombok.RequiredArgsConstructor;
@@ -11,9 +11,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Wiki权限工具类
  * 用于检查用户对Wiki资源的访问权限
+ * 成员关系、角色和权限统一从 MemberAccessCache 获取，未命中时才批量调用项目服务
  *
  * @author ErgouTree
  */
@@ -26,7 +30,7 @@ public class WikiSecurityUtils {
     private final WikiPageRepository wikiPageRepository;
 
     @Autowired
-    private final ProjectServiceClient projectServiceClient;
+    private final MemberAccessCache memberAccessCache;
 
     /**
      * 检查当前用户是否为Wiki所属项目的成员
@@ -66,14 +70,20 @@ public class WikiSecurityUtils {
      * @return 是否为项目成员
      */
     public boolean isProjectMemberByProjectId(Long projectId, Long userId) {
-        try {
-            // 调用Project服务检查成员关系
-            R<Boolean> response = projectServiceClient.isProjectMember(projectId, userId);
-            return response.getData();
-        } catch (Exception e) {
-            log.error("检查项目成员关系失败: projectId={}, userId={}", projectId, userId, e);
-            return false;
-        }
+        return Boolean.TRUE.equals(memberAccessCache.get(projectId, userId).getMember());
+    }
+
+
+    /**
+     * 批量查询用户在多个项目中的访问信息
+     * 跨项目列表在逐条判断前调用一次，未命中的组合合并为一次远程调用
+     *
+     * @param projectIds 项目ID集合
+     * @param userId     用户ID
+     * @return 项目ID -> 访问信息
+     */
+    public Map<Long, MemberAccessDTO> getMemberAccess(Collection<Long> projectIds, Long userId) {
+        return memberAccessCache.getAll(projectIds, userId);
     }
 
 
@@ -154,13 +164,9 @@ public class WikiSecurityUtils {
         }
 
         // 项目拥有者/管理员可以删除任何页面
-        try {
-            return projectServiceClient.isProjectOwner(page.getProjectId(), userId) ||
-                    projectServiceClient.hasPermission(page.getProjectId(), userId, "WIKI_DELETE");
-        } catch (Exception e) {
-            log.error("检查删除权限失败: wikiPageId={}, userId={}", wikiPageId, userId, e);
-            return false;
-        }
+        MemberAccessDTO access = memberAccessCache.get(page.getProjectId(), userId);
+        return "OWNER".equals(access.getRoleCode()) ||
+                (access.getPermissions() != null && access.getPermissions().contains("WIKI_DELETE"));
     }
 
 
@@ -0,0 +1,108 @@
+package hbnu.project.zhiyanwiki.utils;
+
+import hbnu.project.zhiyancommonbasic.utils.JsonUtils;
+import hbnu.project.zhiyanwiki.model.dto.WikiPageTreeDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 项目Wiki目录树缓存
+ * 整棵树序列化后存入 Redis，多个节点共享；页面创建、移动、删除、重命名、排序等变更提交后递增代号失效。
+ * 缓存键带上读取时的代号，加载期间发生的失效会让代号前进，慢加载写回的旧树落在无人读取的旧键上随过期清理，
+ * 不会覆盖失效之后的数据
+ *
+ * @author ErgouTree
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WikiTreeCache {
+
+    private static final String TREE_KEY = "wiki:tree:project:";
+
+    private static final String GENERATION_KEY = "wiki:tree:generation:project:";
+
+    /**
+     * 过期时间兜底失效事件丢失的情况
+     */
+    private static final Duration TREE_TTL = Duration.ofMinutes(30);
+
+    /**
+     * 代号键过期时间，需远大于 TREE_TTL，保证代号归零时旧代号的缓存已全部过期
+     */
+    private static final Duration GENERATION_TTL = Duration.ofDays(1);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    /**
+     * 目录树变更事件，随业务事务提交后失效缓存
+     */
+    public record WikiTreeChangedEvent(Long projectId) {
+    }
+
+    /**
+     * 获取项目目录树，未命中时加载并写入缓存；Redis 不可用时直接加载
+     *
+     * @param projectId 项目ID
+     * @param loader    目录树加载函数
+     * @return 目录树（每次调用都是新的实例，调用方可以修改）
+     */
+    public List<WikiPageTreeDTO> get(Long projectId, Supplier<List<WikiPageTreeDTO>> loader) {
+        String key = null;
+        try {
+            key = TREE_KEY + projectId + ":" + currentGeneration(projectId);
+            Object cached = redisTemplate.opsForValue().get(key);
+            if (cached instanceof String json) {
+                return JsonUtils.parseArray(json, WikiPageTreeDTO.class);
+            }
+        } catch (Exception e) {
+            log.warn("读取Wiki目录树缓存失败: projectId={}, error={}", projectId, e.getMessage());
+        }
+
+        List<WikiPageTreeDTO> tree = loader.get();
+        if (key == null) {
+            return tree;
+        }
+        try {
+            redisTemplate.opsForValue().setIfAbsent(key, JsonUtils.toJsonString(tree), TREE_TTL);
+        } catch (Exception e) {
+            log.warn("写入Wiki目录树缓存失败: projectId={}, error={}", projectId, e.getMessage());
+        }
+        return tree;
+    }
+
+    /**
+     * 失效项目目录树：递增代号，旧代号下的缓存不再被读取
+     *
+     * @param projectId 项目ID
+     */
+    public void evict(Long projectId) {
+        String generationKey = GENERATION_KEY + projectId;
+        try {
+            redisTemplate.opsForValue().increment(generationKey);
+            redisTemplate.expire(generationKey, GENERATION_TTL);
+        } catch (Exception e) {
+            log.warn("失效Wiki目录树缓存失败: projectId={}, error={}", projectId, e.getMessage());
+        }
+    }
+
+    private long currentGeneration(Long projectId) {
+        Object generation = redisTemplate.opsForValue().get(GENERATION_KEY + projectId);
+        return generation instanceof Number number ? number.longValue() : 0L;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onChanged(WikiTreeChangedEvent event) {
+        if (event.projectId() != null) {
+            evict(event.projectId());
+        }
+    }
+}